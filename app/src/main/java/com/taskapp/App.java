@@ -1,11 +1,197 @@
 package com.taskapp;
 
+import java.io.IOException;
+import java.util.Map;
+import java.util.SortedMap;
+
+import com.taskapp.dataaccess.LogReport;
+import com.taskapp.dataaccess.StorageConverter;
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.exception.AppException;
+import com.taskapp.logic.ImportLogic;
+import com.taskapp.logic.ImportResult;
+import com.taskapp.logic.TaskLogic;
+import com.taskapp.logic.UserLogic;
+import com.taskapp.server.TaskServer;
 import com.taskapp.ui.TaskUI;
 
 public class App {
 
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("import")) {
+            importTasks(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("dedupe")) {
+            int removed = new TaskLogic().dedupe(); // 重複したタスクの行を取り除く
+            System.out.printf("重複していた%d行を取り除きました。%n", removed);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("server")) {
+            startServer(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("convert")) {
+            convertStorage(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("partition")) {
+            partitionLogs();
+            return;
+        }
+        if (args.length > 0 && args[0].equals("report")) {
+            printReport();
+            return;
+        }
+        if (args.length > 0 && args[0].equals("counts")) {
+            printCounts(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("hash-passwords")) {
+            hashPasswords();
+            return;
+        }
         TaskUI ui = new TaskUI();
         ui.displayMenu();
     }
+
+    /**
+     * CSVファイルのタスクを一括登録します。
+     * 使い方：import &lt;CSVファイルのパス&gt; &lt;登録するユーザーのコード&gt;
+     *
+     * @param args コマンドライン引数
+     */
+    private static void importTasks(String[] args) {
+        if (args.length != 3 || !args[2].matches("\\d+")) {
+            System.out.println("使い方：import <CSVファイルのパス> <登録するユーザーのコード>");
+            return;
+        }
+        try {
+            ImportResult result = new ImportLogic().importTasks(args[1], Integer.parseInt(args[2]));
+            for (String error : result.getErrors()) {
+                System.out.println(error); // 登録できなかった行を表示
+            }
+            System.out.printf("%d件のタスクを登録しました。（エラー：%d件、処理時間：%.2f秒、%.0f行/秒）%n",
+                    result.getImportedCount(), result.getErrors().size(),
+                    result.getElapsedNanos() / 1_000_000_000.0, result.getRowsPerSecond());
+        } catch (AppException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * タスクを操作するHTTP APIのサーバーを起動します。
+     * 使い方：server [ポート番号]（省略した場合は8080）
+     *
+     * @param args コマンドライン引数
+     */
+    private static void startServer(String[] args) {
+        if (args.length > 2 || (args.length == 2 && !args[1].matches("\\d+"))) {
+            System.out.println("使い方：server [ポート番号]");
+            return;
+        }
+        int port = args.length == 2 ? Integer.parseInt(args[1]) : 8080;
+        try {
+            TaskServer server = new TaskServer(port, new UserLogic(), new TaskLogic());
+            server.start();
+            System.out.printf("ポート%dで要求の受け付けを開始しました。%n", server.getPort());
+        } catch (IOException e) {
+            System.out.println("サーバーを起動できませんでした：" + e.getMessage());
+        }
+    }
+
+    /**
+     * タスクとログの保存形式を変換します。変換後は-Dtaskapp.storageに変換先の形式を指定して起動してください。
+     * 使い方：convert &lt;binary|csv&gt;（binaryはCSVからバイナリ形式へ、csvはバイナリ形式からCSVへ変換する）
+     *
+     * @param args コマンドライン引数
+     */
+    private static void convertStorage(String[] args) {
+        if (args.length != 2 || !(args[1].equals("binary") || args[1].equals("csv"))) {
+            System.out.println("使い方：convert <binary|csv>");
+            return;
+        }
+        String taskFile = "app/src/main/resources/tasks.csv";
+        String logFile = "app/src/main/resources/logs.csv";
+        try {
+            int tasks;
+            int logs;
+            if (args[1].equals("binary")) {
+                // 追記型の更新を使っていた場合は、同じタスクコードの最後の行を残す
+                tasks = StorageConverter.tasksToBinary(taskFile, Boolean.getBoolean("taskapp.task.appendUpdates"));
+                logs = StorageConverter.logsToBinary(logFile);
+            } else {
+                tasks = StorageConverter.tasksToCsv(taskFile);
+                logs = StorageConverter.logsToCsv(logFile);
+            }
+            System.out.printf("タスク%d件、ログ%d件を変換しました。%n", tasks, logs);
+        } catch (IOException e) {
+            System.out.println("変換できませんでした：" + e.getMessage());
+        }
+    }
+
+    /**
+     * logs.csvのログを変更日の月ごとのファイルに分割します。分割後は-Dtaskapp.log.partitioned=trueを指定して起動してください。
+     * 使い方：partition（logs.csvはそのまま残す）
+     */
+    private static void partitionLogs() {
+        try {
+            int logs = StorageConverter.logsToPartitions("app/src/main/resources/logs.csv");
+            System.out.printf("ログ%d件を月ごとのファイルに分割しました。%n", logs);
+        } catch (IOException e) {
+            System.out.println("分割できませんでした：" + e.getMessage());
+        }
+    }
+
+    /**
+     * ログを集計し、ユーザーごとの処理量とサイクルタイム（未着手から完了までの日数）を表示します。
+     * 使い方：report
+     */
+    private static void printReport() {
+        long start = System.nanoTime();
+        LogReport report = new TaskLogic().analyzeLogs();
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        if (!report.getDailyCounts().isEmpty()) {
+            System.out.printf("期間：%s〜%s%n", report.getDailyCounts().firstKey(), report.getDailyCounts().lastKey());
+        }
+        System.out.printf("ログ%d件、タスク%d件、平均サイクルタイム%.1f日（処理時間：%.2f秒）%n", report.getLogCount(),
+                report.getTimelines().size(), report.getAverageCycleDays(), seconds);
+        for (LogReport.UserThroughput user : report.getUserThroughput().values()) {
+            System.out.printf("ユーザーコード%d：変更%d件、完了%d件、平均サイクルタイム%.1f日%n", user.getUserCode(),
+                    user.getChangeCount(), user.getCompletedCount(), user.getAverageCycleDays());
+        }
+    }
+
+    /**
+     * 担当ユーザーごとに、ステータスごとのタスク数を表示します。
+     * 使い方：counts [rebuild]（rebuildを指定した場合はタスクのファイルから数え直す）
+     *
+     * @param args コマンドライン引数
+     */
+    private static void printCounts(String[] args) {
+        if (args.length > 2 || (args.length == 2 && !args[1].equals("rebuild"))) {
+            System.out.println("使い方：counts [rebuild]");
+            return;
+        }
+        TaskLogic taskLogic = new TaskLogic();
+        SortedMap<Integer, int[]> counts = args.length == 2 ? taskLogic.recountByRepUser() : taskLogic.countByRepUser();
+        for (Map.Entry<Integer, int[]> entry : counts.entrySet()) {
+            int[] statuses = entry.getValue();
+            System.out.printf("ユーザーコード%d：未着手%d件、着手中%d件、完了%d件%n", entry.getKey(), statuses[0], statuses[1],
+                    statuses[2]);
+        }
+    }
+
+    /**
+     * users.csvの平文のパスワードをソルト付きのハッシュ値に変換します。反復回数は-Dtaskapp.password.iterationsで変更できます。
+     * 使い方：hash-passwords（変換済みの行はそのまま残す）
+     */
+    private static void hashPasswords() {
+        try {
+            int count = new UserDataAccess().hashPasswords();
+            System.out.printf("パスワード%d件を変換しました。%n", count);
+        } catch (IOException e) {
+            System.out.println("変換できませんでした：" + e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,244 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.taskapp.model.Log;
+
+/**
+ * ログを固定長のバイナリ形式で保存するストレージです（-Dtaskapp.storage=binary）。
+ * logs.csvに対してlogs.binを使います。
+ *
+ * <p>8バイトのヘッダー（マジックナンバーと予約領域）に続き、1件16バイトのレコードを並べます。
+ * レコードはタスクコード、変更したユーザーコード、ステータス、変更日（1970-01-01からの日数）の4つのint（ビッグエンディアン）です。
+ * 追記は呼び出したスレッドで1回の書き込みとして行い、削除は一時ファイルに書き出してから置き換えます。
+ */
+final class BinaryLogStore {
+    static final int MAGIC = 0x4C4F4731; // logs.binのマジックナンバー（"LOG1"）
+    static final int HEADER_SIZE = 8;    // ヘッダーのバイト数
+    static final int RECORD_SIZE = 16;   // 1件のレコードのバイト数
+
+    private final Path path;            // レコードのファイル（logs.bin）
+    private final ReentrantLock writer; // 追記と書き換えの排他制御用（同じファイルを扱うインスタンスで共有する）
+
+    /**
+     * @param csvPath logs.csvのパス（拡張子を.binに変えたファイルを使います）
+     */
+    BinaryLogStore(String csvPath) {
+        String base = csvPath.endsWith(".csv") ? csvPath.substring(0, csvPath.length() - 4) : csvPath;
+        this.path = Paths.get(base + ".bin");
+        this.writer = StripedLocks.forFile(path.toString()).writer();
+    }
+
+    /**
+     * ログをファイルの末尾に1回の書き込みで追記します。
+     *
+     * @param logs 追記するログ
+     * @throws IOException ファイルの書き込みに失敗した場合
+     */
+    void appendAll(List<Log> logs) throws IOException {
+        ByteBuffer records = ByteBuffer.allocate(logs.size() * RECORD_SIZE);
+        for (Log log : logs) {
+            encode(records, log);
+        }
+        records.flip();
+        writer.lock();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            BinaryTaskStore.checkHeader(channel, path, MAGIC);
+            if (size < HEADER_SIZE) {
+                BinaryTaskStore.writeFully(channel, header(), 0); // 新しいファイル
+                size = HEADER_SIZE;
+            }
+            BinaryTaskStore.writeFully(channel, records, size);
+        } finally {
+            writer.unlock();
+        }
+    }
+
+    /**
+     * 全てのログをファイルの順に読み込みます。
+     *
+     * @return ログのリスト
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    List<Log> findAll() throws IOException {
+        ByteBuffer records = readAll();
+        List<Log> logs = new ArrayList<>(records.remaining() / RECORD_SIZE);
+        while (records.remaining() >= RECORD_SIZE) {
+            logs.add(new Log(records.getInt(), records.getInt(), records.getInt(),
+                    LocalDate.ofEpochDay(records.getInt())));
+        }
+        return logs;
+    }
+
+    /**
+     * 全てのログをレコードの範囲に分けて並列に読み込み、集計します。
+     *
+     * @param minChunkBytes 分割する最小のバイト数
+     * @return 集計結果
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    LogReport analyze(long minChunkBytes) throws IOException {
+        return LogAnalyzer.analyze(recordCount(), Math.max(1, minChunkBytes / RECORD_SIZE), this::read);
+    }
+
+    /**
+     * 全てのログをLogを作らずにファイルの順に読み込みます。
+     *
+     * @param sink 各ログを受け取る処理（位置はレコードの番号です）
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    void forEach(LogAnalyzer.LogSink sink) throws IOException {
+        read(0, recordCount(), sink);
+    }
+
+    /**
+     * 指定した番号以降のログを、Logを作らずにファイルの順に読み込みます。
+     *
+     * @param from 最初に読み込むレコードの番号
+     * @param sink 各ログを受け取る処理（位置はレコードの番号です）
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    void forEach(long from, LogAnalyzer.LogSink sink) throws IOException {
+        read(from, recordCount(), sink);
+    }
+
+    /**
+     * 現時点のレコードの件数を返します。この後の追記は含めません。
+     */
+    long recordCount() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            BinaryTaskStore.checkHeader(channel, path, MAGIC);
+            return Math.max(0, channel.size() - HEADER_SIZE) / RECORD_SIZE;
+        } catch (NoSuchFileException e) {
+            return 0; // まだ1件も保存されていない
+        }
+    }
+
+    /**
+     * [from, to)の番号のレコードを読み込みます。ファイルの位置の代わりにレコードの番号を渡します。
+     */
+    private void read(long from, long to, LogAnalyzer.LogSink sink) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 4096);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long record = from;
+            while (record < to) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), (to - record) * RECORD_SIZE));
+                long position = HEADER_SIZE + record * RECORD_SIZE;
+                while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) > 0) {
+                    // バッファが埋まるまで読み込む
+                }
+                buffer.flip();
+                if (buffer.remaining() < RECORD_SIZE) {
+                    break; // ファイルが短くなっている
+                }
+                while (buffer.remaining() >= RECORD_SIZE) {
+                    sink.accept(buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt(), record++);
+                }
+            }
+        }
+    }
+
+    /**
+     * 指定したタスクコードのログを取り除いたファイルを一時ファイルに書き出します。
+     * 確定または破棄するまで追記を止めます。
+     *
+     * @param taskCodes 削除するログのタスクコード
+     * @param release   確定または破棄した後に実行する処理（呼び出し側が取得したロックの解放）
+     * @return 確定または破棄する必要がある書き換え
+     * @throws IOException ファイルの読み書きに失敗した場合
+     */
+    FileRewrite prepareDelete(Set<Integer> taskCodes, Runnable release) throws IOException {
+        writer.lock();
+        Runnable unlock = () -> {
+            writer.unlock();
+            release.run();
+        };
+        try {
+            ByteBuffer records = readAll();
+            ByteBuffer kept = ByteBuffer.allocate(HEADER_SIZE + records.remaining());
+            kept.put(header());
+            boolean removed = false;
+            while (records.remaining() >= RECORD_SIZE) {
+                int start = records.position();
+                records.position(start + RECORD_SIZE);
+                if (taskCodes.contains(records.getInt(start))) {
+                    removed = true; // 削除対象のログは書き込まない
+                } else {
+                    kept.put(records.array(), start, RECORD_SIZE);
+                }
+            }
+            kept.flip();
+            Path temp = BinaryTaskStore.writeTemp(path, kept);
+            return new FileRewrite(path, temp, removed, () -> { }, unlock);
+        } catch (IOException | RuntimeException e) {
+            unlock.run();
+            throw e;
+        }
+    }
+
+    /**
+     * ファイルの内容を指定したログで置き換えます。CSVからの変換に使います。
+     *
+     * @param logs 保存するログ
+     * @throws IOException ファイルの書き込みに失敗した場合
+     */
+    void replaceAll(List<Log> logs) throws IOException {
+        ByteBuffer records = ByteBuffer.allocate(HEADER_SIZE + logs.size() * RECORD_SIZE);
+        records.put(header());
+        for (Log log : logs) {
+            encode(records, log);
+        }
+        records.flip();
+        writer.lock();
+        try {
+            Files.move(BinaryTaskStore.writeTemp(path, records), path, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            writer.unlock();
+        }
+    }
+
+    /**
+     * ヘッダーを除く全てのレコードを読み込みます。書きかけのレコードは含めません。
+     */
+    private ByteBuffer readAll() throws IOException {
+        writer.lock();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            BinaryTaskStore.checkHeader(channel, path, MAGIC);
+            long records = Math.max(0, channel.size() - HEADER_SIZE) / RECORD_SIZE;
+            ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(records * RECORD_SIZE));
+            while (buffer.hasRemaining() && channel.read(buffer, HEADER_SIZE + buffer.position()) > 0) {
+                // 全てのレコードを読み終えるまで繰り返す
+            }
+            return buffer.flip();
+        } catch (NoSuchFileException e) {
+            return ByteBuffer.allocate(0); // まだ1件も保存されていない
+        } finally {
+            writer.unlock();
+        }
+    }
+
+    private static void encode(ByteBuffer buffer, Log log) {
+        buffer.putInt(log.getTaskCode()).putInt(log.getChangeUserCode()).putInt(log.getStatus())
+                .putInt(Math.toIntExact(log.getChangeDate().toEpochDay()));
+    }
+
+    private static ByteBuffer header() {
+        return ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(0).flip();
+    }
+}
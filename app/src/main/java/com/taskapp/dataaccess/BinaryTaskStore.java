@@ -0,0 +1,627 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * タスクを固定長のバイナリ形式で保存するストレージです（-Dtaskapp.storage=binary）。
+ * tasks.csvに対してtasks.binとtasks.namesの2つのファイルを使います。
+ *
+ * <ul>
+ * <li>tasks.bin：8バイトのヘッダー（マジックナンバーと予約領域）に続き、1件20バイトのレコードを並べます。
+ *     レコードはコード、タスク名の番号、ステータス、担当ユーザーコード、バージョンの5つのint（ビッグエンディアン）です。</li>
+ * <li>tasks.names：4バイトのマジックナンバーに続き、タスク名を2バイトの長さとUTF-8のバイト列で追記していく辞書です。
+ *     タスク名の番号は辞書の先頭からの順番で、同じタスク名は同じ番号を共有します。</li>
+ * </ul>
+ * レコードが固定長のため、更新はレコードを書き換えるだけでファイル全体を書き直しません。
+ * 文字列の分割と数値の変換が不要で、タスク名にカンマを含めることもできます。
+ *
+ * <p>削除と重複の除去は一時ファイルに書き出してから置き換えます。辞書は追記のみで、削除したタスクの名前も残ります。
+ * 排他制御はTaskDataAccessと同じロックの組を使い、書き込みと索引の参照はwriter、ファイル全体の書き換えはfileLockの書き込みロックで保護します。
+ */
+final class BinaryTaskStore {
+    static final int MAGIC = 0x54534B31;       // tasks.binのマジックナンバー（"TSK1"）
+    static final int HEADER_SIZE = 8;          // ヘッダーのバイト数
+    static final int RECORD_SIZE = 20;         // 1件のレコードのバイト数
+    private static final int NAMES_MAGIC = 0x544E4D31; // tasks.namesのマジックナンバー（"TNM1"）
+    private static final int READ_CHUNK = 4096; // 一覧の読み込みで1回に読むレコード数
+
+    private final Path path;          // レコードのファイル（tasks.bin）
+    private final Path namesPath;     // タスク名の辞書のファイル（tasks.names）
+    private final StripedLocks locks; // 同じファイルを扱うインスタンスで共有するロック
+    private final ReentrantLock writer; // 書き込みと索引・辞書の参照の排他制御用
+
+    // 以下はwriterで保護する
+    private Map<Integer, Integer> index; // タスクコード→レコード番号（同じコードが複数ある場合は最初のレコード、無効な場合はnull）
+    private long indexSize;              // indexが対応しているファイルのサイズ
+    private long indexModified;          // indexが対応しているファイルの更新日時
+    private volatile String[] names = new String[16]; // タスク名の番号→タスク名（番号の小さい順に追記のみ）
+    private int nameCount;                            // 読み込み済みのタスク名の数
+    private final Map<String, Integer> nameIds = new HashMap<>(); // タスク名→番号
+    private long namesLoaded;                         // 辞書ファイルを読み込み済みのバイト数
+
+    /**
+     * @param csvPath tasks.csvのパス（拡張子を.binと.namesに変えたファイルを使います）
+     * @param locks   TaskDataAccessと共有するロックの組
+     */
+    BinaryTaskStore(String csvPath, StripedLocks locks) {
+        String base = csvPath.endsWith(".csv") ? csvPath.substring(0, csvPath.length() - 4) : csvPath;
+        this.path = Paths.get(base + ".bin");
+        this.namesPath = Paths.get(base + ".names");
+        this.locks = locks;
+        this.writer = locks.writer();
+    }
+
+    /**
+     * @return レコードのファイル（tasks.bin）のパス
+     */
+    Path path() {
+        return path;
+    }
+
+    /**
+     * 全てのタスクをファイルの順に読み込みます。
+     *
+     * @param users 担当ユーザーコードからユーザーを返す処理（nullを返したタスクは含めません）
+     * @return タスクのリスト
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    List<Task> findAll(IntFunction<User> users) throws IOException {
+        ByteBuffer records;
+        String[] dictionary;
+        writer.lock();
+        try {
+            records = read(HEADER_SIZE, Integer.MAX_VALUE);
+            dictionary = names();
+        } finally {
+            writer.unlock();
+        }
+        List<Task> tasks = new ArrayList<>(records.remaining() / RECORD_SIZE);
+        while (records.remaining() >= RECORD_SIZE) {
+            Task task = decode(records, dictionary, users);
+            if (task != null) {
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * 全てのタスクをファイルの順に読み込み、Taskを作らずに表に格納します。
+     *
+     * @param users 担当ユーザーコードからユーザーを返す処理（nullを返したタスクは含めません）
+     * @return タスクの表
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    TaskTable findTable(IntFunction<User> users) throws IOException {
+        ByteBuffer records;
+        String[] dictionary;
+        writer.lock();
+        try {
+            records = read(HEADER_SIZE, Integer.MAX_VALUE);
+            dictionary = names();
+        } finally {
+            writer.unlock();
+        }
+        TaskTable.Builder table = new TaskTable.Builder(users);
+        while (records.remaining() >= RECORD_SIZE) {
+            int code = records.getInt();
+            String name = dictionary[records.getInt()];
+            int status = records.getInt();
+            table.add(code, name, status, records.getInt(), records.getInt());
+        }
+        return table.build();
+    }
+
+    /**
+     * 指定した位置から1ページ分のタスクを読み込みます。
+     *
+     * @param offset 読み込み開始位置（レコードの途中を指している場合は次のレコードから読み込みます）
+     * @param limit  1ページの件数
+     * @param users  担当ユーザーコードからユーザーを返す処理（nullを返したタスクは読み飛ばします）
+     * @return 1ページ分のタスクと次のページの開始位置
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    TaskPage findPage(long offset, int limit, IntFunction<User> users) throws IOException {
+        long position = offset <= HEADER_SIZE ? HEADER_SIZE
+                : HEADER_SIZE + (offset - HEADER_SIZE + RECORD_SIZE - 1) / RECORD_SIZE * RECORD_SIZE;
+        List<Task> tasks = new ArrayList<>(limit);
+        while (true) {
+            ByteBuffer records;
+            String[] dictionary;
+            writer.lock();
+            try {
+                records = read(position, READ_CHUNK);
+                dictionary = names();
+            } finally {
+                writer.unlock();
+            }
+            if (records.remaining() < RECORD_SIZE) {
+                return new TaskPage(tasks, -1); // ファイルの終わり
+            }
+            while (records.remaining() >= RECORD_SIZE) {
+                Task task = decode(records, dictionary, users);
+                if (task != null) {
+                    if (tasks.size() == limit) {
+                        return new TaskPage(tasks, position); // 次のページの最初のレコード
+                    }
+                    tasks.add(task);
+                }
+                position += RECORD_SIZE;
+            }
+        }
+    }
+
+    /**
+     * 指定したタスクコードのタスクを索引から引いて、そのレコードだけを読み込みます。
+     *
+     * @param code  タスクコード
+     * @param users 担当ユーザーコードからユーザーを返す処理
+     * @return 該当するタスク、存在しないか担当ユーザーが存在しない場合はnull
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    Task findByCode(int code, IntFunction<User> users) throws IOException {
+        ByteBuffer record;
+        String[] dictionary;
+        writer.lock();
+        try {
+            Integer slot = index().get(code);
+            if (slot == null) {
+                return null;
+            }
+            record = read(position(slot), 1);
+            dictionary = names();
+        } finally {
+            writer.unlock();
+        }
+        return record.remaining() == RECORD_SIZE ? decode(record, dictionary, users) : null;
+    }
+
+    /**
+     * タスクコードの集合を返します。
+     *
+     * @return 登録済みのタスクコード（呼び出し側で変更できる複製）
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    Set<Integer> codes() throws IOException {
+        writer.lock();
+        try {
+            return new HashSet<>(index().keySet());
+        } finally {
+            writer.unlock();
+        }
+    }
+
+    /**
+     * 指定したタスクコードのタスクが登録済みかを判定します。
+     *
+     * @param code タスクコード
+     * @return 登録済みの場合はtrue
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    boolean exists(int code) throws IOException {
+        writer.lock();
+        try {
+            return index().containsKey(code);
+        } finally {
+            writer.unlock();
+        }
+    }
+
+    /**
+     * タスクをファイルの末尾に追記します。既に登録されているタスクコードかは確認しません。
+     *
+     * @param tasks 追記するタスク
+     * @throws IOException ファイルの書き込みに失敗した場合
+     */
+    void appendAll(List<Task> tasks) throws IOException {
+        writer.lock();
+        try {
+            Map<Integer, Integer> current = currentIndex(); // 追記前の時点で有効な索引
+            ByteBuffer records = ByteBuffer.allocate(bufferSize(tasks.size(), 0));
+            for (Task task : tasks) {
+                encode(records, task, nameId(task.getName()), task.getVersion());
+            }
+            records.flip();
+            long start;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                start = Math.max(channel.size(), HEADER_SIZE);
+                if (channel.size() < HEADER_SIZE) {
+                    writeFully(channel, header(), 0); // 新しいファイル
+                }
+                writeFully(channel, records, start);
+            }
+            if (current != null) { // 追記したレコードを索引に反映する（既存のコードは最初のレコードのまま）
+                int slot = (int) ((start - HEADER_SIZE) / RECORD_SIZE);
+                for (int i = 0; i < tasks.size(); i++) {
+                    current.putIfAbsent(tasks.get(i).getCode(), slot + i);
+                }
+                remember();
+            }
+        } finally {
+            writer.unlock();
+        }
+    }
+
+    /**
+     * 保存されているバージョンがupdateTaskのバージョンと一致する場合だけ、タスクのレコードを書き換えます。
+     * 成功した場合はバージョンを1増やして保存し、updateTaskのバージョンも更新後の値にします。
+     *
+     * @param updateTask 更新するタスク
+     * @throws IOException ファイルの読み書きに失敗した場合
+     * @throws VersionConflictException バージョンが一致しない、またはタスクが存在しない場合
+     */
+    void update(Task updateTask) throws IOException {
+        int expected = updateTask.getVersion();
+        writer.lock();
+        try {
+            Integer slot = index().get(updateTask.getCode());
+            ByteBuffer stored = slot != null ? read(position(slot), 1) : ByteBuffer.allocate(0);
+            int actual = stored.remaining() == RECORD_SIZE ? stored.getInt(16) : -1;
+            if (actual != expected) {
+                throw new VersionConflictException(updateTask.getCode(), expected, actual);
+            }
+            ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+            encode(record, updateTask, nameId(updateTask.getName()), expected + 1);
+            record.flip();
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                writeFully(channel, record, position(slot)); // レコードの位置は変わらないため索引はそのまま使える
+            }
+            updateTask.setVersion(expected + 1);
+            remember();
+        } finally {
+            writer.unlock();
+        }
+    }
+
+    /**
+     * 条件に一致するレコードを取り除いたファイルを一時ファイルに書き出します。
+     * 確定または破棄するまでfileLockの書き込みロックとwriterを保持します。
+     *
+     * @param remove タスクコードを受け取り、取り除く場合にtrueを返す条件（ファイルの順に呼び出します）
+     * @return 確定または破棄する必要がある書き換え
+     * @throws IOException ファイルの読み書きに失敗した場合
+     */
+    FileRewrite prepareRewrite(IntPredicate remove) throws IOException {
+        Lock exclusive = locks.fileLock().writeLock(); // タスク単位の操作の完了を待ち、確定または破棄するまで保持する
+        exclusive.lock();
+        writer.lock();
+        Runnable release = () -> {
+            writer.unlock();
+            exclusive.unlock();
+        };
+        try {
+            ByteBuffer records = read(HEADER_SIZE, Integer.MAX_VALUE);
+            ByteBuffer kept = ByteBuffer.allocate(HEADER_SIZE + records.remaining());
+            kept.put(header());
+            boolean removed = false;
+            while (records.remaining() >= RECORD_SIZE) {
+                int start = records.position();
+                records.position(start + RECORD_SIZE);
+                if (remove.test(records.getInt(start))) {
+                    removed = true; // 取り除くレコードは書き込まない
+                } else {
+                    kept.put(records.array(), start, RECORD_SIZE);
+                }
+            }
+            kept.flip();
+            Path temp = writeTemp(path, kept);
+            return new FileRewrite(path, temp, removed, this::invalidate, release);
+        } catch (IOException | RuntimeException e) {
+            release.run();
+            throw e;
+        }
+    }
+
+    /**
+     * ファイルの内容を指定したタスクで置き換えます。タスク名の辞書も作り直します。
+     * CSVからの変換に使います。
+     *
+     * @param tasks 保存するタスク
+     * @throws IOException ファイルの書き込みに失敗した場合
+     */
+    void replaceAll(List<Task> tasks) throws IOException {
+        Lock exclusive = locks.fileLock().writeLock();
+        exclusive.lock();
+        writer.lock();
+        try {
+            Map<String, Integer> ids = new HashMap<>();
+            ByteBuffer dictionary = ByteBuffer.allocate(1 << 12);
+            dictionary.putInt(NAMES_MAGIC);
+            ByteBuffer records = ByteBuffer.allocate(bufferSize(tasks.size(), HEADER_SIZE));
+            records.put(header());
+            for (Task task : tasks) {
+                Integer id = ids.get(task.getName());
+                if (id == null) {
+                    id = ids.size();
+                    ids.put(task.getName(), id);
+                    byte[] bytes = nameBytes(task.getName());
+                    if (dictionary.remaining() < 2 + bytes.length) {
+                        dictionary = grow(dictionary, 2 + bytes.length);
+                    }
+                    dictionary.putShort((short) bytes.length).put(bytes);
+                }
+                encode(records, task, id, task.getVersion());
+            }
+            dictionary.flip();
+            records.flip();
+            Path namesTemp = writeTemp(namesPath, dictionary);
+            Path recordsTemp;
+            try {
+                recordsTemp = writeTemp(path, records);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(namesTemp);
+                throw e;
+            }
+            // 両方を書き出してから辞書、レコードの順に置き換える
+            Files.move(namesTemp, namesPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(recordsTemp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            invalidate();
+            nameIds.clear();
+            names = new String[16];
+            nameCount = 0;
+            namesLoaded = 0;
+        } finally {
+            writer.unlock();
+            exclusive.unlock();
+        }
+    }
+
+    /**
+     * ファイル全体を書き直した後に索引を破棄します。writerを取得した状態で呼び出してください。
+     */
+    private void invalidate() {
+        index = null;
+    }
+
+    /**
+     * 索引がファイルの現在の状態に対応していればそれを返します。writerを取得した状態で呼び出してください。
+     */
+    private Map<Integer, Integer> currentIndex() throws IOException {
+        if (index != null) {
+            BasicFileAttributes attrs = attributes();
+            if (attrs == null || attrs.size() != indexSize || attrs.lastModifiedTime().toMillis() != indexModified) {
+                index = null; // 他のインスタンスがファイルを変更した
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 現在のファイルに対応する索引を返します。無効な場合は全てのレコードのタスクコードを読んで作り直します。
+     * writerを取得した状態で呼び出してください。
+     */
+    private Map<Integer, Integer> index() throws IOException {
+        if (currentIndex() == null) {
+            ByteBuffer records = read(HEADER_SIZE, Integer.MAX_VALUE);
+            Map<Integer, Integer> codes = new HashMap<>(Math.max(16, records.remaining() / RECORD_SIZE * 4 / 3));
+            for (int slot = 0; records.remaining() >= RECORD_SIZE; slot++) {
+                codes.putIfAbsent(records.getInt(records.position()), slot);
+                records.position(records.position() + RECORD_SIZE);
+            }
+            index = codes;
+            remember();
+        }
+        return index;
+    }
+
+    /**
+     * 索引が対応しているファイルのサイズと更新日時を記録します。writerを取得した状態で呼び出してください。
+     */
+    private void remember() throws IOException {
+        BasicFileAttributes attrs = attributes();
+        indexSize = attrs != null ? attrs.size() : 0;
+        indexModified = attrs != null ? attrs.lastModifiedTime().toMillis() : 0;
+    }
+
+    private BasicFileAttributes attributes() throws IOException {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null; // まだ1件も保存されていない
+        }
+    }
+
+    /**
+     * 指定した位置から最大count件のレコードを読み込みます。ファイルが存在しない場合は空のバッファを返します。
+     * 書きかけのレコードは含めません。writerを取得した状態で呼び出してください。
+     */
+    private ByteBuffer read(long position, int count) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            checkHeader(channel, path, MAGIC);
+            long available = Math.max(0, channel.size() - position) / RECORD_SIZE;
+            ByteBuffer buffer = ByteBuffer.allocate(bufferSize(Math.min(available, count), 0));
+            while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) > 0) {
+                // 指定した件数を読み終えるまで繰り返す
+            }
+            buffer.flip();
+            return buffer;
+        } catch (NoSuchFileException e) {
+            return ByteBuffer.allocate(0);
+        }
+    }
+
+    /**
+     * 読み込み済みのタスク名の配列を返します。他のインスタンスが辞書に追記していれば続きを読み込みます。
+     * writerを取得した状態で呼び出してください。返した配列の要素は読み込んだレコードが指す番号まで有効です。
+     */
+    private String[] names() throws IOException {
+        long size;
+        try {
+            size = Files.size(namesPath);
+        } catch (NoSuchFileException e) {
+            return names;
+        }
+        if (size > namesLoaded) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) (size - namesLoaded));
+            try (FileChannel channel = FileChannel.open(namesPath, StandardOpenOption.READ)) {
+                while (buffer.hasRemaining() && channel.read(buffer, namesLoaded + buffer.position()) > 0) {
+                    // 追記された部分を読み終えるまで繰り返す
+                }
+            }
+            buffer.flip();
+            if (namesLoaded == 0) {
+                if (buffer.remaining() < 4 || buffer.getInt() != NAMES_MAGIC) {
+                    throw new IOException(namesPath + "はタスク名の辞書ではありません");
+                }
+                namesLoaded = 4;
+            }
+            while (buffer.remaining() >= 2) {
+                int length = buffer.getShort(buffer.position()) & 0xFFFF;
+                if (buffer.remaining() < 2 + length) {
+                    break; // 書きかけの項目は次回読み込む
+                }
+                buffer.position(buffer.position() + 2);
+                String name = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + length);
+                addName(name);
+                namesLoaded += 2 + length;
+            }
+        }
+        return names;
+    }
+
+    /**
+     * タスク名の番号を返します。辞書にないタスク名は辞書ファイルに追記します。writerを取得した状態で呼び出してください。
+     */
+    private int nameId(String name) throws IOException {
+        names(); // 他のインスタンスが追記したタスク名を先に読み込む
+        Integer id = nameIds.get(name);
+        if (id != null) {
+            return id;
+        }
+        byte[] bytes = nameBytes(name);
+        ByteBuffer entry = ByteBuffer.allocate((namesLoaded == 0 ? 4 : 0) + 2 + bytes.length);
+        if (namesLoaded == 0) {
+            entry.putInt(NAMES_MAGIC); // 新しい辞書
+        }
+        entry.putShort((short) bytes.length).put(bytes).flip();
+        try (FileChannel channel = FileChannel.open(namesPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            writeFully(channel, entry, namesLoaded);
+        }
+        namesLoaded += entry.limit();
+        return addName(name);
+    }
+
+    private int addName(String name) {
+        String[] current = names;
+        if (nameCount == current.length) {
+            current = Arrays.copyOf(current, nameCount * 2);
+        }
+        current[nameCount] = name;
+        names = current; // 要素を書き込んでから公開する
+        nameIds.putIfAbsent(name, nameCount);
+        return nameCount++;
+    }
+
+    private static byte[] nameBytes(String name) throws IOException {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("タスク名が長すぎるため保存できません");
+        }
+        return bytes;
+    }
+
+    /**
+     * レコードを1件書き込みます。
+     */
+    private static void encode(ByteBuffer buffer, Task task, int nameId, int version) {
+        buffer.putInt(task.getCode()).putInt(nameId).putInt(task.getStatus())
+                .putInt(task.getRepUser().getCode()).putInt(version);
+    }
+
+    /**
+     * レコードを1件読み込み、担当ユーザーが存在する場合はタスクに変換します。
+     */
+    private static Task decode(ByteBuffer buffer, String[] dictionary, IntFunction<User> users) {
+        int code = buffer.getInt();
+        int nameId = buffer.getInt();
+        int status = buffer.getInt();
+        User repUser = users.apply(buffer.getInt());
+        int version = buffer.getInt();
+        return repUser != null ? new Task(code, dictionary[nameId], status, repUser, version) : null;
+    }
+
+    /**
+     * ファイルの先頭のマジックナンバーを確認します。空のファイルは新しいファイルとして扱います。
+     */
+    static void checkHeader(FileChannel channel, Path file, int magic) throws IOException {
+        if (channel.size() == 0) {
+            return;
+        }
+        ByteBuffer head = ByteBuffer.allocate(4);
+        if (channel.read(head, 0) != 4 || head.getInt(0) != magic) {
+            throw new IOException(file + "は対応している形式のファイルではありません");
+        }
+    }
+
+    private static long position(int slot) {
+        return HEADER_SIZE + (long) slot * RECORD_SIZE;
+    }
+
+    /**
+     * count件のレコードにextraバイトを加えたバッファの大きさを返します。
+     * 計算はlongで行い、1つのバッファに収まらない場合はintに切り詰めずに例外にします。
+     */
+    private static int bufferSize(long count, int extra) throws IOException {
+        try {
+            return Math.toIntExact(Math.addExact(Math.multiplyExact(count, (long) RECORD_SIZE), extra));
+        } catch (ArithmeticException e) {
+            throw new IOException("レコードが" + count + "件あり、一度に読み書きできる大きさを超えています", e);
+        }
+    }
+
+    private static ByteBuffer header() {
+        return ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(0).flip();
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int needed) {
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+        buffer.flip();
+        return larger.put(buffer);
+    }
+
+    static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * 内容を同じディレクトリの一時ファイルに書き出します。
+     */
+    static Path writeTemp(Path target, ByteBuffer content) throws IOException {
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), "tasks", ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            writeFully(channel, content, 0);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        return temp;
+    }
+}
@@ -0,0 +1,109 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * 一時ファイルに書き出し済みのファイル全体の書き換えを表すクラスです。
+ * {@link #commit()}でファイル名の変更により元のファイルと置き換え、{@link #abort()}で一時ファイルを破棄します。
+ *
+ * <p>準備から確定または破棄までの間、書き換え対象のファイルへの書き込みはロックで止められています。
+ * 複数のファイルを書き換える場合は、全ての準備が成功してから順に確定することで、
+ * 途中で失敗してもどのファイルも書き換えられない状態に戻せます。
+ * 確定と破棄は準備したスレッドから呼び出してください。
+ *
+ * <p>月ごとに分けたログのように1つの書き換えで複数のファイルを置き換える場合は、確定時に順に置き換えます。
+ * 途中のファイルの置き換えに失敗した場合、それまでに置き換えたファイルは元に戻りません。
+ */
+public final class FileRewrite {
+    private final List<Path> targets;              // 書き換え対象のファイル
+    private final List<Path> temps;                // 書き換え後の内容を書き出した一時ファイル（targetsと同じ順）
+    private final boolean changed;                 // 元のファイルから取り除いた行があるか
+    private final LogAppender.FileAction onCommit; // 置き換え後に実行する処理（索引の破棄など）
+    private final Runnable release;                // 準備時に取得したロックを解放する処理
+    private boolean finished;                      // 確定または破棄済みか
+
+    FileRewrite(Path target, Path temp, boolean changed, LogAppender.FileAction onCommit, Runnable release) {
+        this(List.of(target), List.of(temp), changed, onCommit, release);
+    }
+
+    /**
+     * 複数のファイルの書き換えを作成します。取り除いた行があるファイルだけを渡してください。
+     */
+    FileRewrite(List<Path> targets, List<Path> temps, LogAppender.FileAction onCommit, Runnable release) {
+        this(targets, temps, !targets.isEmpty(), onCommit, release);
+    }
+
+    /**
+     * ファイルを置き換えず、確定時に指定した処理だけを実行する書き換えを作成します。
+     * メモリ上のリポジトリの削除や、削除マーカーの追記に使います。
+     *
+     * @param onCommit 確定時に実行する処理
+     * @return 書き換え
+     */
+    static FileRewrite inMemory(LogAppender.FileAction onCommit) {
+        return new FileRewrite(List.of(), List.of(), true, onCommit, () -> {
+        });
+    }
+
+    private FileRewrite(List<Path> targets, List<Path> temps, boolean changed, LogAppender.FileAction onCommit,
+            Runnable release) {
+        this.targets = List.copyOf(targets);
+        this.temps = List.copyOf(temps);
+        this.changed = changed;
+        this.onCommit = onCommit;
+        this.release = release;
+    }
+
+    /**
+     * 一時ファイルで元のファイルを置き換えます。取り除いた行がない場合は置き換えずに一時ファイルを破棄します。
+     *
+     * @throws IOException ファイルの置き換えに失敗した場合（元のファイルはそのまま残ります）
+     */
+    public void commit() throws IOException {
+        if (finished) {
+            return;
+        }
+        try {
+            if (changed) { // 内容が変わらない場合は書き換えない
+                for (int i = 0; i < targets.size(); i++) {
+                    Files.move(temps.get(i), targets.get(i), StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                }
+                onCommit.run();
+            }
+        } finally {
+            deleteTemp(); // 置き換えなかった、または置き換えに失敗した一時ファイルを残さない
+            finish();
+        }
+    }
+
+    /**
+     * 一時ファイルを破棄し、元のファイルを変更せずにロックを解放します。確定済みの場合は何もしません。
+     */
+    public void abort() {
+        if (finished) {
+            return;
+        }
+        deleteTemp();
+        finish();
+    }
+
+    private void deleteTemp() {
+        for (Path temp : temps) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void finish() {
+        finished = true;
+        release.run();
+    }
+}
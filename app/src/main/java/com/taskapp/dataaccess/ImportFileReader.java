@@ -0,0 +1,55 @@
+package com.taskapp.dataaccess;
+
+import java.io.BufferedReader;  // ファイル読み込みのためのクラス
+import java.io.IOException;     // 入出力例外を処理するためのクラス
+import java.nio.charset.StandardCharsets; // 文字コード指定のためのクラス
+import java.nio.file.Files;     // ファイルを開くためのクラス
+import java.nio.file.Paths;     // ファイルパスを生成するためのクラス
+
+/**
+ * 一括登録用のCSVファイルを先頭から1行ずつ読み込むクラスです。
+ * ファイル全体をメモリに読み込まず、行ごとに列へ分割して呼び出し側に渡します。
+ */
+public class ImportFileReader {
+    private final String filePath; // 読み込むCSVファイルのパス
+
+    /**
+     * @param filePath 読み込むCSVファイルのパス
+     */
+    public ImportFileReader(String filePath) {
+        this.filePath = filePath;
+    }
+
+    /**
+     * ヘッダー行を除く全ての行を順に読み込みます。空行は読み飛ばします。
+     *
+     * @param handler 各行を受け取る処理
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    public void forEachRow(RowHandler handler) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                Files.newBufferedReader(Paths.get(filePath), StandardCharsets.UTF_8), 1 << 16)) {
+            String line = reader.readLine(); // ヘッダー行を読み飛ばす
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                handler.accept(lineNumber, line.split(",", -1)); // 末尾の空の列も列数に含める
+            }
+        }
+    }
+
+    /**
+     * 読み込んだ1行を受け取る処理を表します。
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+        /**
+         * @param lineNumber ファイル上の行番号（ヘッダー行を1行目とする）
+         * @param values     カンマで分割した列の値
+         */
+        void accept(int lineNumber, String[] values);
+    }
+}
@@ -0,0 +1,128 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.taskapp.model.Log;
+
+/**
+ * ログをメモリ上のマップにだけ保持するリポジトリです。ファイルには読み書きしません。
+ * ログは保存順の番号をキーにしたConcurrentSkipListMapで保持し、{@link #endPosition(Log)}は次に保存するログの番号を返します。
+ */
+public final class InMemoryLogRepository implements LogRepository {
+    private static final long MIN_CHUNK = 1 << 16; // 集計を分割する最小の件数
+
+    private final ConcurrentNavigableMap<Long, Log> logs = new ConcurrentSkipListMap<>(); // 保存順の番号 → ログ
+    private final AtomicLong nextSeq = new AtomicLong(); // 次に保存するログの番号
+
+    /**
+     * ログのないリポジトリを作成します。
+     */
+    public InMemoryLogRepository() {
+    }
+
+    /**
+     * 指定したログを保存したリポジトリを作成します。
+     *
+     * @param logs 保存するログ
+     */
+    public InMemoryLogRepository(List<Log> logs) {
+        saveAll(logs);
+    }
+
+    @Override
+    public void save(Log log) {
+        logs.put(nextSeq.getAndIncrement(), log);
+    }
+
+    @Override
+    public void saveAll(List<Log> logs) {
+        for (Log log : logs) {
+            save(log);
+        }
+    }
+
+    @Override
+    public List<Log> findAll() {
+        return new ArrayList<>(logs.values());
+    }
+
+    @Override
+    public List<Log> find(LocalDate from, LocalDate to, Integer taskCode, Integer changeUserCode) {
+        List<Log> result = new ArrayList<>();
+        for (Log log : logs.values()) {
+            if (!log.getChangeDate().isBefore(from) && !log.getChangeDate().isAfter(to)
+                    && (taskCode == null || log.getTaskCode() == taskCode)
+                    && (changeUserCode == null || log.getChangeUserCode() == changeUserCode)) {
+                result.add(log);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long endPosition(Log log) {
+        return nextSeq.get();
+    }
+
+    @Override
+    public boolean containsSince(long position, Log log) {
+        return logs.tailMap(position).containsValue(log);
+    }
+
+    /**
+     * 保存順の番号の範囲に分けて並列に集計します。
+     */
+    @Override
+    public LogReport analyze() {
+        List<Log> snapshot = findAll(); // 集計中に保存・削除されたログは含めない
+        try {
+            return LogAnalyzer.analyze(snapshot.size(), MIN_CHUNK, (start, end, sink) -> {
+                for (int i = (int) start; i < end; i++) {
+                    Log log = snapshot.get(i);
+                    sink.accept(log.getTaskCode(), log.getChangeUserCode(), log.getStatus(),
+                            (int) log.getChangeDate().toEpochDay(), i);
+                }
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // メモリ上のログの読み込みでは発生しない
+        }
+    }
+
+    @Override
+    public void deleteByTaskCode(int taskCode) {
+        logs.values().removeIf(log -> log.getTaskCode() == taskCode);
+    }
+
+    @Override
+    public void deleteByTaskCodes(Collection<Integer> taskCodes) {
+        Set<Integer> targets = new HashSet<>(taskCodes);
+        logs.values().removeIf(log -> targets.contains(log.getTaskCode()));
+    }
+
+    /**
+     * 確定したときに削除する書き換えを返します。準備の時点では何も変更しません。
+     */
+    @Override
+    public FileRewrite prepareDeleteByTaskCodes(Collection<Integer> taskCodes) {
+        Set<Integer> targets = new HashSet<>(taskCodes);
+        return FileRewrite.inMemory(() -> deleteByTaskCodes(targets));
+    }
+
+    /**
+     * 保持しているログの件数を返します。
+     *
+     * @return ログの件数
+     */
+    public int size() {
+        return logs.size();
+    }
+}
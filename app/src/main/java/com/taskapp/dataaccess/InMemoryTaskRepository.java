@@ -0,0 +1,196 @@
+package com.taskapp.dataaccess;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * タスクをメモリ上のマップにだけ保持するリポジトリです。ファイルには読み書きしないため、
+ * ロジックの処理量をファイルの読み書きと切り離して計測する場合や、テストに使います。
+ *
+ * <p>タスクは登録順の番号をキーにしたConcurrentSkipListMapと、タスクコードから番号を引くConcurrentHashMapで保持します。
+ * タスクコードによる検索と更新はタスク数に関係なく一定の時間で済み、一覧とページの読み込みは登録順に行います。
+ * ページの読み込み位置には、次に読み込むタスクの番号を使います。
+ * 担当ユーザーは保持せず、読み込むたびにUserRepositoryから解決します（担当ユーザーが存在しないタスクは読み込みません）。
+ */
+public final class InMemoryTaskRepository implements TaskRepository {
+    private final UserRepository userRepository; // 担当ユーザーを解決するリポジトリ
+    private final ConcurrentNavigableMap<Long, Row> rows = new ConcurrentSkipListMap<>(); // 登録順の番号 → タスク
+    private final ConcurrentMap<Integer, Long> seqByCode = new ConcurrentHashMap<>();     // タスクコード → 登録順の番号
+    private final AtomicLong nextSeq = new AtomicLong();  // 次に登録するタスクの番号
+    private final StripedLocks locks = new StripedLocks(); // TaskLogicの排他制御に使うロック
+    private final TaskStatusCounters counters = TaskStatusCounters.inMemory(locks, this::findTable);
+
+    /**
+     * タスクのないリポジトリを作成します。
+     *
+     * @param userRepository 担当ユーザーを解決するリポジトリ
+     */
+    public InMemoryTaskRepository(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public StripedLocks getLocks() {
+        return locks;
+    }
+
+    @Override
+    public TaskStatusCounters getStatusCounters() {
+        return counters;
+    }
+
+    /**
+     * ファイルに書き込まないため、ジャーナルは使いません。
+     */
+    @Override
+    public TaskJournal getJournal() {
+        return null;
+    }
+
+    @Override
+    public List<Task> findAll() {
+        List<Task> tasks = new ArrayList<>(rows.size());
+        for (Row row : rows.values()) {
+            Task task = row.toTask(userRepository);
+            if (task != null) {
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+
+    @Override
+    public TaskTable findTable() {
+        TaskTable.Builder table = new TaskTable.Builder(userRepository::findByCode);
+        for (Row row : rows.values()) {
+            table.add(row.code, row.name, row.status, row.repUserCode, row.version);
+        }
+        return table.build();
+    }
+
+    @Override
+    public TaskPage findPage(long offset, int limit) {
+        List<Task> tasks = new ArrayList<>(limit);
+        for (Map.Entry<Long, Row> entry : rows.tailMap(offset).entrySet()) {
+            if (tasks.size() == limit) {
+                return new TaskPage(tasks, entry.getKey()); // 次のページはこのタスクから
+            }
+            Task task = entry.getValue().toTask(userRepository);
+            if (task != null) {
+                tasks.add(task);
+            }
+        }
+        return new TaskPage(tasks, -1);
+    }
+
+    /**
+     * タスクを追加します。タスクコードが登録済みの場合は、CSVで先に書かれた行を採用するのと同じく追加しません。
+     */
+    @Override
+    public void save(Task task) {
+        long seq = nextSeq.getAndIncrement();
+        if (seqByCode.putIfAbsent(task.getCode(), seq) == null) {
+            rows.put(seq, Row.of(task, task.getVersion()));
+        }
+    }
+
+    @Override
+    public void saveAll(List<Task> tasks) {
+        for (Task task : tasks) {
+            save(task);
+        }
+    }
+
+    @Override
+    public Set<Integer> findAllCodes() {
+        return new HashSet<>(seqByCode.keySet());
+    }
+
+    @Override
+    public boolean existsByCode(int code) {
+        return seqByCode.containsKey(code);
+    }
+
+    @Override
+    public Task findByCode(int code) {
+        Long seq = seqByCode.get(code);
+        Row row = seq != null ? rows.get(seq) : null;
+        return row != null ? row.toTask(userRepository) : null;
+    }
+
+    /**
+     * 保存されているバージョンがupdateTaskのバージョンと一致する場合だけ、マップの要素を原子的に置き換えます。
+     */
+    @Override
+    public void update(Task updateTask) {
+        int expected = updateTask.getVersion();
+        Long seq = seqByCode.get(updateTask.getCode());
+        if (seq == null || rows.computeIfPresent(seq, (key, row) -> {
+            if (row.version != expected) {
+                throw new VersionConflictException(updateTask.getCode(), expected, row.version);
+            }
+            return Row.of(updateTask, expected + 1);
+        }) == null) {
+            throw new VersionConflictException(updateTask.getCode(), expected, -1); // 削除されている
+        }
+        updateTask.setVersion(expected + 1);
+    }
+
+    @Override
+    public void delete(int code) {
+        Long seq = seqByCode.remove(code);
+        if (seq != null) {
+            rows.remove(seq);
+        }
+    }
+
+    @Override
+    public void deleteAll(Collection<Integer> codes) {
+        for (int code : codes) {
+            delete(code);
+        }
+    }
+
+    /**
+     * 確定したときに削除する書き換えを返します。準備の時点では何も変更しません。
+     */
+    @Override
+    public FileRewrite prepareDelete(Collection<Integer> codes) {
+        List<Integer> targets = List.copyOf(codes);
+        return FileRewrite.inMemory(() -> deleteAll(targets));
+    }
+
+    /**
+     * タスクコードごとに1件だけを保持するため、重複はありません。
+     */
+    @Override
+    public int dedupe() {
+        return 0;
+    }
+
+    /**
+     * 保持しているタスクの1件です。担当ユーザーはコードだけを保持します。
+     */
+    private record Row(int code, String name, int status, int repUserCode, int version) {
+        static Row of(Task task, int version) {
+            return new Row(task.getCode(), task.getName(), task.getStatus(), task.getRepUser().getCode(), version);
+        }
+
+        Task toTask(UserRepository users) {
+            User repUser = users.findByCode(repUserCode);
+            return repUser != null ? new Task(code, name, status, repUser, version) : null;
+        }
+    }
+}
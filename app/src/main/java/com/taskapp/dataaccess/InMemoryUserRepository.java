@@ -0,0 +1,77 @@
+package com.taskapp.dataaccess;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.taskapp.model.User;
+
+/**
+ * ユーザーをメモリ上のマップにだけ保持するリポジトリです。ファイルには読み書きしません。
+ * パスワードはusers.csvと同じく、変換済みの値（{@link PasswordHasher}）と平文のどちらでも照合できます。
+ */
+public final class InMemoryUserRepository implements UserRepository {
+    private final ConcurrentMap<Integer, User> byCode = new ConcurrentHashMap<>();   // ユーザーコード → ユーザー
+    private final ConcurrentMap<String, Entry> byEmail = new ConcurrentHashMap<>();  // メールアドレス → ユーザーと照合用の値
+
+    /**
+     * ユーザーのいないリポジトリを作成します。
+     */
+    public InMemoryUserRepository() {
+    }
+
+    /**
+     * 指定したユーザーを登録したリポジトリを作成します。
+     *
+     * @param users 登録するユーザー
+     */
+    public InMemoryUserRepository(List<User> users) {
+        for (User user : users) {
+            save(user);
+        }
+    }
+
+    /**
+     * ユーザーを登録します。コードまたはメールアドレスが登録済みの場合は、users.csvと同じく先に登録したユーザーを優先します。
+     *
+     * @param user 登録するユーザー
+     */
+    public void save(User user) {
+        byCode.putIfAbsent(user.getCode(), user);
+        byEmail.putIfAbsent(user.getEmail(), new Entry(user, PasswordHasher.verifier(user.getPassword())));
+    }
+
+    @Override
+    public User findByEmailAndPassword(String email, String password) {
+        Entry entry = byEmail.get(email);
+        // 見つからない場合もダミーの値と照合し、応答時間からメールアドレスの有無がわからないようにする
+        PasswordHasher.Verifier verifier = entry != null ? entry.verifier : PasswordHasher.dummy();
+        if (verifier.matches(password) && entry != null) {
+            return entry.user;
+        }
+        return null;
+    }
+
+    @Override
+    public User findByCode(int code) {
+        return byCode.get(code);
+    }
+
+    /**
+     * 全てのユーザーをユーザーコードの順に取得します。
+     */
+    @Override
+    public List<User> findAll() {
+        List<User> users = new ArrayList<>(byCode.values());
+        users.sort(Comparator.comparingInt(User::getCode));
+        return users;
+    }
+
+    /**
+     * ユーザーと解析済みのパスワードの照合用の値です。
+     */
+    private record Entry(User user, PasswordHasher.Verifier verifier) {
+    }
+}
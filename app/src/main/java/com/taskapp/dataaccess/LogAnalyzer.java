@@ -0,0 +1,241 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * ログを1回の走査で集計し、{@link LogReport}を作成するクラスです。
+ *
+ * <p>ファイルを範囲に分け、Fork/Joinで範囲ごとに並列に読み込んで集計します。範囲ごとの集計結果は、
+ * 日付の最小値や件数の合計のように読み込む順番に依存しない形で保持し、最後にまとめます。
+ * ファイル上の順番が必要な値（最後のステータス）は、行の位置を比べて決めます。
+ */
+final class LogAnalyzer {
+    /** CSVを分割する最小のバイト数（これより小さい範囲は分割しない） */
+    static final long MIN_CHUNK_BYTES = 1 << 22;
+
+    private static final int NONE = Integer.MAX_VALUE; // ログがないステータスの日付
+
+    private LogAnalyzer() {
+    }
+
+    /**
+     * 範囲を分けて並列に読み込み、集計します。
+     * Fork/Joinのスレッドから呼び出した場合はそのプール、それ以外の場合は共通プールで並列に実行します。
+     *
+     * @param length   読み込む範囲の長さ（CSVはバイト数、バイナリ形式はレコード数）
+     * @param minChunk 分割する最小の長さ
+     * @param reader   範囲内のログを読み込む処理
+     * @return 集計結果
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    static LogReport analyze(long length, long minChunk, RangeReader reader) throws IOException {
+        int parallelism = ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool().getParallelism()
+                : ForkJoinPool.getCommonPoolParallelism();
+        // スレッド間で負荷が偏らないよう、スレッド数の4倍程度の範囲に分ける
+        long chunk = Math.max(minChunk, length / (parallelism * 4L) + 1);
+        try {
+            return new Chunk(reader, 0, length, chunk).invoke().toReport();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * ログが1件もない集計結果を返します。
+     *
+     * @return 空の集計結果
+     */
+    static LogReport empty() {
+        return new Partial().toReport();
+    }
+
+    /**
+     * 読み込んだログを1件ずつ受け取る処理です。Logを作らずに各列の値を渡します。
+     */
+    @FunctionalInterface
+    interface LogSink {
+        /**
+         * @param taskCode       タスクコード
+         * @param changeUserCode 変更したユーザーコード
+         * @param status         ステータス
+         * @param epochDay       変更日（1970-01-01からの日数）
+         * @param position       ファイル上の位置（ファイルの順に大きくなる値）
+         */
+        void accept(int taskCode, int changeUserCode, int status, int epochDay, long position);
+    }
+
+    /**
+     * 指定した範囲のログを読み込む処理です。範囲の境界をまたぐログは、開始位置を含む範囲だけが読み込みます。
+     */
+    @FunctionalInterface
+    interface RangeReader {
+        /**
+         * @param start 範囲の開始位置
+         * @param end   範囲の終了位置（この位置以降に始まるログは読み込まない）
+         * @param sink  読み込んだログを受け取る処理
+         * @throws IOException ファイルの読み込みに失敗した場合
+         */
+        void read(long start, long end, LogSink sink) throws IOException;
+    }
+
+    /**
+     * 範囲を半分ずつに分けて並列に集計するタスクです。
+     */
+    private static final class Chunk extends RecursiveTask<Partial> {
+        private final RangeReader reader;
+        private final long start;
+        private final long end;
+        private final long chunk;
+
+        Chunk(RangeReader reader, long start, long end, long chunk) {
+            this.reader = reader;
+            this.start = start;
+            this.end = end;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (end - start <= chunk) {
+                Partial partial = new Partial();
+                try {
+                    reader.read(start, end, partial);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return partial;
+            }
+            long middle = start + (end - start) / 2;
+            Chunk left = new Chunk(reader, start, middle, chunk);
+            left.fork();
+            Partial right = new Chunk(reader, middle, end, chunk).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    /**
+     * 1つの範囲の集計結果です。
+     */
+    private static final class Partial implements LogSink {
+        private final Map<Integer, Timeline> timelines = new HashMap<>(); // タスクコード → ステータスの推移
+        private final Map<Integer, long[]> changes = new HashMap<>();     // ユーザーコード → ログの件数
+        private final Map<Integer, long[]> days = new HashMap<>();        // 変更日 → ログの件数
+        private long count;
+
+        @Override
+        public void accept(int taskCode, int changeUserCode, int status, int epochDay, long position) {
+            timelines.computeIfAbsent(taskCode, code -> new Timeline()).add(changeUserCode, status, epochDay, position);
+            changes.computeIfAbsent(changeUserCode, code -> new long[1])[0]++;
+            days.computeIfAbsent(epochDay, day -> new long[1])[0]++;
+            count++;
+        }
+
+        /**
+         * 他の範囲の集計結果をまとめます。件数の多い方にもう一方を加えます。
+         */
+        Partial merge(Partial other) {
+            if (other.timelines.size() > timelines.size()) {
+                return other.merge(this);
+            }
+            other.timelines.forEach((code, timeline) -> timelines.merge(code, timeline, Timeline::merge));
+            other.changes.forEach((user, n) -> changes.merge(user, n, LogAnalyzer::sum));
+            other.days.forEach((day, n) -> days.merge(day, n, LogAnalyzer::sum));
+            count += other.count;
+            return this;
+        }
+
+        LogReport toReport() {
+            SortedMap<Integer, LogReport.TaskTimeline> taskTimelines = new TreeMap<>();
+            Map<Integer, long[]> users = new HashMap<>(); // ユーザーコード → 完了件数、サイクルタイムの合計、対象件数
+            timelines.forEach((code, timeline) -> {
+                taskTimelines.put(code, timeline.toTaskTimeline(code));
+                if (timeline.completed != NONE) {
+                    long[] user = users.computeIfAbsent(timeline.completedBy, c -> new long[3]);
+                    user[0]++;
+                    if (timeline.created != NONE) {
+                        user[1] += timeline.completed - timeline.created;
+                        user[2]++;
+                    }
+                }
+            });
+            SortedMap<Integer, LogReport.UserThroughput> throughput = new TreeMap<>();
+            changes.forEach((code, n) -> {
+                long[] user = users.getOrDefault(code, new long[3]);
+                throughput.put(code, new LogReport.UserThroughput(code, n[0], user[0], user[1], user[2]));
+            });
+            SortedMap<LocalDate, Long> dailyCounts = new TreeMap<>();
+            days.forEach((day, n) -> dailyCounts.put(LocalDate.ofEpochDay(day), n[0]));
+            return new LogReport(count, taskTimelines, throughput, dailyCounts);
+        }
+    }
+
+    /**
+     * 1つのタスクのステータスの推移を集計中の状態です。
+     */
+    private static final class Timeline {
+        private int created = NONE;   // 未着手になった日
+        private int started = NONE;   // 着手中になった日
+        private int completed = NONE; // 完了になった日
+        private long completedAt;     // 完了のログの位置（同じ日の完了のログが複数ある場合は先に書かれた方を採用）
+        private int completedBy;      // 完了のログを書いたユーザー
+        private long lastAt = -1;     // 最後のログの位置
+        private int lastStatus;       // 最後のログのステータス
+        private int changeCount;      // ログの件数
+
+        void add(int user, int status, int day, long position) {
+            if (status == 0) {
+                created = Math.min(created, day);
+            } else if (status == 1) {
+                started = Math.min(started, day);
+            } else if (status == 2 && (day < completed || (day == completed && position < completedAt))) {
+                completed = day;
+                completedAt = position;
+                completedBy = user;
+            }
+            if (position > lastAt) {
+                lastAt = position;
+                lastStatus = status;
+            }
+            changeCount++;
+        }
+
+        Timeline merge(Timeline other) {
+            created = Math.min(created, other.created);
+            started = Math.min(started, other.started);
+            if (other.completed < completed || (other.completed == completed && other.completedAt < completedAt)) {
+                completed = other.completed;
+                completedAt = other.completedAt;
+                completedBy = other.completedBy;
+            }
+            if (other.lastAt > lastAt) {
+                lastAt = other.lastAt;
+                lastStatus = other.lastStatus;
+            }
+            changeCount += other.changeCount;
+            return this;
+        }
+
+        LogReport.TaskTimeline toTaskTimeline(int code) {
+            return new LogReport.TaskTimeline(code, date(created), date(started), date(completed), completedBy,
+                    lastStatus, changeCount);
+        }
+
+        private static LocalDate date(int day) {
+            return day != NONE ? LocalDate.ofEpochDay(day) : null;
+        }
+    }
+
+    private static long[] sum(long[] a, long[] b) {
+        a[0] += b[0];
+        return a;
+    }
+}
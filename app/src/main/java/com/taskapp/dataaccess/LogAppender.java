@@ -0,0 +1,296 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 複数スレッドから受け取った行をまとめてファイルに追記するクラスです（グループコミット）。
+ * 書き込み用のスレッドがキューから行を取り出し、1つのチャネルに一括で書き込みます。
+ * 呼び出し側には書き込み完了時に完了するCompletableFutureを返します。
+ *
+ * <p>書き込み用スレッドは一定時間キューが空の場合に終了し、チャネルも閉じます。次の追記で再び開始します。
+ */
+final class LogAppender {
+    private static final long IDLE_MILLIS = 1000; // この時間キューが空なら書き込み用スレッドを終了する
+
+    private final Path path;            // 追記先のファイル
+    private final int batchSize;        // 1回にまとめて書き込む最大行数
+    private final long maxLatencyNanos; // 最初の行を受け取ってから後続の行を待つ最大時間
+    private final boolean fsync;        // 一括書き込みごとにディスクへ同期するか
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final ReentrantLock channelLock = new ReentrantLock(); // チャネルへの書き込みとファイル全体の書き換えの排他制御用
+    private FileChannel channel; // 追記用のチャネル（channelLockで保護、閉じている場合はnull）
+    private Object fileKey;      // チャネルを開いた時点のファイルの識別子（channelLockで保護）
+    private Thread writer;       // 書き込み用スレッド（thisで保護、停止中はnull）
+
+    /**
+     * @param path           追記先のファイル
+     * @param batchSize      1回にまとめて書き込む最大行数
+     * @param maxLatencyMillis 最初の行を受け取ってから後続の行を待つ最大時間（0の場合は待たずに書き込む）
+     * @param fsync          一括書き込みごとにディスクへ同期するか
+     */
+    LogAppender(Path path, int batchSize, long maxLatencyMillis, boolean fsync) {
+        this.path = path;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxLatencyMillis));
+        this.fsync = fsync;
+    }
+
+    /**
+     * 1行を追記するようキューに登録します。
+     *
+     * @param line 追記する行（改行を含まない）
+     * @return 書き込みが完了した時点で完了するFuture
+     */
+    CompletableFuture<Void> append(String line) {
+        Pending pending = new Pending(line);
+        queue.add(pending);
+        synchronized (this) {
+            if (writer == null) {
+                writer = new Thread(this::runWriter, "log-appender");
+                writer.setDaemon(true); // アプリケーションの終了を妨げない
+                writer.start();
+            }
+        }
+        return pending.future;
+    }
+
+    /**
+     * 複数の行を呼び出し元のスレッドで1回の書き込みにまとめて追記します。
+     * 大量の行を一度に書き込む場合に、キューを経由せずに書き込むために使います。
+     *
+     * @param lines 追記する行（改行を含まない）
+     * @throws IOException 書き込みに失敗した場合
+     */
+    void appendAll(List<String> lines) throws IOException {
+        if (lines.isEmpty()) {
+            return;
+        }
+        List<Pending> batch = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            batch.add(new Pending(line));
+        }
+        channelLock.lock();
+        try {
+            write(batch);
+        } finally {
+            channelLock.unlock();
+        }
+        try {
+            batch.get(batch.size() - 1).future.join(); // 書き込みに失敗した場合は全ての行が例外で完了している
+        } catch (CompletionException e) {
+            throw (IOException) e.getCause();
+        }
+    }
+
+    /**
+     * キューに残っている行を書き込んでチャネルを閉じた状態で、ファイル全体を書き換える処理を実行します。
+     * 処理中の追記は、処理が終わった後のファイルに書き込まれます。
+     *
+     * @param action ファイルを書き換える処理
+     * @throws IOException 書き込みに失敗した場合
+     */
+    void exclusive(FileAction action) throws IOException {
+        pause();
+        try {
+            action.run();
+        } finally {
+            resume();
+        }
+    }
+
+    /**
+     * キューに残っている行を書き込んでチャネルを閉じ、{@link #resume()}を呼び出すまで追記を止めます。
+     * 止めている間の追記はキューにたまり、再開後にまとめて書き込まれます。
+     * ファイル全体の書き換えを準備と確定に分けて行う場合に使います。
+     */
+    void pause() {
+        channelLock.lock();
+        List<Pending> batch = new ArrayList<>();
+        queue.drainTo(batch);
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+        closeChannel();
+    }
+
+    /**
+     * {@link #pause()}で止めた追記を再開します。pauseを呼び出したスレッドから呼び出してください。
+     */
+    void resume() {
+        channelLock.unlock();
+    }
+
+    /**
+     * 書き込み用スレッドの処理です。
+     */
+    private void runWriter() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        try {
+            while (true) {
+                Pending first = queue.poll(IDLE_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    synchronized (this) {
+                        if (queue.isEmpty()) { // 待っている間に追加されていなければ終了
+                            writer = null;
+                            channelLock.lock();
+                            try {
+                                closeChannel();
+                            } finally {
+                                channelLock.unlock();
+                            }
+                            return;
+                        }
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - batch.size()); // すぐに取り出せる分をまとめる
+                long deadline = System.nanoTime() + maxLatencyNanos;
+                while (batch.size() < batchSize) { // 最大待ち時間まで後続の行を待つ
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                channelLock.lock();
+                try {
+                    write(batch);
+                } finally {
+                    channelLock.unlock();
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            synchronized (this) {
+                writer = null;
+            }
+        }
+    }
+
+    /**
+     * まとめた行を1回の書き込みでファイルに追記し、各行のFutureを完了させます。
+     * channelLockを取得した状態で呼び出してください。
+     */
+    private void write(List<Pending> batch) {
+        try {
+            if (channel != null && replaced()) {
+                closeChannel(); // 他の処理がファイルを置き換えたため、新しいファイルを開き直す
+            }
+            if (channel == null) {
+                boolean needsNewLine = needsNewLine();
+                channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND);
+                fileKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+                if (needsNewLine) { // 前の行とつながらないよう先に改行を書き込む
+                    writeFully(ByteBuffer.wrap(System.lineSeparator().getBytes(StandardCharsets.UTF_8)));
+                }
+            }
+            StringBuilder text = new StringBuilder(batch.size() * 32);
+            for (Pending pending : batch) {
+                text.append(pending.line).append(System.lineSeparator());
+            }
+            writeFully(ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8)));
+            if (fsync) {
+                channel.force(false);
+            }
+            for (Pending pending : batch) {
+                pending.future.complete(null);
+            }
+        } catch (IOException e) {
+            closeChannel(); // 次回の書き込みで開き直す
+            for (Pending pending : batch) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * 開いているチャネルのファイルが、別のファイルに置き換えられたか（削除された場合を含む）を判定します。
+     * ファイルの識別子を取得できない環境では常にfalseを返します。
+     */
+    private boolean replaced() {
+        if (fileKey == null) {
+            return false;
+        }
+        try {
+            return !fileKey.equals(Files.readAttributes(path, BasicFileAttributes.class).fileKey());
+        } catch (IOException e) {
+            return true; // ファイルが削除された
+        }
+    }
+
+    /**
+     * ファイルが存在し、改行で終わっていないかを判定します。
+     */
+    private boolean needsNewLine() throws IOException {
+        if (!Files.exists(path)) {
+            return false;
+        }
+        try (FileChannel reader = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = reader.size();
+            ByteBuffer last = ByteBuffer.allocate(1);
+            return size > 0 && reader.read(last, size - 1) == 1 && last.get(0) != '\n';
+        }
+    }
+
+    /**
+     * チャネルを閉じます。channelLockを取得した状態で呼び出してください。
+     */
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            channel = null;
+            fileKey = null;
+        }
+    }
+
+    /**
+     * ファイル全体を書き換える処理を表します。
+     */
+    @FunctionalInterface
+    interface FileAction {
+        void run() throws IOException;
+    }
+
+    /**
+     * 書き込み待ちの1行です。
+     */
+    private static final class Pending {
+        private final String line;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private Pending(String line) {
+            this.line = line;
+        }
+    }
+}
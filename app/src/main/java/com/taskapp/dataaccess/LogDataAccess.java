@@ -1,20 +1,75 @@
 package com.taskapp.dataaccess;
 
+import java.io.BufferedReader;      // ファイル読み込みのためのクラス
 import java.io.BufferedWriter;      // ファイル書き込みのためのクラス
-import java.io.FileWriter;          // ファイル書き込みのためのクラス
 import java.io.IOException;         // 入出力例外処理のためのクラス
+import java.nio.file.Files;         // ファイルサイズの取得のためのクラス
+import java.nio.file.NoSuchFileException; // ファイルがまだない場合の例外
+import java.nio.file.Path;          // ファイルパスを表すインターフェース
+import java.nio.file.Paths;         // ファイルパスを生成するためのクラス
+import java.nio.file.StandardCopyOption; // ファイル置き換えのオプション
+import java.time.LocalDate;         // 日付を扱うためのクラス
+import java.time.YearMonth;         // 月ごとのファイルを選ぶためのクラス
 import java.util.ArrayList;         // リスト操作のためのクラス
+import java.util.Collection;        // 削除するタスクコードの集まりを受け取るためのインターフェース
+import java.util.HashSet;           // 削除するタスクコードを素早く判定するためのクラス
 import java.util.List;              // リストを利用するためのクラス
+import java.util.Set;               // 重複のない集合を表すインターフェース
+import java.util.concurrent.CompletableFuture;  // 非同期の書き込み完了を表すクラス
+import java.util.concurrent.CompletionException; // 非同期処理の例外を表すクラス
+import java.util.concurrent.ConcurrentHashMap;   // ファイルごとのアペンダーを共有するためのクラス
+import java.util.concurrent.ConcurrentMap;       // 並行アクセス可能なマップのインターフェース
+import java.util.concurrent.Executors;           // スケジューラーを生成するためのクラス
+import java.util.concurrent.ScheduledExecutorService; // 定期的な圧縮処理のためのインターフェース
+import java.util.concurrent.TimeUnit;            // 時間の単位を表すクラス
+import java.util.concurrent.locks.ReadWriteLock; // 読み込みと圧縮の排他制御のためのインターフェース
+import java.util.function.Consumer;              // 1行ずつ処理するための関数型インターフェース
 import com.taskapp.model.Log;       // Logモデルクラスをインポート
 
-public class LogDataAccess {
+public class LogDataAccess implements LogRepository {
+    // 削除マーカー方式の圧縮処理を定期的に実行するスレッド
+    private static final ScheduledExecutorService COMPACTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "log-compactor");
+        thread.setDaemon(true); // アプリケーションの終了を妨げない
+        return thread;
+    });
+    // ファイルの絶対パスごとのアペンダー（同じファイルを扱うインスタンスで共有する）
+    private static final ConcurrentMap<Path, LogAppender> APPENDERS = new ConcurrentHashMap<>();
+    // 定期的な圧縮処理を登録済みのファイルの絶対パス（ファイルごとに1つだけ登録する）
+    private static final Set<Path> COMPACTED_FILES = ConcurrentHashMap.newKeySet();
+
     // ログデータのCSVファイルのパス
     private final String filePath;
+    // 複数スレッドからのログをまとめて追記するアペンダー
+    private final LogAppender appender;
+    // 削除済みタスクの削除マーカー（同じファイルを扱うインスタンスで共有する）
+    private final LogTombstones tombstones;
+    // trueの場合、deleteByTaskCodeはファイルを書き換えずに削除マーカーを追記する（-Dtaskapp.log.tombstones=true）
+    private final boolean useTombstones = Boolean.getBoolean("taskapp.log.tombstones");
+    // trueの場合、CSVの代わりに固定長のバイナリ形式（logs.bin）に保存する（-Dtaskapp.storage=binary）
+    // バイナリ形式では削除マーカーを使わず、削除は常にファイルを書き換える
+    private final boolean binaryStorage = "binary".equals(System.getProperty("taskapp.storage", "csv"));
+    // バイナリ形式のストレージ（CSVに保存する場合はnull）
+    private final BinaryLogStore binary;
+    // trueの場合、logs.csvの代わりに変更日の月ごとのファイル（logs_2024-12.csvなど）に保存する（-Dtaskapp.log.partitioned=true）
+    // バイナリ形式が指定されている場合は使わない。月ごとのファイルでは削除マーカーを使わず、削除は常にファイルを書き換える
+    private final boolean partitionedStorage = Boolean.getBoolean("taskapp.log.partitioned");
+    // 月ごとのファイルのストレージ（使わない場合はnull）
+    private final PartitionedLogStore partitions;
+    // 圧縮処理中に読み込みが古いファイル上の位置で削除マーカーを判定しないようにするためのロック
+    // （同じファイルを扱うインスタンスで共有する）
+    private final ReadWriteLock compactionLock;
 
     // デフォルトコンストラクタ
     public LogDataAccess() {
         // デフォルトのCSVファイルパス
         filePath = "app/src/main/resources/logs.csv";
+        appender = createAppender(filePath);
+        tombstones = LogTombstones.forLogFile(filePath);
+        compactionLock = StripedLocks.forFile(filePath).fileLock();
+        binary = binaryStorage ? new BinaryLogStore(filePath) : null;
+        partitions = partitionedStorage && !binaryStorage ? new PartitionedLogStore(filePath) : null;
+        scheduleCompaction();
     }
 
     /**
@@ -24,76 +79,518 @@ public class LogDataAccess {
     public LogDataAccess(String filePath) {
         // 指定されたCSVファイルパスを使用
         this.filePath = filePath;
+        this.appender = createAppender(filePath);
+        this.tombstones = LogTombstones.forLogFile(filePath);
+        this.compactionLock = StripedLocks.forFile(filePath).fileLock();
+        this.binary = binaryStorage ? new BinaryLogStore(filePath) : null;
+        this.partitions = partitionedStorage && !binaryStorage ? new PartitionedLogStore(filePath) : null;
+        scheduleCompaction();
+    }
+
+    /**
+     * ファイルのアペンダーを返します。同じファイルに対しては常に同じアペンダーを返すため、
+     * ファイル全体の書き換え中は他のインスタンスからの追記も止まります。
+     * 最初に作成する時点のシステムプロパティの設定に従います。
+     * <ul>
+     * <li>taskapp.log.batchSize: 1回にまとめて書き込む最大行数（既定値256）</li>
+     * <li>taskapp.log.maxLatencyMillis: 後続のログを待つ最大時間（既定値0、待たずに書き込む）</li>
+     * <li>taskapp.log.fsync: 一括書き込みごとにディスクへ同期するか（既定値false）</li>
+     * </ul>
+     */
+    static LogAppender createAppender(String filePath) {
+        return APPENDERS.computeIfAbsent(Paths.get(filePath).toAbsolutePath().normalize(), path -> new LogAppender(path,
+                Integer.getInteger("taskapp.log.batchSize", 256),
+                Long.getLong("taskapp.log.maxLatencyMillis", 0L),
+                Boolean.getBoolean("taskapp.log.fsync")));
+    }
+
+    /**
+     * 削除マーカー方式が有効な場合、taskapp.log.compactIntervalSeconds（既定値3600）ごとに圧縮処理を実行します。
+     * 圧縮処理はファイルごとに1つだけ登録し、同じファイルのインスタンスを複数作成しても増やしません
+     * （アペンダー、削除マーカー、ロックは共有しているため、どのインスタンスで圧縮しても同じです）。
+     */
+    private void scheduleCompaction() {
+        if (useTombstones && binary == null && partitions == null
+                && COMPACTED_FILES.add(Paths.get(filePath).toAbsolutePath().normalize())) {
+            long interval = Long.getLong("taskapp.log.compactIntervalSeconds", 3600L);
+            COMPACTOR.scheduleWithFixedDelay(this::compact, interval, interval, TimeUnit.SECONDS);
+        }
     }
 
     /**
      * ログをCSVファイルに保存します。
+     * 書き込みが完了する（taskapp.log.fsyncが有効な場合はディスクに同期される）まで待ちます。
      *
      * @param log 保存するログ
      */
     public void save(Log log) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath, true))) {
-            // CSVフォーマットでデータを書き込む
-            String line = String.format("%d,%d,%d,%s", 
-                log.getTaskCode(), log.getChangeUserCode(), log.getStatus(), log.getChangeDate().toString());
-            writer.write(line); // データを書き込む
-            writer.newLine(); // 改行を追加
+        try {
+            saveAsync(log).join(); // 書き込み完了を待つ
+        } catch (CompletionException e) {
+            // ファイル書き込み時の例外をキャッチしてスタックトレースを出力
+            e.getCause().printStackTrace();
+        }
+    }
+
+    /**
+     * ログをCSVファイルに保存するよう登録します。
+     * 同時に登録された複数のログは1回の書き込みにまとめられます。
+     *
+     * @param log 保存するログ
+     * @return 書き込みが完了した時点で完了するFuture（書き込みに失敗した場合は例外で完了）
+     */
+    public CompletableFuture<Void> saveAsync(Log log) {
+        if (binary != null) { // 1件16バイトの追記は呼び出したスレッドでそのまま書き込む
+            try {
+                binary.appendAll(List.of(log));
+                return CompletableFuture.completedFuture(null);
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        if (partitions != null) {
+            try {
+                return partitions.appender(log).append(toCsv(log));
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return appender.append(toCsv(log));
+    }
+
+    /**
+     * 複数のログをCSVファイルにまとめて保存します。
+     * 全ての行を1回の書き込みで追記するため、大量のログを登録する場合に使います。
+     *
+     * @param logs 保存するログ
+     */
+    public void saveAll(List<Log> logs) {
+        if (logs.isEmpty()) {
+            return;
+        }
+        if (binary != null) {
+            try {
+                binary.appendAll(logs);
+            } catch (IOException e) {
+                // ファイル書き込み時の例外をキャッチしてスタックトレースを出力
+                e.printStackTrace();
+            }
+            return;
+        }
+        List<String> rows = new ArrayList<>(logs.size());
+        for (Log log : logs) {
+            rows.add(toCsv(log));
+        }
+        try {
+            if (partitions != null) {
+                partitions.appendAll(logs, rows);
+            } else {
+                appender.appendAll(rows);
+            }
         } catch (IOException e) {
             // ファイル書き込み時の例外をキャッチしてスタックトレースを出力
             e.printStackTrace();
         }
     }
 
+    /**
+     * ログをCSVの1行に変換します。
+     *
+     * @param log ログ
+     * @return CSVの1行
+     */
+    static String toCsv(Log log) {
+        return log.getTaskCode() + "," + log.getChangeUserCode() + "," + log.getStatus() + "," + log.getChangeDate();
+    }
+
     /**
      * すべてのログを取得します。
      *
      * @return すべてのログのリスト
      */
     public List<Log> findAll() {
-        List<Log> logs = new ArrayList<>(); // ログのリストを初期化
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line; // 読み取り用変数
-            reader.readLine(); // ヘッダー行をスキップ
-
-            while ((line = reader.readLine()) != null) { // 各行を読み込む
-                String[] values = line.split(","); // カンマで分割
-                if (values.length == 4) { // 必要な列数を確認
-                    int taskCode = Integer.parseInt(values[0].trim());
-                    int changeUserCode = Integer.parseInt(values[1].trim());
-                    int status = Integer.parseInt(values[2].trim());
-                    String changeDate = values[3].trim();
-
-                    // ログオブジェクトを生成してリストに追加
-                    logs.add(new Log(taskCode, changeUserCode, status, changeDate));
-                }
+        compactionLock.readLock().lock();
+        try {
+            if (partitions != null) {
+                List<Log> logs = new ArrayList<>();
+                partitions.findAll(logs::add);
+                return logs;
+            }
+            return binary != null ? binary.findAll() : readCsv();
+        } catch (IOException e) {
+            // ファイル読み込み時の例外をキャッチしてスタックトレースを出力
+            e.printStackTrace();
+            return new ArrayList<>();
+        } finally {
+            compactionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 変更日が期間に含まれるログを、タスクコードと変更したユーザーコードで絞り込んで取得します。
+     * 月ごとのファイルに保存している場合は、期間に含まれる月のファイルだけを読み込みます。
+     * それ以外の場合は全てのログを読みますが、条件に合うログだけを作成します。
+     *
+     * @param from           期間の初日
+     * @param to             期間の最終日（この日を含む）
+     * @param taskCode       タスクコード（nullの場合は絞り込まない）
+     * @param changeUserCode 変更したユーザーコード（nullの場合は絞り込まない）
+     * @return 条件に合うログのリスト（保存形式ごとのファイルの順）
+     */
+    public List<Log> find(LocalDate from, LocalDate to, Integer taskCode, Integer changeUserCode) {
+        List<Log> logs = new ArrayList<>();
+        if (from.isAfter(to)) {
+            return logs;
+        }
+        long first = from.toEpochDay();
+        long last = to.toEpochDay();
+        LogAnalyzer.LogSink filter = (code, user, status, day, position) -> {
+            if (day >= first && day <= last && (taskCode == null || code == taskCode)
+                    && (changeUserCode == null || user == changeUserCode)) {
+                logs.add(new Log(code, user, status, LocalDate.ofEpochDay(day)));
+            }
+        };
+        compactionLock.readLock().lock();
+        try {
+            if (binary != null) {
+                binary.forEach(filter);
+            } else if (partitions != null) {
+                partitions.find(from, to, row -> filter.accept(row.getInt(0), row.getInt(1), row.getInt(2),
+                        (int) row.getDate(3).toEpochDay(), row.offset()));
+            } else {
+                boolean deleted = !tombstones.isEmpty();
+                MappedCsvReader.read(Paths.get(filePath), 4, row -> {
+                    int code = row.getInt(0);
+                    if (!deleted || !tombstones.isDeleted(code, row.offset())) { // 削除済みタスクのログは除外
+                        filter.accept(code, row.getInt(1), row.getInt(2), (int) row.getDate(3).toEpochDay(),
+                                row.offset());
+                    }
+                });
+            }
+        } catch (IOException e) {
+            // ファイル読み込み時の例外をキャッチしてスタックトレースを出力
+            e.printStackTrace();
+        } finally {
+            compactionLock.readLock().unlock();
+        }
+        return logs;
+    }
+
+    /**
+     * ログを保存するファイルの現在の終端の位置を返します。
+     * 保存前にこの位置を記録しておくと、{@link #containsSince(long, Log)}でその後に保存されたかを確認できます。
+     *
+     * @param log 保存するログ（月ごとのファイルに保存している場合は変更日の月のファイルの位置を返します）
+     * @return CSVの場合はファイルのサイズ、バイナリ形式の場合はレコードの件数（ファイルがない場合は0）
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    public long endPosition(Log log) throws IOException {
+        if (binary != null) {
+            return binary.recordCount();
+        }
+        Path path = partitions != null ? partitions.partitionPath(YearMonth.from(log.getChangeDate())) : Paths.get(filePath);
+        try {
+            return Files.size(path);
+        } catch (NoSuchFileException e) {
+            return 0; // まだ1件も保存されていない
+        }
+    }
+
+    /**
+     * 指定した位置以降に同じ内容のログが保存されているかを確認します。
+     * 位置以降の部分だけを読むため、処理量はファイルサイズではなく位置以降に追記された量に比例します。
+     * 位置を記録した後にファイルが書き換えられて短くなっている場合は、ファイル全体を確認します。
+     *
+     * @param position {@link #endPosition(Log)}で記録した位置
+     * @param log      確認するログ
+     * @return 同じタスクコード、変更したユーザーコード、ステータス、変更日のログがある場合はtrue
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    public boolean containsSince(long position, Log log) throws IOException {
+        int day = (int) log.getChangeDate().toEpochDay();
+        compactionLock.readLock().lock();
+        try {
+            if (binary != null) {
+                boolean[] found = new boolean[1];
+                binary.forEach(Math.min(position, binary.recordCount()), (code, user, status, changeDay, record) -> {
+                    found[0] |= code == log.getTaskCode() && user == log.getChangeUserCode()
+                            && status == log.getStatus() && changeDay == day;
+                });
+                return found[0];
             }
+            Path path = partitions != null ? partitions.partitionPath(YearMonth.from(log.getChangeDate()))
+                    : Paths.get(filePath);
+            if (!Files.exists(path)) {
+                return false;
+            }
+            long start = position <= Files.size(path) ? position : 0;
+            return MappedCsvReader.readWhile(path, start, 4, 4, row -> row.getInt(0) != log.getTaskCode()
+                    || row.getInt(1) != log.getChangeUserCode() || row.getInt(2) != log.getStatus()
+                    || row.getDate(3).toEpochDay() != day) >= 0;
+        } finally {
+            compactionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 全てのログを集計し、タスクごとのステータスの推移、ユーザーごとの処理量とサイクルタイム、日ごとの件数を返します。
+     * ファイルを範囲に分けてFork/Joinで並列に読み込み、Logを作らずに1回の走査で全ての集計を行うため、
+     * メモリ使用量はログの件数ではなくタスク数、ユーザー数、日数に比例します。削除マーカーが付いたログは除きます。
+     * Fork/Joinのスレッドから呼び出した場合はそのプール、それ以外の場合は共通プールで並列に実行します。
+     *
+     * @return 集計結果
+     */
+    public LogReport analyze() {
+        return analyze(LogAnalyzer.MIN_CHUNK_BYTES);
+    }
+
+    /**
+     * 分割する最小のバイト数を指定してログを集計します。範囲の分割を確かめるテストに使います。
+     *
+     * @param minChunkBytes 分割する最小のバイト数
+     * @return 集計結果
+     */
+    LogReport analyze(long minChunkBytes) {
+        compactionLock.readLock().lock(); // 集計中に圧縮や削除でファイルが書き換えられないようにする
+        try {
+            if (binary != null) {
+                return binary.analyze(minChunkBytes);
+            }
+            if (partitions != null) {
+                return partitions.analyze(minChunkBytes);
+            }
+            Path path = Paths.get(filePath);
+            LogTombstones.Snapshot deleted = tombstones.snapshot(); // 並列に判定するためロックを取らない複製を使う
+            boolean filter = !deleted.isEmpty();
+            return LogAnalyzer.analyze(Files.size(path), minChunkBytes,
+                    (start, end, sink) -> MappedCsvReader.read(path, start, end, 4, row -> {
+                        int taskCode = row.getInt(0);
+                        if (filter && deleted.isDeleted(taskCode, row.offset())) {
+                            return; // 削除済みタスクのログは除外
+                        }
+                        sink.accept(taskCode, row.getInt(1), row.getInt(2), (int) row.getDate(3).toEpochDay(),
+                                row.offset());
+                    }, null));
         } catch (IOException e) {
             // ファイル読み込み時の例外をキャッチしてスタックトレースを出力
             e.printStackTrace();
+            return LogAnalyzer.empty();
+        } finally {
+            compactionLock.readLock().unlock();
         }
+    }
+
+    /**
+     * CSVファイルの全てのログを読み込みます。削除マーカーが付いたログは除きます。
+     * 保存形式の設定に関係なくCSVから読み込むため、保存形式の変換にも使います。
+     *
+     * @return ログのリスト
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    List<Log> readCsv() throws IOException {
+        List<Log> logs = new ArrayList<>(); // ログのリストを初期化
+        readCsv(logs::add);
         return logs; // ログのリストを返す
     }
 
+    /**
+     * CSVファイルの全てのログを1件ずつ読み込みます。削除マーカーが付いたログは除きます。
+     * 全てのログをリストに保持せずに別の保存形式へ書き出す場合に使います。
+     *
+     * @param handler 各ログを受け取る処理
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    void readCsv(Consumer<Log> handler) throws IOException {
+        compactionLock.readLock().lock();
+        try {
+            boolean filter = !tombstones.isEmpty(); // 削除マーカーがある場合のみ除外処理を行う
+            MappedCsvReader.read(Paths.get(filePath), 4, row -> { // ヘッダー行を除き、4列の行を1行ずつ読み込む
+                int taskCode = row.getInt(0);
+                if (filter && tombstones.isDeleted(taskCode, row.offset())) {
+                    return; // 削除済みタスクのログは除外
+                }
+                int changeUserCode = row.getInt(1);
+                int status = row.getInt(2);
+                LocalDate changeDate = row.getDate(3);
+
+                // ログオブジェクトを生成して渡す
+                handler.accept(new Log(taskCode, changeUserCode, status, changeDate));
+            });
+        } finally {
+            compactionLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * CSVファイルの内容を指定したログで置き換え、削除マーカーを消去します。保存形式の変換に使います。
+     * 書き込みは一時ファイルに行い、完了後にファイル名の変更で置き換えます。
+     *
+     * @param logs 保存するログ
+     * @throws IOException ファイルの書き込みに失敗した場合
+     */
+    void writeCsv(List<Log> logs) throws IOException {
+        compactionLock.writeLock().lock();
+        appender.pause(); // 追記待ちのログを書き込んでから書き換える
+        try {
+            Path path = Paths.get(filePath);
+            String header = "Task_Code,Change_User_Code,Status,Change_Date";
+            if (Files.exists(path)) {
+                try (BufferedReader reader = Files.newBufferedReader(path)) {
+                    String line = reader.readLine(); // 既存のヘッダー行をそのまま引き継ぐ
+                    header = line != null ? line : header;
+                }
+            }
+            Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), "logs", ".tmp");
+            try {
+                try (BufferedWriter writer = Files.newBufferedWriter(temp)) {
+                    writer.write(header);
+                    writer.newLine();
+                    for (Log log : logs) {
+                        writer.write(toCsv(log));
+                        writer.newLine();
+                    }
+                }
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            tombstones.clear(); // ファイル上の位置が変わるため削除マーカーも消去
+        } finally {
+            appender.resume();
+            compactionLock.writeLock().unlock();
+        }
+    }
+
     /**
      * 指定したタスクコードに該当するログを削除します。
+     * 削除マーカー方式が有効な場合は、ファイルを書き換えずに削除マーカーを1行追記するだけで完了します。
+     * 該当するログは読み込み時に除外され、定期的な圧縮処理でファイルから取り除かれます。
      *
      * @param taskCode 削除するログのタスクコード
      */
     public void deleteByTaskCode(int taskCode) {
-        List<Log> logs = findAll(); // すべてのログを取得
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
-            writer.write("TaskCode,ChangeUserCode,Status,ChangeDate"); // ヘッダー行を書き込む
-            writer.newLine(); // 改行を追加
-            for (Log log : logs) {
-                if (log.getTaskCode() != taskCode) { // 削除対象でないログを保持
-                    writer.write(String.format("%d,%d,%d,%s", 
-                        log.getTaskCode(), log.getChangeUserCode(), log.getStatus(), log.getChangeDate()));
-                    writer.newLine(); // 改行を追加
+        deleteByTaskCodes(List.of(taskCode));
+    }
+
+    /**
+     * 指定した複数のタスクコードに該当するログをまとめて削除します。
+     * ファイルを1回だけ先頭から読み、残すログを一時ファイルに書き出してからファイル名の変更で置き換えます。
+     * 削除マーカー方式が有効な場合は、タスクコードごとに削除マーカーを追記します。
+     *
+     * @param taskCodes 削除するログのタスクコード
+     */
+    public void deleteByTaskCodes(Collection<Integer> taskCodes) {
+        try {
+            prepareDeleteByTaskCodes(taskCodes).commit();
+        } catch (IOException e) {
+            // ファイル書き込み時の例外をキャッチしてスタックトレースを出力
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 指定した複数のタスクコードに該当するログを削除する書き換えを準備します。
+     * 削除マーカー方式が有効な場合は、ファイルを書き換えずに確定時に削除マーカーを追記するだけの書き換えを返します。
+     * それ以外の場合は{@link #prepareRewrite(Collection)}でファイル全体の書き換えを準備します。
+     *
+     * @param taskCodes 削除するログのタスクコード
+     * @return 確定または破棄する必要がある書き換え
+     * @throws IOException ファイルの読み書きに失敗した場合
+     */
+    public FileRewrite prepareDeleteByTaskCodes(Collection<Integer> taskCodes) throws IOException {
+        if (useTombstones && binary == null && partitions == null) {
+            List<Integer> codes = List.copyOf(taskCodes);
+            return FileRewrite.inMemory(() -> appender.exclusive(() -> {
+                long cutoff = Files.size(Paths.get(filePath)); // 追記待ちのログを書き込んだ後のファイルサイズ
+                for (int taskCode : codes) {
+                    tombstones.add(taskCode, cutoff);
                 }
+            }));
+        }
+        return prepareRewrite(taskCodes);
+    }
+
+    /**
+     * 指定した複数のタスクコードに該当するログを取り除いたファイルを一時ファイルに書き出します。
+     * 削除マーカーが付いたログも同時に取り除き、確定時に削除マーカーを消去します。
+     * 確定または破棄するまでの間、ログの追記と読み込みは待たされます。
+     *
+     * @param taskCodes 削除するログのタスクコード
+     * @return 確定または破棄する必要がある書き換え
+     * @throws IOException ファイルの読み書きに失敗した場合
+     */
+    private FileRewrite prepareRewrite(Collection<Integer> taskCodes) throws IOException {
+        Set<Integer> codes = new HashSet<>(taskCodes);
+        compactionLock.writeLock().lock(); // ファイル全体の書き換えは読み込みと排他的に行う
+        if (binary != null) {
+            return binary.prepareDelete(codes, compactionLock.writeLock()::unlock);
+        }
+        if (partitions != null) {
+            return partitions.prepareDelete(codes, compactionLock.writeLock()::unlock);
+        }
+        appender.pause(); // 追記待ちのログを書き込んでから書き換える
+        Runnable release = () -> {
+            appender.resume();
+            compactionLock.writeLock().unlock();
+        };
+        try {
+            Path path = Paths.get(filePath);
+            boolean filter = !tombstones.isEmpty();
+            boolean[] removed = new boolean[1]; // 取り除いたログがあるか
+            Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), "logs", ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(temp)) {
+                try (BufferedReader reader = Files.newBufferedReader(path)) {
+                    String header = reader.readLine(); // 既存のヘッダー行をそのまま引き継ぐ
+                    writer.write(header != null ? header : "Task_Code,Change_User_Code,Status,Change_Date");
+                    writer.newLine();
+                }
+                IOException[] failure = new IOException[1];
+                Consumer<String> out = line -> { // 読み込んだ順に一時ファイルへ書き込む
+                    try {
+                        if (failure[0] == null) {
+                            writer.write(line);
+                            writer.newLine();
+                        }
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                };
+                MappedCsvReader.read(path, 0, Long.MAX_VALUE, 4, row -> {
+                    int taskCode = row.getInt(0);
+                    if (codes.contains(taskCode) || (filter && tombstones.isDeleted(taskCode, row.offset()))) {
+                        removed[0] = true; // 削除対象のログは書き込まない
+                    } else {
+                        out.accept(row.text());
+                    }
+                }, out); // 形式が不正な行はそのまま残す
+                if (failure[0] != null) {
+                    throw failure[0];
+                }
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+            return new FileRewrite(path, temp, removed[0] || filter,
+                    tombstones::clear, release); // ファイル上の位置が変わるため削除マーカーも消去
+        } catch (IOException | RuntimeException e) {
+            release.run();
+            throw e;
+        }
+    }
+
+    /**
+     * 削除マーカーが付いたログをファイルから取り除き、削除マーカーを消去します。
+     * 書き込みは一時ファイルに行い、完了後にファイル名の変更で置き換えます。
+     */
+    public void compact() {
+        try {
+            if (binary != null || partitions != null || tombstones.isEmpty()) {
+                return; // 取り除くログがない
             }
+            prepareRewrite(List.of()).commit();
         } catch (IOException e) {
             // ファイル書き込み時の例外をキャッチしてスタックトレースを出力
             e.printStackTrace();
         }
     }
-}
\ No newline at end of file
+}
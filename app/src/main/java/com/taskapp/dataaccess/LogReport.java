@@ -0,0 +1,197 @@
+package com.taskapp.dataaccess;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.SortedMap;
+
+/**
+ * ログの集計結果です。{@link LogDataAccess#analyze()}で取得します。
+ *
+ * <p>タスクごとのステータスの推移、変更したユーザーごとの処理量、日ごとのログ件数を保持します。
+ * サイクルタイムはタスクが未着手（ステータス0）になった日から完了（ステータス2）になった日までの日数です。
+ */
+public final class LogReport {
+    private final long logCount;
+    private final SortedMap<Integer, TaskTimeline> timelines;   // タスクコード → ステータスの推移
+    private final SortedMap<Integer, UserThroughput> users;     // 変更したユーザーコード → 処理量
+    private final SortedMap<LocalDate, Long> dailyCounts;       // 変更日 → ログ件数
+
+    LogReport(long logCount, SortedMap<Integer, TaskTimeline> timelines, SortedMap<Integer, UserThroughput> users,
+            SortedMap<LocalDate, Long> dailyCounts) {
+        this.logCount = logCount;
+        this.timelines = Collections.unmodifiableSortedMap(timelines);
+        this.users = Collections.unmodifiableSortedMap(users);
+        this.dailyCounts = Collections.unmodifiableSortedMap(dailyCounts);
+    }
+
+    /**
+     * @return 集計したログの件数
+     */
+    public long getLogCount() {
+        return logCount;
+    }
+
+    /**
+     * @return タスクコードの順に並べたタスクごとのステータスの推移
+     */
+    public SortedMap<Integer, TaskTimeline> getTimelines() {
+        return timelines;
+    }
+
+    /**
+     * @param taskCode タスクコード
+     * @return タスクのステータスの推移（ログがない場合はnull）
+     */
+    public TaskTimeline getTimeline(int taskCode) {
+        return timelines.get(taskCode);
+    }
+
+    /**
+     * @return ユーザーコードの順に並べた、ログを書いたユーザーごとの処理量
+     */
+    public SortedMap<Integer, UserThroughput> getUserThroughput() {
+        return users;
+    }
+
+    /**
+     * @return 日付の順に並べた日ごとのログ件数
+     */
+    public SortedMap<LocalDate, Long> getDailyCounts() {
+        return dailyCounts;
+    }
+
+    /**
+     * 未着手と完了の両方のログがある全てのタスクのサイクルタイムの平均を返します。
+     * @return サイクルタイムの平均日数（対象のタスクがない場合は0）
+     */
+    public double getAverageCycleDays() {
+        long total = 0;
+        long count = 0;
+        for (UserThroughput user : users.values()) {
+            total += user.totalCycleDays;
+            count += user.cycleCount;
+        }
+        return count > 0 ? (double) total / count : 0;
+    }
+
+    /**
+     * 1つのタスクのステータスの推移です。各ステータスの日付は、そのステータスのログのうち最も早い変更日です。
+     */
+    public static final class TaskTimeline {
+        private final int taskCode;
+        private final LocalDate createdOn;
+        private final LocalDate startedOn;
+        private final LocalDate completedOn;
+        private final int completedBy;
+        private final int lastStatus;
+        private final int changeCount;
+
+        TaskTimeline(int taskCode, LocalDate createdOn, LocalDate startedOn, LocalDate completedOn, int completedBy,
+                int lastStatus, int changeCount) {
+            this.taskCode = taskCode;
+            this.createdOn = createdOn;
+            this.startedOn = startedOn;
+            this.completedOn = completedOn;
+            this.completedBy = completedBy;
+            this.lastStatus = lastStatus;
+            this.changeCount = changeCount;
+        }
+
+        public int getTaskCode() {
+            return taskCode;
+        }
+
+        /**
+         * @return 未着手（ステータス0）になった日（ログがない場合はnull）
+         */
+        public LocalDate getCreatedOn() {
+            return createdOn;
+        }
+
+        /**
+         * @return 着手中（ステータス1）になった日（ログがない場合はnull）
+         */
+        public LocalDate getStartedOn() {
+            return startedOn;
+        }
+
+        /**
+         * @return 完了（ステータス2）になった日（ログがない場合はnull）
+         */
+        public LocalDate getCompletedOn() {
+            return completedOn;
+        }
+
+        /**
+         * @return 完了のログを書いたユーザーのコード（完了していない場合は0）
+         */
+        public int getCompletedBy() {
+            return completedBy;
+        }
+
+        /**
+         * @return ファイル上で最後に書かれたログのステータス
+         */
+        public int getLastStatus() {
+            return lastStatus;
+        }
+
+        /**
+         * @return このタスクのログの件数
+         */
+        public int getChangeCount() {
+            return changeCount;
+        }
+
+        /**
+         * @return 未着手から完了までの日数（どちらかのログがない場合は-1）
+         */
+        public long getCycleDays() {
+            return createdOn != null && completedOn != null ? completedOn.toEpochDay() - createdOn.toEpochDay() : -1;
+        }
+    }
+
+    /**
+     * ログを書いた1人のユーザーの処理量です。完了したタスクとサイクルタイムは、完了のログを書いたユーザーに計上します。
+     */
+    public static final class UserThroughput {
+        private final int userCode;
+        private final long changeCount;
+        private final long completedCount;
+        private final long totalCycleDays;
+        private final long cycleCount;
+
+        UserThroughput(int userCode, long changeCount, long completedCount, long totalCycleDays, long cycleCount) {
+            this.userCode = userCode;
+            this.changeCount = changeCount;
+            this.completedCount = completedCount;
+            this.totalCycleDays = totalCycleDays;
+            this.cycleCount = cycleCount;
+        }
+
+        public int getUserCode() {
+            return userCode;
+        }
+
+        /**
+         * @return このユーザーが書いたログの件数
+         */
+        public long getChangeCount() {
+            return changeCount;
+        }
+
+        /**
+         * @return このユーザーが完了にしたタスクの件数
+         */
+        public long getCompletedCount() {
+            return completedCount;
+        }
+
+        /**
+         * @return このユーザーが完了にしたタスクのサイクルタイムの平均日数（未着手のログがあるタスクだけが対象、対象がない場合は0）
+         */
+        public double getAverageCycleDays() {
+            return cycleCount > 0 ? (double) totalCycleDays / cycleCount : 0;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import com.taskapp.model.Log;
+
+/**
+ * ログの保存先です。TaskLogicとImportLogicはこのインターフェースを通してログを扱います。
+ * CSV（またはバイナリ形式、月ごとのファイル）に保存する{@link LogDataAccess}と、
+ * メモリ上にだけ保持する{@link InMemoryLogRepository}があります。
+ */
+public interface LogRepository {
+    /**
+     * ログを追加します。
+     *
+     * @param log 追加するログ
+     */
+    void save(Log log);
+
+    /**
+     * 複数のログをまとめて追加します。
+     *
+     * @param logs 追加するログのリスト
+     */
+    void saveAll(List<Log> logs);
+
+    /**
+     * 全てのログを保存順に取得します。
+     *
+     * @return ログのリスト
+     */
+    List<Log> findAll();
+
+    /**
+     * 変更日が期間に含まれるログを、タスクコードと変更したユーザーコードで絞り込んで取得します。
+     *
+     * @param from           期間の初日
+     * @param to             期間の最終日（この日を含む）
+     * @param taskCode       タスクコード（nullの場合は絞り込まない）
+     * @param changeUserCode 変更したユーザーコード（nullの場合は絞り込まない）
+     * @return 条件に合うログのリスト
+     */
+    List<Log> find(LocalDate from, LocalDate to, Integer taskCode, Integer changeUserCode);
+
+    /**
+     * ログを保存する位置の現在の終端を返します。{@link #containsSince(long, Log)}に渡して、この後に保存されたログを確認します。
+     *
+     * @param log 保存するログ（保存先のファイルを決めるために使います）
+     * @return 現在の終端の位置
+     * @throws IOException 位置を取得できない場合
+     */
+    long endPosition(Log log) throws IOException;
+
+    /**
+     * 指定した位置以降に同じ内容のログが保存されているかを判定します。
+     *
+     * @param position {@link #endPosition(Log)}が返した位置
+     * @param log      確認するログ
+     * @return 保存されていればtrue
+     * @throws IOException 読み込みに失敗した場合
+     */
+    boolean containsSince(long position, Log log) throws IOException;
+
+    /**
+     * ログを集計し、タスクごとのステータスの推移、ユーザーごとの処理量とサイクルタイム、日ごとの件数を返します。
+     *
+     * @return 集計結果
+     */
+    LogReport analyze();
+
+    /**
+     * タスクのログを削除します。
+     *
+     * @param taskCode タスクコード
+     */
+    void deleteByTaskCode(int taskCode);
+
+    /**
+     * 複数のタスクのログをまとめて削除します。
+     *
+     * @param taskCodes タスクコード
+     */
+    void deleteByTaskCodes(Collection<Integer> taskCodes);
+
+    /**
+     * 複数のタスクのログの削除を準備します。{@link FileRewrite#commit()}で確定し、{@link FileRewrite#abort()}で破棄します。
+     *
+     * @param taskCodes タスクコード
+     * @return 準備した削除
+     * @throws IOException 準備に失敗した場合（何も変更しません）
+     */
+    FileRewrite prepareDeleteByTaskCodes(Collection<Integer> taskCodes) throws IOException;
+}
@@ -0,0 +1,184 @@
+package com.taskapp.dataaccess;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 削除済みタスクのログを示す削除マーカー（トゥームストーン）を管理するクラスです。
+ * 削除マーカーは「タスクコード, 削除時点のログファイルのサイズ」の形式で別ファイルに追記され、
+ * 削除時点より前に書かれた該当タスクのログを読み込み時に除外するために使います。
+ * 削除後に同じタスクコードで書かれたログは除外されません。
+ *
+ * <p>削除済みのタスクコードはビットマップで保持し、大半のログ行は1回のビット参照だけで判定できます。
+ * ビットマップはタスクコードが{@value #BITMAP_LIMIT}未満の場合だけ使い、それ以上のコードはマップだけで判定します。
+ *
+ * <p>あるインスタンスで追加した削除マーカーを他のインスタンスが見落とさないよう、
+ * {@link #forLogFile(String)}でログファイルごとに1つのインスタンスを共有します。
+ */
+final class LogTombstones {
+    private static final String HEADER = "Task_Code,Log_Offset";
+    // ビットマップで保持するタスクコードの上限（ビットマップは最大128KB）
+    private static final int BITMAP_LIMIT = 1 << 20;
+    // 削除マーカーのファイルの絶対パスごとのインスタンス
+    private static final ConcurrentMap<Path, LogTombstones> BY_FILE = new ConcurrentHashMap<>();
+
+    private final Path path;                              // 削除マーカーのファイル
+    private final BitSet deleted = new BitSet();          // 削除済みのタスクコード（0以上BITMAP_LIMIT未満）
+    private final Map<Integer, Long> cutoffs = new HashMap<>(); // タスクコード → 削除時点のログファイルのサイズ
+    private boolean loaded;                               // ファイルを読み込み済みか
+
+    LogTombstones(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * ログファイルの削除マーカーを返します（logs.csvに対してlogs_deleted.csv）。
+     * 同じログファイルに対しては常に同じインスタンスを返します。
+     *
+     * @param logFilePath ログファイルのパス
+     * @return ログファイルの削除マーカー
+     */
+    static LogTombstones forLogFile(String logFilePath) {
+        String base = logFilePath.endsWith(".csv") ? logFilePath.substring(0, logFilePath.length() - 4) : logFilePath;
+        return BY_FILE.computeIfAbsent(Paths.get(base + "_deleted.csv").toAbsolutePath().normalize(), LogTombstones::new);
+    }
+
+    /**
+     * 指定位置のログ行が削除済みかを判定します。
+     * 事前に{@link #isEmpty()}を呼び出して削除マーカーを読み込んでおいてください。
+     *
+     * @param taskCode ログのタスクコード
+     * @param offset   ログ行の開始位置
+     * @return 削除済みの場合はtrue
+     */
+    synchronized boolean isDeleted(int taskCode, long offset) {
+        if (inBitmap(taskCode) && !deleted.get(taskCode)) {
+            return false; // 大半の行はビットマップだけで判定できる
+        }
+        Long cutoff = cutoffs.get(taskCode);
+        return cutoff != null && offset < cutoff;
+    }
+
+    /**
+     * 削除マーカーが1件もないかを返します。
+     *
+     * @return 削除マーカーがなければtrue
+     * @throws IOException 削除マーカーの読み込みに失敗した場合
+     */
+    synchronized boolean isEmpty() throws IOException {
+        load();
+        return cutoffs.isEmpty();
+    }
+
+    /**
+     * 現在の削除マーカーを複製し、ロックを取らずに判定できる形で返します。
+     * 複数のスレッドで並行してログを読み込む場合に使います。
+     *
+     * @return 削除マーカーの複製
+     * @throws IOException 削除マーカーの読み込みに失敗した場合
+     */
+    synchronized Snapshot snapshot() throws IOException {
+        load();
+        return new Snapshot((BitSet) deleted.clone(), new HashMap<>(cutoffs));
+    }
+
+    /**
+     * 削除マーカーを追記します。
+     *
+     * @param taskCode 削除するタスクコード
+     * @param cutoff   削除時点のログファイルのサイズ
+     * @throws IOException 削除マーカーの書き込みに失敗した場合
+     */
+    synchronized void add(int taskCode, long cutoff) throws IOException {
+        load();
+        boolean exists = Files.exists(path);
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            if (!exists) {
+                writer.write(HEADER);
+                writer.newLine();
+            }
+            writer.write(taskCode + "," + cutoff);
+            writer.newLine();
+        }
+        mark(taskCode, cutoff);
+    }
+
+    /**
+     * ログファイルの圧縮後に全ての削除マーカーを取り除きます。
+     *
+     * @throws IOException 削除マーカーのファイルの削除に失敗した場合
+     */
+    synchronized void clear() throws IOException {
+        Files.deleteIfExists(path);
+        deleted.clear();
+        cutoffs.clear();
+        loaded = true;
+    }
+
+    private void load() throws IOException {
+        if (loaded) {
+            return;
+        }
+        if (Files.exists(path)) {
+            MappedCsvReader.read(path, 2, row -> mark(row.getInt(0), row.getLong(1)));
+        }
+        loaded = true;
+    }
+
+    private void mark(int taskCode, long cutoff) {
+        if (inBitmap(taskCode)) {
+            deleted.set(taskCode);
+        }
+        cutoffs.merge(taskCode, cutoff, Math::max); // 複数回削除された場合は最後の削除を採用
+    }
+
+    private static boolean inBitmap(int taskCode) {
+        return taskCode >= 0 && taskCode < BITMAP_LIMIT;
+    }
+
+    /**
+     * ある時点の削除マーカーの複製です。変更されないため、同期せずに複数のスレッドから参照できます。
+     */
+    static final class Snapshot {
+        private final BitSet deleted;
+        private final Map<Integer, Long> cutoffs;
+
+        private Snapshot(BitSet deleted, Map<Integer, Long> cutoffs) {
+            this.deleted = deleted;
+            this.cutoffs = cutoffs;
+        }
+
+        /**
+         * @return 削除マーカーがなければtrue
+         */
+        boolean isEmpty() {
+            return cutoffs.isEmpty();
+        }
+
+        /**
+         * 指定位置のログ行が削除済みかを判定します。判定の方法は{@link LogTombstones#isDeleted}と同じです。
+         *
+         * @param taskCode ログのタスクコード
+         * @param offset   ログ行の開始位置
+         * @return 削除済みの場合はtrue
+         */
+        boolean isDeleted(int taskCode, long offset) {
+            if (inBitmap(taskCode) && !deleted.get(taskCode)) {
+                return false;
+            }
+            Long cutoff = cutoffs.get(taskCode);
+            return cutoff != null && offset < cutoff;
+        }
+    }
+}
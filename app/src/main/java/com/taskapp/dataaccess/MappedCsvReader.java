@@ -0,0 +1,429 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * CSVファイルのバイト列を直接走査する読み込みクラスです。
+ * 大きなファイルはFileChannel#mapでメモリマップし、行や列ごとの文字列を作らずに区切り位置だけを記録します。
+ *
+ * <p>マップは解放する手段がなく、GCで回収されるまで残ります。Windowsではマップが残っているファイルを
+ * 置き換えられない（書き換えや圧縮のATOMIC_MOVEが失敗する）ため、Windowsではメモリマップせず、
+ * ファイルを小さいウィンドウに分けてヒープに読み込みます。
+ * 数値の列はバイト列から直接変換し、文字列が必要な列（タスク名やユーザー名など）だけStringを生成します。
+ *
+ * <p>各行は{@link Row}として渡されます。Rowは次の行の読み込みで上書きされるため、呼び出し側で保持しないでください。
+ */
+final class MappedCsvReader {
+    private static final long MAP_THRESHOLD = 1 << 20;   // これより小さいファイルはヒープに読み込む
+    private static final long WINDOW_SIZE = 1L << 28;    // 一度にマップする最大サイズ（256MB）
+    private static final long HEAP_WINDOW_SIZE = 1L << 23; // メモリマップしない場合に一度に読み込む最大サイズ（8MB）
+
+    // マップしたファイルを置き換えられないWindowsではメモリマップしない
+    private static final boolean MAP_FILES = !System.getProperty("os.name", "").startsWith("Windows");
+
+    private MappedCsvReader() {
+    }
+
+    /**
+     * ヘッダー行を除く全ての行を読み込みます。
+     *
+     * @param path    CSVファイルのパス
+     * @param columns 必要な列数（列数が異なる行は読み飛ばします）
+     * @param handler 各行を受け取る処理
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    static void read(Path path, int columns, Consumer<Row> handler) throws IOException {
+        read(path, 0, Long.MAX_VALUE, columns, handler, null);
+    }
+
+    /**
+     * ヘッダー行を除く全ての行を読み込みます。末尾に省略可能な列がある形式に使います。
+     *
+     * @param path       CSVファイルのパス
+     * @param minColumns 必要な最小の列数
+     * @param maxColumns 読み込む最大の列数（列数がこの範囲外の行は読み飛ばします）
+     * @param handler    各行を受け取る処理（列数は{@link Row#columnCount()}で確認できます）
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    static void read(Path path, int minColumns, int maxColumns, Consumer<Row> handler) throws IOException {
+        read(path, 0, Long.MAX_VALUE, minColumns, maxColumns, row -> {
+            handler.accept(row);
+            return true;
+        }, null);
+    }
+
+    /**
+     * 開始位置が[start, end)の範囲にある行を読み込みます。ファイルの先頭行はヘッダーとして読み飛ばします。
+     * startが行の途中を指している場合は、次の行から読み込みます。
+     *
+     * @param path    CSVファイルのパス
+     * @param start   読み込み範囲の開始位置
+     * @param end     読み込み範囲の終了位置（この位置以降に始まる行は読み込みません）
+     * @param columns 必要な列数（列数が異なる行は読み飛ばします）
+     * @param handler 各行を受け取る処理
+     * @param invalidRows 列数が異なる行の文字列を受け取る処理（不要な場合はnull）
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    static void read(Path path, long start, long end, int columns, Consumer<Row> handler,
+            Consumer<String> invalidRows) throws IOException {
+        read(path, start, end, columns, columns, row -> {
+            handler.accept(row);
+            return true;
+        }, invalidRows);
+    }
+
+    /**
+     * 開始位置以降の行を、処理が読み込みの終了を求めるまで読み込みます。
+     * 一覧の1ページ分のように先頭の一部だけが必要な場合に、ファイルの残りを読まずに済みます。
+     *
+     * @param path       CSVファイルのパス
+     * @param start      読み込み開始位置（行の途中を指している場合は次の行から読み込みます）
+     * @param minColumns 必要な最小の列数
+     * @param maxColumns 読み込む最大の列数（列数がこの範囲外の行は読み飛ばします）
+     * @param visitor    各行を受け取り、続けて読み込む場合にtrueを返す処理
+     * @return falseを返した行の開始位置、ファイルの終わりまで読み込んだ場合は-1
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    static long readWhile(Path path, long start, int minColumns, int maxColumns, RowVisitor visitor)
+            throws IOException {
+        return read(path, start, Long.MAX_VALUE, minColumns, maxColumns, visitor, null);
+    }
+
+    private static long read(Path path, long start, long end, int minColumns, int maxColumns, RowVisitor visitor,
+            Consumer<String> invalidRows) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long limit = Math.min(end, size);
+            Row row = new Row(minColumns, maxColumns);
+            long window = mapped(size) ? WINDOW_SIZE : HEAP_WINDOW_SIZE;
+
+            // 読み込み開始位置を行の先頭にそろえる（先頭行はヘッダーなので常に読み飛ばす）
+            long position = lineStartAtOrAfter(channel, Math.max(start, 1) - 1, size);
+            while (position < limit) {
+                long length = Math.min(size - position, window);
+                ByteBuffer buffer = load(channel, position, length);
+                long last = scan(buffer, position, limit, position + length == size, row, visitor, invalidRows);
+                if (last < 0) {
+                    return row.offset(); // 処理が読み込みの終了を求めた
+                }
+                if (last == 0) {
+                    // 1行がウィンドウより長い場合は、その行をウィンドウの終わりまでとして扱う
+                    if (!emit(buffer, position, 0, buffer.limit(), row, visitor, invalidRows)) {
+                        return row.offset();
+                    }
+                    last = buffer.limit();
+                }
+                position += last;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 指定位置以降で最初に始まる行の先頭位置を返します。
+     * positionが改行の直後（またはファイルの先頭の直前である-1）の場合はその位置を返します。
+     */
+    private static long lineStartAtOrAfter(FileChannel channel, long position, long size) throws IOException {
+        if (position < 0) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * 指定サイズのファイルをメモリマップして読み込むかどうかを返します。
+     */
+    private static boolean mapped(long size) {
+        return MAP_FILES && size >= MAP_THRESHOLD;
+    }
+
+    /**
+     * ファイルの一部をバッファに読み込みます。小さいファイルとWindowsではヒープに読み込み、それ以外はメモリマップします。
+     */
+    private static ByteBuffer load(FileChannel channel, long position, long length) throws IOException {
+        if (mapped(channel.size())) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) > 0) {
+            // バッファが埋まるまで読み込む
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * バッファ内の完結した行を走査します。
+     *
+     * @return 処理済みのバイト数（次のウィンドウはこの位置から始める）、処理が読み込みの終了を求めた場合は-1
+     */
+    private static long scan(ByteBuffer buffer, long base, long limit, boolean endOfFile, Row row,
+            RowVisitor visitor, Consumer<String> invalidRows) {
+        int lineStart = 0;
+        int length = buffer.limit();
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(i) != '\n') {
+                continue;
+            }
+            if (base + lineStart >= limit) {
+                return lineStart;
+            }
+            if (!emit(buffer, base, lineStart, i, row, visitor, invalidRows)) {
+                return -1;
+            }
+            lineStart = i + 1;
+        }
+        if (endOfFile && lineStart < length && base + lineStart < limit) {
+            // 改行で終わらない最終行
+            return emit(buffer, base, lineStart, length, row, visitor, invalidRows) ? length : -1;
+        }
+        return endOfFile ? length : lineStart;
+    }
+
+    /**
+     * 1行を解析して処理に渡します。
+     *
+     * @return 続けて読み込む場合はtrue
+     */
+    private static boolean emit(ByteBuffer buffer, long base, int from, int to, Row row, RowVisitor visitor,
+            Consumer<String> invalidRows) {
+        row.parse(buffer, base, from, to);
+        if (row.fieldCount >= row.minColumns && row.fieldCount <= row.starts.length) {
+            return visitor.visit(row);
+        }
+        if (invalidRows != null && row.lineEnd > row.lineStart) { // 空行は通知しない
+            invalidRows.accept(row.text());
+        }
+        return true;
+    }
+
+    /**
+     * 読み込んだ行を受け取り、続けて読み込むかを返す処理です。
+     */
+    @FunctionalInterface
+    interface RowVisitor {
+        /**
+         * @param row 読み込んだ行
+         * @return 続けて読み込む場合はtrue、この行で読み込みを終える場合はfalse
+         */
+        boolean visit(Row row);
+    }
+
+    /**
+     * CSVの1行を表します。列の値はバイト列の位置として保持し、取得時に変換します。
+     */
+    static final class Row {
+        private final int[] starts; // 各列の開始位置
+        private final int[] ends;   // 各列の終了位置
+        private final int minColumns; // 必要な最小の列数（最大の列数はstartsの長さ）
+        private ByteBuffer buffer;  // 行を含むバッファ
+        private long base;          // バッファ先頭のファイル上の位置
+        private int lineStart;      // 行の開始位置（バッファ内）
+        private int lineEnd;        // 行の終了位置（バッファ内、改行を含まない）
+        private int fieldCount;     // この行の列数
+
+        private Row(int minColumns, int maxColumns) {
+            this.starts = new int[maxColumns];
+            this.ends = new int[maxColumns];
+            this.minColumns = minColumns;
+        }
+
+        private void parse(ByteBuffer buffer, long base, int from, int to) {
+            this.buffer = buffer;
+            this.base = base;
+            if (to > from && buffer.get(to - 1) == '\r') {
+                to--; // CRLFの場合は\rを取り除く
+            }
+            this.lineStart = from;
+            this.lineEnd = to;
+            int count = 0;
+            int fieldStart = from;
+            for (int i = from; i <= to; i++) {
+                if (i == to || buffer.get(i) == ',') {
+                    if (count < starts.length) {
+                        starts[count] = fieldStart;
+                        ends[count] = i;
+                    }
+                    count++;
+                    fieldStart = i + 1;
+                }
+            }
+            this.fieldCount = count;
+        }
+
+        /**
+         * この行の列数を返します。省略可能な列があるかの確認に使います。
+         *
+         * @return 列数
+         */
+        int columnCount() {
+            return fieldCount;
+        }
+
+        /**
+         * 行の開始位置（ファイル先頭からのバイト数）を返します。
+         *
+         * @return 行の開始位置
+         */
+        long offset() {
+            return base + lineStart;
+        }
+
+        /**
+         * 行の終了位置（改行の直前、ファイル先頭からのバイト数）を返します。
+         *
+         * @return 行の終了位置
+         */
+        long endOffset() {
+            return base + lineEnd;
+        }
+
+        /**
+         * 行全体を文字列として返します。エラーメッセージなどに使います。
+         *
+         * @return 行の文字列
+         */
+        String text() {
+            return decode(lineStart, lineEnd);
+        }
+
+        /**
+         * 指定した列を整数として返します。前後の空白は無視します。
+         *
+         * @param column 列番号（0始まり）
+         * @return 列の値
+         * @throws NumberFormatException 整数として解釈できない場合
+         */
+        int getInt(int column) {
+            long value = getLong(column);
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                throw invalidNumber(column);
+            }
+            return (int) value;
+        }
+
+        /**
+         * 指定した列をlong型の整数として返します。前後の空白は無視します。
+         *
+         * @param column 列番号（0始まり）
+         * @return 列の値
+         * @throws NumberFormatException 整数として解釈できない場合
+         */
+        long getLong(int column) {
+            int from = starts[column];
+            int to = ends[column];
+            while (from < to && isSpace(buffer.get(from))) {
+                from++;
+            }
+            while (to > from && isSpace(buffer.get(to - 1))) {
+                to--;
+            }
+            boolean negative = from < to && buffer.get(from) == '-';
+            int i = negative || (from < to && buffer.get(from) == '+') ? from + 1 : from;
+            if (i >= to || to - i > 18) { // 19桁以上はオーバーフローの可能性があるため扱わない
+                throw invalidNumber(column);
+            }
+            long value = 0;
+            for (; i < to; i++) {
+                byte b = buffer.get(i);
+                if (b < '0' || b > '9') {
+                    throw invalidNumber(column);
+                }
+                value = value * 10 + (b - '0');
+            }
+            return negative ? -value : value;
+        }
+
+        private NumberFormatException invalidNumber(int column) {
+            return new NumberFormatException("For input string: \"" + decode(starts[column], ends[column]) + "\"");
+        }
+
+        /**
+         * 指定した列を前後の空白を取り除いた文字列として返します。
+         *
+         * @param column 列番号（0始まり）
+         * @return 列の値
+         */
+        String getString(int column) {
+            int from = starts[column];
+            int to = ends[column];
+            while (from < to && isSpace(buffer.get(from))) {
+                from++;
+            }
+            while (to > from && isSpace(buffer.get(to - 1))) {
+                to--;
+            }
+            return decode(from, to);
+        }
+
+        /**
+         * 指定した列をyyyy-MM-dd形式の日付として返します。
+         *
+         * @param column 列番号（0始まり）
+         * @return 列の値
+         * @throws java.time.format.DateTimeParseException 日付として解釈できない場合
+         */
+        LocalDate getDate(int column) {
+            int from = starts[column];
+            int to = ends[column];
+            while (from < to && isSpace(buffer.get(from))) {
+                from++;
+            }
+            while (to > from && isSpace(buffer.get(to - 1))) {
+                to--;
+            }
+            if (to - from == 10 && buffer.get(from + 4) == '-' && buffer.get(from + 7) == '-') {
+                int year = digits(from, from + 4);
+                int month = digits(from + 5, from + 7);
+                int day = digits(from + 8, from + 10);
+                if (year >= 0 && month >= 0 && day >= 0) {
+                    return LocalDate.of(year, month, day);
+                }
+            }
+            return LocalDate.parse(decode(from, to)); // 想定外の形式は標準のパーサーに任せる
+        }
+
+        private int digits(int from, int to) {
+            int value = 0;
+            for (int i = from; i < to; i++) {
+                byte b = buffer.get(i);
+                if (b < '0' || b > '9') {
+                    return -1;
+                }
+                value = value * 10 + (b - '0');
+            }
+            return value;
+        }
+
+        private String decode(int from, int to) {
+            byte[] bytes = new byte[to - from];
+            buffer.get(from, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private static boolean isSpace(byte b) {
+            return b == ' ' || b == '\t';
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.taskapp.dataaccess;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import com.taskapp.model.Log;
+
+/**
+ * ログを変更日の月ごとのCSVファイルに分けて保存するストレージです（-Dtaskapp.log.partitioned=true）。
+ * logs.csvに対して、2024年12月のログはlogs_2024-12.csvに保存します。各ファイルの形式はlogs.csvと同じです。
+ *
+ * <p>期間を指定した検索は、期間に含まれる月のファイルだけを読み込みます。全てのログを読み込む場合は月の順に読み込むため、
+ * 月をまたいで保存の順番と変更日の順番が異なる場合、結果の順番は保存の順番と異なります。
+ * 追記は月ごとのファイルのアペンダーで行い、削除は該当するログがある月のファイルだけを書き換えます。
+ * 既存のlogs.csvは{@link StorageConverter#logsToPartitions(String)}で月ごとのファイルに分割します。
+ */
+final class PartitionedLogStore {
+    static final String HEADER = "Task_Code,Change_User_Code,Status,Change_Date"; // 新しく作るファイルのヘッダー行
+
+    private static final Object CREATION_LOCK = new Object(); // 月ごとのファイルを作成する処理の排他制御用
+
+    private final Path dir;     // 月ごとのファイルを置くディレクトリ
+    private final String base;  // 月ごとのファイル名の前半（logs.csvに対してlogs）
+
+    /**
+     * @param csvPath logs.csvのパス（同じディレクトリに月ごとのファイルを置きます）
+     */
+    PartitionedLogStore(String csvPath) {
+        Path path = Paths.get(csvPath).toAbsolutePath().normalize();
+        String name = path.getFileName().toString();
+        this.dir = path.getParent();
+        this.base = name.endsWith(".csv") ? name.substring(0, name.length() - 4) : name;
+    }
+
+    /**
+     * 指定した月のファイルのパスを返します。
+     *
+     * @param month 月
+     * @return 月のファイルのパス（存在しない場合も返します）
+     */
+    Path partitionPath(YearMonth month) {
+        return dir.resolve(base + "_" + month + ".csv");
+    }
+
+    /**
+     * 存在する月ごとのファイルを月の順に返します。
+     *
+     * @return 月 → ファイルのパス
+     * @throws IOException ディレクトリの読み込みに失敗した場合
+     */
+    SortedMap<YearMonth, Path> partitions() throws IOException {
+        SortedMap<YearMonth, Path> partitions = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, base + "_[0-9][0-9][0-9][0-9]-[0-9][0-9].csv")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    partitions.put(YearMonth.parse(name.substring(base.length() + 1, name.length() - 4)), file);
+                } catch (DateTimeParseException e) {
+                    // 月として正しくないファイル名（logs_2024-13.csvなど）は対象外
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // ディレクトリがまだない
+        }
+        return partitions;
+    }
+
+    /**
+     * ログの変更日の月のファイルのアペンダーを返します。ファイルがない場合はヘッダー行だけのファイルを作成します。
+     *
+     * @param log 追記するログ
+     * @return 月のファイルのアペンダー
+     * @throws IOException ファイルの作成に失敗した場合
+     */
+    LogAppender appender(Log log) throws IOException {
+        Path path = partitionPath(YearMonth.from(log.getChangeDate()));
+        if (!Files.exists(path)) {
+            synchronized (CREATION_LOCK) { // ヘッダー行を書き込む前に他のスレッドが追記しないようにする
+                if (!Files.exists(path)) {
+                    Files.createDirectories(dir);
+                    Path temp = Files.createTempFile(dir, base, ".tmp");
+                    try {
+                        Files.writeString(temp, HEADER + System.lineSeparator(), StandardCharsets.UTF_8);
+                        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+                    } finally {
+                        Files.deleteIfExists(temp);
+                    }
+                }
+            }
+        }
+        return LogDataAccess.createAppender(path.toString());
+    }
+
+    /**
+     * 複数のログを月ごとにまとめ、月のファイルごとに1回の書き込みで追記します。
+     *
+     * @param logs 追記するログ
+     * @param rows 各ログのCSVの行
+     * @throws IOException ファイルの書き込みに失敗した場合
+     */
+    void appendAll(List<Log> logs, List<String> rows) throws IOException {
+        Map<LogAppender, List<String>> byMonth = new LinkedHashMap<>();
+        for (int i = 0; i < logs.size(); i++) {
+            byMonth.computeIfAbsent(appender(logs.get(i)), appender -> new ArrayList<>()).add(rows.get(i));
+        }
+        for (Map.Entry<LogAppender, List<String>> entry : byMonth.entrySet()) {
+            entry.getKey().appendAll(entry.getValue());
+        }
+    }
+
+    /**
+     * 全ての月のファイルのログを月の順に読み込みます。
+     *
+     * @param handler 各ログを受け取る処理
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    void findAll(Consumer<Log> handler) throws IOException {
+        for (Path path : partitions().values()) {
+            MappedCsvReader.read(path, 4, row -> handler.accept(
+                    new Log(row.getInt(0), row.getInt(1), row.getInt(2), row.getDate(3))));
+        }
+    }
+
+    /**
+     * 変更日が期間に含まれるログを、期間に含まれる月のファイルだけから読み込みます。
+     *
+     * @param from    期間の初日
+     * @param to      期間の最終日
+     * @param handler 各行を受け取る処理（変更日以外の条件は呼び出し側で判定します）
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    void find(LocalDate from, LocalDate to, Consumer<MappedCsvReader.Row> handler) throws IOException {
+        SortedMap<YearMonth, Path> partitions = partitions().subMap(YearMonth.from(from), YearMonth.from(to).plusMonths(1));
+        for (Path path : partitions.values()) {
+            MappedCsvReader.read(path, 4, handler);
+        }
+    }
+
+    /**
+     * 全ての月のファイルを1つにつなげた範囲として並列に読み込み、集計します。
+     * ファイル上の位置は、月の順につなげた位置を使います。
+     *
+     * @param minChunkBytes 分割する最小のバイト数
+     * @return 集計結果
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    LogReport analyze(long minChunkBytes) throws IOException {
+        List<Path> paths = new ArrayList<>(partitions().values());
+        long[] starts = new long[paths.size() + 1]; // 各ファイルの先頭のつなげた位置（最後は全体の長さ）
+        for (int i = 0; i < paths.size(); i++) {
+            starts[i + 1] = starts[i] + Files.size(paths.get(i)); // 集計中の追記は含めない
+        }
+        return LogAnalyzer.analyze(starts[paths.size()], minChunkBytes, (start, end, sink) -> {
+            for (int i = 0; i < paths.size(); i++) {
+                if (starts[i + 1] <= start || starts[i] >= end) {
+                    continue; // 範囲と重ならないファイル
+                }
+                long base = starts[i];
+                MappedCsvReader.read(paths.get(i), Math.max(0, start - base), Math.min(end, starts[i + 1]) - base, 4,
+                        row -> sink.accept(row.getInt(0), row.getInt(1), row.getInt(2),
+                                (int) row.getDate(3).toEpochDay(), base + row.offset()),
+                        null);
+            }
+        });
+    }
+
+    /**
+     * 指定したタスクコードのログを取り除いた月ごとのファイルを一時ファイルに書き出します。
+     * 該当するログがない月のファイルは書き換えません。確定または破棄するまでの間、月ごとのファイルへの追記は待たされます。
+     *
+     * @param taskCodes 削除するログのタスクコード
+     * @param release   確定または破棄した後に実行する処理（ロックの解放など）
+     * @return 確定または破棄する必要がある書き換え
+     * @throws IOException ファイルの読み書きに失敗した場合
+     */
+    FileRewrite prepareDelete(Set<Integer> taskCodes, Runnable release) throws IOException {
+        List<LogAppender> paused = new ArrayList<>();
+        List<Path> targets = new ArrayList<>();
+        List<Path> temps = new ArrayList<>();
+        Runnable unlock = () -> {
+            for (LogAppender appender : paused) {
+                appender.resume();
+            }
+            release.run();
+        };
+        try {
+            for (Path path : partitions().values()) {
+                LogAppender appender = LogDataAccess.createAppender(path.toString());
+                appender.pause(); // 追記待ちのログを書き込んでから書き換える
+                paused.add(appender);
+                Path temp = rewrite(path, taskCodes);
+                if (temp != null) {
+                    targets.add(path);
+                    temps.add(temp);
+                }
+            }
+            return new FileRewrite(targets, temps, () -> {
+            }, unlock);
+        } catch (IOException | RuntimeException e) {
+            for (Path temp : temps) {
+                Files.deleteIfExists(temp);
+            }
+            unlock.run();
+            throw e;
+        }
+    }
+
+    /**
+     * 1つの月のファイルから、指定したタスクコードのログを取り除いた一時ファイルを書き出します。
+     *
+     * @return 一時ファイル（取り除いたログがない場合はnull）
+     */
+    private static Path rewrite(Path path, Set<Integer> taskCodes) throws IOException {
+        boolean[] removed = new boolean[1];
+        Path temp = Files.createTempFile(path.getParent(), "logs", ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.newLine();
+            IOException[] failure = new IOException[1];
+            Consumer<String> out = line -> { // 読み込んだ順に一時ファイルへ書き込む
+                try {
+                    if (failure[0] == null) {
+                        writer.write(line);
+                        writer.newLine();
+                    }
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            };
+            MappedCsvReader.read(path, 0, Long.MAX_VALUE, 4, row -> {
+                if (taskCodes.contains(row.getInt(0))) {
+                    removed[0] = true; // 削除対象のログは書き込まない
+                } else {
+                    out.accept(row.text());
+                }
+            }, out); // 形式が不正な行はそのまま残す
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        if (!removed[0]) {
+            Files.deleteIfExists(temp);
+            return null;
+        }
+        return temp;
+    }
+
+    /**
+     * ログを月ごとの一時ファイルに書き出し、最後にまとめて月ごとのファイルにするクラスです。既存のログの分割に使います。
+     */
+    final class Writer implements AutoCloseable {
+        private final Map<YearMonth, Path> temps = new TreeMap<>();
+        private final Map<YearMonth, BufferedWriter> writers = new TreeMap<>();
+        private IOException failure; // 書き込みで最初に発生した例外
+        private int count;
+
+        /**
+         * @throws IOException 月ごとのファイルが既にある場合
+         */
+        Writer() throws IOException {
+            if (!partitions().isEmpty()) {
+                throw new IOException("月ごとのログのファイルが既にあります：" + partitions().firstKey() + "〜");
+            }
+        }
+
+        /**
+         * ログを月の一時ファイルに書き出します。失敗した場合は{@link #commit()}で例外をスローします。
+         *
+         * @param log 書き出すログ
+         */
+        void write(Log log) {
+            if (failure != null) {
+                return;
+            }
+            try {
+                YearMonth month = YearMonth.from(log.getChangeDate());
+                BufferedWriter writer = writers.get(month);
+                if (writer == null) {
+                    Path temp = Files.createTempFile(dir, base, ".tmp");
+                    temps.put(month, temp);
+                    writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8);
+                    writers.put(month, writer);
+                    writer.write(HEADER);
+                    writer.newLine();
+                }
+                writer.write(LogDataAccess.toCsv(log));
+                writer.newLine();
+                count++;
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        /**
+         * 一時ファイルを月ごとのファイルに置き換えます。
+         *
+         * @return 書き出したログの件数
+         * @throws IOException 書き出しまたは置き換えに失敗した場合
+         */
+        int commit() throws IOException {
+            closeWriters();
+            if (failure != null) {
+                throw failure;
+            }
+            for (Map.Entry<YearMonth, Path> entry : temps.entrySet()) {
+                Files.move(entry.getValue(), partitionPath(entry.getKey()), StandardCopyOption.ATOMIC_MOVE);
+            }
+            temps.clear();
+            return count;
+        }
+
+        /**
+         * 置き換えていない一時ファイルを削除します。
+         */
+        @Override
+        public void close() throws IOException {
+            closeWriters();
+            for (Path temp : temps.values()) {
+                Files.deleteIfExists(temp);
+            }
+        }
+
+        private void closeWriters() {
+            for (BufferedWriter writer : writers.values()) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    failure = failure != null ? failure : e;
+                }
+            }
+            writers.clear();
+        }
+    }
+}
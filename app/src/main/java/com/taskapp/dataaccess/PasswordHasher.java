@@ -0,0 +1,144 @@
+package com.taskapp.dataaccess;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * users.csvのパスワードをソルト付きのPBKDF2で不可逆に変換し、照合します。
+ * 変換後の値は「pbkdf2$反復回数$ソルト$ハッシュ値」（ソルトとハッシュ値はBase64）の形式で、カンマを含みません。
+ * 反復回数は-Dtaskapp.password.iterationsで変更でき、変更前に保存した値はその値に記録された回数で照合します。
+ */
+final class PasswordHasher {
+    private static final String PREFIX = "pbkdf2$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final int DEFAULT_ITERATIONS = 210_000;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // 存在しないメールアドレスでも同じ時間がかかるように照合する、どのパスワードとも一致しない値
+    private static volatile Verifier dummy;
+
+    private PasswordHasher() {
+    }
+
+    /**
+     * 現在の設定の反復回数を返します。
+     *
+     * @return 反復回数
+     */
+    static int iterations() {
+        return Math.max(1, Integer.getInteger("taskapp.password.iterations", DEFAULT_ITERATIONS));
+    }
+
+    /**
+     * パスワードを新しいソルトで変換します。
+     *
+     * @param password パスワード
+     * @return 保存する形式の値
+     */
+    static String hash(String password) {
+        int iterations = iterations();
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        Base64.Encoder encoder = Base64.getEncoder();
+        return PREFIX + iterations + "$" + encoder.encodeToString(salt) + "$"
+                + encoder.encodeToString(derive(password, salt, iterations));
+    }
+
+    /**
+     * 値が変換済みのパスワードかを判定します。
+     *
+     * @param stored users.csvのパスワード列の値
+     * @return 変換済みならtrue
+     */
+    static boolean isHashed(String stored) {
+        return stored.startsWith(PREFIX);
+    }
+
+    /**
+     * 保存された値を照合用に解析します。変換前（平文）の値は移行が終わるまでそのまま照合しますが、
+     * 応答時間から移行前の行だとわからないよう、照合のたびに変換済みの値と同じ回数の計算を行います。
+     *
+     * @param stored users.csvのパスワード列の値
+     * @return 照合に使う値
+     */
+    static Verifier verifier(String stored) {
+        if (!isHashed(stored)) {
+            return new Verifier(0, null, stored.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = stored.split("\\$");
+        try {
+            int iterations = Integer.parseInt(parts[1]);
+            if (iterations <= 0) { // 0は平文と区別できず、負の値はPBEKeySpecが受け付けない
+                throw new IllegalArgumentException("iterations: " + iterations);
+            }
+            Base64.Decoder decoder = Base64.getDecoder();
+            return new Verifier(iterations, decoder.decode(parts[2]), decoder.decode(parts[3]));
+        } catch (RuntimeException e) {
+            System.err.println("Invalid password hash: " + stored); // 形式が不正な値はどのパスワードとも一致させない
+            return new Verifier(iterations(), new byte[SALT_BYTES], new byte[0]); // 照合の時間は他の行と同じにする
+        }
+    }
+
+    /**
+     * どのパスワードとも一致しない照合用の値を返します。
+     *
+     * @return 照合に使う値
+     */
+    static Verifier dummy() {
+        Verifier current = dummy;
+        if (current == null || current.iterations != iterations()) {
+            current = verifier(hash(Long.toString(RANDOM.nextLong())));
+            dummy = current;
+        }
+        return current;
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e); // JDKに標準で含まれるアルゴリズムのため発生しない
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    /**
+     * 解析済みのソルトとハッシュ値です。ログインのたびに保存形式を解析しないよう、UserIndexが保持します。
+     */
+    static final class Verifier {
+        private final int iterations; // 0の場合は平文
+        private final byte[] salt;
+        private final byte[] expected;
+
+        private Verifier(int iterations, byte[] salt, byte[] expected) {
+            this.iterations = iterations;
+            this.salt = salt;
+            this.expected = expected;
+        }
+
+        /**
+         * パスワードが一致するかを判定します。ハッシュ値の計算は1回だけ行い、比較は一定時間で行います。
+         * 平文の値の場合も、存在しないメールアドレスと同じくダミーの値で1回計算してから比較します。
+         *
+         * @param password 入力されたパスワード
+         * @return 一致すればtrue
+         */
+        boolean matches(String password) {
+            if (iterations == 0) {
+                dummy().matches(password); // 結果は使わず、変換済みの値と同じ時間をかける
+                return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8), expected);
+            }
+            return MessageDigest.isEqual(derive(password, salt, iterations), expected);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.taskapp.dataaccess;
+
+/**
+ * 起動時の設定に応じて、ロジックが使うリポジトリを作成します。
+ * 保存方式は-Dtaskapp.engineで指定します。
+ * <ul>
+ * <li>csv（既定）：app/src/main/resources以下のファイルに保存する（-Dtaskapp.storageなどのファイルの設定もそのまま使う）</li>
+ * <li>memory：最初に使うときに同じファイルの内容を読み込んでメモリ上に保持し、以降の変更はファイルに書き込まない</li>
+ * </ul>
+ * memoryの場合は、同じプロセスのTaskLogic、UserLogic、ImportLogicが同じインスタンスを共有します。
+ */
+public final class Repositories {
+    /** ファイルに保存する保存方式 */
+    public static final String CSV = "csv";
+    /** メモリ上にだけ保持する保存方式 */
+    public static final String MEMORY = "memory";
+
+    private static InMemoryUserRepository memoryUsers; // memoryの場合のリポジトリ（Repositories.classで保護）
+    private static InMemoryTaskRepository memoryTasks;
+    private static InMemoryLogRepository memoryLogs;
+
+    private Repositories() {
+    }
+
+    /**
+     * 設定されている保存方式を返します。csvとmemory以外が指定された場合はcsvです。
+     *
+     * @return 保存方式
+     */
+    public static String engine() {
+        return MEMORY.equals(System.getProperty("taskapp.engine", CSV)) ? MEMORY : CSV;
+    }
+
+    /**
+     * タスクのリポジトリを返します。
+     *
+     * @return タスクのリポジトリ
+     */
+    public static TaskRepository tasks() {
+        if (engine().equals(MEMORY)) {
+            loadMemory();
+            return memoryTasks;
+        }
+        return new TaskDataAccess();
+    }
+
+    /**
+     * ログのリポジトリを返します。
+     *
+     * @return ログのリポジトリ
+     */
+    public static LogRepository logs() {
+        if (engine().equals(MEMORY)) {
+            loadMemory();
+            return memoryLogs;
+        }
+        return new LogDataAccess();
+    }
+
+    /**
+     * ユーザーのリポジトリを返します。
+     *
+     * @return ユーザーのリポジトリ
+     */
+    public static UserRepository users() {
+        if (engine().equals(MEMORY)) {
+            loadMemory();
+            return memoryUsers;
+        }
+        return new UserDataAccess();
+    }
+
+    /**
+     * memoryの場合に、最初の1回だけファイルの内容をメモリ上のリポジトリに読み込みます。
+     */
+    private static synchronized void loadMemory() {
+        if (memoryUsers != null) {
+            return;
+        }
+        InMemoryUserRepository userRepository = new InMemoryUserRepository(new UserDataAccess().findAll());
+        InMemoryTaskRepository taskRepository = new InMemoryTaskRepository(userRepository);
+        taskRepository.saveAll(new TaskDataAccess().findAll());
+        memoryLogs = new InMemoryLogRepository(new LogDataAccess().findAll());
+        memoryTasks = taskRepository;
+        memoryUsers = userRepository;
+    }
+}
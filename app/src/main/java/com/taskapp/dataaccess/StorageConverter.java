@@ -0,0 +1,161 @@
+package com.taskapp.dataaccess;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * タスクとログの保存形式を、CSVとバイナリ形式（-Dtaskapp.storage=binary）の間で変換するクラスです。
+ * ログはCSVから月ごとのファイル（-Dtaskapp.log.partitioned=true）への分割にも対応します。
+ * 変換元のファイルはそのまま残し、変換先のファイルは一時ファイルに書き出してから置き換えます。
+ *
+ * <p>このプロセス内で同じファイルを扱う操作は変換の間止まりますが、他のプロセスからの書き込みは止められないため、
+ * アプリケーションを停止した状態で実行してください。
+ */
+public final class StorageConverter {
+    private StorageConverter() {
+    }
+
+    /**
+     * tasks.csvの内容をtasks.binとtasks.namesに変換します。形式が不正な行は変換しません。
+     *
+     * @param csvPath  tasks.csvのパス
+     * @param lastWins 同じタスクコードの行が複数ある場合に最後の行を残すか（追記型の更新を使っていた場合はtrue）。
+     *                 falseの場合は全ての行をそのまま変換し、最初の行が有効になります
+     * @return 変換したタスクの件数
+     * @throws IOException ファイルの読み書きに失敗した場合
+     */
+    public static int tasksToBinary(String csvPath, boolean lastWins) throws IOException {
+        StripedLocks locks = StripedLocks.forFile(csvPath);
+        Lock exclusive = locks.fileLock().writeLock(); // 読み込みから書き込みまでタスクの操作を止める
+        exclusive.lock();
+        try {
+            List<Task> rows = new ArrayList<>();
+            MappedCsvReader.read(Paths.get(csvPath), 4, 5, row -> rows.add(new Task(row.getInt(0), row.getString(1),
+                    row.getInt(2), placeholder(row.getInt(3)), row.columnCount() == 5 ? row.getInt(4) : 0)));
+            List<Task> tasks = rows;
+            if (lastWins) {
+                Map<Integer, Task> latest = new LinkedHashMap<>(); // 圧縮処理と同じく最初の位置に最後の行を残す
+                for (Task task : rows) {
+                    latest.put(task.getCode(), task);
+                }
+                tasks = new ArrayList<>(latest.values());
+            }
+            new BinaryTaskStore(csvPath, locks).replaceAll(tasks);
+            return tasks.size();
+        } finally {
+            exclusive.unlock();
+        }
+    }
+
+    /**
+     * tasks.binとtasks.namesの内容をtasks.csvに変換します。既存のtasks.csvのヘッダー行は引き継ぎます。
+     *
+     * @param csvPath tasks.csvのパス
+     * @return 変換したタスクの件数
+     * @throws IOException ファイルの読み書きに失敗した場合、またはタスク名にカンマか改行が含まれCSVで表せない場合
+     */
+    public static int tasksToCsv(String csvPath) throws IOException {
+        StripedLocks locks = StripedLocks.forFile(csvPath);
+        Lock exclusive = locks.fileLock().writeLock();
+        exclusive.lock();
+        try {
+            List<Task> tasks = new BinaryTaskStore(csvPath, locks).findAll(StorageConverter::placeholder);
+            for (Task task : tasks) {
+                if (task.getName().matches("(?s).*[,\r\n].*")) {
+                    throw new IOException("タスクコード" + task.getCode() + "のタスク名にカンマまたは改行が含まれるため、CSVに変換できません");
+                }
+            }
+            Path path = Paths.get(csvPath);
+            String header = TaskDataAccess.HEADER;
+            if (Files.exists(path)) {
+                try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                    String line = reader.readLine(); // 既存のヘッダー行をそのまま引き継ぐ
+                    header = line != null ? line : header;
+                }
+            }
+            Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), "tasks", ".tmp");
+            try {
+                try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    writer.write(header);
+                    writer.newLine();
+                    for (Task task : tasks) {
+                        writer.write(TaskDataAccess.toCsv(task));
+                        writer.newLine();
+                    }
+                }
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            // 行の位置が変わるため索引ファイルを削除する（残っていてもCSVとの不一致で再構築される）
+            Files.deleteIfExists(Paths.get(csvPath.replaceAll("\\.csv$", "") + ".idx"));
+            return tasks.size();
+        } finally {
+            exclusive.unlock();
+        }
+    }
+
+    /**
+     * logs.csvの内容をlogs.binに変換します。削除マーカーが付いたログは変換しません。
+     *
+     * @param csvPath logs.csvのパス
+     * @return 変換したログの件数
+     * @throws IOException ファイルの読み書きに失敗した場合
+     */
+    public static int logsToBinary(String csvPath) throws IOException {
+        List<Log> logs = new LogDataAccess(csvPath).readCsv();
+        new BinaryLogStore(csvPath).replaceAll(logs);
+        return logs.size();
+    }
+
+    /**
+     * logs.binの内容をlogs.csvに変換します。既存のlogs.csvのヘッダー行は引き継ぎ、削除マーカーは消去します。
+     *
+     * @param csvPath logs.csvのパス
+     * @return 変換したログの件数
+     * @throws IOException ファイルの読み書きに失敗した場合
+     */
+    public static int logsToCsv(String csvPath) throws IOException {
+        List<Log> logs = new BinaryLogStore(csvPath).findAll();
+        new LogDataAccess(csvPath).writeCsv(logs);
+        return logs.size();
+    }
+
+    /**
+     * logs.csvのログを変更日の月ごとのファイル（logs_2024-12.csvなど）に分割します。削除マーカーが付いたログは分割しません。
+     * ログは全てを読み込まずに1件ずつ月ごとの一時ファイルに書き出し、最後に月ごとのファイルに置き換えます。
+     *
+     * @param csvPath logs.csvのパス
+     * @return 分割したログの件数
+     * @throws IOException ファイルの読み書きに失敗した場合、または月ごとのファイルが既にある場合
+     */
+    public static int logsToPartitions(String csvPath) throws IOException {
+        LogDataAccess source = new LogDataAccess(csvPath);
+        try (PartitionedLogStore.Writer writer = new PartitionedLogStore(csvPath).new Writer()) {
+            source.readCsv(writer::write);
+            return writer.commit();
+        }
+    }
+
+    /**
+     * 担当ユーザーコードだけを持つユーザーを返します。変換ではユーザーの存在を確認せず、全てのタスクをそのまま移します。
+     */
+    private static User placeholder(int code) {
+        return new User(code, null, null, null);
+    }
+}
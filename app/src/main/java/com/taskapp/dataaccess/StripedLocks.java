@@ -0,0 +1,94 @@
+package com.taskapp.dataaccess;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 1つのCSVファイルに対する操作の排他制御に使うロックの組です。
+ * 同じファイルを扱うインスタンスが複数あっても同じロックを使うよう、{@link #forFile(String)}でファイルごとに共有します。
+ *
+ * <ul>
+ * <li>{@link #fileLock()}：ファイル全体の読み書きロック。タスク単位の操作は読み込みロック、
+ *     圧縮や削除のようにファイル全体を書き換える操作は書き込みロックを取得します。</li>
+ * <li>{@link #stripe(int)}：タスクコードごとのロック。コードをハッシュで分けた固定数のロックを使うため、
+ *     異なるタスクコードに対する操作はほとんどの場合並行に実行できます。</li>
+ * <li>{@link #writer()}：ファイルへの追記と書き換えを1つずつ実行するためのロック。</li>
+ * </ul>
+ * デッドロックを防ぐため、ロックは必ずfileLock、stripe、writerの順に取得してください。
+ * fileLockの読み込みロックを保持したまま書き込みロックを取得することはできません。
+ */
+public final class StripedLocks {
+    // ファイルの絶対パスごとのロック
+    private static final ConcurrentMap<Path, StripedLocks> BY_FILE = new ConcurrentHashMap<>();
+
+    private final ReadWriteLock fileLock = new ReentrantReadWriteLock(); // ファイル全体の読み書きロック
+    private final ReentrantLock writer = new ReentrantLock();          // 追記と書き換えの排他制御用
+    private final ReentrantLock[] stripes;                             // タスクコードごとのロック
+    private final int mask;                                            // ロックの数-1（2のべき乗-1）
+
+    /**
+     * taskapp.lock.stripes（既定値64）個のタスクコードごとのロックを持つ組を作成します。
+     */
+    public StripedLocks() {
+        this(Integer.getInteger("taskapp.lock.stripes", 64));
+    }
+
+    /**
+     * 指定した数のタスクコードごとのロックを持つ組を作成します。
+     *
+     * @param stripeCount タスクコードごとのロックの数（2のべき乗に切り上げます）
+     */
+    public StripedLocks(int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, Math.min(stripeCount, 1 << 16)) * 2 - 1);
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * 指定したファイルに対するロックの組を返します。同じファイルに対しては常に同じ組を返します。
+     *
+     * @param filePath ファイルのパス
+     * @return ファイルに対するロックの組
+     */
+    public static StripedLocks forFile(String filePath) {
+        return BY_FILE.computeIfAbsent(Paths.get(filePath).toAbsolutePath().normalize(), path -> new StripedLocks());
+    }
+
+    /**
+     * ファイル全体の読み書きロックを返します。
+     *
+     * @return タスク単位の操作は読み込みロック、ファイル全体を書き換える操作は書き込みロックを取得するロック
+     */
+    public ReadWriteLock fileLock() {
+        return fileLock;
+    }
+
+    /**
+     * タスクコードに対応するロックを返します。異なるタスクコードが同じロックを共有する場合があります。
+     *
+     * @param code タスクコード
+     * @return タスクコードに対応するロック
+     */
+    public Lock stripe(int code) {
+        int hash = code * 0x9E3779B9; // 連続したコードが同じロックに偏らないよう混ぜる
+        return stripes[(hash ^ (hash >>> 16)) & mask];
+    }
+
+    /**
+     * ファイルへの追記と書き換えを1つずつ実行するためのロックを返します。
+     *
+     * @return 追記と書き換えの排他制御用のロック
+     */
+    ReentrantLock writer() {
+        return writer;
+    }
+}
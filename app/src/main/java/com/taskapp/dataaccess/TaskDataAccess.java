@@ -2,25 +2,86 @@ package com.taskapp.dataaccess;
 
 import java.io.BufferedReader;  // ファイル読み込みのためのクラス
 import java.io.BufferedWriter;  // ファイル書き込みのためのクラス
-import java.io.FileReader;      // ファイルを読み取るためのクラス
-import java.io.FileWriter;      // ファイルを書き込むためのクラス
+import java.io.ByteArrayOutputStream; // 複数行をまとめて書き込むためのクラス
 import java.io.IOException;     // 入出力例外を処理するためのクラス
+import java.nio.ByteBuffer;     // バイト単位の読み書きのためのクラス
+import java.nio.channels.FileChannel; // ファイル末尾への追記のためのクラス
+import java.nio.charset.StandardCharsets; // 文字コード指定のためのクラス
+import java.nio.file.Files;     // 一時ファイルの作成のためのクラス
+import java.nio.file.Path;      // ファイルパスを表すインターフェース
+import java.nio.file.Paths;     // ファイルパスを生成するためのクラス
+import java.nio.file.StandardCopyOption; // ファイル置き換えのオプション
+import java.nio.file.StandardOpenOption; // ファイルを開くときのオプション
+import java.nio.file.attribute.BasicFileAttributes; // ファイルのサイズと更新日時を取得するためのインターフェース
 import java.util.ArrayList;     // 動的配列のためのクラス
+import java.util.Collection;    // 削除するタスクコードの集まりを受け取るためのインターフェース
+import java.util.HashMap;       // ユーザーコードをキーにしたマップのためのクラス
+import java.util.HashSet;       // 削除するタスクコードを素早く判定するためのクラス
+import java.util.LinkedHashMap; // 挿入順を保持するマップのためのクラス
 import java.util.List;          // リスト型データ構造のためのインターフェース
+import java.util.Map;           // マップ型データ構造のためのインターフェース
+import java.util.Set;           // 重複のない集合を表すインターフェース
+import java.util.concurrent.ConcurrentHashMap; // 圧縮処理中のファイルを記録するためのクラス
+import java.util.concurrent.ExecutorService; // バックグラウンド処理のためのインターフェース
+import java.util.concurrent.Executors;       // スレッドプールを生成するためのクラス
+import java.util.concurrent.locks.Lock;           // ファイル全体を書き換える間の排他制御のためのインターフェース
+import java.util.concurrent.locks.ReentrantLock;  // 書き換えの準備から確定までファイルを保護するためのクラス
+import java.util.function.IntFunction; // 担当ユーザーを解決する処理を表すインターフェース
+import java.util.function.Predicate; // 取り除く行の条件を表すインターフェース
 
 import com.taskapp.model.Task; // タスクモデルクラスをインポート
 import com.taskapp.model.User; // ユーザーモデルクラスをインポート
 
 // タスクデータアクセスを行うクラス
-public class TaskDataAccess {
+// CSVの列はコード、タスク名、ステータス、担当ユーザーコード、バージョン。バージョンは1回以上更新された行にだけ書き込み、省略時は0とする
+// -Dtaskapp.storage=binaryの場合はCSVの代わりにBinaryTaskStoreの固定長のバイナリ形式に保存する（StorageConverterで相互に変換できる）
+public class TaskDataAccess implements TaskRepository {
+    static final String HEADER = "Code,Name,Status,RepUserCode"; // CSVのヘッダー行
+
+    // 追記型ストレージの圧縮処理を実行するバックグラウンドスレッド
+    private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "task-compactor");
+        thread.setDaemon(true); // アプリケーションの終了を妨げない
+        return thread;
+    });
+    // 圧縮処理を実行中または予約済みのファイルの絶対パス（同じファイルを扱うインスタンスで多重に起動しない）
+    private static final Set<Path> COMPACTING = ConcurrentHashMap.newKeySet();
 
     private final String filePath; // タスクデータのCSVファイルパスを保持
     private final UserDataAccess userDataAccess; // ユーザーデータアクセス用のインスタンス
 
+    // trueの場合、updateはファイル全体を書き換えずに更新後の行を末尾に追記する（-Dtaskapp.task.appendUpdates=true）
+    private final boolean appendUpdates = Boolean.getBoolean("taskapp.task.appendUpdates");
+    // 無効になった行がこの件数を超えたら圧縮する（-Dtaskapp.task.compactThreshold=件数）
+    // 件数はtasks.idxに保存した行数から求めるため、インスタンスの作り直しや再起動をまたいで数え続ける
+    private final int compactThreshold = Integer.getInteger("taskapp.task.compactThreshold", 10000);
+    // trueの場合、CSVの代わりに固定長のバイナリ形式（tasks.binとtasks.names）に保存する（-Dtaskapp.storage=binary）
+    private final boolean binaryStorage = "binary".equals(System.getProperty("taskapp.storage", "csv"));
+
+    private final StripedLocks locks;       // 同じファイルを扱うインスタンスで共有するロック
+    private final ReentrantLock writer;     // 追記と圧縮・削除の排他制御用（locks.writer()。ファイル全体の読み書きロックlocks.fileLock()とは別）
+    private final BinaryTaskStore binary;   // バイナリ形式のストレージ（CSVに保存する場合はnull）
+    private final TaskStatusCounters counters; // 担当ユーザーとステータスごとのタスク数（同じファイルを扱うインスタンスで共有する）
+    // tasks.csvとlogs.csvにまたがる操作の記録（-Dtaskapp.journal=true の場合のみ、同じファイルを扱うインスタンスで共有する）
+    private final TaskJournal journal;
+    // CSVの全ての行をメモリ上に保持し、追記された行だけを解析する（-Dtaskapp.task.snapshot=true かつCSVの場合のみ）
+    private final TaskSnapshot snapshot;
+    private TaskIndex index; // タスクコードの索引（未読み込みまたは無効な場合はnull、writerで保護）
+    private Set<Integer> codeSet; // 登録済みのタスクコード（未読み込みまたは無効な場合はnull、writerで保護）
+    private long codeSetSize;     // codeSetが対応しているCSVのサイズ
+    private long codeSetModified; // codeSetが対応しているCSVの更新日時
+
     // デフォルトコンストラクタ: デフォルトのファイルパスとUserDataAccessを使用
     public TaskDataAccess() {
         filePath = "app/src/main/resources/tasks.csv"; // デフォルトのCSVファイルパスを設定
         userDataAccess = new UserDataAccess(); // ユーザーデータアクセスインスタンスを生成
+        locks = StripedLocks.forFile(filePath); // 同じファイルを扱う他のインスタンスとロックを共有
+        writer = locks.writer();
+        binary = binaryStorage ? new BinaryTaskStore(filePath, locks) : null;
+        counters = TaskStatusCounters.forFile(filePath, binary != null ? binary.path() : Paths.get(filePath), locks,
+                this::findTable);
+        journal = Boolean.getBoolean("taskapp.journal") ? TaskJournal.forFile(filePath) : null;
+        snapshot = Boolean.getBoolean("taskapp.task.snapshot") && binary == null ? TaskSnapshot.forFile(filePath) : null;
     }
 
     /**
@@ -31,86 +92,926 @@ public class TaskDataAccess {
     public TaskDataAccess(String filePath, UserDataAccess userDataAccess) {
         this.filePath = filePath; // 指定されたファイルパスを使用
         this.userDataAccess = userDataAccess; // 指定されたユーザーデータアクセスを使用
+        this.locks = StripedLocks.forFile(filePath); // 同じファイルを扱う他のインスタンスとロックを共有
+        this.writer = locks.writer();
+        this.binary = binaryStorage ? new BinaryTaskStore(filePath, locks) : null;
+        this.counters = TaskStatusCounters.forFile(filePath, binary != null ? binary.path() : Paths.get(filePath), locks,
+                this::findTable);
+        this.journal = Boolean.getBoolean("taskapp.journal") ? TaskJournal.forFile(filePath) : null;
+        this.snapshot = Boolean.getBoolean("taskapp.task.snapshot") && binary == null ? TaskSnapshot.forFile(filePath)
+                : null;
+    }
+
+    /**
+     * このCSVファイルに対する操作の排他制御に使うロックを返します。
+     * 同じファイルを扱うTaskDataAccessのインスタンスは同じロックを返します。
+     * @return ファイルに対するロックの組
+     */
+    public StripedLocks getLocks() {
+        return locks;
+    }
+
+    /**
+     * このファイルのタスクを担当ユーザーとステータスの組ごとに数えた集計値を返します。
+     * 同じファイルを扱うTaskDataAccessのインスタンスは同じ集計値を返します。
+     * 集計値はTaskLogicとImportLogicが変更のたびに更新します。
+     * @return 担当ユーザーとステータスごとのタスク数
+     */
+    public TaskStatusCounters getStatusCounters() {
+        return counters;
+    }
+
+    /**
+     * tasks.csvとlogs.csvにまたがる操作を適用前に記録するジャーナルを返します。
+     * 同じファイルを扱うTaskDataAccessのインスタンスは同じジャーナルを返します。
+     * @return ジャーナル（-Dtaskapp.journal=true が指定されていない場合はnull）
+     */
+    public TaskJournal getJournal() {
+        return journal;
     }
 
     /**
      * CSVから全てのタスクデータを取得します。
+     * 担当ユーザーは最初にユーザーデータを1回だけ読み込んで作ったマップから解決するため、
+     * 処理量はタスク数×ユーザー数ではなくタスク数＋ユーザー数に比例します。
+     * 追記型の更新が有効な場合、同じタスクコードの行は最後に書かれた行を採用します。
+     * -Dtaskapp.task.snapshot=true の場合はCSVを解析せず、メモリ上に保持している行から作成します。
      * @return タスクのリスト
      */
     public List<Task> findAll() {
+        if (snapshot != null) {
+            TaskTable table = findTable(); // 行の選び方はCSVを解析する場合と同じ
+            List<Task> tasks = new ArrayList<>(table.size());
+            for (int row = 0; row < table.size(); row++) {
+                tasks.add(table.toTask(row));
+            }
+            return tasks;
+        }
         List<Task> tasks = new ArrayList<>(); // タスクのリストを格納するための動的配列を初期化
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line; // ファイルの1行を保持する変数
-            reader.readLine(); // ヘッダー行をスキップ
-
-            while ((line = reader.readLine()) != null) {                    // ファイルの内容を1行ずつ読み込む
-                String[] values = line.split(",");                    // 行をカンマで区切って分割する
-                if (values.length == 4) {                                   // 必要な列数（4列）があるか確認
-                    int code = Integer.parseInt(values[0].trim());          // タスクコードを整数に変換
-                    String name = values[1].trim();                         // タスク名を取得
-                    int status = Integer.parseInt(values[2].trim());        // ステータスを整数に変換
-                    int repUserCode = Integer.parseInt(values[3].trim());   // 担当ユーザーコードを整数に変換
-                    User repUser = userDataAccess.findByCode(repUserCode);  // 担当ユーザーコードを基にユーザー情報を取得
+        Map<Integer, Task> latest = new LinkedHashMap<>(); // 追記型の場合のタスクコードごとの最新行
+        Map<Integer, User> users = loadUsersByCode(); // 担当ユーザーを解決するためのマップを1回だけ作成
+        if (binary != null) {
+            try {
+                return binary.findAll(users::get);
+            } catch (IOException e) { // ファイル読み込み時の例外を処理
+                e.printStackTrace(); // スタックトレースを出力
+                return tasks;
+            }
+        }
+        try {
+            MappedCsvReader.read(Paths.get(filePath), 4, 5, row -> { // ヘッダー行を除き、4列または5列の行を1行ずつ読み込む
+                int code = row.getInt(0);                   // タスクコードを整数に変換
+                String name = row.getString(1);             // タスク名を取得
+                int status = row.getInt(2);                 // ステータスを整数に変換
+                int repUserCode = row.getInt(3);            // 担当ユーザーコードを整数に変換
+                int version = row.columnCount() == 5 ? row.getInt(4) : 0; // 省略時はバージョン0
+                User repUser = users.get(repUserCode);      // 担当ユーザーコードを基にユーザー情報を取得
+                Task task = repUser != null ? new Task(code, name, status, repUser, version) : null;
 
-                    if (repUser != null) { // 担当ユーザーが存在する場合のみタスクをリストに追加
-                        tasks.add(new Task(code, name, status, repUser)); // タスクリストに追加
-                    }
+                if (appendUpdates) {
+                    latest.put(code, task); // 後から書かれた行で上書き（担当ユーザーが存在しない場合はnull）
+                } else if (task != null) { // 担当ユーザーが存在する場合のみタスクをリストに追加
+                    tasks.add(task); // タスクリストに追加
                 }
-            }
+            });
         } catch (IOException e) { // ファイル読み込み時の例外を処理
             e.printStackTrace(); // スタックトレースを出力
         }
+        for (Task task : latest.values()) {
+            if (task != null) { // 最新行の担当ユーザーが存在する場合のみ追加
+                tasks.add(task);
+            }
+        }
         return tasks; // タスクのリストを返す
     }
 
+    /**
+     * 全てのタスクデータを列ごとの配列で保持する表として取得します。
+     * Taskのオブジェクトを作らず、担当ユーザーとタスク名は表の中で同じインスタンスを共有するため、
+     * 大量のタスクを集計する場合などにfindAllよりヒープの使用量を抑えられます。行の選び方はfindAllと同じです。
+     * -Dtaskapp.task.snapshot=true の場合は前回の読み込み（起動直後はスナップショット）以降に追記された行だけを解析します。
+     * @return タスクの表
+     */
+    public TaskTable findTable() {
+        Map<Integer, User> users = loadUsersByCode(); // 担当ユーザーを解決するためのマップを1回だけ作成
+        if (binary != null) {
+            try {
+                return binary.findTable(users::get);
+            } catch (IOException e) { // ファイル読み込み時の例外を処理
+                e.printStackTrace(); // スタックトレースを出力
+                return new TaskTable.Builder(users::get).build();
+            }
+        }
+        TaskTable.Builder table = new TaskTable.Builder(users::get);
+        if (snapshot != null) {
+            TaskSnapshot.Rows rows = null;
+            writer.lock(); // 追記の途中の行を読まないようにする
+            try {
+                rows = snapshot.refresh();
+            } catch (IOException e) { // ファイル読み込み時の例外を処理
+                e.printStackTrace(); // スタックトレースを出力
+            } finally {
+                writer.unlock();
+            }
+            if (rows != null) {
+                rows.fill(table, appendUpdates); // ロックを解放してから表を作る
+            }
+            return table.build();
+        }
+        try {
+            MappedCsvReader.read(Paths.get(filePath), 4, 5, row -> {
+                int version = row.columnCount() == 5 ? row.getInt(4) : 0; // 省略時はバージョン0
+                if (appendUpdates) {
+                    // 後から書かれた行で最初の位置の行を置き換える（担当ユーザーが存在しない場合は表から除く）
+                    table.put(row.getInt(0), row.getString(1), row.getInt(2), row.getInt(3), version);
+                } else {
+                    table.add(row.getInt(0), row.getString(1), row.getInt(2), row.getInt(3), version);
+                }
+            });
+        } catch (IOException e) { // ファイル読み込み時の例外を処理
+            e.printStackTrace(); // スタックトレースを出力
+        }
+        return table.build();
+    }
+
+    /**
+     * 指定した位置から1ページ分のタスクを取得します。
+     * 1ページ分の行を読んだ時点で読み込みを終えるため、処理時間とメモリ使用量はタスクの総数ではなくページの件数に比例します。
+     * 担当ユーザーは行ごとにUserDataAccessの索引から解決し、担当ユーザーが存在しない行は読み飛ばします。
+     * 追記型の更新が有効な場合、同じタスクコードの行は索引が指している最新の行だけを採用します。
+     * ページの間にCSVが書き換えられた場合、開始位置は次の行の先頭にそろえて読み込みます。
+     * @param offset 読み込み開始位置（最初のページは0、以降は{@link TaskPage#getNextOffset()}）
+     * @param limit  1ページの件数
+     * @return 1ページ分のタスクと次のページの開始位置
+     */
+    public TaskPage findPage(long offset, int limit) {
+        if (binary != null) {
+            try {
+                return binary.findPage(offset, limit, userDataAccess.codeLookup());
+            } catch (IOException e) { // ファイル読み込み時の例外を処理
+                e.printStackTrace(); // スタックトレースを出力
+                return new TaskPage(List.of(), -1);
+            }
+        }
+        List<Task> tasks = new ArrayList<>(limit); // このページのタスク
+        long next = -1; // 次のページの開始位置
+        IntFunction<User> users = userDataAccess.codeLookup(); // users.csvの変更の確認はページごとに1回だけ
+        if (appendUpdates) {
+            writer.lock(); // 読み込み中に索引が作り直されないようにする
+        }
+        try {
+            TaskIndex latest = appendUpdates ? index(false) : null; // 最新の行を判定するための索引
+            next = MappedCsvReader.readWhile(Paths.get(filePath), offset, 4, 5, row -> {
+                int code = row.getInt(0); // タスクコードを整数に変換
+                if (latest != null && latest.find(code) != row.offset()) {
+                    return true; // 後から追記された行で更新済み
+                }
+                User repUser = users.apply(row.getInt(3)); // 担当ユーザーを取得
+                if (repUser == null) {
+                    return true; // 担当ユーザーが存在しない行は表示しない
+                }
+                if (tasks.size() == limit) {
+                    return false; // 次のページの最初の行
+                }
+                tasks.add(new Task(code, row.getString(1), row.getInt(2), repUser,
+                        row.columnCount() == 5 ? row.getInt(4) : 0));
+                return true;
+            });
+        } catch (IOException e) { // ファイル読み込み時の例外を処理
+            e.printStackTrace(); // スタックトレースを出力
+        } finally {
+            if (appendUpdates) {
+                writer.unlock();
+            }
+        }
+        return new TaskPage(tasks, next);
+    }
+
+    /**
+     * 全てのユーザーをユーザーコードをキーにしたマップとして読み込みます。
+     * @return ユーザーコードとユーザーのマップ
+     */
+    private Map<Integer, User> loadUsersByCode() {
+        Map<Integer, User> users = new HashMap<>();
+        for (User user : userDataAccess.findAll()) {
+            users.putIfAbsent(user.getCode(), user); // findByCodeと同じく先に現れた行を優先
+        }
+        return users;
+    }
+
     /**
      * タスクをCSVに保存します。
      * @param task 保存するタスク
      */
     public void save(Task task) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath, true))) {
-            String line = String.format("%d,%s,%d,%d", 
-                task.getCode(), task.getName(), task.getStatus(), task.getRepUser().getCode()); // タスク情報をフォーマット
-            writer.write(line);   // データを書き込む
-            writer.newLine();     // 改行
+        try {
+            if (binary != null) {
+                binary.appendAll(List.of(task));
+                return;
+            }
+            writer.lock();
+            try {
+                TaskIndex current = currentIndex(); // 追記前の時点で有効な索引
+                Set<Integer> known = currentCodes(); // 追記前の時点で有効なタスクコードの集合
+                long offset = appendRow(toCsv(task)); // タスク情報をフォーマットして末尾に追記
+                appended(current, known, new int[] { task.getCode() }, new long[] { offset },
+                        appendUpdates); // 既存のコードの扱いはfindAllと同じ
+            } finally {
+                writer.unlock();
+            }
+        } catch (IOException e) { // ファイル書き込み時の例外を処理
+            e.printStackTrace();  // スタックトレースを出力
+        }
+    }
+
+    /**
+     * 複数のタスクをCSVにまとめて保存します。
+     * 全ての行を1回の書き込みで末尾に追記し、索引ファイルへの反映も1回で行います。
+     * @param tasks 保存するタスク
+     */
+    public void saveAll(List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        List<String> rows = new ArrayList<>(tasks.size());
+        int[] codes = new int[tasks.size()];
+        for (int i = 0; i < tasks.size(); i++) {
+            rows.add(toCsv(tasks.get(i))); // タスク情報をフォーマット
+            codes[i] = tasks.get(i).getCode();
+        }
+        try {
+            if (binary != null) {
+                binary.appendAll(tasks);
+                return;
+            }
+            writer.lock();
+            try {
+                TaskIndex current = currentIndex(); // 追記前の時点で有効な索引
+                Set<Integer> known = currentCodes(); // 追記前の時点で有効なタスクコードの集合
+                long[] offsets = appendRows(rows); // まとめて末尾に追記
+                appended(current, known, codes, offsets, appendUpdates);
+            } finally {
+                writer.unlock();
+            }
         } catch (IOException e) { // ファイル書き込み時の例外を処理
             e.printStackTrace();  // スタックトレースを出力
         }
     }
 
+    /**
+     * CSVに登録されている全てのタスクコードを取得します。
+     * @return タスクコードの集合（呼び出し側で変更できる複製）
+     */
+    public Set<Integer> findAllCodes() {
+        writer.lock();
+        try {
+            if (binary != null) {
+                return binary.codes();
+            }
+            return new HashSet<>(codes());
+        } catch (IOException e) { // ファイル読み込み時の例外を処理
+            e.printStackTrace(); // スタックトレースを出力
+            return new HashSet<>();
+        } finally {
+            writer.unlock();
+        }
+    }
+
+    /**
+     * 指定されたタスクコードのタスクが登録済みかを判定します。
+     * 最初の呼び出しでタスクコードの集合を1回だけ読み込み、以降はこのインスタンスからの追記に合わせて更新するため、
+     * ファイルを読まずに判定できます。ファイルが外部で変更された場合は読み込み直します。
+     * @param code タスクコード
+     * @return 登録済みの場合はtrue
+     */
+    public boolean existsByCode(int code) {
+        writer.lock();
+        try {
+            if (binary != null) {
+                return binary.exists(code);
+            }
+            return codes().contains(code);
+        } catch (IOException e) { // ファイル読み込み時の例外を処理
+            e.printStackTrace(); // スタックトレースを出力
+            return false;
+        } finally {
+            writer.unlock();
+        }
+    }
+
     /**
      * 指定されたタスクコードに対応するタスクを検索します。
+     * 索引ファイル（tasks.idx）から行の開始位置を引き、その1行だけを読み込みます。
+     * 索引が存在しない、またはCSVと一致しない場合はCSVから索引を再構築します。
      * @param code タスクコード
      * @return 該当するタスク、存在しない場合は null
      */
     public Task findByCode(int code) {
-        List<Task> tasks = findAll();       // 全てのタスクを取得
-        for (Task task : tasks) {           // 各タスクを確認
-            if (task.getCode() == code) {   // コードが一致するタスクを返す
-                return task;
+        try {
+            if (binary != null) {
+                return binary.findByCode(code, userDataAccess::findByCode);
+            }
+            for (int attempt = 0; attempt < 2; attempt++) { // 索引が古かった場合は再構築して1回だけやり直す
+                String[] values;
+                writer.lock(); // 追記の途中の行や書き換え中のファイルを読まないよう、読み込みまでロックを保持する
+                try {
+                    long offset = index(attempt > 0).find(code); // 索引から行の開始位置を取得
+                    if (offset < 0) {
+                        return null; // 該当するタスクが存在しない
+                    }
+                    values = parseRow(readRow(offset), code); // 該当する1行だけを読み込んで分割
+                } finally {
+                    writer.unlock();
+                }
+                if (values != null) {
+                    String name = values[1].trim();                         // タスク名を取得
+                    int status = Integer.parseInt(values[2].trim());        // ステータスを整数に変換
+                    int repUserCode = Integer.parseInt(values[3].trim());   // 担当ユーザーコードを整数に変換
+                    User repUser = userDataAccess.findByCode(repUserCode);  // 担当ユーザーを取得
+                    return repUser != null ? new Task(code, name, status, repUser, version(values)) : null;
+                }
             }
+        } catch (IOException | NumberFormatException e) { // ファイル読み込み時の例外を処理
+            e.printStackTrace(); // スタックトレースを出力
         }
         return null; // 該当するタスクが存在しない場合はnullを返す
     }
 
     /**
      * タスクデータを更新します。
+     * 保存されているバージョンがupdateTaskのバージョン（読み込んだ時点のバージョン）と一致する場合だけ更新し、
+     * バージョンを1増やして保存したうえでupdateTaskのバージョンも更新後の値にします。
+     * 一致しない場合は読み込んだ後に他の操作で更新または削除されているため、何も書き込まずにVersionConflictExceptionを投げます。
+     * 確認と書き込みは追記・書き換えの排他制御の中で行うため、読み込みから更新までロックを保持する必要はありません。
+     * 追記型の更新が有効な場合は更新後の行を末尾に追記するだけで、ファイルサイズに関係なく一定の書き込み量で完了します。
+     * 古くなった行が閾値を超えると、バックグラウンドでファイルを圧縮します。
+     * 追記型でない場合は一時ファイルに書き出してから置き換えるため、同時に読み込んでいるスレッドが書きかけのファイルを読むことはありません。
+     * ただしwriterを保持したままファイル全体を書き換えるため、異なるタスクの更新も1件ずつしか実行できません。
+     * TaskLogicのタスクコードごとのロックで異なるタスクの更新が並行に進むのは、追記型の更新が有効な場合です。
      * @param updateTask 更新するタスク
+     * @throws VersionConflictException 保存されているバージョンが一致しない、またはタスクが削除されている場合
      */
     public void update(Task updateTask) {
-        List<Task> tasks = findAll(); // 全てのタスクを取得
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
-            writer.write("Code,Name,Status,RepUserCode"); // ヘッダー行を書き込む
-            writer.newLine(); // 改行
-            for (Task task : tasks) { // 各タスクを確認
-                if (task.getCode() == updateTask.getCode()) { // 更新対象のタスクか確認
-                    task = updateTask; // タスクのデータを更新
+        int expected = updateTask.getVersion(); // 読み込んだ時点のバージョン
+        if (binary != null) {
+            try {
+                binary.update(updateTask); // 固定長のレコードをその場で書き換える
+            } catch (IOException e) { // ファイル書き込み時の例外を処理
+                e.printStackTrace(); // スタックトレースを出力
+            }
+            return;
+        }
+        if (appendUpdates) {
+            long deadRows; // 追記後の古くなった行の件数
+            try {
+                writer.lock();
+                try {
+                    int actual = storedVersion(updateTask.getCode()); // 最新の行のバージョン
+                    if (actual != expected) {
+                        throw new VersionConflictException(updateTask.getCode(), expected, actual);
+                    }
+                    TaskIndex current = currentIndex(); // 追記前の時点で有効な索引
+                    Set<Integer> known = currentCodes(); // 追記前の時点で有効なタスクコードの集合
+                    long offset = appendRow(toCsv(updateTask, expected + 1)); // 最新の行として追記
+                    updateTask.setVersion(expected + 1);
+                    appended(current, known, new int[] { updateTask.getCode() }, new long[] { offset },
+                            true); // 索引を最新の行に向ける
+                    deadRows = index(false).deadRows();
+                } finally {
+                    writer.unlock();
+                }
+            } catch (IOException e) { // ファイル書き込み時の例外を処理
+                e.printStackTrace(); // スタックトレースを出力
+                return;
+            }
+            if (deadRows >= compactThreshold) { // 古くなった行が閾値を超えたか確認
+                scheduleCompaction();
+            }
+            return;
+        }
+
+        writer.lock();
+        try {
+            List<Task> tasks = findAll(); // 全てのタスクを取得
+            int actual = -1; // 保存されているバージョン（findByCodeと同じく最初の行）
+            for (Task task : tasks) {
+                if (task.getCode() == updateTask.getCode()) {
+                    actual = task.getVersion();
+                    break;
+                }
+            }
+            if (actual != expected) {
+                throw new VersionConflictException(updateTask.getCode(), expected, actual);
+            }
+            // 同時に読み込んでいるスレッドが書きかけのファイルを読まないよう、一時ファイルに書いてから置き換える
+            Path path = Paths.get(filePath);
+            Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), "tasks", ".tmp");
+            try {
+                try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    out.write(HEADER); // ヘッダー行を書き込む
+                    out.newLine(); // 改行
+                    for (Task task : tasks) { // 各タスクを確認
+                        if (task.getCode() == updateTask.getCode()) { // 更新対象のタスクか確認
+                            out.write(toCsv(updateTask, expected + 1)); // 更新後のデータを書き込む
+                        } else {
+                            out.write(toCsv(task)); // タスク情報をCSVフォーマットで書き込む
+                        }
+                        out.newLine(); // 改行
+                    }
                 }
-                writer.write(String.format("%d,%s,%d,%d", task.getCode(), task.getName(), task.getStatus(), task.getRepUser().getCode())); // タスク情報をCSVフォーマットで書き込む
-                writer.newLine(); // 改行
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp); // 置き換えに失敗した場合に一時ファイルを残さない
             }
+            updateTask.setVersion(expected + 1);
+            invalidateIndex(); // 行の位置が変わるため索引を破棄
         } catch (IOException e) { // ファイル書き込み時の例外を処理
             e.printStackTrace(); // スタックトレースを出力
+        } finally {
+            writer.unlock();
+        }
+    }
+
+    /**
+     * 指定したタスクコードのタスクを削除します。
+     * @param code 削除するタスクのコード
+     */
+    public void delete(int code) {
+        deleteAll(List.of(code));
+    }
+
+    /**
+     * 指定した複数のタスクコードのタスクをまとめて削除します。
+     * ファイルを1回だけ先頭から読むため、削除する件数に関係なく処理量はファイルサイズに比例します。
+     * @param codes 削除するタスクのコード
+     */
+    public void deleteAll(Collection<Integer> codes) {
+        try {
+            prepareDelete(codes).commit(); // 一時ファイルに書き出してから置き換える
+        } catch (IOException e) { // ファイル読み書き時の例外を処理
+            e.printStackTrace(); // スタックトレースを出力
+        }
+    }
+
+    /**
+     * 指定した複数のタスクコードの行を全て取り除いたファイルを一時ファイルに書き出します。
+     * 追記型の更新で残っている古い行も含めて取り除きます。形式が不正な行はそのまま残します。
+     * 確定または破棄するまでの間、このインスタンスからの書き込みと検索は待たされます。
+     * @param codes 削除するタスクのコード
+     * @return 確定または破棄する必要がある書き換え
+     * @throws IOException ファイルの読み書きに失敗した場合
+     */
+    public FileRewrite prepareDelete(Collection<Integer> codes) throws IOException {
+        Set<Integer> targets = new HashSet<>(codes);
+        if (binary != null) {
+            return binary.prepareRewrite(targets::contains);
+        }
+        return prepareRewrite(targets::contains);
+    }
+
+    /**
+     * 同じタスクコードの行が複数ある場合に1行だけを残し、残りの行をファイルから取り除きます。
+     * 残す行はfindByCodeが返す行と同じで、通常は最初の行、追記型の更新が有効な場合は最後の行です。
+     * 重複した行が書き込まれた既存のファイルを修復するために使います。
+     * @return 取り除いた行数
+     */
+    public int dedupe() {
+        Set<Integer> seen = new HashSet<>();
+        int[] removed = new int[1];
+        if (binary != null) {
+            try {
+                binary.prepareRewrite(code -> {
+                    boolean duplicate = !seen.add(code); // 2件目以降を取り除く
+                    if (duplicate) {
+                        removed[0]++;
+                    }
+                    return duplicate;
+                }).commit();
+            } catch (IOException e) { // ファイル読み書き時の例外を処理
+                e.printStackTrace(); // スタックトレースを出力
+                return 0;
+            }
+            return removed[0];
         }
+        if (appendUpdates) {
+            return compact(); // 追記型の場合は最後の行を残す圧縮処理と同じ
+        }
+        try {
+            prepareRewrite(code -> {
+                boolean duplicate = code instanceof Integer && !seen.add((Integer) code); // 2行目以降を取り除く
+                if (duplicate) {
+                    removed[0]++;
+                }
+                return duplicate;
+            }).commit();
+        } catch (IOException e) { // ファイル読み書き時の例外を処理
+            e.printStackTrace(); // スタックトレースを出力
+            return 0;
+        }
+        return removed[0];
+    }
+
+    /**
+     * 条件に一致する行を取り除いたファイルを一時ファイルに書き出します。
+     * 確定または破棄するまでlocks.fileLock()の書き込みロックとwriterを保持します。
+     * @param remove 行のキー（タスクコード、形式が不正な行は行自体）を受け取り、取り除く場合にtrueを返す条件
+     * @return 確定または破棄する必要がある書き換え
+     * @throws IOException ファイルの読み書きに失敗した場合
+     */
+    private FileRewrite prepareRewrite(Predicate<Object> remove) throws IOException {
+        Lock exclusive = locks.fileLock().writeLock(); // タスク単位の操作の完了を待ち、確定または破棄するまで保持する
+        exclusive.lock();
+        writer.lock();
+        try {
+            Path path = Paths.get(filePath);
+            Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), "tasks", ".tmp");
+            boolean removed = false; // 取り除いた行があるか
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+                    BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                String header = reader.readLine(); // 既存のヘッダー行をそのまま引き継ぐ
+                out.write(header != null ? header : HEADER); // ヘッダー行を書き込む
+                out.newLine();
+                String line; // ファイルの1行を保持する変数
+                while ((line = reader.readLine()) != null) {
+                    if (remove.test(rowKey(line))) { // 条件に一致する行は書き込まない
+                        removed = true;
+                        continue;
+                    }
+                    out.write(line);
+                    out.newLine();
+                }
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+            return new FileRewrite(path, temp, removed, this::invalidateIndex, () -> { // 行の位置が変わるため索引を破棄
+                writer.unlock();
+                exclusive.unlock();
+            });
+        } catch (IOException | RuntimeException e) {
+            writer.unlock();
+            exclusive.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * 追記によって古くなった行を取り除き、タスクコードごとに最新の1行だけを残してファイルを書き直します。
+     * 書き込みは一時ファイルに行い、完了後にファイル名の変更で置き換えます。
+     * 形式が不正な行はそのまま残します。
+     * @return 取り除いた行数
+     */
+    public int compact() {
+        if (binary != null) {
+            return 0; // バイナリ形式は更新をその場で書き換えるため、古くなった行がない
+        }
+        Lock exclusive = locks.fileLock().writeLock(); // タスク単位の操作の完了を待つ
+        exclusive.lock();
+        writer.lock();
+        try {
+            Path path = Paths.get(filePath);
+            Map<Object, String> rows = new LinkedHashMap<>(); // タスクコード（不正な行は行自体）→ 最新の行
+            int lines = 0; // 読み込んだ行数
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String header = reader.readLine(); // 既存のヘッダー行をそのまま引き継ぐ
+                String line; // ファイルの1行を保持する変数
+                while ((line = reader.readLine()) != null) {
+                    rows.put(rowKey(line), line); // 同じタスクコードは後の行で上書き
+                    lines++;
+                }
+
+                Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), "tasks", ".tmp");
+                try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    out.write(header != null ? header : HEADER); // ヘッダー行を書き込む
+                    out.newLine();
+                    for (String row : rows.values()) {
+                        out.write(row);
+                        out.newLine();
+                    }
+                }
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                invalidateIndex(); // 行の位置と行数が変わるため索引を破棄
+                return lines - rows.size();
+            } catch (IOException e) { // ファイル読み書き時の例外を処理
+                e.printStackTrace(); // スタックトレースを出力
+                return 0;
+            }
+        } finally {
+            writer.unlock();
+            exclusive.unlock();
+        }
+    }
+
+    /**
+     * 圧縮処理をバックグラウンドで実行します。同じファイルの圧縮が既に実行中または予約済みの場合は何もしません。
+     */
+    private void scheduleCompaction() {
+        Path file = Paths.get(filePath).toAbsolutePath().normalize();
+        if (COMPACTING.add(file)) {
+            COMPACTOR.execute(() -> {
+                try {
+                    compact();
+                } finally {
+                    COMPACTING.remove(file);
+                }
+            });
+        }
+    }
+
+    /**
+     * 圧縮時に行をまとめるためのキーを返します。
+     * @param line CSVの1行
+     * @return タスクコード、形式が不正な場合は行自体
+     */
+    private static Object rowKey(String line) {
+        String[] values = line.split(",");
+        if (values.length == 4 || values.length == 5) {
+            try {
+                return Integer.parseInt(values[0].trim());
+            } catch (NumberFormatException e) {
+                // 形式が不正な行は行自体をキーにしてそのまま残す
+            }
+        }
+        return line;
+    }
+
+    /**
+     * タスクをCSVの1行に変換します。
+     * @param task タスク
+     * @return CSVの1行
+     */
+    static String toCsv(Task task) {
+        return toCsv(task, task.getVersion());
+    }
+
+    /**
+     * タスクを指定したバージョンのCSVの1行に変換します。バージョンが0の場合は列を省略します。
+     * @param task    タスク
+     * @param version 書き込むバージョン
+     * @return CSVの1行
+     */
+    private static String toCsv(Task task, int version) {
+        String row = String.format("%d,%s,%d,%d",
+                task.getCode(), task.getName(), task.getStatus(), task.getRepUser().getCode());
+        return version > 0 ? row + "," + version : row;
+    }
+
+    /**
+     * 分割したCSVの1行からバージョンを取得します。
+     * @param values 4列または5列の値
+     * @return バージョン、列が省略されている場合は0
+     */
+    private static int version(String[] values) {
+        return values.length == 5 ? Integer.parseInt(values[4].trim()) : 0;
+    }
+
+    /**
+     * 索引が指す1行を分割し、指定したタスクコードの行として読み取れるかを確認します。
+     * MappedCsvReaderと同じく空の列も1列として数え、4列または5列で、数値の列が全て整数の行だけを受け付けます。
+     * @param row  読み込んだ1行
+     * @param code 索引を引いたタスクコード
+     * @return 分割した値、列数やタスクコードが一致しない場合はnull（索引が別の行を指している場合など）
+     */
+    private static String[] parseRow(String row, int code) {
+        String[] values = row.split(",", -1);
+        if (values.length != 4 && values.length != 5) {
+            return null;
+        }
+        try {
+            if (Integer.parseInt(values[0].trim()) != code) {
+                return null;
+            }
+            Integer.parseInt(values[2].trim()); // ステータス
+            Integer.parseInt(values[3].trim()); // 担当ユーザーコード
+            version(values);
+            return values;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 指定したタスクコードの最新の行に保存されているバージョンを索引から取得します。
+     * writerを取得した状態で呼び出してください。
+     * @param code タスクコード
+     * @return 保存されているバージョン、タスクが存在しない場合は-1
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    private int storedVersion(int code) throws IOException {
+        for (int attempt = 0; attempt < 2; attempt++) { // 索引が古かった場合は再構築して1回だけやり直す
+            long offset = index(attempt > 0).find(code);
+            if (offset < 0) {
+                return -1;
+            }
+            String[] values = parseRow(readRow(offset), code); // nullの場合は索引が別の行を指しているため再構築する
+            if (values != null) {
+                return version(values);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * CSVファイルの末尾に1行追記します。
+     * @param line 追記する行
+     * @return 追記した行の開始位置
+     * @throws IOException ファイル書き込みに失敗した場合
+     */
+    private long appendRow(String line) throws IOException {
+        return appendRows(List.of(line))[0];
+    }
+
+    /**
+     * CSVファイルの末尾に複数行を1回の書き込みで追記します。
+     * ファイルが改行で終わっていない場合は、前の行とつながらないよう先に改行を書き込みます。
+     * @param lines 追記する行
+     * @return 追記した各行の開始位置
+     * @throws IOException ファイル書き込みに失敗した場合
+     */
+    private long[] appendRows(List<String> lines) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath),
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            ByteBuffer last = ByteBuffer.allocate(1);
+            boolean needsNewLine = size > 0 && channel.read(last, size - 1) == 1 && last.get(0) != '\n';
+            byte[] separator = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+            long[] offsets = new long[lines.size()];
+            ByteArrayOutputStream text = new ByteArrayOutputStream(lines.size() * 32);
+            if (needsNewLine) {
+                text.write(separator);
+            }
+            for (int i = 0; i < lines.size(); i++) {
+                offsets[i] = size + text.size(); // 行の開始位置はバイト数で数える
+                text.write(lines.get(i).getBytes(StandardCharsets.UTF_8));
+                text.write(separator);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(text.toByteArray());
+            long position = size;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            return offsets;
+        }
+    }
+
+    /**
+     * 指定した位置から1行を読み込みます。
+     * @param offset 行の開始位置
+     * @return 改行を含まない1行
+     * @throws IOException ファイル読み込みに失敗した場合
+     */
+    private String readRow(long offset) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(256);
+            long position = offset;
+            while (true) {
+                int read = channel.read(buffer, position);
+                for (int i = buffer.position() - Math.max(read, 0); i < buffer.position(); i++) {
+                    if (buffer.get(i) == '\n') {
+                        return decodeRow(buffer, i);
+                    }
+                }
+                if (read <= 0) {
+                    return decodeRow(buffer, buffer.position()); // ファイル末尾の改行のない行
+                }
+                position += read;
+                if (!buffer.hasRemaining()) { // 行が長い場合はバッファを広げる
+                    ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                    buffer.flip();
+                    larger.put(buffer);
+                    buffer = larger;
+                }
+            }
+        }
+    }
+
+    /**
+     * バッファの先頭から指定位置までをUTF-8の文字列に変換します。行末の\rは取り除きます。
+     */
+    private static String decodeRow(ByteBuffer buffer, int end) {
+        if (end > 0 && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        return new String(buffer.array(), 0, end, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * タスクコードの索引を返します。CSVが索引作成後に変更されている場合は読み込み直します。
+     * writerを取得した状態で呼び出してください。
+     * @param rebuild trueの場合はCSVから索引を作り直す
+     * @return 現在のCSVに対応する索引
+     * @throws IOException ファイルの読み書きに失敗した場合
+     */
+    private TaskIndex index(boolean rebuild) throws IOException {
+        if (rebuild) {
+            index = TaskIndex.rebuild(indexPath(), Paths.get(filePath), appendUpdates);
+        } else if (currentIndex() == null) {
+            index = TaskIndex.load(indexPath(), Paths.get(filePath), appendUpdates);
+        }
+        return index;
+    }
+
+    /**
+     * 読み込み済みの索引がCSVの現在の状態に対応していればそれを返します。
+     * writerを取得した状態で呼び出してください。
+     * @return 有効な索引、未読み込みまたはCSVと一致しない場合はnull
+     * @throws IOException ファイルの属性の取得に失敗した場合
+     */
+    private TaskIndex currentIndex() throws IOException {
+        if (index != null) {
+            BasicFileAttributes attrs = Files.readAttributes(Paths.get(filePath), BasicFileAttributes.class);
+            if (!index.isCurrent(attrs.size(), attrs.lastModifiedTime().toMillis())) {
+                index = null; // 外部でCSVが変更された
+            }
+        }
+        return index;
+    }
+
+    /**
+     * 読み込み済みのタスクコードの集合がCSVの現在の状態に対応していればそれを返します。
+     * writerを取得した状態で呼び出してください。
+     * @return 有効な集合、未読み込みまたはCSVと一致しない場合はnull
+     * @throws IOException ファイルの属性の取得に失敗した場合
+     */
+    private Set<Integer> currentCodes() throws IOException {
+        if (codeSet != null) {
+            BasicFileAttributes attrs = Files.readAttributes(Paths.get(filePath), BasicFileAttributes.class);
+            if (codeSetSize != attrs.size() || codeSetModified != attrs.lastModifiedTime().toMillis()) {
+                codeSet = null; // 外部でCSVが変更された
+            }
+        }
+        return codeSet;
+    }
+
+    /**
+     * タスクコードの集合を返します。未読み込みまたはCSVと一致しない場合はCSVの先頭列だけを読み込んで作ります。
+     * writerを取得した状態で呼び出してください。
+     * @return 現在のCSVに対応するタスクコードの集合
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    private Set<Integer> codes() throws IOException {
+        if (currentCodes() == null) {
+            Path path = Paths.get(filePath);
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            Set<Integer> codes = new HashSet<>();
+            MappedCsvReader.read(path, 4, 5, row -> codes.add(row.getInt(0)));
+            codeSet = codes;
+            codeSetSize = attrs.size();
+            codeSetModified = attrs.lastModifiedTime().toMillis();
+        }
+        return codeSet;
+    }
+
+    /**
+     * CSVに追記した行を索引とタスクコードの集合に反映します。
+     * 追記前に有効でなかったものは何もせず、次回の検索時に作り直します。
+     * writerを取得した状態で呼び出してください。
+     * @param current 追記前の時点で有効だった索引（なければnull）
+     * @param known   追記前の時点で有効だったタスクコードの集合（なければnull）
+     * @param codes   追記したタスクのコード
+     * @param offsets 追記した行の開始位置
+     * @param replace 既に登録されているタスクコードの場合に索引を上書きするか
+     * @throws IOException 索引ファイルの書き込みに失敗した場合
+     */
+    private void appended(TaskIndex current, Set<Integer> known, int[] codes, long[] offsets, boolean replace)
+            throws IOException {
+        if (current == null && known == null) {
+            return;
+        }
+        BasicFileAttributes attrs = Files.readAttributes(Paths.get(filePath), BasicFileAttributes.class);
+        if (current != null) {
+            current.putAll(codes, offsets, codes.length, replace, attrs.size(), attrs.lastModifiedTime().toMillis());
+        }
+        if (known != null) {
+            for (int code : codes) {
+                known.add(code);
+            }
+            codeSetSize = attrs.size();
+            codeSetModified = attrs.lastModifiedTime().toMillis();
+        }
+    }
+
+    /**
+     * ファイル全体を書き直した後に索引とタスクコードの集合を破棄します。
+     * writerを取得した状態で呼び出してください。
+     */
+    private void invalidateIndex() {
+        index = null;
+        codeSet = null;
+        try {
+            Files.deleteIfExists(indexPath());
+        } catch (IOException e) { // 索引ファイルを削除できなくても次回の検索時にCSVとの不一致で再構築される
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 索引ファイルのパスを返します（tasks.csvに対してtasks.idx）。
+     * @return 索引ファイルのパス
+     */
+    private Path indexPath() {
+        String base = filePath.endsWith(".csv") ? filePath.substring(0, filePath.length() - 4) : filePath;
+        return Paths.get(base + ".idx");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,328 @@
+package com.taskapp.dataaccess;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+
+/**
+ * タスクコードからtasks.csv内の行の開始位置（バイトオフセット）を引くための索引です。
+ * 索引はtasks.idxのような別ファイルに保存され、次回以降はCSVを読まずに読み込めます。
+ *
+ * <p>索引ファイルの形式は、ヘッダー（マジックナンバー、CSVのサイズ、CSVの更新日時、CSVの有効な行数）の後に
+ * 「タスクコード(int), オフセット(long)」のエントリが続きます。再構築時はタスクコード順に並べて書き込み、
+ * 以降の追加分は末尾に追記します。読み込み時に同じタスクコードのエントリは後のものを採用します。
+ * 行数から登録済みのタスクコードの数を引いた値が、追記型の更新で古くなった行の数です（{@link #deadRows()}）。
+ * 索引ファイルに保存するため、同じファイルを扱う全てのインスタンスとプロセスの再起動をまたいで引き継がれます。
+ */
+final class TaskIndex {
+    private static final int MAGIC = 0x54494432; // "TID2"（行数を持たない"TIDX"の索引ファイルは再構築する）
+    private static final int HEADER_SIZE = 4 + 8 + 8 + 8;
+
+    private final Path indexPath; // 索引ファイルのパス
+    private int[] codes;          // タスクコード（昇順）
+    private long[] offsets;       // codesと同じ位置に対応する行の開始位置
+    private int size;             // 登録済みのエントリ数
+    private long csvSize;         // 索引が対応しているCSVのサイズ
+    private long csvModified;     // 索引が対応しているCSVの更新日時
+    private long rows;            // CSVの有効な行数（古くなった行を含む）
+
+    private TaskIndex(Path indexPath, int[] codes, long[] offsets, int size, long csvSize, long csvModified,
+            long rows) {
+        this.indexPath = indexPath;
+        this.codes = codes;
+        this.offsets = offsets;
+        this.size = size;
+        this.csvSize = csvSize;
+        this.csvModified = csvModified;
+        this.rows = rows;
+    }
+
+    /**
+     * 索引ファイルを読み込みます。索引ファイルが存在しない、またはCSVの状態と一致しない場合はCSVから再構築します。
+     *
+     * @param indexPath 索引ファイルのパス
+     * @param csvPath   CSVファイルのパス
+     * @param lastWins  同じタスクコードの行が複数ある場合に後の行を採用するか
+     * @return 現在のCSVに対応する索引
+     * @throws IOException ファイルの読み書きに失敗した場合
+     */
+    static TaskIndex load(Path indexPath, Path csvPath, boolean lastWins) throws IOException {
+        BasicFileAttributes csv = Files.readAttributes(csvPath, BasicFileAttributes.class);
+        TaskIndex index = read(indexPath);
+        if (index != null && index.isCurrent(csv.size(), csv.lastModifiedTime().toMillis())) {
+            return index;
+        }
+        return rebuild(indexPath, csvPath, lastWins);
+    }
+
+    /**
+     * CSVを先頭から読み、索引を作り直して索引ファイルに保存します。
+     *
+     * @param indexPath 索引ファイルのパス
+     * @param csvPath   CSVファイルのパス
+     * @param lastWins  同じタスクコードの行が複数ある場合に後の行を採用するか
+     * @return 作り直した索引
+     * @throws IOException ファイルの読み書きに失敗した場合
+     */
+    static TaskIndex rebuild(Path indexPath, Path csvPath, boolean lastWins) throws IOException {
+        BasicFileAttributes csv = Files.readAttributes(csvPath, BasicFileAttributes.class);
+        int[] codes = new int[64];
+        long[] offsets = new long[64];
+        int count = 0;
+
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(csvPath), 1 << 16)) {
+            long position = 0;       // 現在の読み取り位置
+            long lineStart = 0;      // 現在の行の開始位置
+            boolean header = true;   // 1行目（ヘッダー）かどうか
+            int commas = 0;          // 現在の行のカンマの数
+            int code = 0;            // 現在の行の先頭列の値
+            boolean digits = false;  // 先頭列に数字があったか
+            boolean valid = true;    // 先頭列が数字のみで構成されているか
+            int b;
+            while (true) {
+                b = in.read();
+                if (b == '\n' || b == -1) {
+                    if (!header && (commas == 3 || commas == 4) && digits && valid) { // 5列目は省略可能なバージョン
+                        if (count == codes.length) {
+                            codes = Arrays.copyOf(codes, count * 2);
+                            offsets = Arrays.copyOf(offsets, count * 2);
+                        }
+                        codes[count] = code;
+                        offsets[count] = lineStart;
+                        count++;
+                    }
+                    if (b == -1) {
+                        break;
+                    }
+                    header = false;
+                    position++;
+                    lineStart = position;
+                    commas = 0;
+                    code = 0;
+                    digits = false;
+                    valid = true;
+                    continue;
+                }
+                position++;
+                if (b == ',') {
+                    commas++;
+                } else if (commas == 0) {
+                    if (b >= '0' && b <= '9') {
+                        code = code * 10 + (b - '0');
+                        digits = true;
+                    } else if (b != ' ' && b != '\t' && b != '\r') {
+                        valid = false;
+                    }
+                }
+            }
+        }
+
+        TaskIndex index = fromEntries(indexPath, codes, offsets, count, lastWins,
+                csv.size(), csv.lastModifiedTime().toMillis(), count);
+        index.writeAll();
+        return index;
+    }
+
+    /**
+     * 索引ファイルを読み込みます。
+     *
+     * @param indexPath 索引ファイルのパス
+     * @return 読み込んだ索引、ファイルが存在しないか形式が不正な場合はnull
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    private static TaskIndex read(Path indexPath) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(indexPath);
+        } catch (NoSuchFileException e) {
+            return null; // 索引ファイルがまだ作られていない
+        }
+        if (bytes.length < HEADER_SIZE || (bytes.length - HEADER_SIZE) % 12 != 0) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readInt() != MAGIC) {
+                return null;
+            }
+            long csvSize = in.readLong();
+            long csvModified = in.readLong();
+            long rows = in.readLong();
+            int count = (bytes.length - HEADER_SIZE) / 12;
+            int[] codes = new int[Math.max(count, 16)];
+            long[] offsets = new long[Math.max(count, 16)];
+            for (int i = 0; i < count; i++) {
+                codes[i] = in.readInt();
+                offsets[i] = in.readLong();
+            }
+            return fromEntries(indexPath, codes, offsets, count, true, csvSize, csvModified, rows);
+        }
+    }
+
+    /**
+     * ファイル順のエントリをタスクコード順に並べ替え、重複を取り除いた索引を作ります。
+     */
+    private static TaskIndex fromEntries(Path indexPath, int[] codes, long[] offsets, int count,
+            boolean lastWins, long csvSize, long csvModified, long rows) {
+        // 上位32ビットにタスクコード、下位32ビットにファイル順を詰めて並べ替えることで、
+        // 同じタスクコードのエントリはファイル順のまま並ぶ
+        long[] order = new long[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = ((long) codes[i] << 32) | i;
+        }
+        Arrays.sort(order);
+
+        int[] sortedCodes = new int[Math.max(count, 16)];
+        long[] sortedOffsets = new long[Math.max(count, 16)];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            int entry = (int) order[i];
+            if (size > 0 && sortedCodes[size - 1] == codes[entry]) {
+                if (lastWins) {
+                    sortedOffsets[size - 1] = offsets[entry]; // 後のエントリで上書き
+                }
+                continue;
+            }
+            sortedCodes[size] = codes[entry];
+            sortedOffsets[size] = offsets[entry];
+            size++;
+        }
+        return new TaskIndex(indexPath, sortedCodes, sortedOffsets, size, csvSize, csvModified, rows);
+    }
+
+    /**
+     * 索引がCSVの現在の状態に対応しているかを判定します。
+     *
+     * @param csvSize     現在のCSVのサイズ
+     * @param csvModified 現在のCSVの更新日時
+     * @return 対応していればtrue
+     */
+    boolean isCurrent(long csvSize, long csvModified) {
+        return this.csvSize == csvSize && this.csvModified == csvModified;
+    }
+
+    /**
+     * 同じタスクコードの後の行で古くなった行の数（CSVの有効な行数 - 登録済みのタスクコードの数）を返します。
+     *
+     * @return 古くなった行の数
+     */
+    long deadRows() {
+        return rows - size;
+    }
+
+    /**
+     * タスクコードに対応する行の開始位置を返します。
+     *
+     * @param code タスクコード
+     * @return 行の開始位置、登録されていない場合は-1
+     */
+    long find(int code) {
+        int i = Arrays.binarySearch(codes, 0, size, code);
+        return i >= 0 ? offsets[i] : -1;
+    }
+
+    /**
+     * CSVに追記した行を索引に登録し、索引ファイルにも追記します。
+     *
+     * @param code        タスクコード
+     * @param offset      追記した行の開始位置
+     * @param replace     既に登録されているタスクコードの場合に上書きするか
+     * @param csvSize     追記後のCSVのサイズ
+     * @param csvModified 追記後のCSVの更新日時
+     * @throws IOException 索引ファイルの書き込みに失敗した場合
+     */
+    void put(int code, long offset, boolean replace, long csvSize, long csvModified) throws IOException {
+        putAll(new int[] { code }, new long[] { offset }, 1, replace, csvSize, csvModified);
+    }
+
+    /**
+     * CSVにまとめて追記した行を索引に登録し、変更されたエントリを索引ファイルに1回の書き込みで追記します。
+     *
+     * @param newCodes    追記したタスクのコード（追記順）
+     * @param newOffsets  追記した行の開始位置
+     * @param count       登録するエントリ数
+     * @param replace     既に登録されているタスクコードの場合に上書きするか
+     * @param csvSize     追記後のCSVのサイズ
+     * @param csvModified 追記後のCSVの更新日時
+     * @throws IOException 索引ファイルの書き込みに失敗した場合
+     */
+    void putAll(int[] newCodes, long[] newOffsets, int count, boolean replace, long csvSize, long csvModified)
+            throws IOException {
+        ByteArrayOutputStream appended = new ByteArrayOutputStream(count * 12);
+        DataOutputStream entries = new DataOutputStream(appended);
+        for (int n = 0; n < count; n++) {
+            int code = newCodes[n];
+            long offset = newOffsets[n];
+            int i = Arrays.binarySearch(codes, 0, size, code);
+            if (i >= 0) {
+                if (!replace) {
+                    continue; // 既存のエントリを優先するため索引ファイルも変更しない
+                }
+                offsets[i] = offset;
+            } else {
+                int insertAt = -i - 1;
+                if (size == codes.length) {
+                    codes = Arrays.copyOf(codes, size * 2);
+                    offsets = Arrays.copyOf(offsets, size * 2);
+                }
+                System.arraycopy(codes, insertAt, codes, insertAt + 1, size - insertAt);
+                System.arraycopy(offsets, insertAt, offsets, insertAt + 1, size - insertAt);
+                codes[insertAt] = code;
+                offsets[insertAt] = offset;
+                size++;
+            }
+            entries.writeInt(code);
+            entries.writeLong(offset);
+        }
+        this.csvSize = csvSize;
+        this.csvModified = csvModified;
+        this.rows += count; // 既に登録されているタスクコードの行もCSVには追記されている
+
+        try (RandomAccessFile file = new RandomAccessFile(indexPath.toFile(), "rw")) {
+            if (file.length() < HEADER_SIZE) {
+                writeAll(); // 索引ファイルが失われている場合は全体を書き直す
+                return;
+            }
+            if (appended.size() > 0) {
+                file.seek(file.length());
+                file.write(appended.toByteArray());
+            }
+            file.seek(4);
+            file.writeLong(csvSize);
+            file.writeLong(csvModified);
+            file.writeLong(rows);
+        }
+    }
+
+    /**
+     * 索引全体をタスクコード順で索引ファイルに書き込みます。
+     *
+     * @throws IOException 索引ファイルの書き込みに失敗した場合
+     */
+    private void writeAll() throws IOException {
+        Path temp = Files.createTempFile(indexPath.toAbsolutePath().getParent(), "tasks", ".idx.tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeLong(csvSize);
+            out.writeLong(csvModified);
+            out.writeLong(rows);
+            for (int i = 0; i < size; i++) {
+                out.writeInt(codes[i]);
+                out.writeLong(offsets[i]);
+            }
+        }
+        Files.move(temp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
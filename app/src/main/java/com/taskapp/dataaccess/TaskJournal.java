@@ -0,0 +1,329 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.CRC32;
+
+/**
+ * tasks.csvとlogs.csvの両方に書き込む操作を、適用する前に記録するジャーナル（再実行用の記録）です。
+ * 操作は{@link #begin(String, Object...)}で記録してからファイルに書き込み、全て書き込んだ後に{@link #commit(long)}を呼び出します。
+ * 途中で異常終了した場合は、次回の起動時に{@link #recover(Redo)}で完了していない操作だけをやり直します。
+ * 同じタスクのファイルを扱うインスタンスで共有するよう、{@link TaskDataAccess#getJournal()}から取得します。
+ *
+ * <p>ジャーナルはタスクのファイルの隣（tasks.csvに対してtasks_journal.csv）に1操作1行で追記します。
+ * 各行の最後の値はそれより前の部分のCRC32（16進数8桁）で、一致しない行は書き込みが途中で途切れた、または壊れた行として使いません。
+ * 実行中の操作がなくなった時点でファイルが-Dtaskapp.journal.maxBytes（既定値1048576）を超えていれば空にするため、
+ * 起動時のやり直しにかかる時間はデータの量ではなくジャーナルの大きさに比例します。
+ * 記録は-Dtaskapp.journal.fsync（既定値true）がtrueの場合、操作を適用する前にディスクへ同期します。
+ * タスクとログのファイルへの書き込みは同期しないため、OSごと停止した場合に保護されるのは空にする前の記録に含まれる操作だけです。
+ *
+ * <p>ロックの順序は、StripedLocksのファイル全体のロック → タスクコードのロック → このジャーナル → 書き込み用のロックです。
+ */
+public final class TaskJournal {
+    /** タスクの登録（タスクコード、担当ユーザーコード、変更したユーザーコード、変更日、ログの位置、タスク名） */
+    public static final String SAVE = "SAVE";
+    /** ステータスの変更（タスクコード、変更前のバージョン、ステータス、変更したユーザーコード、変更日、ログの位置） */
+    public static final String STATUS = "STATUS";
+    /** タスクと関連するログの削除（;で区切ったタスクコード） */
+    public static final String DELETE = "DELETE";
+    /** 一括登録の1回分（変更したユーザーコード、変更日、ログの位置、タスクごとにタスクコード・ステータス・担当ユーザーコード・タスク名） */
+    public static final String IMPORT = "IMPORT";
+
+    private static final String BEGIN = "B";  // 操作の記録
+    private static final String COMMIT = "C"; // 操作の完了
+
+    // タスクのファイルの絶対パスごとのジャーナル
+    private static final ConcurrentMap<Path, TaskJournal> BY_FILE = new ConcurrentHashMap<>();
+
+    private final Path path;                 // ジャーナルのファイル
+    private final Set<Long> inFlight = new HashSet<>(); // 完了していない操作の番号（thisで保護）
+    private FileChannel channel;             // 追記用のチャネル（未使用の場合はnull、thisで保護）
+    private long nextSeq = 1;                // 次の操作の番号（thisで保護）
+    private boolean recovered;               // 起動時のやり直しを済ませたか（thisで保護）
+    // 操作を適用する前に記録をディスクへ同期するか（-Dtaskapp.journal.fsync=false で無効）
+    private final boolean fsync = !"false".equals(System.getProperty("taskapp.journal.fsync"));
+    // 実行中の操作がない時点でこのサイズを超えていればファイルを空にする（-Dtaskapp.journal.maxBytes=バイト数）
+    private final long maxBytes = Long.getLong("taskapp.journal.maxBytes", 1L << 20);
+
+    private TaskJournal(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * 指定したタスクのファイルのジャーナルを返します。同じファイルに対しては常に同じインスタンスを返します。
+     *
+     * @param filePath tasks.csvのパス（ジャーナルのファイル名に使います）
+     * @return ジャーナル
+     */
+    static TaskJournal forFile(String filePath) {
+        return BY_FILE.computeIfAbsent(Paths.get(filePath).toAbsolutePath().normalize(), path -> open(filePath));
+    }
+
+    /**
+     * 共有せずに新しいジャーナルを作成します。ファイルはまだ読み込みません（再起動した場合と同じ状態）。
+     */
+    static TaskJournal open(String filePath) {
+        String base = filePath.endsWith(".csv") ? filePath.substring(0, filePath.length() - 4) : filePath;
+        return new TaskJournal(Paths.get(base + "_journal.csv"));
+    }
+
+    /**
+     * 完了していない操作を番号の順にやり直し、ジャーナルを空にします。最初の1回だけ実行し、2回目以降は何もしません。
+     * やり直しは他の操作を始める前に行うため、TaskLogicのロックを取得せずに呼び出します。
+     * やり直しに失敗した場合はジャーナルを残すため、次回の起動時にもう一度やり直します。
+     * チェックサムが一致しない行（途中で途切れた記録や、値の改行で分かれた記録）と、値を読み取れない記録は
+     * 標準エラー出力に表示して読み飛ばします。
+     *
+     * @param redo 1件の操作をやり直す処理（途中まで適用済みの場合があるため、適用済みの部分は飛ばす必要があります）
+     * @return やり直した操作の件数
+     * @throws IOException ジャーナルの読み書きまたはやり直しに失敗した場合
+     */
+    public synchronized int recover(Redo redo) throws IOException {
+        if (recovered) {
+            return 0;
+        }
+        Map<Long, Entry> pending = new LinkedHashMap<>();
+        if (Files.exists(path)) {
+            String[] lines = Files.readString(path, StandardCharsets.UTF_8).split("\n", -1);
+            // 最後の要素は改行の後ろの部分（空、または書き込み途中で終了した行）なので読み飛ばす。
+            // 書き込み途中の記録は同期が済んでいないため、その操作はまだ適用されていない
+            for (int i = 0; i < lines.length - 1; i++) {
+                String record = verify(lines[i]);
+                if (record == null) {
+                    System.err.println("ジャーナルの不正な行を読み飛ばしました: " + lines[i]);
+                    continue; // 途中で途切れた、または値に改行を含むなどで壊れた行
+                }
+                String[] values = record.split(",", 4);
+                long seq;
+                try {
+                    seq = Long.parseLong(values[0]);
+                } catch (NumberFormatException e) {
+                    System.err.println("ジャーナルの不正な行を読み飛ばしました: " + lines[i]);
+                    continue;
+                }
+                nextSeq = Math.max(nextSeq, seq + 1);
+                if (values.length == 4 && BEGIN.equals(values[1])) {
+                    pending.put(seq, new Entry(seq, values[2], values[3]));
+                } else if (values.length == 2 && COMMIT.equals(values[1])) {
+                    pending.remove(seq);
+                }
+            }
+        }
+        int redone = 0;
+        for (Entry entry : pending.values()) {
+            try {
+                redo.redo(entry);
+                redone++;
+            } catch (NumberFormatException | DateTimeParseException | IndexOutOfBoundsException e) {
+                // 値が壊れている記録はやり直せないため、読み飛ばして起動を続ける
+                System.err.println("ジャーナルの不正な記録を読み飛ばしました: " + entry.getSeq() + "," + entry.getOp());
+                e.printStackTrace();
+            }
+        }
+        if (Files.exists(path)) {
+            try (FileChannel truncate = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                truncate.truncate(0);
+                truncate.force(false);
+            }
+        }
+        recovered = true;
+        return redone;
+    }
+
+    /**
+     * 操作を適用する前に記録します。taskapp.journal.fsyncが有効な場合は、ディスクへの同期が済んでから戻ります。
+     * 同期は他のスレッドの記録と並行して行うため、同時に記録した操作の同期は1回にまとまることがあります。
+     *
+     * @param op     操作の種類（{@link #SAVE}、{@link #STATUS}、{@link #DELETE}、{@link #IMPORT}）
+     * @param fields 操作をやり直すのに必要な値（カンマと改行を含まないこと。最後の値のみカンマを含めてもかまいません）
+     * @return 操作の番号（{@link #commit(long)}に渡します）
+     * @throws IOException ジャーナルへの書き込みに失敗した場合
+     * @throws IllegalStateException 起動時のやり直し（{@link #recover(Redo)}）を済ませていない場合
+     */
+    public long begin(String op, Object... fields) throws IOException {
+        StringBuilder line = new StringBuilder();
+        long seq;
+        FileChannel target;
+        synchronized (this) {
+            if (!recovered) {
+                throw new IllegalStateException("ジャーナルのやり直しが済んでいません: " + path);
+            }
+            seq = nextSeq++;
+            line.append(seq).append(',').append(BEGIN).append(',').append(op);
+            for (Object field : fields) {
+                line.append(',').append(field);
+            }
+            seal(line);
+            target = channel();
+            write(target, line);
+            inFlight.add(seq);
+        }
+        if (fsync) {
+            target.force(false); // 記録を追加した全てのスレッドの分をまとめて同期する
+        }
+        return seq;
+    }
+
+    /**
+     * 操作の完了を記録します。ファイルに何も書き込まずに操作を終えた場合（確認に失敗した場合など）も呼び出します。
+     * 完了の記録は同期しません（失われた場合は次回の起動時にやり直しますが、適用済みの部分は飛ばされます）。
+     * 例外で中断した操作は呼び出さずに残し、次回の起動時にやり直します。
+     *
+     * @param seq {@link #begin(String, Object...)}が返した操作の番号
+     * @throws IOException ジャーナルへの書き込みに失敗した場合
+     */
+    public synchronized void commit(long seq) throws IOException {
+        if (!inFlight.remove(seq)) {
+            return;
+        }
+        FileChannel target = channel();
+        write(target, seal(new StringBuilder().append(seq).append(',').append(COMMIT)));
+        if (inFlight.isEmpty() && target.size() >= maxBytes) {
+            target.truncate(0); // 全ての操作が完了しているため、記録は不要
+        }
+    }
+
+    /**
+     * 追記用のチャネルを返します。まだ開いていない場合は開きます。
+     */
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+
+    /**
+     * 記録の末尾にチェックサムと改行を追加します。
+     */
+    private static StringBuilder seal(StringBuilder record) {
+        String checksum = checksum(record);
+        return record.append(',').append(checksum).append('\n');
+    }
+
+    /**
+     * 行のチェックサムを確認し、チェックサムを除いた記録を返します。
+     *
+     * @return 記録（チェックサムがない、または一致しない場合はnull）
+     */
+    private static String verify(String line) {
+        int separator = line.lastIndexOf(',');
+        if (separator < 0) {
+            return null;
+        }
+        String record = line.substring(0, separator);
+        return line.substring(separator + 1).equals(checksum(record)) ? record : null;
+    }
+
+    private static String checksum(CharSequence record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.toString().getBytes(StandardCharsets.UTF_8));
+        return String.format("%08x", crc.getValue());
+    }
+
+    private static void write(FileChannel channel, CharSequence line) throws IOException {
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(line.toString());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * 完了していない操作を1件ずつやり直す処理です。
+     */
+    public interface Redo {
+        /**
+         * @param entry やり直す操作
+         * @throws IOException やり直しに失敗した場合
+         */
+        void redo(Entry entry) throws IOException;
+    }
+
+    /**
+     * ジャーナルに記録された1件の操作です。
+     */
+    public static final class Entry {
+        private final long seq;
+        private final String op;
+        private final String values; // 操作の種類より後の部分
+
+        private Entry(long seq, String op, String values) {
+            this.seq = seq;
+            this.op = op;
+            this.values = values;
+        }
+
+        public long getSeq() {
+            return seq;
+        }
+
+        public String getOp() {
+            return op;
+        }
+
+        /**
+         * @param column 値の番号（0から）
+         * @return 値の文字列
+         */
+        public String getString(int column) {
+            return split()[column];
+        }
+
+        /**
+         * 指定した番号以降の全ての値を、カンマを含めたまま返します。カンマを含む可能性がある最後の値に使います。
+         *
+         * @param column 値の番号（0から）
+         * @return 値の文字列
+         */
+        public String getRest(int column) {
+            return values.split(",", column + 1)[column];
+        }
+
+        public int getInt(int column) {
+            return Integer.parseInt(getString(column));
+        }
+
+        public long getLong(int column) {
+            return Long.parseLong(getString(column));
+        }
+
+        public LocalDate getDate(int column) {
+            return LocalDate.parse(getString(column));
+        }
+
+        /**
+         * ;で区切った値をタスクコードのリストとして返します。
+         *
+         * @param column 値の番号（0から）
+         * @return タスクコードのリスト
+         */
+        public List<Integer> getCodes(int column) {
+            List<Integer> codes = new ArrayList<>();
+            for (String code : getString(column).split(";")) {
+                codes.add(Integer.parseInt(code));
+            }
+            return codes;
+        }
+
+        private String[] split() {
+            return values.split(",", -1);
+        }
+    }
+}
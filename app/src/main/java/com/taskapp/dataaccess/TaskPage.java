@@ -0,0 +1,36 @@
+package com.taskapp.dataaccess;
+
+import java.util.List;
+
+import com.taskapp.model.Task;
+
+/**
+ * タスク一覧の1ページ分の読み込み結果を表すクラスです。
+ * 次のページはファイル上の読み込み位置で指定するため、ページをめくるたびにファイルの先頭から読み直す必要はありません。
+ */
+public final class TaskPage {
+    private final List<Task> tasks; // このページのタスク
+    private final long nextOffset;  // 次のページの最初の行の開始位置（次のページがない場合は-1）
+
+    TaskPage(List<Task> tasks, long nextOffset) {
+        this.tasks = List.copyOf(tasks);
+        this.nextOffset = nextOffset;
+    }
+
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    /**
+     * 次のページの読み込み位置を返します。
+     *
+     * @return {@link TaskDataAccess#findPage(long, int)}に渡す開始位置、次のページがない場合は-1
+     */
+    public long getNextOffset() {
+        return nextOffset;
+    }
+
+    public boolean hasNext() {
+        return nextOffset >= 0;
+    }
+}
@@ -0,0 +1,135 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import com.taskapp.model.Task;
+
+/**
+ * タスクの保存先です。TaskLogicとImportLogicはこのインターフェースを通してタスクを扱います。
+ * CSV（またはバイナリ形式）のファイルに保存する{@link TaskDataAccess}と、
+ * メモリ上にだけ保持する{@link InMemoryTaskRepository}があり、{@link Repositories}が設定に応じて選びます。
+ */
+public interface TaskRepository {
+    /**
+     * 操作の排他制御に使うロックを返します。同じ保存先を扱うインスタンスは同じロックを返します。
+     *
+     * @return ロックの組（持たない場合はnull）
+     */
+    StripedLocks getLocks();
+
+    /**
+     * 担当ユーザーとステータスの組ごとのタスク数の集計値を返します。同じ保存先を扱うインスタンスは同じ集計値を返します。
+     *
+     * @return 集計値（持たない場合はnull）
+     */
+    TaskStatusCounters getStatusCounters();
+
+    /**
+     * タスクとログにまたがる操作を適用前に記録するジャーナルを返します。
+     *
+     * @return ジャーナル（無効な場合はnull）
+     */
+    TaskJournal getJournal();
+
+    /**
+     * 全てのタスクを登録順に取得します。
+     *
+     * @return タスクのリスト
+     */
+    List<Task> findAll();
+
+    /**
+     * 全てのタスクを列ごとの配列で保持する表として取得します。行の選び方はfindAllと同じです。
+     *
+     * @return タスクの表
+     */
+    TaskTable findTable();
+
+    /**
+     * 指定した位置から1ページ分のタスクを取得します。
+     *
+     * @param offset 読み込み開始位置（最初のページは0、以降は前のページの{@link TaskPage#getNextOffset()}）
+     * @param limit  1ページの件数
+     * @return 1ページ分のタスクと次のページの開始位置
+     */
+    TaskPage findPage(long offset, int limit);
+
+    /**
+     * タスクを追加します。
+     *
+     * @param task 追加するタスク
+     */
+    void save(Task task);
+
+    /**
+     * 複数のタスクをまとめて追加します。
+     *
+     * @param tasks 追加するタスクのリスト
+     */
+    void saveAll(List<Task> tasks);
+
+    /**
+     * 登録済みの全てのタスクコードを取得します。
+     *
+     * @return タスクコードの集合（呼び出し側で変更できる複製）
+     */
+    Set<Integer> findAllCodes();
+
+    /**
+     * タスクコードが登録済みかを判定します。
+     *
+     * @param code タスクコード
+     * @return 登録済みならtrue
+     */
+    boolean existsByCode(int code);
+
+    /**
+     * タスクコードを基にタスクを取得します。
+     *
+     * @param code タスクコード
+     * @return 見つかったタスク（存在しない場合はnull）
+     */
+    Task findByCode(int code);
+
+    /**
+     * 保存されているバージョンがupdateTaskのバージョンと一致する場合だけ更新し、
+     * バージョンを1増やして保存したうえでupdateTaskのバージョンも更新後の値にします。
+     *
+     * @param updateTask 更新するタスク
+     * @throws VersionConflictException 保存されているバージョンが一致しない、またはタスクが削除されている場合
+     */
+    void update(Task updateTask);
+
+    /**
+     * タスクを削除します。
+     *
+     * @param code 削除するタスクのコード
+     */
+    void delete(int code);
+
+    /**
+     * 複数のタスクをまとめて削除します。
+     *
+     * @param codes 削除するタスクのコード
+     */
+    void deleteAll(Collection<Integer> codes);
+
+    /**
+     * 複数のタスクの削除を準備します。{@link FileRewrite#commit()}で確定し、{@link FileRewrite#abort()}で破棄します。
+     *
+     * @param codes 削除するタスクのコード
+     * @return 準備した削除
+     * @throws IOException 準備に失敗した場合（何も変更しません）
+     */
+    FileRewrite prepareDelete(Collection<Integer> codes) throws IOException;
+
+    /**
+     * 同じタスクコードで重複して登録されたタスクを取り除き、タスクコードごとに1件だけを残します。
+     *
+     * @return 取り除いた件数
+     */
+    int dedupe();
+}
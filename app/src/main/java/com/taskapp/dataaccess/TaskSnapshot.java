@@ -0,0 +1,399 @@
+package com.taskapp.dataaccess;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * tasks.csvの全ての行をメモリ上に列ごとの配列で保持し、バイナリ形式のスナップショットとしてファイルに保存します。
+ * {@link TaskDataAccess#findAll()}と{@link TaskDataAccess#findTable()}は、CSVを毎回解析する代わりにこの内容から結果を作ります。
+ *
+ * <p>保持している内容はCSVのどの位置までを反映したかを記録しており、読み込みのたびにその位置以降に追記された行だけを解析して追加します。
+ * ファイルが置き換えられた（書き換えや圧縮でファイルキーが変わった）、記録した位置より短くなった、
+ * または記録した位置の直前の内容が変わった場合は、CSV全体を解析し直します。
+ *
+ * <p>スナップショットはCSVの隣（tasks.csvに対してtasks_snapshot.bin）に、
+ * -Dtaskapp.task.snapshotIntervalSeconds（既定値60）ごとに変更があった場合だけ保存します。CSV全体を解析し直した直後にも保存します。
+ * 起動後の最初の読み込みではスナップショットを読み込み、保存後に追記された行だけを解析します。
+ */
+final class TaskSnapshot {
+    private static final int MAGIC = 0x54534E31;    // tasks_snapshot.binのマジックナンバー（"TSN1"）
+    private static final int CHECK_BYTES = 4096;    // 記録した位置の直前で内容の一致を確認するバイト数
+
+    // スナップショットを定期的に保存するスレッド
+    private static final ScheduledExecutorService SAVER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "task-snapshot-saver");
+        thread.setDaemon(true); // アプリケーションの終了を妨げない
+        return thread;
+    });
+    // CSVの絶対パスごとの内容
+    private static final ConcurrentMap<Path, TaskSnapshot> BY_FILE = new ConcurrentHashMap<>();
+
+    private final Path csvPath;       // 元のCSV
+    private final Path snapshotPath;  // スナップショットのファイル
+    private final Object saveLock = new Object(); // 保存を1つずつ行うためのロック（thisより先に取得する）
+    // 以下はthisで保護する
+    private Rows rows;                // 保持している行（未読み込みの場合はnull、呼び出し側には複製を返す）
+    private final Map<String, Integer> nameIds = new HashMap<>(); // タスク名から辞書の番号
+    private long offset;              // CSVのうち反映済みの位置
+    private String fileKey;           // 反映した時点のCSVのファイルキー
+    private long checksum;            // offsetの直前CHECK_BYTESバイトのCRC32
+    private boolean dirty;            // スナップショットに保存していない変更があるか
+
+    private TaskSnapshot(Path csvPath) {
+        this.csvPath = csvPath;
+        String name = csvPath.getFileName().toString();
+        String base = name.endsWith(".csv") ? name.substring(0, name.length() - 4) : name;
+        this.snapshotPath = csvPath.resolveSibling(base + "_snapshot.bin");
+    }
+
+    /**
+     * 指定したCSVの内容を返します。同じファイルに対しては常に同じインスタンスを返し、
+     * 最初に作成した時点から-Dtaskapp.task.snapshotIntervalSecondsごとにスナップショットを保存します。
+     *
+     * @param filePath tasks.csvのパス
+     * @return CSVの内容
+     */
+    static TaskSnapshot forFile(String filePath) {
+        return BY_FILE.computeIfAbsent(Paths.get(filePath).toAbsolutePath().normalize(), path -> {
+            TaskSnapshot snapshot = open(filePath);
+            long interval = Long.getLong("taskapp.task.snapshotIntervalSeconds", 60L);
+            SAVER.scheduleWithFixedDelay(snapshot::saveIfChanged, interval, interval, TimeUnit.SECONDS);
+            return snapshot;
+        });
+    }
+
+    /**
+     * 共有せずに新しいインスタンスを作成します。スナップショットはまだ読み込みません（再起動した場合と同じ状態）。
+     */
+    static TaskSnapshot open(String filePath) {
+        return new TaskSnapshot(Paths.get(filePath).toAbsolutePath().normalize());
+    }
+
+    /**
+     * CSVの現在の内容を反映した行を返します。
+     * 前回の呼び出し以降に追記された行だけを解析し、必要な場合はCSV全体を解析し直します。
+     * CSVへの書き込みの途中の行を読まないよう、TaskDataAccessの書き込み用のロックを取得した状態で呼び出してください。
+     *
+     * @return CSVの全ての行（ファイルの順、同じタスクコードの行や担当ユーザーが存在しない行も含む）
+     * @throws IOException ファイルの読み込みに失敗した場合
+     */
+    synchronized Rows refresh() throws IOException {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(csvPath, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            reset(null);
+            return rows.view();
+        }
+        String key = Objects.toString(attrs.fileKey(), "");
+        long size = attrs.size();
+        boolean loaded = rows == null && load(key, size);
+        if (!loaded && (rows == null || !key.equals(fileKey) || size < offset || checksum(offset) != checksum)) {
+            reset(key); // 置き換えられた、または書き換えられたため、全体を解析し直す
+            SAVER.execute(this::saveIfChanged); // 解析し終えてこのメソッドを抜けた後に保存される
+        }
+        if (size > offset) {
+            MappedCsvReader.readWhile(csvPath, offset, 4, 5, row -> {
+                rows.add(row.getInt(0), nameId(row.getString(1)), row.getInt(2), row.getInt(3),
+                        row.columnCount() == 5 ? row.getInt(4) : 0); // 省略時はバージョン0
+                return true;
+            });
+            offset = size;
+            checksum = checksum(size);
+            dirty = true;
+        }
+        return rows.view();
+    }
+
+    /**
+     * 保持している内容を空にし、CSVの先頭から解析し直すようにします。
+     */
+    private void reset(String key) {
+        rows = new Rows(16, new String[16], 0, 0);
+        nameIds.clear();
+        offset = 0;
+        fileKey = key;
+        checksum = 0;
+        dirty = true;
+    }
+
+    private int nameId(String name) {
+        Integer id = nameIds.get(name);
+        if (id == null) {
+            id = rows.addName(name);
+            nameIds.put(name, id);
+        }
+        return id;
+    }
+
+    /**
+     * CSVの指定した位置の直前CHECK_BYTESバイトのCRC32を計算します。
+     */
+    private long checksum(long end) throws IOException {
+        long start = Math.max(0, end - CHECK_BYTES);
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        try (FileChannel channel = FileChannel.open(csvPath, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) > 0) {
+                // バッファが埋まるまで読み込む
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.flip());
+        return crc.getValue();
+    }
+
+    /**
+     * スナップショットがCSVの現在の内容の先頭部分と一致する場合に読み込みます。
+     * 読み込み後もマップが残るとWindowsでスナップショットを置き換えられないため、メモリマップせずにヒープに読み込みます。
+     *
+     * @return 読み込んだ場合はtrue
+     */
+    private boolean load(String key, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(channel.size()));
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // バッファが埋まるまで読み込む
+            }
+            buffer.flip();
+            if (buffer.remaining() < 20 || buffer.getInt() != MAGIC) {
+                return false;
+            }
+            long savedOffset = buffer.getLong();
+            long savedChecksum = buffer.getLong();
+            String savedKey = readString(buffer);
+            if (!savedKey.equals(key) || size < savedOffset || checksum(savedOffset) != savedChecksum) {
+                return false; // スナップショットの保存後にCSVが置き換えられた
+            }
+            int nameCount = buffer.getInt();
+            String[] names = new String[Math.max(16, nameCount)];
+            nameIds.clear();
+            for (int i = 0; i < nameCount; i++) {
+                names[i] = readString(buffer);
+                nameIds.put(names[i], i);
+            }
+            int count = buffer.getInt();
+            Rows loaded = new Rows(Math.max(16, count), names, nameCount, count);
+            IntBuffer ints = buffer.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+            for (int[] column : loaded.columns()) {
+                ints.get(column, 0, count); // 列ごとにまとめて読み込む
+            }
+            rows = loaded;
+            offset = savedOffset;
+            fileKey = savedKey;
+            checksum = savedChecksum;
+            dirty = false;
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (RuntimeException e) { // 途中で切れたファイルなど
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * 前回の保存以降に変更があった場合、スナップショットを一時ファイルに書き出してから置き換えます。
+     * 書き出す内容を複製する間だけ読み込みを止め、書き出しは読み込みと並行して行います。
+     */
+    void saveIfChanged() {
+        synchronized (saveLock) { // 保存中の場合は終わるのを待つ（呼び出し後にファイルがあることを保証する）
+            Rows saved;
+            long savedOffset;
+            long savedChecksum;
+            String savedKey;
+            synchronized (this) {
+                if (!dirty || rows == null || fileKey == null) {
+                    return;
+                }
+                saved = rows.view();
+                savedOffset = offset;
+                savedChecksum = checksum;
+                savedKey = fileKey;
+                dirty = false;
+            }
+            try {
+                Path temp = Files.createTempFile(snapshotPath.getParent(), "tasks_snapshot", ".tmp");
+                try {
+                    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                        ByteBuffer header = ByteBuffer.allocate(1 << 16);
+                        header.putInt(MAGIC).putLong(savedOffset).putLong(savedChecksum);
+                        header = putString(channel, header, savedKey);
+                        header = putInt(channel, header, saved.nameCount);
+                        for (int i = 0; i < saved.nameCount; i++) {
+                            header = putString(channel, header, saved.names[i]);
+                        }
+                        header = putInt(channel, header, saved.size);
+                        write(channel, header.flip());
+                        ByteBuffer column = ByteBuffer.allocate(Math.max(4, saved.size * 4))
+                                .order(ByteOrder.LITTLE_ENDIAN); // 読み込み時に変換せずに複製できる順
+                        for (int[] values : saved.columns()) {
+                            column.clear();
+                            column.asIntBuffer().put(values, 0, saved.size);
+                            column.limit(saved.size * 4);
+                            write(channel, column);
+                        }
+                    }
+                    Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(temp); // 置き換えに失敗した場合に一時ファイルを残さない
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                synchronized (this) {
+                    dirty = true; // 次回の保存でやり直す
+                }
+            }
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer putString(FileChannel channel, ByteBuffer buffer, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer = putInt(channel, buffer, bytes.length);
+        if (buffer.remaining() < bytes.length) {
+            write(channel, buffer.flip());
+            buffer.clear();
+            if (buffer.capacity() < bytes.length) {
+                buffer = ByteBuffer.allocate(bytes.length);
+            }
+        }
+        return buffer.put(bytes);
+    }
+
+    private static ByteBuffer putInt(FileChannel channel, ByteBuffer buffer, int value) throws IOException {
+        if (buffer.remaining() < 4) {
+            write(channel, buffer.flip());
+            buffer.clear();
+        }
+        return buffer.putInt(value);
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * CSVの行を列ごとの配列で保持します。
+     * 追加は配列の使用済みの部分より後ろにだけ書き込み、容量が足りない場合は新しい配列に複製するため、
+     * {@link #view()}で取得した時点の内容は、その後の追加の影響を受けずにロックなしで読み込めます。
+     */
+    static final class Rows {
+        private int[] codes;
+        private int[] statuses;
+        private int[] repUserCodes;
+        private int[] versions;
+        private int[] nameIds;
+        private String[] names; // タスク名の辞書
+        private int nameCount;
+        private int size;
+
+        private Rows(int capacity, String[] names, int nameCount, int size) {
+            this.codes = new int[capacity];
+            this.statuses = new int[capacity];
+            this.repUserCodes = new int[capacity];
+            this.versions = new int[capacity];
+            this.nameIds = new int[capacity];
+            this.names = names;
+            this.nameCount = nameCount;
+            this.size = size;
+        }
+
+        private Rows(Rows source) {
+            this.codes = source.codes;
+            this.statuses = source.statuses;
+            this.repUserCodes = source.repUserCodes;
+            this.versions = source.versions;
+            this.nameIds = source.nameIds;
+            this.names = source.names;
+            this.nameCount = source.nameCount;
+            this.size = source.size;
+        }
+
+        /**
+         * @return 現在の内容を表す別のインスタンス（この後の追加は反映されません）
+         */
+        private Rows view() {
+            return new Rows(this);
+        }
+
+        private int[][] columns() {
+            return new int[][] { codes, statuses, repUserCodes, versions, nameIds };
+        }
+
+        private void add(int code, int nameId, int status, int repUserCode, int version) {
+            if (size == codes.length) {
+                int capacity = size * 2;
+                codes = Arrays.copyOf(codes, capacity);
+                statuses = Arrays.copyOf(statuses, capacity);
+                repUserCodes = Arrays.copyOf(repUserCodes, capacity);
+                versions = Arrays.copyOf(versions, capacity);
+                nameIds = Arrays.copyOf(nameIds, capacity);
+            }
+            codes[size] = code;
+            statuses[size] = status;
+            repUserCodes[size] = repUserCode;
+            versions[size] = version;
+            nameIds[size] = nameId;
+            size++;
+        }
+
+        private int addName(String name) {
+            if (nameCount == names.length) {
+                names = Arrays.copyOf(names, nameCount * 2);
+            }
+            names[nameCount] = name;
+            return nameCount++;
+        }
+
+        /**
+         * @return 行数（同じタスクコードの行や担当ユーザーが存在しない行も含む）
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * 全ての行をファイルの順に表へ追加します。
+         *
+         * @param table   追加先の表
+         * @param replace trueの場合は同じタスクコードの行を置き換え（追記型の更新）、falseの場合は末尾に追加します
+         */
+        void fill(TaskTable.Builder table, boolean replace) {
+            for (int row = 0; row < size; row++) {
+                if (replace) {
+                    table.put(codes[row], names[nameIds[row]], statuses[row], repUserCodes[row], versions[row]);
+                } else {
+                    table.add(codes[row], names[nameIds[row]], statuses[row], repUserCodes[row], versions[row]);
+                }
+            }
+        }
+    }
+}
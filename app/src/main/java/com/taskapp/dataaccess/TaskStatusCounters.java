@@ -0,0 +1,389 @@
+package com.taskapp.dataaccess;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+
+/**
+ * 担当ユーザーとステータスの組ごとのタスク数を保持する集計値です。
+ * タスクの登録、ステータスの変更、削除のたびに差分だけを反映するため、件数の取得はタスクのファイルを読まずに済みます。
+ * 同じタスクのファイルを扱うインスタンスで共有するよう、{@link TaskDataAccess#getStatusCounters()}から取得します。
+ *
+ * <p>集計値はタスクのファイルの隣のスナップショット（tasks.csvに対してtasks_counts.csv）に保存し、次回の起動時に読み込みます。
+ * スナップショットには保存した時点のタスクのファイルのサイズと更新日時を記録し、一致しない場合
+ * （スナップショットの保存前に終了した場合や、ファイルを直接編集した場合）はタスクのファイルから数え直します。
+ * 実行中にTaskLogicとImportLogicを通さずにタスクのファイルを変更した場合は、{@link #rebuild()}で数え直してください。
+ *
+ * <p>変更する操作は{@link #begin()}で開始し、タスクのファイルに書き込んだ後に差分を反映して、最後に{@link Change#close()}を呼び出します。
+ * スナップショットは実行中の変更がなくなった時点から-Dtaskapp.task.countsSaveDelayMillis（既定値1000、0の場合は待たない）
+ * 後に保存し、その間の変更はまとめて1回で保存します。
+ */
+public final class TaskStatusCounters {
+    /** 集計するステータスの数（0：未着手、1：着手中、2：完了） */
+    public static final int STATUS_COUNT = 3;
+
+    private static final String SIZE_HEADER = "Tasks_Size,Tasks_Modified";
+    private static final String COUNT_HEADER = "Rep_User_Code,Status,Count";
+
+    // スナップショットを遅れて保存するスレッド
+    private static final ScheduledExecutorService SAVER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "task-counts-saver");
+        thread.setDaemon(true); // アプリケーションの終了を妨げない
+        return thread;
+    });
+    // タスクのファイルの絶対パスごとの集計値
+    private static final ConcurrentMap<Path, TaskStatusCounters> BY_FILE = new ConcurrentHashMap<>();
+
+    private final Path snapshotPath;            // スナップショットのファイル（保存しない場合はnull）
+    private final Path dataPath;                // 集計元のタスクのファイル
+    private final StripedLocks locks;           // タスクのファイルのロック（数え直す間は書き込みロックを取得する）
+    private final Supplier<TaskTable> source;   // 数え直すときにタスクを読み込む処理
+    // 担当ユーザーコード → ステータスごとのタスク数
+    private final ConcurrentMap<Integer, AtomicIntegerArray> counts = new ConcurrentHashMap<>();
+    private volatile boolean loaded;            // スナップショットまたはタスクのファイルから読み込み済みか
+    private int pending;                        // 実行中の変更の数（thisで保護）
+    private boolean dirty;                      // 保存していない変更があるか（thisで保護）
+    private boolean saveScheduled;              // スナップショットの保存を予約済みか（thisで保護）
+    // 変更がなくなってからスナップショットを保存するまでの時間（-Dtaskapp.task.countsSaveDelayMillis=ミリ秒）
+    private final long saveDelayMillis = Long.getLong("taskapp.task.countsSaveDelayMillis", 1000L);
+
+    /**
+     * スナップショットを保存せず、空の状態から数える集計値を作成します。タスクのファイルを持たないテスト用のモックなどに使います。
+     */
+    public TaskStatusCounters() {
+        this(null, null, null, null);
+        loaded = true;
+    }
+
+    private TaskStatusCounters(Path snapshotPath, Path dataPath, StripedLocks locks, Supplier<TaskTable> source) {
+        this.snapshotPath = snapshotPath;
+        this.dataPath = dataPath;
+        this.locks = locks;
+        this.source = source;
+    }
+
+    /**
+     * スナップショットを保存せず、最初の参照時に指定した処理で読み込んだタスクから数える集計値を作成します。
+     * ファイルを持たないメモリ上のリポジトリに使います。
+     *
+     * @param locks  タスクのロック
+     * @param source 数えるときにタスクを読み込む処理
+     * @return 集計値
+     */
+    static TaskStatusCounters inMemory(StripedLocks locks, Supplier<TaskTable> source) {
+        return new TaskStatusCounters(null, null, locks, source);
+    }
+
+    /**
+     * 指定したタスクのファイルの集計値を返します。同じファイルに対しては常に同じインスタンスを返します。
+     *
+     * @param filePath tasks.csvのパス（スナップショットのファイル名に使います）
+     * @param dataPath 集計元のタスクのファイル（バイナリ形式の場合はtasks.bin）
+     * @param locks    タスクのファイルのロック
+     * @param source   数え直すときにタスクを読み込む処理
+     * @return 集計値
+     */
+    static TaskStatusCounters forFile(String filePath, Path dataPath, StripedLocks locks, Supplier<TaskTable> source) {
+        return BY_FILE.computeIfAbsent(Paths.get(filePath).toAbsolutePath().normalize(),
+                path -> open(filePath, dataPath, locks, source));
+    }
+
+    /**
+     * 共有せずに新しい集計値を作成します。スナップショットはまだ読み込みません（再起動した場合と同じ状態）。
+     */
+    static TaskStatusCounters open(String filePath, Path dataPath, StripedLocks locks, Supplier<TaskTable> source) {
+        String base = filePath.endsWith(".csv") ? filePath.substring(0, filePath.length() - 4) : filePath;
+        return new TaskStatusCounters(Paths.get(base + "_counts.csv"), dataPath, locks, source);
+    }
+
+    /**
+     * 担当ユーザーとステータスの組のタスク数を返します。
+     *
+     * @param repUserCode 担当ユーザーコード
+     * @param status      ステータス
+     * @return タスク数
+     */
+    public int count(int repUserCode, int status) {
+        load();
+        AtomicIntegerArray byStatus = counts.get(repUserCode);
+        return byStatus != null && status >= 0 && status < STATUS_COUNT ? byStatus.get(status) : 0;
+    }
+
+    /**
+     * 担当ユーザーごとに、ステータスの順に並べたタスク数を返します。タスクが1件もない担当ユーザーは含めません。
+     *
+     * @return 担当ユーザーコードの順に並べた、ステータスごとのタスク数の複製
+     */
+    public SortedMap<Integer, int[]> countsByUser() {
+        load();
+        SortedMap<Integer, int[]> result = new TreeMap<>();
+        counts.forEach((user, byStatus) -> {
+            int[] values = new int[STATUS_COUNT];
+            boolean any = false;
+            for (int status = 0; status < STATUS_COUNT; status++) {
+                values[status] = byStatus.get(status);
+                any |= values[status] != 0;
+            }
+            if (any) {
+                result.put(user, values);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 変更を開始します。タスクのファイルのロックを取得する前に呼び出してください（読み込み前の場合は数え直すため）。
+     *
+     * @return 差分を反映し、最後に閉じる変更
+     */
+    public Change begin() {
+        load();
+        synchronized (this) {
+            pending++;
+        }
+        return new Change();
+    }
+
+    /**
+     * タスクのファイルから数え直し、スナップショットを保存します。
+     * 数え直す間はタスクのファイルへの書き込みを止めるため、タスクのファイルのロックを保持したまま呼び出さないでください。
+     */
+    public void rebuild() {
+        if (source == null) {
+            return; // 集計元のファイルがない
+        }
+        Lock exclusive = locks.fileLock().writeLock(); // 数えている間に差分が反映されないようにする
+        exclusive.lock();
+        try {
+            TaskTable table = source.get();
+            Map<Integer, AtomicIntegerArray> rebuilt = new TreeMap<>();
+            for (int row = 0; row < table.size(); row++) {
+                int status = table.getStatus(row);
+                if (table.indexOf(table.getCode(row)) != row || status < 0 || status >= STATUS_COUNT) {
+                    continue; // findByCodeと同じく同じタスクコードの最初の行だけを数える
+                }
+                rebuilt.computeIfAbsent(table.getRepUserCode(row), user -> new AtomicIntegerArray(STATUS_COUNT))
+                        .incrementAndGet(status);
+            }
+            counts.clear();
+            counts.putAll(rebuilt);
+            loaded = true;
+            synchronized (this) {
+                dirty = true;
+                if (pending == 0) {
+                    requestSave();
+                }
+            }
+        } finally {
+            exclusive.unlock();
+        }
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            try {
+                loaded = snapshotPath != null && readSnapshot();
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace(); // 読み込めないスナップショットは使わずに数え直す
+            }
+        }
+        if (!loaded) {
+            rebuild();
+        }
+    }
+
+    /**
+     * スナップショットを読み込みます。
+     *
+     * @return タスクのファイルと一致するスナップショットを読み込んだ場合はtrue
+     */
+    private boolean readSnapshot() throws IOException {
+        String[] attributes = dataAttributes();
+        try (BufferedReader reader = Files.newBufferedReader(snapshotPath, StandardCharsets.UTF_8)) {
+            if (!SIZE_HEADER.equals(reader.readLine())) {
+                return false;
+            }
+            String[] saved = String.valueOf(reader.readLine()).split(",");
+            if (saved.length != 2 || !saved[0].equals(attributes[0]) || !saved[1].equals(attributes[1])) {
+                return false; // スナップショットの保存後にタスクのファイルが変更された
+            }
+            if (!COUNT_HEADER.equals(reader.readLine())) {
+                return false;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(",");
+                if (values.length == 3) {
+                    int status = Integer.parseInt(values[1]);
+                    if (status >= 0 && status < STATUS_COUNT) {
+                        counts.computeIfAbsent(Integer.parseInt(values[0]), user -> new AtomicIntegerArray(STATUS_COUNT))
+                                .set(status, Integer.parseInt(values[2]));
+                    }
+                }
+            }
+            return true;
+        } catch (NoSuchFileException e) {
+            return false; // スナップショットがまだない
+        }
+    }
+
+    /**
+     * スナップショットを保存します。保存までの時間が指定されている場合は予約だけを行います。thisのロックを保持して呼び出します。
+     */
+    private void requestSave() {
+        if (saveDelayMillis <= 0) {
+            save();
+        } else if (snapshotPath != null && !saveScheduled) {
+            saveScheduled = true;
+            SAVER.schedule(this::scheduledSave, saveDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void scheduledSave() {
+        saveScheduled = false;
+        if (pending == 0) {
+            save(); // 実行中の変更がある場合は、その変更を閉じたときに予約し直す
+        }
+    }
+
+    /**
+     * 実行中の変更がない時点の集計値を、タスクのファイルのサイズと更新日時とともに保存します。thisのロックを保持して呼び出します。
+     */
+    private void save() {
+        if (snapshotPath == null || !dirty) {
+            return;
+        }
+        try {
+            String[] attributes = dataAttributes();
+            Path temp = Files.createTempFile(snapshotPath.toAbsolutePath().getParent(), "counts", ".tmp");
+            try {
+                try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    writer.write(SIZE_HEADER);
+                    writer.newLine();
+                    writer.write(attributes[0] + "," + attributes[1]);
+                    writer.newLine();
+                    writer.write(COUNT_HEADER);
+                    writer.newLine();
+                    for (Map.Entry<Integer, AtomicIntegerArray> entry : new TreeMap<>(counts).entrySet()) {
+                        for (int status = 0; status < STATUS_COUNT; status++) {
+                            int count = entry.getValue().get(status);
+                            if (count != 0) {
+                                writer.write(entry.getKey() + "," + status + "," + count);
+                                writer.newLine();
+                            }
+                        }
+                    }
+                }
+                Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            dirty = false;
+        } catch (IOException e) {
+            e.printStackTrace(); // 保存できなくても次回の起動時に数え直せる
+        }
+    }
+
+    /**
+     * タスクのファイルのサイズと更新日時（ナノ秒）を返します。ファイルがない場合はどちらも-1です。
+     */
+    private String[] dataAttributes() throws IOException {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(dataPath, BasicFileAttributes.class);
+            return new String[] { Long.toString(attrs.size()),
+                    Long.toString(attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS)) };
+        } catch (NoSuchFileException e) {
+            return new String[] { "-1", "-1" };
+        }
+    }
+
+    private void add(int repUserCode, int status, int delta) {
+        if (status >= 0 && status < STATUS_COUNT) {
+            counts.computeIfAbsent(repUserCode, user -> new AtomicIntegerArray(STATUS_COUNT)).addAndGet(status, delta);
+        }
+    }
+
+    /**
+     * 1つの操作による集計値の変更です。タスクのファイルへの書き込みが成功した後に差分を反映し、
+     * 操作の成否にかかわらず最後に{@link #close()}を呼び出します。
+     */
+    public final class Change implements AutoCloseable {
+        private boolean closed;
+
+        private Change() {
+        }
+
+        /**
+         * タスクを1件追加します。
+         *
+         * @param repUserCode 担当ユーザーコード
+         * @param status      ステータス
+         */
+        public void add(int repUserCode, int status) {
+            TaskStatusCounters.this.add(repUserCode, status, 1);
+        }
+
+        /**
+         * タスクを1件取り除きます。
+         *
+         * @param repUserCode 担当ユーザーコード
+         * @param status      ステータス
+         */
+        public void remove(int repUserCode, int status) {
+            TaskStatusCounters.this.add(repUserCode, status, -1);
+        }
+
+        /**
+         * タスクのステータスの変更を反映します。
+         *
+         * @param repUserCode 担当ユーザーコード
+         * @param from        変更前のステータス
+         * @param to          変更後のステータス
+         */
+        public void move(int repUserCode, int from, int to) {
+            remove(repUserCode, from);
+            add(repUserCode, to);
+        }
+
+        /**
+         * 変更を終了します。実行中の変更がこれ以外にない場合は、スナップショットを保存します。
+         */
+        @Override
+        public void close() {
+            synchronized (TaskStatusCounters.this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                dirty = true;
+                if (--pending == 0) {
+                    requestSave(); // 他の変更の書き込みが途中の状態を保存しない
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.taskapp.dataaccess;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * タスクを列ごとの配列で保持する読み取り専用の表です。{@link TaskDataAccess#findTable()}で取得します。
+ *
+ * <p>タスクコード、ステータス、バージョンはintの配列に、担当ユーザーとタスク名は表の中で重複を除いた辞書の番号で保持します。
+ * 担当ユーザーが同じタスクは同じUserのインスタンスを、同じ名前のタスクは同じStringのインスタンスを共有するため、
+ * タスク1件あたりのヒープはTaskのオブジェクトを作る{@link TaskDataAccess#findAll()}より小さくなります。
+ *
+ * <p>行は0から{@link #size()}-1までの番号で参照し、Taskを作らずに各列の値を取得できます。
+ * 表は読み込んだ時点の内容を表し、その後の保存や更新は反映されません。
+ */
+public final class TaskTable {
+    private final int size;
+    private final int[] codes;     // タスクコード
+    private final int[] statuses;  // ステータス
+    private final int[] versions;  // バージョン
+    private final int[] userIds;   // 担当ユーザーの辞書（users）の番号
+    private final int[] nameIds;   // タスク名の辞書（names）の番号
+    private final User[] users;    // 担当ユーザーの辞書
+    private final String[] names;  // タスク名の辞書
+    private final IntIndex index;  // タスクコードから行番号を引く索引
+
+    private TaskTable(int size, int[] codes, int[] statuses, int[] versions, int[] userIds, int[] nameIds,
+            User[] users, String[] names) {
+        this.size = size;
+        this.codes = codes;
+        this.statuses = statuses;
+        this.versions = versions;
+        this.userIds = userIds;
+        this.nameIds = nameIds;
+        this.users = users;
+        this.names = names;
+        this.index = new IntIndex(size);
+        for (int row = 0; row < size; row++) {
+            index.putIfAbsent(codes[row], row); // findByCodeと同じく先に現れた行を優先
+        }
+    }
+
+    /**
+     * @return タスクの件数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 指定したタスクコードの行番号を返します。同じタスクコードの行が複数ある場合は最初の行を返します。
+     * @param code タスクコード
+     * @return 行番号（存在しない場合は-1）
+     */
+    public int indexOf(int code) {
+        return index.get(code);
+    }
+
+    public int getCode(int row) {
+        return codes[checkRow(row)];
+    }
+
+    public String getName(int row) {
+        return names[nameIds[checkRow(row)]];
+    }
+
+    public int getStatus(int row) {
+        return statuses[checkRow(row)];
+    }
+
+    public int getRepUserCode(int row) {
+        return users[userIds[checkRow(row)]].getCode();
+    }
+
+    public User getRepUser(int row) {
+        return users[userIds[checkRow(row)]];
+    }
+
+    public int getVersion(int row) {
+        return versions[checkRow(row)];
+    }
+
+    /**
+     * 指定した行のTaskを作成します。更新に使う場合など、Taskのオブジェクトが必要な行だけに使ってください。
+     * @param row 行番号
+     * @return 新しいTask
+     */
+    public Task toTask(int row) {
+        return new Task(getCode(row), getName(row), getStatus(row), getRepUser(row), getVersion(row));
+    }
+
+    /**
+     * @return 表の中で重複を除いた担当ユーザーの数
+     */
+    public int getUserCount() {
+        return users.length;
+    }
+
+    /**
+     * @return 表の中で重複を除いたタスク名の数
+     */
+    public int getNameCount() {
+        return names.length;
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("行番号" + row + "は範囲外です（件数：" + size + "）");
+        }
+        return row;
+    }
+
+    /**
+     * 1行ずつ追加してTaskTableを組み立てます。
+     * 担当ユーザーはユーザーコードごとに1回だけ解決し、担当ユーザーが存在しない行は表に含めません。
+     */
+    static final class Builder {
+        private final IntFunction<User> userResolver; // ユーザーコードから担当ユーザーを取得する（存在しない場合はnull）
+        private final IntIndex userIdsByCode = new IntIndex(16); // ユーザーコードから辞書の番号（存在しない場合は-2）
+        private final List<User> users = new ArrayList<>();
+        private final Map<String, Integer> nameIdsByName = new HashMap<>();
+        private final List<String> names = new ArrayList<>();
+        private final IntIndex rowsByCode = new IntIndex(16); // putで置き換える行を探すための索引
+        private int size;
+        private int[] codes = new int[16];
+        private int[] statuses = new int[16];
+        private int[] versions = new int[16];
+        private int[] userIds = new int[16];
+        private int[] nameIds = new int[16];
+
+        /**
+         * @param userResolver ユーザーコードから担当ユーザーを取得する関数（存在しない場合はnullを返す）
+         */
+        Builder(IntFunction<User> userResolver) {
+            this.userResolver = userResolver;
+        }
+
+        /**
+         * 行を末尾に追加します。
+         */
+        void add(int code, String name, int status, int repUserCode, int version) {
+            if (size == codes.length) {
+                int capacity = size * 2;
+                codes = Arrays.copyOf(codes, capacity);
+                statuses = Arrays.copyOf(statuses, capacity);
+                versions = Arrays.copyOf(versions, capacity);
+                userIds = Arrays.copyOf(userIds, capacity);
+                nameIds = Arrays.copyOf(nameIds, capacity);
+            }
+            set(size, code, name, status, repUserCode, version);
+            rowsByCode.putIfAbsent(code, size);
+            size++;
+        }
+
+        /**
+         * 同じタスクコードの行があればその位置で置き換え、なければ末尾に追加します（追記型の更新で最後の行を採用する場合）。
+         */
+        void put(int code, String name, int status, int repUserCode, int version) {
+            int row = rowsByCode.get(code);
+            if (row >= 0) {
+                set(row, code, name, status, repUserCode, version);
+            } else {
+                add(code, name, status, repUserCode, version);
+            }
+        }
+
+        private void set(int row, int code, String name, int status, int repUserCode, int version) {
+            codes[row] = code;
+            statuses[row] = status;
+            versions[row] = version;
+            userIds[row] = userId(repUserCode);
+            if (userIds[row] < 0) {
+                nameIds[row] = -1; // buildで除く行の名前は辞書に入れない
+                return;
+            }
+            Integer nameId = nameIdsByName.get(name);
+            if (nameId == null) {
+                nameId = names.size();
+                nameIdsByName.put(name, nameId);
+                names.add(name); // 最初に現れたインスタンスを全ての行で共有する
+            }
+            nameIds[row] = nameId;
+        }
+
+        private int userId(int repUserCode) {
+            int id = userIdsByCode.get(repUserCode);
+            if (id == -1) {
+                User user = userResolver.apply(repUserCode);
+                id = user != null ? users.size() : -2;
+                if (user != null) {
+                    users.add(user);
+                }
+                userIdsByCode.putIfAbsent(repUserCode, id);
+            }
+            return id;
+        }
+
+        /**
+         * 担当ユーザーが存在しない行を除いて表を作成します。
+         */
+        TaskTable build() {
+            int kept = 0;
+            for (int row = 0; row < size; row++) {
+                if (userIds[row] < 0) {
+                    continue; // 担当ユーザーが存在しない行は表示しない
+                }
+                codes[kept] = codes[row];
+                statuses[kept] = statuses[row];
+                versions[kept] = versions[row];
+                userIds[kept] = userIds[row];
+                nameIds[kept] = nameIds[row];
+                kept++;
+            }
+            return new TaskTable(kept, Arrays.copyOf(codes, kept), Arrays.copyOf(statuses, kept),
+                    Arrays.copyOf(versions, kept), Arrays.copyOf(userIds, kept), Arrays.copyOf(nameIds, kept),
+                    users.toArray(new User[0]), names.toArray(new String[0]));
+        }
+    }
+
+    /**
+     * intのキーからintの値（-1以外）を引くオープンアドレス法のハッシュ表です。キーと値をボクシングせずに保持します。
+     */
+    private static final class IntIndex {
+        private int[] keys;
+        private int[] values; // 値+1（0は空き）
+        private int count;
+
+        IntIndex(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(expected, 4) * 2 - 1) << 1; // 使用率を50%以下に保つ
+            keys = new int[capacity];
+            values = new int[capacity];
+        }
+
+        /**
+         * @return キーに対応する値（存在しない場合は-1）
+         */
+        int get(int key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key) & mask; values[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return values[slot] - 1;
+                }
+            }
+            return -1;
+        }
+
+        void putIfAbsent(int key, int value) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            for (; values[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return;
+                }
+            }
+            keys[slot] = key;
+            values[slot] = value + 1;
+            if (++count * 2 > keys.length) {
+                resize();
+            }
+        }
+
+        private void resize() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            count = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldValues[i] != 0) {
+                    putIfAbsent(oldKeys[i], oldValues[i] - 1);
+                }
+            }
+        }
+
+        private static int hash(int key) {
+            return key * 0x9E3779B9 >>> 16 ^ key * 0x9E3779B9; // 連番のコードでも散らばるようにする
+        }
+    }
+}
@@ -1,13 +1,27 @@
 package com.taskapp.dataaccess;
 
 // 必要なライブラリをインポート
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import com.taskapp.model.User; // Userクラスをインポート
 
-public class UserDataAccess {
+public class UserDataAccess implements UserRepository {
     private final String filePath; // CSVファイルのパスを保持するフィールド
+    private volatile UserIndex index; // 読み込み済みのユーザーデータ（未読み込みの場合はnull）
+    private volatile long checkedAt; // 最後にファイルの変更を確認した時刻（System.nanoTime）
+    // ファイルの変更を確認する最短の間隔（-Dtaskapp.users.checkIntervalMillis=ミリ秒、0で毎回確認）
+    private final long checkIntervalNanos = TimeUnit.MILLISECONDS.toNanos(
+            Math.max(0, Long.getLong("taskapp.users.checkIntervalMillis", 1000)));
 
     // デフォルトコンストラクタ: ファイルパスを初期化
     public UserDataAccess() {
@@ -25,39 +39,64 @@ public class UserDataAccess {
 
     /**
      * メールアドレスとパスワードを基にユーザーデータを探します。
+     * パスワードの照合は、メールアドレスが見つからない場合も含めて常に1回だけ行います。
      *
      * @param email    メールアドレス
      * @param password パスワード
      * @return 見つかったユーザー
      */
     public User findByEmailAndPassword(String email, String password) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line; // 読み取った行を保持する変数
-            reader.readLine(); // ヘッダー行をスキップ
-            while ((line = reader.readLine()) != null) {
-                String[] values = line.split(","); // カンマ区切りで文字列を分割
-                if (values.length == 4) { // 必要な列数を確認
-                    String csvEmail = values[2].trim(); // メールアドレスを取得
-                    String csvPassword = values[3].trim(); // パスワードを取得
-                    if (csvEmail.equals(email) && csvPassword.equals(password)) {
-                        int code = Integer.parseInt(values[0].trim()); // コードを整数に変換
-                        String name = values[1].trim(); // ユーザー名を取得
-                        return new User(code, name, csvEmail, csvPassword); // ユーザーを返す
-                    }
-                } else {
-                    System.err.printf("Invalid row format: %s%n", line); // 行フォーマットが無効な場合にエラーメッセージを出力
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error reading file: " + filePath); // ファイル読み取りエラーを通知
-            e.printStackTrace(); // 詳細なエラー情報を表示
-        } catch (NumberFormatException e) {
-            System.err.println("Error parsing numeric data in file: " + filePath); // 数値変換エラーを通知
-            e.printStackTrace();
+        UserIndex current = index();
+        User user = current.findByEmail(email); // メールアドレスの索引から検索
+        // 見つからない場合もダミーの値と照合し、応答時間からメールアドレスの有無がわからないようにする
+        PasswordHasher.Verifier verifier = user != null ? current.verifier(user) : PasswordHasher.dummy();
+        if (verifier.matches(password) && user != null) {
+            return user; // パスワードが一致する場合のみユーザーを返す
         }
         return null; // 一致するユーザーが見つからない場合はnullを返す
     }
 
+    /**
+     * 平文のまま保存されているパスワードを変換し、ファイルを書き換えます。
+     * 一時ファイルに書き出してから置き換えるため、途中で終了しても元のファイルは残ります。
+     * 変換済みの行と形式が不正な行はそのまま残します。
+     *
+     * @return 変換したパスワードの件数
+     * @throws IOException ファイルの読み書きに失敗した場合
+     */
+    public synchronized int hashPasswords() throws IOException {
+        Path path = Paths.get(filePath);
+        List<String> lines = Files.readAllLines(path);
+        if (lines.isEmpty()) {
+            return 0;
+        }
+        // 変換には時間がかかるため、行ごとに並列で変換する
+        List<String> hashed = IntStream.range(1, lines.size()).parallel().mapToObj(i -> {
+            String line = lines.get(i);
+            String[] values = line.split(",", -1);
+            if (values.length != 4 || PasswordHasher.isHashed(values[3].trim())) {
+                return line;
+            }
+            values[3] = PasswordHasher.hash(values[3].trim());
+            return String.join(",", values);
+        }).collect(Collectors.toList());
+        int count = 0;
+        for (int i = 0; i < hashed.size(); i++) {
+            if (!hashed.get(i).equals(lines.get(i + 1))) {
+                count++;
+            }
+        }
+        if (count == 0) {
+            return 0; // 変換する行がなければ書き換えない
+        }
+        hashed.add(0, lines.get(0)); // ヘッダー行
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(temp, hashed);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        index = null; // 次の検索で読み込み直す
+        return count;
+    }
+
     /**
      * コードを基にユーザーデータを取得します。
      *
@@ -65,23 +104,84 @@ public class UserDataAccess {
      * @return 見つかったユーザー
      */
     public User findByCode(int code) {
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line; // 読み取った行を保持する変数
-            reader.readLine(); // ヘッダー行をスキップ
-            while ((line = reader.readLine()) != null) {
-                String[] values = line.split(","); // カンマ区切りで文字列を分割
-                if (values.length == 4) { // 必要な列数を確認
-                    int userCode = Integer.parseInt(values[0].trim()); // ユーザーコードを取得
-                    if (userCode == code) { // コードが一致する場合
-                        String name = values[1].trim(); // ユーザー名を取得
-                        String email = values[2].trim(); // メールアドレスを取得
-                        String password = values[3].trim(); // パスワードを取得
-                        return new User(userCode, name, email, password); // ユーザーを返す
-                    }
-                } else {
-                    System.err.printf("Invalid row format: %s%n", line); // 行フォーマットが無効な場合にエラーメッセージを出力
-                }
+        return index().findByCode(code); // ユーザーコードの索引から検索
+    }
+
+    /**
+     * 現時点のユーザーデータからコードでユーザーを取得する処理を返します。
+     * ファイルの変更の確認はこのメソッドの呼び出し時の1回だけで、返した処理は読み込み済みの索引だけを参照します。
+     * タスク一覧の1ページのように、1回の操作で多数の担当者を解決する場合に使います。
+     *
+     * @return ユーザーコードからユーザーを取得する処理（見つからない場合はnullを返します）
+     */
+    IntFunction<User> codeLookup() {
+        return index()::findByCode;
+    }
+
+    /**
+     * 全てのユーザーデータを取得します。
+     * タスク一覧のように多数の担当者を解決する処理では、
+     * 1件ずつfindByCodeを呼ぶ代わりにこのメソッドで1回だけ取得します。
+     *
+     * @return ユーザーのリスト
+     */
+    public List<User> findAll() {
+        return index().findAll();
+    }
+
+    /**
+     * 読み込み済みのユーザーデータを返します。
+     * ファイルの変更はtaskapp.users.checkIntervalMillisの間隔で確認し、それより短い間隔の呼び出しではファイルの属性も読みません。
+     * 確認時にファイルの更新日時（ナノ秒単位）またはサイズが前回の読み込み時から変わっている場合のみ再読み込みします。
+     *
+     * @return ユーザーデータの索引
+     */
+    private UserIndex index() {
+        UserIndex current = index;
+        long now = System.nanoTime();
+        if (current != null && now - checkedAt < checkIntervalNanos) {
+            return current; // 前回の確認から間隔が経っていなければ確認しない
+        }
+        long lastModified = -1;
+        long size = -1;
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(Paths.get(filePath), BasicFileAttributes.class);
+            lastModified = attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+            size = attrs.size();
+        } catch (IOException e) {
+            System.err.println("Error reading file: " + filePath); // ファイル読み取りエラーを通知
+            e.printStackTrace(); // 詳細なエラー情報を表示
+        }
+        if (current != null && current.isCurrent(lastModified, size)) {
+            checkedAt = now;
+            return current; // 変更がなければファイルを読まずに返す
+        }
+        synchronized (this) {
+            current = index;
+            if (current == null || !current.isCurrent(lastModified, size)) {
+                current = new UserIndex(readAll(), lastModified, size);
+                index = current;
             }
+            checkedAt = now;
+            return current;
+        }
+    }
+
+    /**
+     * CSVファイルから全てのユーザーを読み込みます。
+     *
+     * @return ファイル順のユーザーのリスト
+     */
+    private List<User> readAll() {
+        List<User> users = new ArrayList<>(); // ユーザーのリストを初期化
+        try {
+            MappedCsvReader.read(Paths.get(filePath), 0, Long.MAX_VALUE, 4, row -> { // ヘッダー行を除き1行ずつ読み込む
+                int code = row.getInt(0); // ユーザーコードを取得
+                String name = row.getString(1); // ユーザー名を取得
+                String email = row.getString(2); // メールアドレスを取得
+                String password = row.getString(3); // パスワードを取得
+                users.add(new User(code, name, email, password)); // リストに追加
+            }, line -> System.err.printf("Invalid row format: %s%n", line)); // 行フォーマットが無効な場合にエラーメッセージを出力
         } catch (IOException e) {
             System.err.println("Error reading file: " + filePath); // ファイル読み取りエラーを通知
             e.printStackTrace(); // 詳細なエラー情報を表示
@@ -89,6 +189,6 @@ public class UserDataAccess {
             System.err.println("Error parsing numeric data in file: " + filePath); // 数値変換エラーを通知
             e.printStackTrace();
         }
-        return null; // 一致するユーザーが見つからない場合はnullを返す
+        return users; // ユーザーのリストを返す
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,79 @@
+package com.taskapp.dataaccess;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.taskapp.model.User;
+
+/**
+ * users.csvの内容をメモリ上に保持するインデックスです。
+ * ユーザーコードによる主インデックスと、メールアドレスによる副インデックスを持ちます。
+ * 生成後は変更されないため、複数スレッドから同時に参照できます。
+ * パスワードの照合用の値は、ログインしたメールアドレスの分だけ解析して保持します。
+ */
+final class UserIndex {
+    private final Map<Integer, User> byCode;  // ユーザーコード → ユーザー（ファイル順を保持）
+    private final Map<String, User> byEmail;  // メールアドレス → ユーザー
+    private final Map<String, PasswordHasher.Verifier> verifiers = new ConcurrentHashMap<>(); // メールアドレス → 照合用の値
+    private final long lastModified;          // 読み込み時点のファイル更新日時（ナノ秒）
+    private final long size;                  // 読み込み時点のファイルサイズ
+
+    /**
+     * ユーザーのリストからインデックスを作成します。
+     * コードやメールアドレスが重複している場合は、ファイル上で先に現れた行を優先します。
+     *
+     * @param users        ファイル順のユーザーのリスト
+     * @param lastModified 読み込み時点のファイル更新日時（ナノ秒）
+     * @param size         読み込み時点のファイルサイズ
+     */
+    UserIndex(List<User> users, long lastModified, long size) {
+        Map<Integer, User> codes = new LinkedHashMap<>();
+        Map<String, User> emails = new HashMap<>();
+        for (User user : users) {
+            codes.putIfAbsent(user.getCode(), user);
+            emails.putIfAbsent(user.getEmail(), user);
+        }
+        this.byCode = Collections.unmodifiableMap(codes);
+        this.byEmail = Collections.unmodifiableMap(emails);
+        this.lastModified = lastModified;
+        this.size = size;
+    }
+
+    /**
+     * インデックス作成後にファイルが変更されていないかを判定します。
+     *
+     * @param lastModified 現在のファイル更新日時（ナノ秒）
+     * @param size         現在のファイルサイズ
+     * @return 変更されていなければtrue
+     */
+    boolean isCurrent(long lastModified, long size) {
+        return this.lastModified == lastModified && this.size == size;
+    }
+
+    User findByCode(int code) {
+        return byCode.get(code);
+    }
+
+    User findByEmail(String email) {
+        return byEmail.get(email);
+    }
+
+    /**
+     * ユーザーのパスワードの照合用の値を返します。
+     *
+     * @param user findByEmailで取得したユーザー
+     * @return 照合に使う値
+     */
+    PasswordHasher.Verifier verifier(User user) {
+        return verifiers.computeIfAbsent(user.getEmail(), email -> PasswordHasher.verifier(user.getPassword()));
+    }
+
+    List<User> findAll() {
+        return new ArrayList<>(byCode.values());
+    }
+}
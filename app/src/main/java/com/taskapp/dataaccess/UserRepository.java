@@ -0,0 +1,35 @@
+package com.taskapp.dataaccess;
+
+import java.util.List;
+
+import com.taskapp.model.User;
+
+/**
+ * ユーザーの保存先です。UserLogicとTaskLogicはこのインターフェースを通してユーザーを扱います。
+ * users.csvを読み込む{@link UserDataAccess}と、メモリ上にだけ保持する{@link InMemoryUserRepository}があります。
+ */
+public interface UserRepository {
+    /**
+     * メールアドレスとパスワードを基にユーザーを探します。
+     *
+     * @param email    メールアドレス
+     * @param password パスワード
+     * @return 見つかったユーザー（一致しない場合はnull）
+     */
+    User findByEmailAndPassword(String email, String password);
+
+    /**
+     * コードを基にユーザーを取得します。
+     *
+     * @param code ユーザーコード
+     * @return 見つかったユーザー（存在しない場合はnull）
+     */
+    User findByCode(int code);
+
+    /**
+     * 全てのユーザーを取得します。
+     *
+     * @return ユーザーのリスト
+     */
+    List<User> findAll();
+}
@@ -0,0 +1,40 @@
+package com.taskapp.dataaccess;
+
+/**
+ * 更新しようとしたタスクが、読み込んだ後に他の操作で更新または削除されていた場合の例外です。
+ * 最新の状態を読み込み直してから更新をやり直してください。
+ */
+public class VersionConflictException extends RuntimeException {
+    private final int code;          // 更新しようとしたタスクのコード
+    private final int expected;      // 読み込んだ時点のバージョン
+    private final int actual;        // 現在のバージョン（削除されていた場合は-1）
+
+    VersionConflictException(int code, int expected, int actual) {
+        super("タスク" + code + "のバージョンが一致しません（読み込み時：" + expected
+                + "、現在：" + (actual < 0 ? "削除済み" : Integer.toString(actual)) + "）");
+        this.code = code;
+        this.expected = expected;
+        this.actual = actual;
+    }
+
+    /**
+     * @return 更新しようとしたタスクのコード
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * @return 読み込んだ時点のバージョン
+     */
+    public int getExpected() {
+        return expected;
+    }
+
+    /**
+     * @return 現在のバージョン、削除されていた場合は-1
+     */
+    public int getActual() {
+        return actual;
+    }
+}
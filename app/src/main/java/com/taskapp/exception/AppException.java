@@ -1,7 +1,26 @@
 package com.taskapp.exception;
 
 public class AppException extends Exception {
+    private final boolean retryable; // 同じ操作をやり直せば成功する可能性があるか
+
     public AppException(String message) {
+        this(message, false);
+    }
+
+    /**
+     * @param message   メッセージ
+     * @param retryable 他の操作と競合したなど、同じ操作をやり直せば成功する可能性がある場合はtrue
+     */
+    public AppException(String message, boolean retryable) {
         super(message);
+        this.retryable = retryable;
+    }
+
+    /**
+     * 同じ操作をやり直せば成功する可能性があるかを返します。
+     * @return やり直せる場合はtrue
+     */
+    public boolean isRetryable() {
+        return retryable;
     }
-}
\ No newline at end of file
+}
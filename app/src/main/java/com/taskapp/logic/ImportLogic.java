@@ -0,0 +1,201 @@
+package com.taskapp.logic;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.taskapp.dataaccess.ImportFileReader;
+import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.dataaccess.LogRepository;
+import com.taskapp.dataaccess.Repositories;
+import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.TaskRepository;
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.dataaccess.UserRepository;
+import com.taskapp.exception.AppException;
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * 他のシステムから移行するタスクをCSVファイルから一括登録するクラスです。
+ * 入力ファイルはtasks.csvと同じ「Code,Name,Status,Rep_User_Code」の形式で、1行ずつ読みながら検証し、
+ * 一定件数ごとにタスクと初期ログをまとめて書き込みます。
+ * まとめた書き込みは{@link TaskLogic}を通して行うため、画面やHTTP APIからの登録と同じロックとジャーナルで保護されます。
+ */
+public class ImportLogic {
+    private final TaskRepository taskDataAccess; // タスクデータへのアクセスを管理するオブジェクト
+
+    private final LogRepository logDataAccess; // ログデータへのアクセスを管理するオブジェクト
+
+    private final UserRepository userDataAccess; // ユーザーデータへのアクセスを管理するオブジェクト
+
+    private final TaskLogic taskLogic; // 同じ保存先のロックとジャーナルを使って書き込むオブジェクト
+
+    // 1回にまとめて書き込む件数（-Dtaskapp.import.batchSize=件数）
+    private final int batchSize = Math.max(1, Integer.getInteger("taskapp.import.batchSize", 5000));
+
+    public ImportLogic() { // デフォルトコンストラクタ（保存方式は-Dtaskapp.engineで選ぶ）
+        this(Repositories.tasks(), Repositories.logs(), Repositories.users());
+    }
+
+    // 他のコンポーネントを外部から受け取るコンストラクタ
+    public ImportLogic(TaskDataAccess taskDataAccess, LogDataAccess logDataAccess, UserDataAccess userDataAccess) {
+        this((TaskRepository) taskDataAccess, (LogRepository) logDataAccess, (UserRepository) userDataAccess);
+    }
+
+    // 保存方式を問わずにリポジトリを外部から受け取るコンストラクタ
+    public ImportLogic(TaskRepository taskDataAccess, LogRepository logDataAccess, UserRepository userDataAccess) {
+        this.taskDataAccess = taskDataAccess;
+        this.logDataAccess = logDataAccess;
+        this.userDataAccess = userDataAccess;
+        this.taskLogic = new TaskLogic(taskDataAccess, logDataAccess, userDataAccess);
+    }
+
+    /**
+     * CSVファイルのタスクを一括登録します。
+     * 担当ユーザーは最初に1回だけ読み込んだユーザーから検証し、登録済みまたはファイル内で重複するタスクコードの行は登録しません。
+     * 読み込み中に他の操作で登録されたタスクコードは、まとめて書き込む直前にロックを取得して確認し直します。
+     * 検証に失敗した行は登録せず、行番号付きのエラーメッセージとして結果に含めます。
+     *
+     * @see TaskLogic#saveImported(List, List)
+     * @param filePath       登録するタスクのCSVファイルのパス
+     * @param changeUserCode 初期ログに記録するユーザーのコード
+     * @return 登録結果
+     * @throws AppException ユーザーコードが存在しない、ファイルを読み込めない、
+     *                      または書き込む前の操作の記録に失敗した場合にスローされます
+     */
+    public ImportResult importTasks(String filePath, int changeUserCode) throws AppException {
+        long start = System.nanoTime();
+
+        // 担当ユーザーを検証するため、全てのユーザーを1回だけ読み込む
+        Map<Integer, User> users = new HashMap<>();
+        for (User user : userDataAccess.findAll()) {
+            users.putIfAbsent(user.getCode(), user);
+        }
+        if (!users.containsKey(changeUserCode)) {
+            throw new AppException("存在するユーザーコードを入力してください");
+        }
+
+        Set<Integer> codes = taskDataAccess.findAllCodes(); // 登録済みのタスクコード（登録した行のコードも追加していく）
+        List<Task> tasks = new ArrayList<>(batchSize);
+        List<Log> logs = new ArrayList<>(batchSize);
+        Map<Integer, Integer> lineNumbers = new HashMap<>(); // まとめて書き込む前のタスクコードと行番号
+        List<String> errors = new ArrayList<>();
+        int[] imported = new int[1];
+        AppException[] failure = new AppException[1]; // 書き込みに失敗した場合の例外（以降の行は登録しない）
+        LocalDate today = LocalDate.now();
+
+        try {
+            new ImportFileReader(filePath).forEachRow((lineNumber, values) -> {
+                if (failure[0] != null) {
+                    return;
+                }
+                String error = validate(values, users, codes);
+                if (error != null) {
+                    errors.add(lineNumber + "行目：" + error);
+                    return;
+                }
+                int code = Integer.parseInt(values[0].trim());
+                int status = Integer.parseInt(values[2].trim());
+                User repUser = users.get(Integer.parseInt(values[3].trim()));
+                codes.add(code);
+                lineNumbers.put(code, lineNumber);
+                tasks.add(new Task(code, values[1].trim(), status, repUser));
+                logs.add(new Log(code, changeUserCode, status, today));
+                if (tasks.size() >= batchSize) {
+                    try {
+                        imported[0] += flush(tasks, logs, lineNumbers, errors);
+                    } catch (AppException e) {
+                        failure[0] = e;
+                    }
+                }
+            });
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new AppException("インポートするファイルを読み込めませんでした：" + filePath);
+        } finally {
+            if (failure[0] == null) {
+                imported[0] += flush(tasks, logs, lineNumbers, errors); // 読み込みに失敗した場合も検証済みの行は書き込む
+            }
+        }
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        return new ImportResult(imported[0], errors, System.nanoTime() - start);
+    }
+
+    /**
+     * 1行分の値を検証します。
+     *
+     * @param values 列の値
+     * @param users  ユーザーコードとユーザーのマップ
+     * @param codes  登録済みのタスクコード
+     * @return エラーメッセージ、問題がない場合はnull
+     */
+    private static String validate(String[] values, Map<Integer, User> users, Set<Integer> codes) {
+        if (values.length != 4) {
+            return "列の数が正しくありません";
+        }
+        int code;
+        int status;
+        int repUserCode;
+        try {
+            code = Integer.parseInt(values[0].trim());
+            status = Integer.parseInt(values[2].trim());
+            repUserCode = Integer.parseInt(values[3].trim());
+        } catch (NumberFormatException e) {
+            return "コード・ステータスは半角の数字で入力してください";
+        }
+        if (code < 0) {
+            return "コードは半角の数字で入力してください";
+        }
+        if (codes.contains(code)) {
+            return "タスクコード" + code + "は既に登録されています";
+        }
+        String name = values[1].trim();
+        if (name.isEmpty() || name.length() > 10) {
+            return "タスク名は10文字以内で入力してください";
+        }
+        try {
+            TaskLogic.checkName(name); // 画面やHTTP APIからの登録と同じ確認
+        } catch (AppException e) {
+            return e.getMessage();
+        }
+        if (status < 0 || status > 2) {
+            return "ステータスは0・1・2の中から選択してください";
+        }
+        if (!users.containsKey(repUserCode)) {
+            return "存在するユーザーコードを入力してください";
+        }
+        return null;
+    }
+
+    /**
+     * たまったタスクとログをまとめて書き込みます。
+     * 読み込み中に他の操作で登録されていたタスクコードの行は書き込まず、行番号付きのエラーメッセージに追加します。
+     *
+     * @return 書き込んだタスクの件数
+     * @throws AppException 書き込む前の操作の記録に失敗した場合にスローされます
+     */
+    private int flush(List<Task> tasks, List<Log> logs, Map<Integer, Integer> lineNumbers, List<String> errors)
+            throws AppException {
+        try {
+            Set<Integer> skipped = taskLogic.saveImported(tasks, logs);
+            for (Task task : tasks) {
+                if (skipped.contains(task.getCode())) {
+                    errors.add(lineNumbers.get(task.getCode()) + "行目：タスクコード" + task.getCode() + "は既に登録されています");
+                }
+            }
+            return tasks.size() - skipped.size();
+        } finally {
+            tasks.clear();
+            logs.clear();
+            lineNumbers.clear();
+        }
+    }
+}
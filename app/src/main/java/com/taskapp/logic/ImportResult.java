@@ -0,0 +1,40 @@
+package com.taskapp.logic;
+
+import java.util.List;
+
+/**
+ * タスクの一括登録の結果を表すクラスです。
+ */
+public class ImportResult {
+    private final int importedCount;   // 登録したタスクの件数
+    private final List<String> errors; // 登録できなかった行のエラーメッセージ
+    private final long elapsedNanos;   // 処理にかかった時間（ナノ秒）
+
+    public ImportResult(int importedCount, List<String> errors, long elapsedNanos) {
+        this.importedCount = importedCount;
+        this.errors = List.copyOf(errors);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getImportedCount() {
+        return importedCount;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * 1秒あたりに処理した行数（登録できなかった行を含む）を返します。
+     *
+     * @return 1秒あたりの処理行数
+     */
+    public double getRowsPerSecond() {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        return seconds > 0 ? (importedCount + errors.size()) / seconds : 0;
+    }
+}
@@ -1,42 +1,304 @@
 package com.taskapp.logic;
 
+import java.io.IOException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Formatter;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.StringJoiner;
+import java.util.concurrent.locks.Lock;
 
+import com.taskapp.dataaccess.FileRewrite;
 import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.dataaccess.LogReport;
+import com.taskapp.dataaccess.LogRepository;
+import com.taskapp.dataaccess.Repositories;
+import com.taskapp.dataaccess.StripedLocks;
 import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.TaskJournal;
+import com.taskapp.dataaccess.TaskPage;
+import com.taskapp.dataaccess.TaskRepository;
+import com.taskapp.dataaccess.TaskStatusCounters;
 import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.dataaccess.UserRepository;
+import com.taskapp.dataaccess.VersionConflictException;
 import com.taskapp.exception.AppException;
 import com.taskapp.model.Log;
 import com.taskapp.model.Task;
 import com.taskapp.model.User;
 
 public class TaskLogic {
-    private final TaskDataAccess taskDataAccess; // タスクデータへのアクセスを管理するオブジェクト
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16; // タスク一覧をSystem.outに書き出す単位（文字数）
 
-    private final LogDataAccess logDataAccess; // ログデータへのアクセスを管理するオブジェクト
+    private final TaskRepository taskDataAccess; // タスクデータへのアクセスを管理するオブジェクト
 
-    private final UserDataAccess userDataAccess; // ユーザーデータへのアクセスを管理するオブジェクト
+    private final LogRepository logDataAccess; // ログデータへのアクセスを管理するオブジェクト
 
-    public TaskLogic() { // デフォルトコンストラクタ
-        taskDataAccess = new TaskDataAccess(); // TaskDataAccessオブジェクトを初期化
+    private final UserRepository userDataAccess; // ユーザーデータへのアクセスを管理するオブジェクト
 
-        logDataAccess = new LogDataAccess(); // LogDataAccessオブジェクトを初期化
+    private final StripedLocks locks; // tasks.csvに対する操作の排他制御に使うロック
 
-        userDataAccess = new UserDataAccess(); // UserDataAccessオブジェクトを初期化
+    private final TaskStatusCounters counters; // 担当ユーザーとステータスごとのタスク数
+
+    private final TaskJournal journal; // tasks.csvとlogs.csvにまたがる操作の記録（無効な場合はnull）
+
+    public TaskLogic() { // デフォルトコンストラクタ（保存方式は-Dtaskapp.engineで選ぶ）
+        this(Repositories.tasks(), Repositories.logs(), Repositories.users());
     }
 
     // 他のコンポーネントを外部から受け取るコンストラクタ
     public TaskLogic(TaskDataAccess taskDataAccess, LogDataAccess logDataAccess, UserDataAccess userDataAccess) {
-        this.taskDataAccess = taskDataAccess; // 渡されたTaskDataAccessをフィールドに設定
+        this((TaskRepository) taskDataAccess, (LogRepository) logDataAccess, (UserRepository) userDataAccess);
+    }
+
+    // 保存方式を問わずにリポジトリを外部から受け取るコンストラクタ
+    public TaskLogic(TaskRepository taskDataAccess, LogRepository logDataAccess, UserRepository userDataAccess) {
+        this.taskDataAccess = taskDataAccess; // 渡されたTaskRepositoryをフィールドに設定
+
+        this.logDataAccess = logDataAccess; // 渡されたLogRepositoryをフィールドに設定
+
+        this.userDataAccess = userDataAccess; // 渡されたUserRepositoryをフィールドに設定
+
+        this.locks = locksOf(taskDataAccess); // 同じ保存先を扱う他のインスタンスとロックを共有
+
+        this.counters = countersOf(taskDataAccess); // 同じ保存先を扱う他のインスタンスと集計値を共有
+
+        this.journal = taskDataAccess.getJournal(); // 前回の起動で完了しなかった操作をやり直す
+        recover();
+    }
 
-        this.logDataAccess = logDataAccess; // 渡されたLogDataAccessをフィールドに設定
+    /**
+     * TaskRepositoryが扱う保存先のロックを返します。
+     * ロックを持たないTaskRepository（テスト用のモックなど）の場合は、このインスタンス専用のロックを作成します。
+     */
+    private static StripedLocks locksOf(TaskRepository taskDataAccess) {
+        StripedLocks locks = taskDataAccess.getLocks();
+        return locks != null ? locks : new StripedLocks();
+    }
 
-        this.userDataAccess = userDataAccess; // 渡されたUserDataAccessをフィールドに設定
+    /**
+     * TaskRepositoryが扱う保存先の集計値を返します。
+     * 集計値を持たないTaskRepository（テスト用のモックなど）の場合は、このインスタンス専用の空の集計値を作成します。
+     */
+    private static TaskStatusCounters countersOf(TaskRepository taskDataAccess) {
+        TaskStatusCounters counters = taskDataAccess.getStatusCounters();
+        return counters != null ? counters : new TaskStatusCounters();
+    }
+
+    /**
+     * ジャーナルが有効な場合、前回の起動で完了しなかった操作をやり直します。
+     * 同じファイルのジャーナルを共有するインスタンスのうち、最初に作成したインスタンスだけがやり直します。
+     * 途中まで適用済みの操作は、タスクの有無とバージョン、記録した位置以降のログの有無で確認し、残りの部分だけを適用します。
+     */
+    private void recover() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            int count = journal.recover(this::redo);
+            if (count > 0) {
+                System.out.println("前回完了しなかった" + count + "件の操作をやり直しました。");
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * ジャーナルに記録された1件の操作をやり直します。
+     *
+     * @param entry やり直す操作
+     * @throws IOException ファイルの読み書きに失敗した場合
+     */
+    private void redo(TaskJournal.Entry entry) throws IOException {
+        switch (entry.getOp()) {
+            case TaskJournal.SAVE -> {
+                int code = entry.getInt(0);
+                Log log = new Log(code, entry.getInt(2), 0, entry.getDate(3));
+                if (!taskDataAccess.existsByCode(code)) {
+                    User repUser = userDataAccess.findByCode(entry.getInt(1));
+                    if (repUser == null) {
+                        return; // 担当者が削除されている
+                    }
+                    taskDataAccess.save(new Task(code, entry.getRest(5), 0, repUser));
+                }
+                redoLog(entry.getLong(4), log);
+            }
+            case TaskJournal.STATUS -> {
+                int version = entry.getInt(1);
+                int status = entry.getInt(2);
+                Task task = taskDataAccess.findByCode(entry.getInt(0));
+                if (task == null) {
+                    return; // 後から削除されている
+                }
+                if (task.getVersion() == version) { // まだ更新されていない
+                    task.setStatus(status);
+                    taskDataAccess.update(task);
+                } else if (task.getVersion() != version + 1 || task.getStatus() != status) {
+                    return; // この操作による更新ではない
+                }
+                redoLog(entry.getLong(5), new Log(task.getCode(), entry.getInt(3), status, entry.getDate(4)));
+            }
+            case TaskJournal.DELETE -> {
+                List<Integer> codes = entry.getCodes(0);
+                List<Integer> remaining = new ArrayList<>();
+                for (int code : codes) {
+                    if (taskDataAccess.existsByCode(code)) {
+                        remaining.add(code);
+                    }
+                }
+                if (!remaining.isEmpty()) {
+                    taskDataAccess.deleteAll(remaining);
+                }
+                logDataAccess.deleteByTaskCodes(codes); // 残っているログがなければ何も変わらない
+            }
+            case TaskJournal.IMPORT -> {
+                int changeUserCode = entry.getInt(0);
+                LocalDate changeDate = entry.getDate(1);
+                String[] values = entry.getRest(3).split(","); // タスク名はカンマを含まない
+                List<Task> missing = new ArrayList<>();
+                List<Log> logs = new ArrayList<>();
+                for (int i = 0; i + 3 < values.length; i += 4) {
+                    int code = Integer.parseInt(values[i]);
+                    int status = Integer.parseInt(values[i + 1]);
+                    if (!taskDataAccess.existsByCode(code)) {
+                        User repUser = userDataAccess.findByCode(Integer.parseInt(values[i + 2]));
+                        if (repUser == null) {
+                            continue; // 担当者が削除されている
+                        }
+                        missing.add(new Task(code, values[i + 3], status, repUser));
+                    }
+                    logs.add(new Log(code, changeUserCode, status, changeDate));
+                }
+                if (!missing.isEmpty()) {
+                    taskDataAccess.saveAll(missing);
+                }
+                redoLogs(entry.getLong(2), logs);
+            }
+            default -> throw new IOException("不明な操作です: " + entry.getOp());
+        }
+    }
+
+    /**
+     * 記録した位置以降に同じログが保存されていなければ保存します。
+     */
+    private void redoLog(long position, Log log) throws IOException {
+        if (!logDataAccess.containsSince(position, log)) {
+            logDataAccess.save(log);
+        }
+    }
+
+    /**
+     * 記録した位置以降に保存されていないログをまとめて保存します。
+     * まとめて保存したログは先頭から順に書き込まれるため、保存済みのログは先頭から連続しています。
+     * 保存済みの件数を二分探索で求め、ファイルの確認を件数の対数回に抑えます。
+     */
+    private void redoLogs(long position, List<Log> logs) throws IOException {
+        int saved = 0;
+        int unsaved = logs.size(); // saved件目より前は保存済み、unsaved件目以降は未保存
+        while (saved < unsaved) {
+            int middle = (saved + unsaved) >>> 1;
+            if (logDataAccess.containsSince(position, logs.get(middle))) {
+                saved = middle + 1;
+            } else {
+                unsaved = middle;
+            }
+        }
+        if (saved < logs.size()) {
+            logDataAccess.saveAll(logs.subList(saved, logs.size()));
+        }
+    }
+
+    /**
+     * ジャーナルが有効な場合、操作を適用する前に記録します。
+     *
+     * @param op     操作の種類
+     * @param fields 操作をやり直すのに必要な値
+     * @return 操作の番号（ジャーナルが無効な場合は-1）
+     * @throws AppException ジャーナルへの書き込みに失敗した場合にスローされます（操作は適用しません）
+     */
+    private long beginJournal(String op, Object... fields) throws AppException {
+        if (journal == null) {
+            return -1;
+        }
+        try {
+            return journal.begin(op, fields);
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new AppException("操作の記録に失敗しました");
+        }
+    }
+
+    /**
+     * ジャーナルが有効な場合、ログを保存するファイルの現在の終端の位置を返します。
+     * やり直すときに、この位置以降を読んでログが保存済みかを確認します。
+     *
+     * @param log 保存するログ
+     * @return ログのファイルの位置（ジャーナルが無効な場合は-1）
+     * @throws AppException ログのファイルの読み込みに失敗した場合にスローされます
+     */
+    private long logPosition(Log log) throws AppException {
+        if (journal == null) {
+            return -1;
+        }
+        try {
+            return logDataAccess.endPosition(log);
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new AppException("操作の記録に失敗しました");
+        }
+    }
+
+    /**
+     * ジャーナルが有効な場合、操作の完了を記録します。
+     *
+     * @param seq {@link #beginJournal(String, Object...)}が返した操作の番号
+     */
+    private void commitJournal(long seq) {
+        if (seq < 0) {
+            return;
+        }
+        try {
+            journal.commit(seq);
+        } catch (IOException e) {
+            // 完了を記録できなくても、次回の起動時のやり直しで適用済みの部分は飛ばされる
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 担当ユーザーとステータスの組ごとのタスク数を返します。タスクのファイルは読み込みません。
+     *
+     * @see com.taskapp.dataaccess.TaskStatusCounters#countsByUser()
+     * @return 担当ユーザーコードの順に並べた、ステータス（未着手・着手中・完了）ごとのタスク数
+     */
+    public SortedMap<Integer, int[]> countByRepUser() {
+        return counters.countsByUser();
+    }
+
+    /**
+     * タスクのファイルから担当ユーザーとステータスの組ごとのタスク数を数え直し、保存されている集計値を置き換えます。
+     * 他のツールでタスクのファイルを直接編集した場合などに使います。
+     *
+     * @see com.taskapp.dataaccess.TaskStatusCounters#rebuild()
+     * @return 数え直した、担当ユーザーコードの順に並べたステータスごとのタスク数
+     */
+    public SortedMap<Integer, int[]> recountByRepUser() {
+        counters.rebuild();
+        return counters.countsByUser();
     }
 
     /**
      * 全てのタスクを表示します。
+     * 1行ずつSystem.outに書き込まず、バッファにまとめてから一定の文字数ごとに書き出します。
      * 設問2追加
      * @see com.taskapp.dataaccess.TaskDataAccess#findAll()
      * @param loginUser ログインユーザー
@@ -45,36 +307,98 @@ public class TaskLogic {
         List<Task> tasks = taskDataAccess.findAll(); // 表示するタスクの番号を管理する変数
         int index = 1;
 
+        StringBuilder buffer = new StringBuilder(OUTPUT_BUFFER_SIZE); // 一覧の出力バッファ
+        Formatter out = new Formatter(buffer);
         // 取得したタスクを1件ずつ処理する
         for (Task task : tasks) {
-            // タスクのステータスを文字列に変換する
-            String taskStatus = switch (task.getStatus()) {
-                case 0 -> "未着手";
-                // ステータスが0の場合は"未着手"
-                case 1 -> "着手中";
-                // ステータスが1の場合は"着手中"
-                case 2 -> "完了";
-                // ステータスが2の場合は"完了"
-                default -> "不明";
-                // ステータスがそれ以外の場合は"不明"
-            };
+            printTask(out, index++, task, loginUser);
+            if (buffer.length() >= OUTPUT_BUFFER_SIZE) {
+                flush(buffer);
+            }
+        }
+        flush(buffer);
+    }
 
-            // タスクの担当者がログインユーザーかどうかを判定
-            String assignee = task.getRepUser().equals(loginUser)
-                    ? "あなたが担当しています"
-                    // ログインユーザーが担当者の場合
-                    : task.getRepUser().getName();
-                    // それ以外の場合は担当者の名前を取得
+    /**
+     * 指定した位置から1ページ分のタスクを表示します。
+     * ファイルから1ページ分だけを読み込むため、最初の行が表示されるまでの時間はタスクの総数に関係なく一定です。
+     * @see com.taskapp.dataaccess.TaskDataAccess#findPage(long, int)
+     * @param loginUser   ログインユーザー
+     * @param offset      読み込み開始位置（最初のページは0、以降は前のページの{@link TaskPage#getNextOffset()}）
+     * @param pageSize    1ページの件数
+     * @param firstNumber ページの最初のタスクに付ける番号
+     * @return 表示したページ（次のページの開始位置を含む）
+     */
+    public TaskPage showPage(User loginUser, long offset, int pageSize, int firstNumber) {
+        TaskPage page = findPage(offset, pageSize);
+        int index = firstNumber;
 
-            // タスク情報をフォーマットしてコンソールに出力する
-            System.out.printf("%d. タスク名：%s, 担当者名：%s, ステータス：%s%n",
-                    index++, task.getName(), assignee, taskStatus);
+        StringBuilder buffer = new StringBuilder(); // 1ページ分をまとめて書き出す
+        Formatter out = new Formatter(buffer);
+        for (Task task : page.getTasks()) {
+            printTask(out, index++, task, loginUser);
         }
+        flush(buffer);
+        return page;
+    }
+
+    /**
+     * 指定した位置から1ページ分のタスクを取得します。
+     * @see com.taskapp.dataaccess.TaskDataAccess#findPage(long, int)
+     * @param offset   読み込み開始位置（最初のページは0）
+     * @param pageSize 1ページの件数
+     * @return 1ページ分のタスクと次のページの開始位置
+     */
+    public TaskPage findPage(long offset, int pageSize) {
+        return taskDataAccess.findPage(offset, pageSize);
+    }
+
+    /**
+     * 出力バッファの内容をSystem.outに書き出して空にします。
+     * @param buffer 出力バッファ
+     */
+    private static void flush(StringBuilder buffer) {
+        System.out.print(buffer);
+        System.out.flush();
+        buffer.setLength(0);
+    }
+
+    /**
+     * タスク一覧の1行を出力します。
+     * @param out       出力先
+     * @param index     表示するタスクの番号
+     * @param task      表示するタスク
+     * @param loginUser ログインユーザー
+     */
+    private static void printTask(Formatter out, int index, Task task, User loginUser) {
+        // タスクのステータスを文字列に変換する
+        String taskStatus = switch (task.getStatus()) {
+            case 0 -> "未着手";
+            // ステータスが0の場合は"未着手"
+            case 1 -> "着手中";
+            // ステータスが1の場合は"着手中"
+            case 2 -> "完了";
+            // ステータスが2の場合は"完了"
+            default -> "不明";
+            // ステータスがそれ以外の場合は"不明"
+        };
+
+        // タスクの担当者がログインユーザーかどうかを判定
+        String assignee = task.getRepUser().equals(loginUser)
+                ? "あなたが担当しています"
+                // ログインユーザーが担当者の場合
+                : task.getRepUser().getName();
+                // それ以外の場合は担当者の名前を取得
+
+        // タスク情報をフォーマットして出力する
+        out.format("%d. タスク名：%s, 担当者名：%s, ステータス：%s%n",
+                index, task.getName(), assignee, taskStatus);
     }
 
     /**
      * 新しいタスクを保存します。
      *
+     * @see com.taskapp.dataaccess.TaskDataAccess#existsByCode(int)
      * @see com.taskapp.dataaccess.UserDataAccess#findByCode(int)
      * @see com.taskapp.dataaccess.TaskDataAccess#save(com.taskapp.model.Task)
      * @see com.taskapp.dataaccess.LogDataAccess#save(com.taskapp.model.Log)
@@ -82,29 +406,129 @@ public class TaskLogic {
      * @param name        タスク名
      * @param repUserCode 担当ユーザーコード
      * @param loginUser   ログインユーザー
-     * @throws AppException ユーザーコードが存在しない場合にスローされます
+     * @throws AppException タスクコードが登録済み、ユーザーコードが存在しない、
+     *                      またはタスク名にカンマか改行を含む場合にスローされます
      */
     public void save(int code, String name, int repUserCode, User loginUser) throws AppException {
-        // 担当者のユーザーが存在するか確認
-        User repUser = userDataAccess.findByCode(repUserCode);
-        if (repUser == null) {
-            // ユーザーが見つからない場合例外をスロー
-            throw new AppException("存在するユーザーコードを入力してください");
+        // tasks.csvとジャーナルの行を壊さないよう、区切りのカンマと改行を含む名前は保存しない
+        checkName(name);
+
+        TaskStatusCounters.Change change = counters.begin(); // ロックを取得する前に開始する
+        // 同じタスクコードの登録が同時に行われないよう、確認から保存までタスクコードのロックを保持する
+        Lock shared = locks.fileLock().readLock();
+        Lock stripe = locks.stripe(code);
+        shared.lock();
+        stripe.lock();
+        try {
+            // 同じタスクコードのタスクが登録済みでないか確認
+            if (taskDataAccess.existsByCode(code)) {
+                throw new AppException("登録されていないタスクコードを入力してください");
+            }
+
+            // 担当者のユーザーが存在するか確認
+            User repUser = userDataAccess.findByCode(repUserCode);
+            if (repUser == null) {
+                // ユーザーが見つからない場合例外をスロー
+                throw new AppException("存在するユーザーコードを入力してください");
+            }
+
+            // 新しいタスクとログの作成
+            Task task = new Task(code, name, 0, repUser);
+            Log log = new Log(code, loginUser.getCode(), 0, LocalDate.now());
+
+            // 2つのファイルに書き込む前に操作を記録する
+            long seq = beginJournal(TaskJournal.SAVE, code, repUserCode, log.getChangeUserCode(), log.getChangeDate(),
+                    logPosition(log), name);
+
+            // タスクデータを保存
+            taskDataAccess.save(task);
+            change.add(repUserCode, 0);
+
+            // ログデータを保存
+            logDataAccess.save(log);
+            commitJournal(seq);
+        } finally {
+            stripe.unlock();
+            shared.unlock();
+            change.close();
         }
+    }
 
-        // 新しいタスクの作成
-        Task task = new Task(code, name, 0, repUser);
+    /**
+     * 一括登録の1回分のタスクと初期ログを保存します。ImportLogicから呼び出します。
+     * 保存中は他の操作を止め、タスクコードが登録済みでないかを改めて確認してから、
+     * {@link #save(int, String, int, User)}と同じくジャーナルに記録し、タスク、ログの順に書き込みます。
+     *
+     * @see com.taskapp.dataaccess.TaskDataAccess#saveAll(List)
+     * @see com.taskapp.dataaccess.LogDataAccess#saveAll(List)
+     * @param tasks 登録するタスク
+     * @param logs  タスクと同じ順の初期ログ（変更したユーザーと変更日は全て同じであること）
+     * @return 既に登録されていたため保存しなかったタスクコード
+     * @throws AppException ジャーナルへの書き込みに失敗した場合にスローされます（何も保存しません）
+     */
+    Set<Integer> saveImported(List<Task> tasks, List<Log> logs) throws AppException {
+        Set<Integer> skipped = new HashSet<>();
+        if (tasks.isEmpty()) {
+            return skipped;
+        }
+        TaskStatusCounters.Change change = counters.begin(); // ロックを取得する前に開始する
+        // 読み込んだ時点から登録された同じタスクコードと重ならないよう、確認から保存まで他の操作を止める
+        Lock exclusive = locks.fileLock().writeLock();
+        exclusive.lock();
+        try {
+            List<Task> targets = new ArrayList<>(tasks.size());
+            List<Log> targetLogs = new ArrayList<>(logs.size());
+            List<Object> fields = new ArrayList<>();
+            for (int i = 0; i < tasks.size(); i++) {
+                Task task = tasks.get(i);
+                if (taskDataAccess.existsByCode(task.getCode())) {
+                    skipped.add(task.getCode());
+                    continue;
+                }
+                targets.add(task);
+                targetLogs.add(logs.get(i));
+                Collections.addAll(fields, task.getCode(), task.getStatus(), task.getRepUser().getCode(),
+                        task.getName());
+            }
+            if (targets.isEmpty()) {
+                return skipped;
+            }
 
-        // タスクデータを保存
-        taskDataAccess.save(task);
+            // 2つのファイルに書き込む前に操作を記録する
+            Log first = targetLogs.get(0);
+            fields.addAll(0, List.of(first.getChangeUserCode(), first.getChangeDate(), logPosition(first)));
+            long seq = beginJournal(TaskJournal.IMPORT, fields.toArray());
+
+            taskDataAccess.saveAll(targets); // タスクを先に書き込み、ログだけが残る状態を作らない
+            for (Task task : targets) {
+                change.add(task.getRepUser().getCode(), task.getStatus());
+            }
+            logDataAccess.saveAll(targetLogs);
+            commitJournal(seq);
+            return skipped;
+        } finally {
+            exclusive.unlock();
+            change.close();
+        }
+    }
 
-        // ログデータの作成
-        Log log = new Log(code, loginUser.getCode(), 0, LocalDate.now());
-        logDataAccess.save(log);
+    /**
+     * タスク名がtasks.csvの区切りのカンマと改行を含まないことを確認します。
+     * 画面、HTTP API、一括登録で同じ確認を行うため、ImportLogicからも呼び出します。
+     *
+     * @param name タスク名
+     * @throws AppException タスク名にカンマか改行を含む場合にスローされます
+     */
+    static void checkName(String name) throws AppException {
+        if (name.indexOf(',') >= 0 || name.indexOf('\r') >= 0 || name.indexOf('\n') >= 0) {
+            throw new AppException("タスク名にカンマと改行は使えません");
+        }
     }
 
     /**
      * タスクのステータスを変更します。
+     * 読み込んだ時点のバージョンを条件に更新するため、読み込みから更新までロックを保持しません。
+     * 同じタスクが先に他の操作で更新または削除されていた場合は、やり直し可能なAppExceptionをスローします。
      *
      * @see com.taskapp.dataaccess.TaskDataAccess#findByCode(int)
      * @see com.taskapp.dataaccess.TaskDataAccess#update(com.taskapp.model.Task)
@@ -112,31 +536,94 @@ public class TaskLogic {
      * @param code      タスクコード
      * @param status    新しいステータス
      * @param loginUser ログインユーザー
-     * @throws AppException タスクコードが存在しない、またはステータスが前のステータスより1つ先でない場合にスローされます
+     * @throws AppException タスクコードが存在しない、ステータスが前のステータスより1つ先でない、
+     *                      または読み込んだ後に他の操作でタスクが変更された（{@link AppException#isRetryable()}がtrue）場合にスローされます
      */
     public void changeStatus(int code, int status, User loginUser) throws AppException {
-    //タスクを検索
-    Task task = taskDataAccess.findByCode(code);
-    if (task == null) {
-        throw new AppException("存在するタスクコードを入力してください");
+        //タスクを検索
+        Task task = taskDataAccess.findByCode(code);
+        if (task == null) {
+            throw new AppException("存在するタスクコードを入力してください");
+        }
+
+        // 現在のステータスが変更後のステータスの1つ前であることを確認
+        if ((task.getStatus() == 0 && status != 1) || (task.getStatus() == 1 && status != 2)) {
+            throw new AppException("ステータスは、前のステータスより1つ先のもののみを選択してください");
+        }
+
+        int previous = task.getStatus();
+        TaskStatusCounters.Change change = counters.begin(); // ロックを取得する前に開始する
+        // 更新とログの記録の間にタスクが削除されないよう、ファイル全体の読み込みロックだけを保持する
+        Lock shared = locks.fileLock().readLock();
+        shared.lock();
+        try {
+            // 2つのファイルに書き込む前に操作を記録する
+            Log log = new Log(task.getCode(), loginUser.getCode(), status, LocalDate.now());
+            long seq = beginJournal(TaskJournal.STATUS, task.getCode(), task.getVersion(), status,
+                    log.getChangeUserCode(), log.getChangeDate(), logPosition(log));
+
+            // ステータスの更新（読み込んだ時点のバージョンから変わっていない場合のみ）
+            task.setStatus(status);
+            try {
+                taskDataAccess.update(task);
+            } catch (VersionConflictException e) {
+                commitJournal(seq); // 何も書き込んでいないため、やり直さない
+                throw new AppException("他のユーザーがタスクを更新しました。もう一度やり直してください", true);
+            }
+            change.move(task.getRepUser().getCode(), previous, status);
+
+            // ログの記録
+            logDataAccess.save(log);
+            commitJournal(seq);
+        } finally {
+            shared.unlock();
+            change.close();
+        }
     }
 
-    // 現在のステータスが変更後のステータスの1つ前であることを確認
-    if ((task.getStatus() == 0 && status != 1) || (task.getStatus() == 1 && status != 2)) {
-        throw new AppException("ステータスは、前のステータスより1つ先のもののみを選択してください");
+    /**
+     * 同じタスクコードで重複して登録されたタスクの行を取り除き、タスクコードごとに1行だけを残します。
+     *
+     * @see com.taskapp.dataaccess.TaskDataAccess#dedupe()
+     * @return 取り除いた行数
+     */
+    public int dedupe() {
+        return taskDataAccess.dedupe();
     }
 
-    // ステータスの更新
-    task.setStatus(status);
-    taskDataAccess.update(task);
+    /**
+     * 変更日が期間に含まれるログを、タスクコードと変更したユーザーコードで絞り込んで取得します。
+     *
+     * @see com.taskapp.dataaccess.LogDataAccess#find(LocalDate, LocalDate, Integer, Integer)
+     * @param from           期間の初日
+     * @param to             期間の最終日（この日を含む）
+     * @param taskCode       タスクコード（nullの場合は絞り込まない）
+     * @param changeUserCode 変更したユーザーコード（nullの場合は絞り込まない）
+     * @return 条件に合うログのリスト
+     * @throws AppException 期間の初日が最終日より後の場合にスローされます
+     */
+    public List<Log> findLogs(LocalDate from, LocalDate to, Integer taskCode, Integer changeUserCode)
+            throws AppException {
+        if (from.isAfter(to)) {
+            throw new AppException("期間の初日には最終日以前の日付を入力してください");
+        }
+        return logDataAccess.find(from, to, taskCode, changeUserCode);
+    }
 
-    // ログの記録
-    Log log = new Log(task.getCode(), loginUser.getCode(), status, LocalDate.now());
-    logDataAccess.save(log);
-}
+    /**
+     * ログを集計し、タスクごとのステータスの推移、ユーザーごとの処理量とサイクルタイム、日ごとの件数を返します。
+     *
+     * @see com.taskapp.dataaccess.LogDataAccess#analyze()
+     * @return 集計結果
+     */
+    public LogReport analyzeLogs() {
+        return logDataAccess.analyze();
+    }
 
     /**
      * タスクを削除します。
+     * タスク、ログの順にそれぞれのファイルを1回の書き換えで削除します（各ファイルは一時ファイルに書き出してから置き換えます）。
+     * ジャーナルが有効な場合、タスクの削除後にログを削除できずに終了しても、次回の起動時のやり直しでログを削除します。
      *
      * @see com.taskapp.dataaccess.TaskDataAccess#findByCode(int)
      * @see com.taskapp.dataaccess.TaskDataAccess#delete(int)
@@ -144,6 +631,149 @@ public class TaskLogic {
      * @param code タスクコード
      * @throws AppException タスクコードが存在しない、またはタスクのステータスが完了でない場合にスローされます
      */
-    // public void delete(int code) throws AppException {
-    // }
-}
\ No newline at end of file
+    public void delete(int code) throws AppException {
+        TaskStatusCounters.Change change = counters.begin(); // ロックを取得する前に開始する
+        // ファイル全体を書き換えるため、確認から削除まで他の操作を止める
+        Lock exclusive = locks.fileLock().writeLock();
+        exclusive.lock();
+        try {
+            // タスクを検索
+            Task task = taskDataAccess.findByCode(code);
+            if (task == null) {
+                throw new AppException("存在するタスクコードを入力してください");
+            }
+
+            // 完了したタスクのみ削除できる
+            if (task.getStatus() != 2) {
+                throw new AppException("ステータスが完了のタスクを選択してください");
+            }
+
+            // 2つのファイルを書き換える前に操作を記録する
+            long seq = beginJournal(TaskJournal.DELETE, code);
+
+            // タスクを削除
+            taskDataAccess.delete(code);
+            change.remove(task.getRepUser().getCode(), task.getStatus());
+
+            // 関連するログを削除
+            logDataAccess.deleteByTaskCode(code);
+            commitJournal(seq);
+
+            System.out.println(task.getName() + "の削除が完了しました。");
+        } finally {
+            exclusive.unlock();
+            change.close();
+        }
+    }
+
+    /**
+     * 複数のタスクと関連するログをまとめて削除します。
+     * tasks.csvとlogs.csvをそれぞれ1回だけ読み、両方の書き換えを一時ファイルに準備できた場合のみ置き換えるため、
+     * 準備の途中で失敗した場合はどちらのファイルも変更されません。
+     *
+     * @see com.taskapp.dataaccess.TaskDataAccess#prepareDelete(java.util.Collection)
+     * @see com.taskapp.dataaccess.LogDataAccess#prepareDeleteByTaskCodes(java.util.Collection)
+     * @param codes 削除するタスクコード
+     * @throws AppException タスクコードが存在しない、ステータスが完了でないタスクを含む、またはファイルの書き換えに失敗した場合にスローされます
+     */
+    public void deleteAll(Collection<Integer> codes) throws AppException {
+        TaskStatusCounters.Change change = counters.begin(); // ロックを取得する前に開始する
+        Lock exclusive = locks.fileLock().writeLock(); // 確認から削除まで他の操作を止める
+        exclusive.lock();
+        try {
+            // 全てのタスクを1回だけ読み込んで確認する
+            Map<Integer, Task> tasks = new HashMap<>();
+            for (Task task : taskDataAccess.findAll()) {
+                tasks.put(task.getCode(), task);
+            }
+            Map<Integer, Task> targets = new LinkedHashMap<>();
+            for (int code : codes) {
+                Task task = tasks.get(code);
+                if (task == null) {
+                    throw new AppException("存在するタスクコードを入力してください");
+                }
+                if (task.getStatus() != 2) {
+                    throw new AppException("ステータスが完了のタスクを選択してください");
+                }
+                targets.put(code, task);
+            }
+            removeAll(targets, change);
+        } finally {
+            exclusive.unlock();
+            change.close();
+        }
+    }
+
+    /**
+     * ステータスが完了のタスクと関連するログを全て削除します。
+     *
+     * @see #deleteAll(Collection)
+     * @return 削除したタスクの件数
+     * @throws AppException ファイルの書き換えに失敗した場合にスローされます
+     */
+    public int deleteCompleted() throws AppException {
+        TaskStatusCounters.Change change = counters.begin(); // ロックを取得する前に開始する
+        Lock exclusive = locks.fileLock().writeLock(); // 確認から削除まで他の操作を止める
+        exclusive.lock();
+        try {
+            Map<Integer, Task> targets = new LinkedHashMap<>();
+            for (Task task : taskDataAccess.findAll()) {
+                if (task.getStatus() == 2) {
+                    targets.put(task.getCode(), task);
+                }
+            }
+            if (!targets.isEmpty()) {
+                removeAll(targets, change);
+            }
+            return targets.size();
+        } finally {
+            exclusive.unlock();
+            change.close();
+        }
+    }
+
+    /**
+     * tasks.csvとlogs.csvの書き換えを両方準備してから、ログ、タスクの順に確定します。
+     * ログの確定後にタスクの確定に失敗した場合は、ログのないタスクが残るだけで、存在しないタスクのログは残りません。
+     * ジャーナルが有効な場合、残ったタスクは次回の起動時のやり直しで削除します。
+     *
+     * @param targets 削除するタスクコードとタスク
+     * @param change  削除したタスクを反映する集計値の変更
+     * @throws AppException ファイルの書き換えに失敗した場合にスローされます
+     */
+    private void removeAll(Map<Integer, Task> targets, TaskStatusCounters.Change change) throws AppException {
+        FileRewrite tasks = null;
+        FileRewrite logs = null;
+        StringJoiner codes = new StringJoiner(";");
+        for (int code : targets.keySet()) {
+            codes.add(Integer.toString(code));
+        }
+        long seq = beginJournal(TaskJournal.DELETE, codes);
+        boolean logsCommitted = false;
+        try {
+            tasks = taskDataAccess.prepareDelete(targets.keySet());
+            logs = logDataAccess.prepareDeleteByTaskCodes(targets.keySet());
+            logs.commit();
+            logsCommitted = true;
+            tasks.commit();
+            for (Task task : targets.values()) {
+                change.remove(task.getRepUser().getCode(), task.getStatus());
+            }
+            commitJournal(seq);
+        } catch (IOException e) {
+            e.printStackTrace();
+            if (!logsCommitted) {
+                commitJournal(seq); // どちらのファイルも変更していないため、やり直さない
+            }
+            throw new AppException("タスクの削除に失敗しました");
+        } finally {
+            // 確定していない書き換えは破棄する（確定済みの場合は何もしない）
+            if (logs != null) {
+                logs.abort();
+            }
+            if (tasks != null) {
+                tasks.abort();
+            }
+        }
+    }
+}
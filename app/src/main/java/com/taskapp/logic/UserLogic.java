@@ -1,14 +1,16 @@
 package com.taskapp.logic;
 
+import com.taskapp.dataaccess.Repositories;
 import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.dataaccess.UserRepository;
 import com.taskapp.exception.AppException;
 import com.taskapp.model.User;
 
 public class UserLogic {
-    private final UserDataAccess userDataAccess;
+    private final UserRepository userDataAccess;
 
-    public UserLogic() {
-        userDataAccess = new UserDataAccess();
+    public UserLogic() { // 保存方式は-Dtaskapp.engineで選ぶ
+        userDataAccess = Repositories.users();
     }
 
     /**
@@ -19,6 +21,14 @@ public class UserLogic {
         this.userDataAccess = userDataAccess;
     }
 
+    /**
+     * 保存方式を問わずにリポジトリを外部から受け取るコンストラクタです。
+     * @param userRepository ユーザーのリポジトリ
+     */
+    public UserLogic(UserRepository userRepository) {
+        this.userDataAccess = userRepository;
+    }
+
     /**
      * ユーザーのログイン処理を行います。
      *
@@ -40,4 +50,20 @@ public class UserLogic {
         // 一致するユーザーが見つかった場合は、そのユーザーを返す
         return user;
     }
-}
\ No newline at end of file
+
+    /**
+     * ユーザーコードに対応するユーザーを取得します。
+     *
+     * @see com.taskapp.dataaccess.UserDataAccess#findByCode(int)
+     * @param code ユーザーコード
+     * @return ユーザーの情報
+     * @throws AppException ユーザーコードが存在しない場合にスローされます
+     */
+    public User findByCode(int code) throws AppException {
+        User user = userDataAccess.findByCode(code);
+        if (user == null) {
+            throw new AppException("存在するユーザーコードを入力してください");
+        }
+        return user;
+    }
+}
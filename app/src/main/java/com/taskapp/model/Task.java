@@ -5,12 +5,18 @@ public class Task {
     private String name;
     private int status;
     private User repUser;
+    private int version; // 更新のたびに1ずつ増えるバージョン（楽観的排他制御に使う）
 
     public Task(int code, String name, int status, User repUser) {
+        this(code, name, status, repUser, 0);
+    }
+
+    public Task(int code, String name, int status, User repUser, int version) {
         this.code = code;
         this.name = name;
         this.status = status;
         this.repUser = repUser;
+        this.version = version;
     }
 
     public int getCode() {
@@ -29,10 +35,18 @@ public class Task {
         return this.repUser;
     }
 
+    public int getVersion() {
+        return this.version;
+    }
+
     public void setStatus(int status) {
         this.status = status;
     }
 
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -0,0 +1,158 @@
+package com.taskapp.server;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * APIの要求と応答で使う、入れ子のないJSONオブジェクトを読み書きするクラスです。
+ * 要求の本文は {"email":"...","password":"..."} のように文字列・数値・真偽値・nullだけを値に持つオブジェクトに限ります。
+ */
+final class Json {
+    private final String text; // 解析するJSON
+    private int pos;           // 解析中の位置
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /**
+     * 入れ子のないJSONオブジェクトを解析します。
+     *
+     * @param text JSONの文字列
+     * @return 項目名と値（文字列以外の値は表記のまま、nullの場合はnull）のマップ
+     * @throws IllegalArgumentException JSONの形式が正しくない、または値にオブジェクトか配列を含む場合
+     */
+    static Map<String, String> parseObject(String text) {
+        Json json = new Json(text);
+        Map<String, String> values = new LinkedHashMap<>();
+        json.expect('{');
+        if (!json.consume('}')) {
+            do {
+                String name = json.string();
+                json.expect(':');
+                values.put(name, json.value());
+            } while (json.consume(','));
+            json.expect('}');
+        }
+        json.skipSpaces();
+        if (json.pos != text.length()) {
+            throw new IllegalArgumentException("JSONの後に余分な文字があります");
+        }
+        return values;
+    }
+
+    /**
+     * 文字列をJSONの文字列として書き込みます（前後の引用符を含む）。
+     *
+     * @param out   書き込み先
+     * @param value 書き込む文字列（nullの場合はnull）
+     * @return 書き込み先
+     */
+    static StringBuilder quote(StringBuilder out, String value) {
+        if (value == null) {
+            return out.append("null");
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) { // その他の制御文字
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        return out.append('"');
+    }
+
+    private String value() {
+        skipSpaces();
+        if (pos >= text.length()) {
+            throw new IllegalArgumentException("値がありません");
+        }
+        char c = text.charAt(pos);
+        if (c == '"') {
+            return string();
+        }
+        if (c == '{' || c == '[') {
+            throw new IllegalArgumentException("入れ子のオブジェクトと配列には対応していません");
+        }
+        int start = pos;
+        while (pos < text.length() && ",} \t\r\n".indexOf(text.charAt(pos)) < 0) {
+            pos++;
+        }
+        String literal = text.substring(start, pos);
+        if (literal.equals("null")) {
+            return null;
+        }
+        if (!literal.equals("true") && !literal.equals("false") && !literal.matches("-?\\d+(\\.\\d+)?([eE][+-]?\\d+)?")) {
+            throw new IllegalArgumentException("値の形式が正しくありません：" + literal);
+        }
+        return literal;
+    }
+
+    private String string() {
+        expect('"');
+        StringBuilder value = new StringBuilder();
+        while (pos < text.length()) {
+            char c = text.charAt(pos++);
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (pos >= text.length()) {
+                break;
+            }
+            char escaped = text.charAt(pos++);
+            switch (escaped) {
+                case '"', '\\', '/' -> value.append(escaped);
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'n' -> value.append('\n');
+                case 'r' -> value.append('\r');
+                case 't' -> value.append('\t');
+                case 'u' -> {
+                    if (pos + 4 > text.length()) {
+                        throw new IllegalArgumentException("\\uの後に4桁の16進数が必要です");
+                    }
+                    value.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                    pos += 4;
+                }
+                default -> throw new IllegalArgumentException("不正なエスケープです：\\" + escaped);
+            }
+        }
+        throw new IllegalArgumentException("文字列が閉じられていません");
+    }
+
+    private void expect(char c) {
+        if (!consume(c)) {
+            throw new IllegalArgumentException("'" + c + "'が必要です（" + pos + "文字目）");
+        }
+    }
+
+    private boolean consume(char c) {
+        skipSpaces();
+        if (pos < text.length() && text.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipSpaces() {
+        while (pos < text.length() && " \t\r\n".indexOf(text.charAt(pos)) >= 0) {
+            pos++;
+        }
+    }
+}
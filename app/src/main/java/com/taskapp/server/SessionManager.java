@@ -0,0 +1,229 @@
+package com.taskapp.server;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import com.taskapp.model.User;
+
+/**
+ * ログインしたユーザーにトークンを発行し、以降の要求をトークンだけで識別するためのセッションの管理です。
+ * トークンは推測できない乱数で、ユーザーの情報を含みません。要求ごとのユーザーの取得はマップの参照1回で済み、
+ * パスワードの照合を繰り返しません。
+ *
+ * <p>セッションは次のいずれかで失効します。
+ * <ul>
+ * <li>最後に使われてから-Dtaskapp.session.idleSeconds（既定は1800秒）が経過した</li>
+ * <li>発行から-Dtaskapp.session.maxSeconds（既定は28800秒）が経過した</li>
+ * <li>セッション数が-Dtaskapp.session.max（既定は100000件）に達したときに、最も古く発行された</li>
+ * </ul>
+ * 失効したセッションは参照されたとき、または発行時にまとめて取り除きます。
+ * 使われずに失効したセッションを探す全件の確認は上限に達したときだけ、待機時間の1/10に1回まで行います。
+ */
+public final class SessionManager {
+    private static final int TOKEN_BYTES = 32;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>(); // トークン → セッション
+    private final Queue<Session> issued = new ConcurrentLinkedQueue<>();     // 発行順のセッション（取り除き済みを含む）
+    private final int maxSessions;    // 保持するセッション数の上限
+    private final long idleNanos;     // 使われないまま失効するまでの時間
+    private final long absoluteNanos; // 発行から失効するまでの時間
+    private final LongSupplier clock; // 現在時刻（ナノ秒）
+    private final AtomicLong nextScan; // 次に全件を確認してよい時刻
+
+    private final AtomicInteger unlinked = new AtomicInteger(); // 取り除いたが発行順のキューに残っている可能性のある数
+
+    private final LongAdder hits = new LongAdder();      // 有効なトークンで識別できた回数
+    private final LongAdder misses = new LongAdder();    // 未発行・失効済みのトークンの回数
+    private final LongAdder evictions = new LongAdder(); // 期限切れまたは上限により取り除いたセッション数
+
+    /**
+     * システムプロパティの設定でセッションを管理します。
+     */
+    public SessionManager() {
+        this(Integer.getInteger("taskapp.session.max", 100_000),
+                TimeUnit.SECONDS.toNanos(Long.getLong("taskapp.session.idleSeconds", 1800)),
+                TimeUnit.SECONDS.toNanos(Long.getLong("taskapp.session.maxSeconds", 28800)), System::nanoTime);
+    }
+
+    /**
+     * 上限と有効期間、時刻を指定してセッションを管理します（テスト用）。
+     *
+     * @param maxSessions   保持するセッション数の上限
+     * @param idleNanos     使われないまま失効するまでの時間（ナノ秒）
+     * @param absoluteNanos 発行から失効するまでの時間（ナノ秒）
+     * @param clock         現在時刻（ナノ秒）
+     */
+    SessionManager(int maxSessions, long idleNanos, long absoluteNanos, LongSupplier clock) {
+        this.maxSessions = Math.max(1, maxSessions);
+        this.idleNanos = idleNanos;
+        this.absoluteNanos = absoluteNanos;
+        this.clock = clock;
+        this.nextScan = new AtomicLong(clock.getAsLong());
+    }
+
+    /**
+     * ユーザーのセッションを作成し、トークンを返します。
+     *
+     * @param user ログインしたユーザー
+     * @return 以降の要求で指定するトークン
+     */
+    public String create(User user) {
+        long now = clock.getAsLong();
+        evictExpired(now);
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        Session session = new Session(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes), user, now);
+        sessions.put(session.token, session);
+        issued.add(session);
+        while (sessions.size() > maxSessions) { // 上限を超えた分は古く発行されたものから取り除く
+            Session oldest = issued.poll();
+            if (oldest == null) {
+                break;
+            }
+            remove(oldest);
+        }
+        return session.token;
+    }
+
+    /**
+     * トークンのユーザーを返します。有効なトークンの場合は最終使用時刻を更新します。
+     *
+     * @param token トークン（nullの場合は見つからない扱い）
+     * @return ユーザー（未発行または失効している場合はnull）
+     */
+    public User find(String token) {
+        Session session = token != null ? sessions.get(token) : null;
+        if (session == null) {
+            misses.increment();
+            return null;
+        }
+        long now = clock.getAsLong();
+        if (session.isExpired(now)) {
+            remove(session);
+            misses.increment();
+            return null;
+        }
+        session.lastAccess = now;
+        hits.increment();
+        return session.user;
+    }
+
+    /**
+     * セッションを終了します（ログアウト）。
+     *
+     * @param token トークン
+     * @return セッションが存在した場合はtrue
+     */
+    public boolean invalidate(String token) {
+        Session session = token != null ? sessions.remove(token) : null;
+        if (session == null) {
+            return false;
+        }
+        markRemoved(session); // 発行順のキューからは先頭に来たとき、またはまとめて取り除く
+        return true;
+    }
+
+    /**
+     * 有効期間が過ぎたセッションを取り除きます。
+     * 発行から失効するものは発行順の先頭だけを確認し、使われずに失効するものは上限に達した場合だけ全件を確認します。
+     * 全件の確認は、上限に達したまま発行が続いても待機時間の1/10に1回までにします（その間は古いものから取り除きます）。
+     */
+    private void evictExpired(long now) {
+        Session head;
+        while ((head = issued.peek()) != null && (head.removed || now - head.created >= absoluteNanos)) {
+            issued.remove(head);
+            remove(head);
+        }
+        long scanAt = nextScan.get();
+        if (sessions.size() >= maxSessions && now - scanAt >= 0
+                && nextScan.compareAndSet(scanAt, now + Math.max(1, idleNanos / 10))) {
+            for (Session session : sessions.values()) {
+                if (session.isExpired(now)) {
+                    remove(session);
+                }
+            }
+        }
+    }
+
+    private void remove(Session session) {
+        if (sessions.remove(session.token, session)) {
+            evictions.increment();
+            markRemoved(session);
+        }
+    }
+
+    /**
+     * セッションを取り除き済みにします。
+     * 長く使われるセッションが先頭に残ると後ろの取り除き済みのものがキューにたまるため、
+     * 取り除いた数が上限に達するごとにキューからまとめて取り除き、キューの長さを上限の2倍程度に抑えます。
+     */
+    private void markRemoved(Session session) {
+        session.removed = true;
+        if (unlinked.incrementAndGet() >= maxSessions) {
+            unlinked.set(0);
+            issued.removeIf(s -> s.removed);
+        }
+    }
+
+    /**
+     * 保持しているセッション数を返します（失効していても取り除く前のものを含む）。
+     *
+     * @return セッション数
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * 発行順のキューに残っているセッション数を返します（テスト用）。
+     *
+     * @return キューの長さ
+     */
+    int queued() {
+        return issued.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * 1つのセッションです。
+     */
+    private final class Session {
+        private final String token;
+        private final User user;
+        private final long created;       // 発行時刻
+        private volatile long lastAccess; // 最終使用時刻
+        private volatile boolean removed; // 取り除き済み
+
+        Session(String token, User user, long created) {
+            this.token = token;
+            this.user = user;
+            this.created = created;
+            this.lastAccess = created;
+        }
+
+        boolean isExpired(long now) {
+            return now - lastAccess >= idleNanos || now - created >= absoluteNanos;
+        }
+    }
+}
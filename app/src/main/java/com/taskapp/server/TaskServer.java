@@ -0,0 +1,419 @@
+package com.taskapp.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.taskapp.dataaccess.TaskPage;
+import com.taskapp.exception.AppException;
+import com.taskapp.logic.TaskLogic;
+import com.taskapp.logic.UserLogic;
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * TaskLogicとUserLogicの操作をJSONのHTTP APIとして公開するサーバーです。
+ * JDK標準のHttpServerを使い、要求ごとに仮想スレッドで処理します。
+ *
+ * <p>APIは次のとおりです。ログイン以外の要求は、ログインで返されたトークンを「Authorization: Bearer トークン」ヘッダーに指定します。
+ * トークンは{@link SessionManager}で管理し、要求ごとにパスワードを照合し直すことはありません。
+ * <ul>
+ * <li>POST /login {"email","password"}：ログインしたユーザーのコードと名前、トークンを返す</li>
+ * <li>POST /logout：トークンを無効にする</li>
+ * <li>GET /tasks?offset=&amp;limit=：タスクを1ページ分返す（nextOffsetを次の要求のoffsetに指定する）</li>
+ * <li>GET /tasks/counts：担当ユーザーごとに、ステータス（未着手・着手中・完了）の順のタスク数を返す</li>
+ * <li>POST /tasks {"code","name","repUserCode"}：タスクを登録する</li>
+ * <li>POST /tasks/{code}/status {"status"}：タスクのステータスを変更する</li>
+ * <li>DELETE /tasks/{code}：完了したタスクを削除する</li>
+ * <li>GET /logs?from=&amp;to=&amp;taskCode=&amp;changeUserCode=：変更日がfromからtoまでのログを返す（taskCodeとchangeUserCodeは省略可能）</li>
+ * </ul>
+ * 入力の誤りやAppExceptionは400、トークンがない・無効な場合は401、他の要求と競合してやり直せる場合は409、
+ * その他の失敗は500で、{"error":"メッセージ"}を返します。
+ */
+public class TaskServer {
+    private static final String JSON_TYPE = "application/json; charset=UTF-8";
+
+    static {
+        // HttpServerは待機中の接続を200までしか保持せず、それを超えると接続を使い回すクライアントの要求が切断されるため、
+        // 指定がなければ同時に接続するクライアント数に合わせて増やす（HttpServerの最初の作成時に読み込まれる）
+        if (System.getProperty("sun.net.httpserver.maxIdleConnections") == null) {
+            System.setProperty("sun.net.httpserver.maxIdleConnections",
+                    Integer.toString(Integer.getInteger("taskapp.server.backlog", 1024)));
+        }
+    }
+
+    private final HttpServer server;        // 要求を受け付けるHTTPサーバー
+    private final ExecutorService executor; // 要求を処理する仮想スレッドのExecutor
+    private final UserLogic userLogic;      // ログインに使うロジック
+    private final TaskLogic taskLogic;      // タスクの操作に使うロジック
+    private final SessionManager sessions;  // ログイン後のトークンとユーザーの対応
+
+    // 接続待ちの上限数（-Dtaskapp.server.backlog=件数）
+    private final int backlog = Integer.getInteger("taskapp.server.backlog", 1024);
+    // GET /tasksでlimitを省略した場合の件数（-Dtaskapp.server.pageSize=件数）
+    private final int defaultPageSize = Integer.getInteger("taskapp.server.pageSize", 100);
+
+    /**
+     * 指定したポートで要求を受け付けるサーバーを作成します。{@link #start()}を呼び出すまで要求は処理しません。
+     *
+     * @param port      ポート番号（0の場合は空いているポートを使う）
+     * @param userLogic ユーザーのロジック
+     * @param taskLogic タスクのロジック
+     * @throws IOException ポートを開けない場合
+     */
+    public TaskServer(int port, UserLogic userLogic, TaskLogic taskLogic) throws IOException {
+        this(port, userLogic, taskLogic, new SessionManager());
+    }
+
+    /**
+     * セッションの管理を指定してサーバーを作成します。{@link #start()}を呼び出すまで要求は処理しません。
+     *
+     * @param port      ポート番号（0の場合は空いているポートを使う）
+     * @param userLogic ユーザーのロジック
+     * @param taskLogic タスクのロジック
+     * @param sessions  セッションの管理
+     * @throws IOException ポートを開けない場合
+     */
+    public TaskServer(int port, UserLogic userLogic, TaskLogic taskLogic, SessionManager sessions) throws IOException {
+        this.userLogic = userLogic;
+        this.taskLogic = taskLogic;
+        this.sessions = sessions;
+        server = HttpServer.create(new InetSocketAddress(port), backlog);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/login", exchange -> handle(exchange, this::login));
+        server.createContext("/logout", exchange -> handle(exchange, this::logout));
+        server.createContext("/tasks", exchange -> handle(exchange, this::tasks));
+        server.createContext("/logs", exchange -> handle(exchange, this::logs));
+    }
+
+    /**
+     * 要求の受け付けを開始します。
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * 要求の受け付けを終了します。処理中の要求は最大で指定した秒数まで完了を待ちます。
+     *
+     * @param delaySeconds 処理中の要求の完了を待つ秒数
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    /**
+     * 要求を受け付けているポート番号を返します。
+     *
+     * @return ポート番号
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private Response login(HttpExchange exchange) throws AppException {
+        requireMethod(exchange, "POST");
+        Map<String, String> body = readBody(exchange);
+        User user = userLogic.login(body.get("email"), body.get("password"));
+        StringBuilder json = new StringBuilder("{\"code\":").append(user.getCode()).append(",\"name\":");
+        Json.quote(json, user.getName()).append(",\"token\":");
+        return Response.ok(Json.quote(json, sessions.create(user)).append('}').toString());
+    }
+
+    private Response logout(HttpExchange exchange) {
+        requireMethod(exchange, "POST");
+        if (!sessions.invalidate(token(exchange))) {
+            throw new RequestException(401, "ログインしていないか、既にログアウトしています");
+        }
+        return Response.ok("{}");
+    }
+
+    private Response tasks(HttpExchange exchange) throws AppException {
+        // /tasks、/tasks/{code}、/tasks/{code}/statusに分ける
+        String[] path = exchange.getRequestURI().getPath().replaceAll("/+$", "").split("/");
+        if (path.length < 2 || !path[1].equals("tasks")) {
+            throw new RequestException(404, "指定されたURLは存在しません");
+        }
+        User loginUser = loginUser(exchange);
+        if (path.length == 2) {
+            if (exchange.getRequestMethod().equals("GET")) {
+                return listTasks(exchange);
+            }
+            requireMethod(exchange, "POST");
+            Map<String, String> body = readBody(exchange);
+            int code = intValue(body, "code");
+            String name = body.get("name");
+            if (name == null || name.isEmpty() || name.length() > 10) {
+                throw new AppException("タスク名は10文字以内で入力してください");
+            }
+            taskLogic.save(code, name, intValue(body, "repUserCode"), loginUser);
+            return new Response(201, "{\"code\":" + code + "}");
+        }
+        if (path.length == 3 && path[2].equals("counts")) {
+            requireMethod(exchange, "GET");
+            return countTasks();
+        }
+        int code = parseInt(path[2], "タスクコード");
+        if (path.length == 3) {
+            requireMethod(exchange, "DELETE");
+            taskLogic.deleteAll(List.of(code)); // 完了メッセージをコンソールに表示しない削除
+            return Response.ok("{\"code\":" + code + "}");
+        }
+        if (path.length == 4 && path[3].equals("status")) {
+            requireMethod(exchange, "POST");
+            int status = intValue(readBody(exchange), "status");
+            if (status != 1 && status != 2) {
+                throw new AppException("ステータスは1・2の中から選択してください");
+            }
+            taskLogic.changeStatus(code, status, loginUser);
+            return Response.ok("{\"code\":" + code + ",\"status\":" + status + "}");
+        }
+        throw new RequestException(404, "指定されたURLは存在しません");
+    }
+
+    private Response listTasks(HttpExchange exchange) {
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        long offset = query.containsKey("offset") ? parseLong(query.get("offset"), "offset") : 0;
+        int limit = query.containsKey("limit") ? parseInt(query.get("limit"), "limit") : defaultPageSize;
+        if (limit <= 0) {
+            throw new RequestException(400, "limitは1以上で指定してください");
+        }
+        TaskPage page = taskLogic.findPage(offset, limit);
+
+        StringBuilder json = new StringBuilder(64 + page.getTasks().size() * 96);
+        json.append("{\"tasks\":[");
+        for (int i = 0; i < page.getTasks().size(); i++) {
+            Task task = page.getTasks().get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"code\":").append(task.getCode()).append(",\"name\":");
+            Json.quote(json, task.getName()).append(",\"status\":").append(task.getStatus()).append(",\"repUser\":");
+            userJson(json, task.getRepUser()).append('}');
+        }
+        json.append("],\"nextOffset\":").append(page.hasNext() ? Long.toString(page.getNextOffset()) : "null");
+        return Response.ok(json.append('}').toString());
+    }
+
+    private Response countTasks() {
+        SortedMap<Integer, int[]> counts = taskLogic.countByRepUser();
+        StringBuilder json = new StringBuilder(16 + counts.size() * 48);
+        json.append("{\"counts\":[");
+        boolean first = true;
+        for (Map.Entry<Integer, int[]> entry : counts.entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append("{\"repUserCode\":").append(entry.getKey()).append(",\"statuses\":[");
+            int[] statuses = entry.getValue();
+            for (int status = 0; status < statuses.length; status++) {
+                if (status > 0) {
+                    json.append(',');
+                }
+                json.append(statuses[status]);
+            }
+            json.append("]}");
+        }
+        return Response.ok(json.append("]}").toString());
+    }
+
+    private Response logs(HttpExchange exchange) throws AppException {
+        if (!exchange.getRequestURI().getPath().replaceAll("/+$", "").equals("/logs")) {
+            throw new RequestException(404, "指定されたURLは存在しません");
+        }
+        loginUser(exchange);
+        requireMethod(exchange, "GET");
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+        Integer taskCode = query.containsKey("taskCode") ? parseInt(query.get("taskCode"), "taskCode") : null;
+        Integer changeUserCode = query.containsKey("changeUserCode")
+                ? parseInt(query.get("changeUserCode"), "changeUserCode") : null;
+        List<Log> logs = taskLogic.findLogs(dateValue(query, "from"), dateValue(query, "to"), taskCode, changeUserCode);
+
+        StringBuilder json = new StringBuilder(16 + logs.size() * 80);
+        json.append("{\"logs\":[");
+        for (int i = 0; i < logs.size(); i++) {
+            Log log = logs.get(i);
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"taskCode\":").append(log.getTaskCode()).append(",\"changeUserCode\":")
+                    .append(log.getChangeUserCode()).append(",\"status\":").append(log.getStatus())
+                    .append(",\"changeDate\":\"").append(log.getChangeDate()).append("\"}");
+        }
+        return Response.ok(json.append("]}").toString());
+    }
+
+    /**
+     * Authorizationヘッダーのトークンから要求したユーザーを取得します。
+     */
+    private User loginUser(HttpExchange exchange) {
+        String token = token(exchange);
+        if (token == null) {
+            throw new RequestException(401, "Authorizationヘッダーにログインで返されたトークンを指定してください");
+        }
+        User user = sessions.find(token);
+        if (user == null) {
+            throw new RequestException(401, "トークンが無効です。もう一度ログインしてください");
+        }
+        return user;
+    }
+
+    /**
+     * 「Authorization: Bearer トークン」ヘッダーのトークンを返します。
+     */
+    private static String token(HttpExchange exchange) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return null;
+        }
+        return authorization.substring("Bearer ".length()).trim();
+    }
+
+    /**
+     * 要求を処理して応答を返します。処理中の例外は対応するステータスコードのエラー応答に変換します。
+     */
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        Response response;
+        try {
+            response = handler.handle(exchange);
+        } catch (RequestException e) {
+            response = Response.error(e.status, e.getMessage());
+        } catch (AppException e) {
+            response = Response.error(e.isRetryable() ? 409 : 400, e.getMessage());
+        } catch (RuntimeException e) {
+            e.printStackTrace(); // 想定外の失敗はサーバー側に記録する
+            response = Response.error(500, "サーバーでエラーが発生しました");
+        }
+        try {
+            byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", JSON_TYPE);
+            exchange.sendResponseHeaders(response.status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static StringBuilder userJson(StringBuilder json, User user) {
+        json.append("{\"code\":").append(user.getCode()).append(",\"name\":");
+        return Json.quote(json, user.getName()).append('}');
+    }
+
+    private static void requireMethod(HttpExchange exchange, String method) {
+        if (!exchange.getRequestMethod().equals(method)) {
+            throw new RequestException(405, method + "で要求してください");
+        }
+    }
+
+    private static Map<String, String> readBody(HttpExchange exchange) {
+        try {
+            return Json.parseObject(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RequestException(400, "要求の本文を読み込めませんでした");
+        } catch (IllegalArgumentException e) {
+            throw new RequestException(400, "JSONの形式が正しくありません：" + e.getMessage());
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    private static int intValue(Map<String, String> body, String name) {
+        String value = body.get(name);
+        if (value == null) {
+            throw new RequestException(400, name + "を指定してください");
+        }
+        return parseInt(value, name);
+    }
+
+    private static int parseInt(String value, String name) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new RequestException(400, name + "は半角の数字で入力してください");
+        }
+    }
+
+    private static LocalDate dateValue(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null) {
+            throw new RequestException(400, name + "を指定してください");
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new RequestException(400, name + "はyyyy-MM-ddの形式で入力してください");
+        }
+    }
+
+    private static long parseLong(String value, String name) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new RequestException(400, name + "は半角の数字で入力してください");
+        }
+    }
+
+    /**
+     * 1つのURLに対する要求の処理です。
+     */
+    @FunctionalInterface
+    private interface Handler {
+        Response handle(HttpExchange exchange) throws AppException;
+    }
+
+    /**
+     * 要求に対する応答（ステータスコードとJSONの本文）です。
+     */
+    private record Response(int status, String body) {
+        static Response ok(String body) {
+            return new Response(200, body);
+        }
+
+        static Response error(int status, String message) {
+            return new Response(status, Json.quote(new StringBuilder("{\"error\":"), message).append('}').toString());
+        }
+    }
+
+    /**
+     * 要求の誤りを、返すステータスコードとともに表す例外です。
+     */
+    private static final class RequestException extends RuntimeException {
+        private final int status; // 応答のステータスコード
+
+        RequestException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -3,6 +3,9 @@ package com.taskapp.ui;
 import java.io.BufferedReader;      // 標準入力を読み取るためのクラス
 import java.io.IOException;         // 入出力例外を処理するためのクラス
 import java.io.InputStreamReader;   // 標準入力ストリームを読み取るためのクラス
+import java.util.ArrayDeque;        // 前のページの開始位置を積んでおくためのクラス
+import java.util.Deque;             // スタックとして使うためのインターフェース
+import com.taskapp.dataaccess.TaskPage; // タスク一覧の1ページ分の読み込み結果
 import com.taskapp.logic.TaskLogic; // タスクのロジックを管理するクラス
 import com.taskapp.logic.UserLogic; // ユーザーのロジックを管理するクラス
 import com.taskapp.model.User;      // ユーザーのデータモデルクラス
@@ -13,6 +16,9 @@ public class TaskUI {                    // タスク管理アプリケーショ
     private final TaskLogic taskLogic;   // タスク管理のロジックを操作するためのインスタンス
     private User loginUser;              // 現在ログインしているユーザー情報を保持する変数
 
+    // タスク一覧の1ページの件数（-Dtaskapp.ui.pageSize=件数、0の場合はページに分けずに全件を表示）
+    private final int pageSize = Integer.getInteger("taskapp.ui.pageSize", 0);
+
     public TaskUI() {                                                   // デフォルトコンストラクタ
         reader = new BufferedReader(new InputStreamReader(System.in));  // 標準入力を初期化
         userLogic = new UserLogic();                                    // ユーザー管理ロジックのインスタンスを生成
@@ -40,7 +46,11 @@ public class TaskUI {                    // タスク管理アプリケーショ
 
                 switch (selectMenu) {                               // 入力に基づいて処理を分岐
                     case "1":                                       // タスク一覧の表示
-                        taskLogic.showAll(loginUser);               // ログインユーザーのタスク一覧を表示
+                        if (pageSize > 0) {                         // ページ単位の表示が有効な場合
+                            showTaskPages();                        // 1ページずつ表示
+                        } else {
+                            taskLogic.showAll(loginUser);           // ログインユーザーのタスク一覧を表示
+                        }
                         selectSubMenu();                            // サブメニューを表示
                         break;
                     case "2":                                       // 新規タスク登録
@@ -64,19 +74,23 @@ public class TaskUI {                    // タスク管理アプリケーショ
 
     public void selectSubMenu() {                                                   // サブメニューを表示するメソッド
         while (true) {                                                              // サブメニューが継続されている間ループ
-            System.out.println("以下1~2から好きな選択肢を選んでください。");          // サブメニュー案内
-            System.out.println("1. タスクのステータス変更, 2. メインメニューに戻る"); // サブメニュー選択肢
-            System.out.print("選択肢：");                                          // 入力プロンプトを表示
+            System.out.println("以下1~3から好きな選択肢を選んでください。");                        // サブメニュー案内
+            System.out.println("1. タスクのステータス変更, 2. タスク削除, 3. メインメニューに戻る"); // サブメニュー選択肢
+            System.out.print("選択肢：");                                                        // 入力プロンプトを表示
             try {
                 String choice = reader.readLine();  // ユーザー入力を読み取る
+                System.out.println();               // 改行を挿入
                 switch (choice) {                   // 入力に基づいて処理を分岐
                     case "1":                       // ステータス変更処理
                         inputChangeInformation();   // ステータス変更を実行
                         break;
-                    case "2":                       // メインメニューに戻る
+                    case "2":                       // タスク削除処理
+                        inputDeleteInformation();   // タスク削除を実行
+                        break;
+                    case "3":                       // メインメニューに戻る
                         return;                     // サブメニューを終了
                     default:                        // 無効な選択肢の場合
-                        System.out.println("選択肢が誤っています。1~2の中から選択してください。"); // エラーメッセージ
+                        System.out.println("選択肢が誤っています。1~3の中から選択してください。"); // エラーメッセージ
                 }
             } catch (IOException e) {               // 入力例外が発生した場合
                 e.printStackTrace();                // エラー詳細を出力
@@ -84,6 +98,45 @@ public class TaskUI {                    // タスク管理アプリケーショ
         }
     }
 
+    /**
+     * タスク一覧を1ページずつ表示し、次のページ・前のページへの移動を受け付けます。
+     * 前のページへは、表示済みのページの開始位置を積んでおき、その位置から読み直して戻ります。
+     * 次のページも前のページもない場合は、入力を受け付けずに終了します。
+     */
+    public void showTaskPages() {
+        Deque<Long> previous = new ArrayDeque<>(); // 表示済みのページの開始位置
+        long offset = 0;                           // 表示するページの開始位置
+        while (true) {
+            // 最後のページ以外は件数がそろうため、番号はページ数から求められる
+            int firstNumber = previous.size() * pageSize + 1;
+            TaskPage page = taskLogic.showPage(loginUser, offset, pageSize, firstNumber);
+            if (!page.hasNext() && previous.isEmpty()) { // 1ページに収まった場合
+                return;
+            }
+            System.out.println();
+            System.out.println("n. 次のページ, p. 前のページ, それ以外. 一覧を終了"); // ページ移動の選択肢
+            System.out.print("選択肢：");                                          // 入力プロンプトを表示
+            try {
+                String choice = reader.readLine(); // ユーザー入力を読み取る
+                System.out.println();              // 改行を挿入
+                if ("n".equals(choice) && page.hasNext()) {        // 次のページへ
+                    previous.push(offset);
+                    offset = page.getNextOffset();
+                } else if ("p".equals(choice) && !previous.isEmpty()) { // 前のページへ
+                    offset = previous.pop();
+                } else if ("n".equals(choice) || "p".equals(choice)) { // 移動先のページがない場合
+                    System.out.println("移動できるページがありません。");
+                    System.out.println();
+                } else {
+                    return; // 一覧を終了
+                }
+            } catch (IOException e) { // 入力例外が発生した場合
+                e.printStackTrace();  // エラー詳細を出力
+                return;
+            }
+        }
+    }
+
     public void inputChangeInformation() {            // タスクのステータス変更を行うメソッド
         while (true) {                                // ステータス変更処理が継続されている間ループ
             try {
@@ -121,6 +174,26 @@ public class TaskUI {                    // タスク管理アプリケーショ
         }
     }
 
+    public void inputDeleteInformation() {  // タスクの削除を行うメソッド
+        while (true) {                      // 削除処理が継続されている間ループ
+            try {
+                System.out.print("削除するタスクコードを入力してください：");     // タスクコード入力プロンプト
+                String codeInput = reader.readLine();                            // ユーザー入力を読み取る
+                if (!isNumeric(codeInput)) {                                     // 入力が数値かチェック
+                    System.out.println("コードは半角の数字で入力してください\n"); // エラーメッセージ
+                    continue;                                                    // 再入力を要求
+                }
+
+                int code = Integer.parseInt(codeInput); // 入力を数値に変換
+                taskLogic.delete(code);                 // タスクと関連するログを削除（完了メッセージはTaskLogicで表示）
+                System.out.println();                   // 改行を挿入
+                break;                                  // 処理終了
+            } catch (Exception e) {                     // 例外が発生した場合
+                System.out.println(e.getMessage() + "\n"); // エラーメッセージを出力
+            }
+        }
+    }
+
     public void inputLogin() {              // ログイン処理を行うメソッド
         boolean isLoginSuccessful = false;  // ログイン成功フラグを初期化
 
@@ -181,7 +254,7 @@ public class TaskUI {                    // タスク管理アプリケーショ
         }
     }
 
-    private boolean isNumeric(String inputText) {       // 入力が数値かどうかを判定するメソッド
+    boolean isNumeric(String inputText) {               // 入力が数値かどうかを判定するメソッド
         if (inputText == null || inputText.isEmpty()) { // 入力が空の場合
             return false;                               // 数値でないと判定
         }
@@ -0,0 +1,133 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.model.Log;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+public class BinaryStorageTest {
+    private static final String TEST_FILE_PATH_USER = "src/test/resources/test_users.csv";
+
+    @TempDir
+    Path dir;
+
+    private final UserDataAccess userDataAccess = new UserDataAccess(TEST_FILE_PATH_USER);
+    private final User user1 = new User(1, "鈴木一郎", "test1@example.com", "password1");
+    private final User user2 = new User(2, "鈴木二郎", "test2@example.com", "password2");
+
+    @Test
+    public void testTaskOperations() throws IOException {
+        TaskDataAccess taskDataAccess = binary(() -> new TaskDataAccess(dir.resolve("tasks.csv").toString(), userDataAccess));
+        taskDataAccess.save(new Task(1, "taskA", 0, user1));
+        taskDataAccess.saveAll(List.of(new Task(2, "カンマ,を含む", 0, user2), new Task(3, "taskA", 1, user1),
+                new Task(4, "taskD", 0, new User(9, "", "", ""))));
+
+        assertThat(Files.exists(dir.resolve("tasks.csv"))).isFalse();
+        assertThat(Files.size(dir.resolve("tasks.bin"))).isEqualTo(8L + 4 * 20);
+        assertThat(taskDataAccess.findAll()).extracting(Task::getName).containsExactly("taskA", "カンマ,を含む", "taskA");
+        assertThat(taskDataAccess.findTable().getNameCount()).isEqualTo(2);
+        assertThat(taskDataAccess.findByCode(2).getRepUser().getName()).isEqualTo("鈴木二郎");
+        assertThat(taskDataAccess.findByCode(4)).isNull(); // 担当ユーザーが存在しない
+        assertThat(taskDataAccess.existsByCode(4)).isTrue();
+        assertThat(taskDataAccess.findAllCodes()).containsOnly(1, 2, 3, 4);
+
+        Task task = taskDataAccess.findByCode(1);
+        Task stale = taskDataAccess.findByCode(1);
+        task.setStatus(1);
+        taskDataAccess.update(task);
+        assertThat(task.getVersion()).isEqualTo(1);
+        assertThatThrownBy(() -> taskDataAccess.update(stale)).isInstanceOf(VersionConflictException.class);
+        assertThat(Files.size(dir.resolve("tasks.bin"))).isEqualTo(8L + 4 * 20); // その場で書き換える
+        assertThat(taskDataAccess.findByCode(1).getStatus()).isEqualTo(1);
+
+        TaskPage first = taskDataAccess.findPage(0, 2);
+        assertThat(first.getTasks()).extracting(Task::getCode).containsExactly(1, 2);
+        TaskPage second = taskDataAccess.findPage(first.getNextOffset(), 2);
+        assertThat(second.getTasks()).extracting(Task::getCode).containsExactly(3);
+        assertThat(second.hasNext()).isFalse();
+
+        taskDataAccess.save(new Task(3, "dup", 0, user1));
+        assertThat(taskDataAccess.dedupe()).isEqualTo(1);
+        taskDataAccess.delete(2);
+        assertThat(taskDataAccess.findAll()).extracting(Task::getCode).containsExactly(1, 3);
+        assertThat(taskDataAccess.existsByCode(2)).isFalse();
+    }
+
+    @Test
+    public void testLogOperations() {
+        LogDataAccess logDataAccess = binary(() -> new LogDataAccess(dir.resolve("logs.csv").toString()));
+        logDataAccess.save(new Log(1, 1, 0, LocalDate.of(2024, 1, 10)));
+        logDataAccess.saveAll(List.of(new Log(2, 2, 0, LocalDate.of(2024, 1, 11)), new Log(1, 2, 1, LocalDate.of(2024, 2, 29))));
+
+        List<Log> logs = logDataAccess.findAll();
+        assertThat(logs).extracting(Log::getChangeDate)
+                .containsExactly(LocalDate.of(2024, 1, 10), LocalDate.of(2024, 1, 11), LocalDate.of(2024, 2, 29));
+
+        LogReport report = logDataAccess.analyze();
+        assertThat(report.getTimeline(1).getStartedOn()).isEqualTo(LocalDate.of(2024, 2, 29));
+        assertThat(report.getTimeline(1).getCycleDays()).isEqualTo(-1L); // 完了していない
+        assertThat(report.getUserThroughput().get(2).getChangeCount()).isEqualTo(2L);
+        assertThat(logDataAccess.find(LocalDate.of(2024, 1, 11), LocalDate.of(2024, 3, 1), null, 2))
+                .extracting(Log::getTaskCode).containsExactly(2, 1);
+
+        logDataAccess.deleteByTaskCode(1);
+        assertThat(logDataAccess.findAll()).extracting(Log::getTaskCode).containsExactly(2);
+        assertThat(Files.exists(dir.resolve("logs.csv"))).isFalse();
+    }
+
+    @Test
+    public void testConvertBetweenCsvAndBinary() throws IOException {
+        Path taskFile = dir.resolve("tasks.csv");
+        Path logFile = dir.resolve("logs.csv");
+        Files.writeString(taskFile, "Code,Name,Status,Rep_User_Code\n1,taskA,0,1\n2,taskB,0,2\n2,taskB,1,2,1\n3,taskC,2,9\n");
+        Files.copy(Paths.get("src/test/resources/test_logs.csv"), logFile);
+        List<String> logLines = Files.readAllLines(logFile);
+
+        assertThat(StorageConverter.tasksToBinary(taskFile.toString(), true)).isEqualTo(3); // 追記型の古い行は除く
+        assertThat(StorageConverter.logsToBinary(logFile.toString())).isEqualTo(logLines.size() - 1);
+
+        TaskDataAccess taskDataAccess = binary(() -> new TaskDataAccess(taskFile.toString(), userDataAccess));
+        assertThat(taskDataAccess.findByCode(2).getStatus()).isEqualTo(1);
+        assertThat(taskDataAccess.findByCode(2).getVersion()).isEqualTo(1);
+        assertThat(taskDataAccess.existsByCode(3)).isTrue(); // 担当ユーザーが存在しないタスクも移す
+        Task task = taskDataAccess.findByCode(1);
+        task.setStatus(1);
+        taskDataAccess.update(task);
+
+        Files.delete(taskFile);
+        Files.delete(logFile);
+        assertThat(StorageConverter.tasksToCsv(taskFile.toString())).isEqualTo(3);
+        assertThat(StorageConverter.logsToCsv(logFile.toString())).isEqualTo(logLines.size() - 1);
+        assertThat(Files.readAllLines(taskFile)).containsExactly(TaskDataAccess.HEADER,
+                "1,taskA,1,1,1", "2,taskB,1,2,1", "3,taskC,2,9");
+        assertThat(Files.readAllLines(logFile).subList(1, logLines.size())).isEqualTo(logLines.subList(1, logLines.size()));
+
+        taskDataAccess.save(new Task(4, "a,b", 0, user1));
+        assertThatThrownBy(() -> StorageConverter.tasksToCsv(taskFile.toString()))
+                .isInstanceOf(IOException.class).hasMessageContaining("タスクコード4");
+    }
+
+    /**
+     * -Dtaskapp.storage=binaryを指定した状態でインスタンスを作成します。
+     */
+    private static <T> T binary(Supplier<T> constructor) {
+        System.setProperty("taskapp.storage", "binary");
+        try {
+            return constructor.get();
+        } finally {
+            System.clearProperty("taskapp.storage");
+        }
+    }
+}
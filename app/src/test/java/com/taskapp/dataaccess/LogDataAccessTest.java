@@ -11,11 +11,13 @@ import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.taskapp.model.Log;
 
@@ -86,6 +88,157 @@ public class LogDataAccessTest {
         assertThat(logs).doesNotContain(log2);
     }
 
+    @Test
+    public void testSaveAsyncFromManyThreads(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("logs.csv");
+        Files.copy(Paths.get(TEST_FILE_PATH), file);
+        LogDataAccess concurrentDataAccess = new LogDataAccess(file.toString());
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            int base = (thread + 1) * 1000;
+            futures.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 250; i++) {
+                    concurrentDataAccess.saveAsync(new Log(base + i, 1, 0, LocalDate.now())).join();
+                }
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        List<Log> logs = readLogsFromFile(file.toString());
+        assertThat(logs).hasSize(7 + 1000);
+        assertThat(logs).filteredOn(log -> log.getTaskCode() >= 1000).extracting(Log::getTaskCode).doesNotHaveDuplicates();
+    }
+
+    @Test
+    public void testDeleteByTaskCodeWithTombstones(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("logs.csv");
+        Files.copy(Paths.get(TEST_FILE_PATH), file);
+        System.setProperty("taskapp.log.tombstones", "true");
+        LogDataAccess tombstoneDataAccess;
+        try {
+            tombstoneDataAccess = new LogDataAccess(file.toString());
+        } finally {
+            System.clearProperty("taskapp.log.tombstones");
+        }
+
+        tombstoneDataAccess.deleteByTaskCode(3);
+
+        assertThat(readLogsFromFile(file.toString())).hasSize(7);
+        assertThat(tombstoneDataAccess.findAll()).extracting(Log::getTaskCode).containsExactly(1, 2, 4, 4);
+
+        Log reused = new Log(3, 1, 0, LocalDate.now());
+        tombstoneDataAccess.save(reused);
+        assertThat(tombstoneDataAccess.findAll()).hasSize(5);
+
+        tombstoneDataAccess.compact();
+
+        assertThat(readLogsFromFile(file.toString())).extracting(Log::getTaskCode).containsExactly(1, 2, 4, 4, 3);
+        assertThat(dir.resolve("logs_deleted.csv")).doesNotExist();
+    }
+
+    @Test
+    public void testTombstonesAreSharedPerFile(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("logs.csv");
+        Files.copy(Paths.get(TEST_FILE_PATH), file);
+        System.setProperty("taskapp.log.tombstones", "true");
+        LogDataAccess first;
+        LogDataAccess second;
+        try {
+            first = new LogDataAccess(file.toString());
+            second = new LogDataAccess(file.toString());
+        } finally {
+            System.clearProperty("taskapp.log.tombstones");
+        }
+        assertThat(second.findAll()).hasSize(7); // 削除前に読み込み済みの状態にする
+
+        first.deleteByTaskCode(3);
+        first.deleteByTaskCode(Integer.MAX_VALUE); // ビットマップの範囲外のコード
+        assertThat(second.findAll()).extracting(Log::getTaskCode).containsExactly(1, 2, 4, 4);
+
+        second.compact();
+        assertThat(first.findAll()).extracting(Log::getTaskCode).containsExactly(1, 2, 4, 4);
+        assertThat(readLogsFromFile(file.toString())).extracting(Log::getTaskCode).containsExactly(1, 2, 4, 4);
+    }
+
+    @Test
+    public void testDeleteByTaskCodes(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("logs.csv");
+        Files.copy(Paths.get(TEST_FILE_PATH), file);
+        LogDataAccess deleteDataAccess = new LogDataAccess(file.toString());
+
+        deleteDataAccess.deleteByTaskCodes(List.of(3, 4));
+
+        assertThat(Files.readAllLines(file).get(0)).isEqualTo("Task_Code,Change_User_Code,Status,Change_Date");
+        assertThat(readLogsFromFile(file.toString())).extracting(Log::getTaskCode).containsExactly(1, 2);
+        assertThat(dir.toFile().list()).containsExactly("logs.csv");
+    }
+
+    @Test
+    public void testAnalyze(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("logs.csv");
+        Files.writeString(file, "Task_Code,Change_User_Code,Status,Change_Date\n1,1,0,2024-01-10\n2,1,0,2024-01-10\n"
+                + "1,2,1,2024-01-12\n1,2,2,2024-01-15\n2,2,1,2024-01-12\n3,1,0,2024-01-11\n2,1,2,2024-01-20\n3,2,1,2024-01-12\n");
+        System.setProperty("taskapp.log.tombstones", "true");
+        LogDataAccess analyzeDataAccess;
+        try {
+            analyzeDataAccess = new LogDataAccess(file.toString());
+        } finally {
+            System.clearProperty("taskapp.log.tombstones");
+        }
+        analyzeDataAccess.deleteByTaskCode(3);
+
+        LogReport report = analyzeDataAccess.analyze();
+
+        assertThat(report.getLogCount()).isEqualTo(6L); // 削除済みタスクのログは除く
+        assertThat(report.getTimeline(3)).isNull();
+        LogReport.TaskTimeline task1 = report.getTimeline(1);
+        assertThat(task1.getCreatedOn()).isEqualTo(LocalDate.of(2024, 1, 10));
+        assertThat(task1.getStartedOn()).isEqualTo(LocalDate.of(2024, 1, 12));
+        assertThat(task1.getCompletedOn()).isEqualTo(LocalDate.of(2024, 1, 15));
+        assertThat(task1.getCompletedBy()).isEqualTo(2);
+        assertThat(task1.getCycleDays()).isEqualTo(5L);
+        assertThat(task1.getLastStatus()).isEqualTo(2);
+        assertThat(task1.getChangeCount()).isEqualTo(3);
+        assertThat(report.getTimeline(2).getCycleDays()).isEqualTo(10L);
+
+        LogReport.UserThroughput user1 = report.getUserThroughput().get(1);
+        assertThat(user1.getChangeCount()).isEqualTo(3L);
+        assertThat(user1.getCompletedCount()).isEqualTo(1L);
+        assertThat(user1.getAverageCycleDays()).isEqualTo(10.0);
+        assertThat(report.getUserThroughput().get(2).getAverageCycleDays()).isEqualTo(5.0);
+        assertThat(report.getAverageCycleDays()).isEqualTo(7.5);
+        assertThat(report.getDailyCounts()).containsExactly(entry(LocalDate.of(2024, 1, 10), 2L),
+                entry(LocalDate.of(2024, 1, 12), 2L), entry(LocalDate.of(2024, 1, 15), 1L),
+                entry(LocalDate.of(2024, 1, 20), 1L));
+    }
+
+    @Test
+    public void testAnalyzeInParallelChunks(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("logs.csv");
+        StringBuilder csv = new StringBuilder("Task_Code,Change_User_Code,Status,Change_Date\n");
+        for (int i = 0; i < 30000; i++) {
+            int taskCode = i % 7000 + 1;
+            csv.append(taskCode).append(',').append(i % 13 + 1).append(',').append(i / 7000 % 3).append(',')
+                    .append(LocalDate.of(2024, 1, 1).plusDays(i % 400)).append('\n');
+        }
+        Files.writeString(file, csv);
+        LogDataAccess analyzeDataAccess = new LogDataAccess(file.toString());
+
+        LogReport whole = analyzeDataAccess.analyze(Long.MAX_VALUE); // 分割しない
+        LogReport chunked = analyzeDataAccess.analyze(1);            // 行の途中で区切られた範囲に分割する
+
+        assertThat(chunked.getLogCount()).isEqualTo(30000L);
+        assertThat(chunked.getDailyCounts()).isEqualTo(whole.getDailyCounts());
+        assertThat(chunked.getTimelines().keySet()).isEqualTo(whole.getTimelines().keySet());
+        for (LogReport.TaskTimeline timeline : whole.getTimelines().values()) {
+            assertThat(chunked.getTimeline(timeline.getTaskCode())).isEqualToComparingFieldByField(timeline);
+        }
+        for (LogReport.UserThroughput user : whole.getUserThroughput().values()) {
+            assertThat(chunked.getUserThroughput().get(user.getUserCode())).isEqualToComparingFieldByField(user);
+        }
+    }
+
     private List<Log> readLogsFromFile(String filePath) {
         List<Log> logs = new ArrayList<>();
         try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
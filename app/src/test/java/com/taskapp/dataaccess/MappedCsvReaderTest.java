@@ -0,0 +1,86 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MappedCsvReaderTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testReadSkipsHeaderAndParsesColumns() throws IOException {
+        Path file = dir.resolve("logs.csv");
+        Files.writeString(file, "Task_Code,Change_User_Code,Status,Change_Date\r\n"
+                + "1, 2 ,0,2024-01-10\r\n"
+                + "3,1,2,2024-12-31");
+
+        List<String> rows = new ArrayList<>();
+        MappedCsvReader.read(file, 4, row -> rows.add(
+                row.getInt(0) + "/" + row.getInt(1) + "/" + row.getInt(2) + "/" + row.getDate(3)));
+
+        assertThat(rows).containsExactly("1/2/0/2024-01-10", "3/1/2/2024-12-31");
+    }
+
+    @Test
+    public void testReadReportsRowsWithWrongColumnCount() throws IOException {
+        Path file = dir.resolve("users.csv");
+        Files.writeString(file, "Code,Name,Email,Password\n1,鈴木一郎,test1@example.com,password1\nbroken,row\n\n");
+
+        List<String> names = new ArrayList<>();
+        List<String> invalid = new ArrayList<>();
+        MappedCsvReader.read(file, 0, Long.MAX_VALUE, 4, row -> names.add(row.getString(1)), invalid::add);
+
+        assertThat(names).containsExactly("鈴木一郎");
+        assertThat(invalid).containsExactly("broken,row");
+    }
+
+    @Test
+    public void testReadRangesCoverEveryRowOnce() throws IOException {
+        Path file = dir.resolve("logs.csv");
+        StringBuilder csv = new StringBuilder("Task_Code,Change_User_Code,Status,Change_Date\n");
+        for (int i = 0; i < 1000; i++) {
+            csv.append(i).append(",1,0,2024-01-10\n");
+        }
+        Files.writeString(file, csv);
+
+        long size = Files.size(file);
+        long chunk = size / 7;
+        List<Integer> codes = new ArrayList<>();
+        for (long start = 0; start < size; start += chunk) {
+            MappedCsvReader.read(file, start, Math.min(size, start + chunk), 4,
+                    row -> codes.add(row.getInt(0)), null);
+        }
+
+        assertThat(codes).hasSize(1000);
+        assertThat(codes).doesNotHaveDuplicates();
+    }
+
+    @Test
+    public void testGetIntRejectsNonNumericColumn() throws IOException {
+        Path file = dir.resolve("tasks.csv");
+        Files.writeString(file, "Code,Name,Status,RepUserCode\nx,taskA,0,1\n");
+
+        assertThatThrownBy(() -> MappedCsvReader.read(file, 4, row -> row.getInt(0)))
+                .isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    public void testGetDateFallsBackToStandardParser() throws IOException {
+        Path file = dir.resolve("logs.csv");
+        Files.writeString(file, "Task_Code,Change_User_Code,Status,Change_Date\n1,1,0,+12024-01-10\n");
+
+        List<LocalDate> dates = new ArrayList<>();
+        MappedCsvReader.read(file, 4, row -> dates.add(row.getDate(3)));
+
+        assertThat(dates).containsExactly(LocalDate.of(12024, 1, 10));
+    }
+}
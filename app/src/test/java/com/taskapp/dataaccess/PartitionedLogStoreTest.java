@@ -0,0 +1,112 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.model.Log;
+
+public class PartitionedLogStoreTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testSaveAndFindByMonth() throws IOException {
+        LogDataAccess logDataAccess = partitioned();
+        logDataAccess.save(new Log(1, 1, 0, LocalDate.of(2024, 11, 30)));
+        logDataAccess.saveAll(List.of(new Log(1, 2, 1, LocalDate.of(2024, 12, 1)), new Log(2, 1, 0, LocalDate.of(2024, 12, 15)),
+                new Log(1, 2, 2, LocalDate.of(2025, 1, 3)), new Log(2, 2, 1, LocalDate.of(2024, 12, 31))));
+
+        assertThat(Files.exists(dir.resolve("logs.csv"))).isFalse();
+        assertThat(Files.readAllLines(dir.resolve("logs_2024-12.csv"))).containsExactly(
+                "Task_Code,Change_User_Code,Status,Change_Date", "1,2,1,2024-12-01", "2,1,0,2024-12-15", "2,2,1,2024-12-31");
+        assertThat(logDataAccess.findAll()).extracting(Log::getChangeDate).containsExactly(LocalDate.of(2024, 11, 30),
+                LocalDate.of(2024, 12, 1), LocalDate.of(2024, 12, 15), LocalDate.of(2024, 12, 31), LocalDate.of(2025, 1, 3));
+
+        // 2024年12月にユーザー2が変更したログ
+        List<Log> logs = logDataAccess.find(LocalDate.of(2024, 12, 1), LocalDate.of(2024, 12, 31), null, 2);
+        assertThat(logs).extracting(Log::getChangeDate).containsExactly(LocalDate.of(2024, 12, 1), LocalDate.of(2024, 12, 31));
+        assertThat(logDataAccess.find(LocalDate.of(2024, 11, 30), LocalDate.of(2025, 1, 2), 1, null))
+                .extracting(Log::getStatus).containsExactly(0, 1);
+        assertThat(logDataAccess.find(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31), null, null)).isEmpty();
+
+        // 集計は全ての月のファイルをつなげて行う
+        LogReport report = logDataAccess.analyze(1);
+        assertThat(report.getLogCount()).isEqualTo(5L);
+        assertThat(report.getTimeline(1).getCycleDays()).isEqualTo(34L);
+        assertThat(report.getTimeline(2).getLastStatus()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDeleteRewritesOnlyAffectedMonths() throws IOException {
+        LogDataAccess logDataAccess = partitioned();
+        logDataAccess.saveAll(List.of(new Log(1, 1, 0, LocalDate.of(2024, 11, 30)), new Log(2, 1, 0, LocalDate.of(2024, 12, 1)),
+                new Log(1, 1, 1, LocalDate.of(2024, 12, 2))));
+        Path november = dir.resolve("logs_2024-11.csv");
+        Path december = dir.resolve("logs_2024-12.csv");
+        Object novemberKey = Files.readAttributes(november, BasicFileAttributes.class).fileKey();
+        Object decemberKey = Files.readAttributes(december, BasicFileAttributes.class).fileKey();
+
+        logDataAccess.deleteByTaskCodes(List.of(2));
+        assertThat(logDataAccess.findAll()).extracting(Log::getTaskCode).containsExactly(1, 1);
+        // タスク2のログがない11月のファイルは置き換えない
+        assertThat(Files.readAttributes(november, BasicFileAttributes.class).fileKey()).isEqualTo(novemberKey);
+        assertThat(Files.readAttributes(december, BasicFileAttributes.class).fileKey()).isNotEqualTo(decemberKey);
+
+        logDataAccess.deleteByTaskCode(1);
+        logDataAccess.save(new Log(3, 2, 0, LocalDate.of(2024, 12, 3))); // 置き換えた後のファイルに追記する
+        assertThat(logDataAccess.findAll()).extracting(Log::getTaskCode).containsExactly(3);
+        assertThat(Files.readAllLines(november)).containsExactly("Task_Code,Change_User_Code,Status,Change_Date");
+        assertThat(dir.toFile().list()).containsOnly("logs_2024-11.csv", "logs_2024-12.csv"); // 一時ファイルを残さない
+    }
+
+    @Test
+    public void testSplitExistingLogFile() throws IOException {
+        Path logFile = dir.resolve("logs.csv");
+        Files.writeString(logFile, "Task_Code,Change_User_Code,Status,Change_Date\n1,1,0,2024-12-30\n1,2,1,2025-01-02\n"
+                + "2,1,0,2024-12-31\n");
+
+        assertThat(StorageConverter.logsToPartitions(logFile.toString())).isEqualTo(3);
+        assertThat(Files.readAllLines(dir.resolve("logs_2024-12.csv"))).containsExactly(
+                "Task_Code,Change_User_Code,Status,Change_Date", "1,1,0,2024-12-30", "2,1,0,2024-12-31");
+        assertThat(Files.exists(logFile)).isTrue(); // 分割元のファイルはそのまま残す
+        assertThat(partitioned().find(LocalDate.of(2025, 1, 1), LocalDate.of(2025, 1, 31), null, null))
+                .extracting(Log::getChangeUserCode).containsExactly(2);
+
+        assertThatThrownBy(() -> StorageConverter.logsToPartitions(logFile.toString())).isInstanceOf(IOException.class);
+        assertThat(dir.toFile().list()).containsOnly("logs.csv", "logs_2024-12.csv", "logs_2025-01.csv");
+    }
+
+    @Test
+    public void testFindInSingleFile() throws IOException {
+        Path logFile = dir.resolve("logs.csv");
+        Files.copy(Paths.get("src/test/resources/test_logs.csv"), logFile);
+        LogDataAccess logDataAccess = new LogDataAccess(logFile.toString());
+
+        assertThat(logDataAccess.find(LocalDate.of(2024, 1, 11), LocalDate.of(2024, 1, 13), null, 2))
+                .extracting(Log::getTaskCode).containsExactly(3, 3, 4);
+        assertThat(logDataAccess.find(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31), 3, null)).hasSize(3);
+        assertThat(logDataAccess.find(LocalDate.of(2024, 1, 12), LocalDate.of(2024, 1, 11), null, null)).isEmpty();
+    }
+
+    /**
+     * -Dtaskapp.log.partitioned=trueを指定した状態でlogs.csvのインスタンスを作成します。
+     */
+    private LogDataAccess partitioned() {
+        System.setProperty("taskapp.log.partitioned", "true");
+        try {
+            return new LogDataAccess(dir.resolve("logs.csv").toString());
+        } finally {
+            System.clearProperty("taskapp.log.partitioned");
+        }
+    }
+}
@@ -16,6 +16,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.taskapp.model.Task;
 import com.taskapp.model.User;
@@ -129,6 +130,214 @@ public class TaskDataAccessTest {
         assertThat(tasks).doesNotContain(task2);
     }
 
+    @Test
+    public void testAppendUpdatesAndCompact(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("tasks.csv");
+        Files.copy(Paths.get(TEST_FILE_PATH), file);
+        System.setProperty("taskapp.task.appendUpdates", "true");
+        TaskDataAccess appendDataAccess;
+        try {
+            appendDataAccess = new TaskDataAccess(file.toString(), userDataAccess);
+        } finally {
+            System.clearProperty("taskapp.task.appendUpdates");
+        }
+        User repUser = new User(2, "鈴木二郎", "test2@example.com", "password2");
+
+        Task task = new Task(2, "taskB", 1, repUser);
+        appendDataAccess.update(task);
+        task.setStatus(2);
+        appendDataAccess.update(task); // 1回目の更新でバージョンが進んでいる
+
+        assertThat(Files.readAllLines(file)).hasSize(7);
+        assertThat(appendDataAccess.findAll()).hasSize(4);
+        assertThat(appendDataAccess.findByCode(2).getStatus()).isEqualTo(2);
+
+        appendDataAccess.compact();
+
+        assertThat(Files.readAllLines(file)).hasSize(5);
+        assertThat(appendDataAccess.findByCode(2).getStatus()).isEqualTo(2);
+    }
+
+    @Test
+    public void testDeadRowsAreCountedAcrossInstances(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("tasks.csv");
+        Files.copy(Paths.get(TEST_FILE_PATH), file);
+        TaskDataAccess first = newAppendDataAccess(file, 3);
+
+        Task task = first.findByCode(2);
+        task.setStatus(1);
+        first.update(task);
+        task.setStatus(2);
+        first.update(task);
+        assertThat(Files.readAllLines(file)).hasSize(7); // 古くなった行は2行で、まだ圧縮しない
+
+        // 再起動した場合と同じく、別のインスタンスで更新しても古くなった行の数を引き継ぐ
+        TaskDataAccess second = newAppendDataAccess(file, 3);
+        Task other = second.findByCode(1);
+        other.setStatus(1);
+        second.update(other);
+
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (Files.readAllLines(file).size() != 5 && System.nanoTime() < deadline) {
+            Thread.sleep(10); // バックグラウンドの圧縮を待つ
+        }
+        assertThat(Files.readAllLines(file)).hasSize(5);
+        assertThat(second.findByCode(2).getStatus()).isEqualTo(2);
+        assertThat(second.findByCode(1).getStatus()).isEqualTo(1);
+    }
+
+    private TaskDataAccess newAppendDataAccess(Path file, int compactThreshold) {
+        System.setProperty("taskapp.task.appendUpdates", "true");
+        System.setProperty("taskapp.task.compactThreshold", Integer.toString(compactThreshold));
+        try {
+            return new TaskDataAccess(file.toString(), userDataAccess);
+        } finally {
+            System.clearProperty("taskapp.task.appendUpdates");
+            System.clearProperty("taskapp.task.compactThreshold");
+        }
+    }
+
+    @Test
+    public void testUpdateRejectsStaleVersion(@TempDir Path dir) throws IOException {
+        for (boolean appendUpdates : new boolean[] { false, true }) {
+            Path file = dir.resolve(appendUpdates + ".csv");
+            Files.copy(Paths.get(TEST_FILE_PATH), file);
+            System.setProperty("taskapp.task.appendUpdates", Boolean.toString(appendUpdates));
+            TaskDataAccess versionDataAccess;
+            try {
+                versionDataAccess = new TaskDataAccess(file.toString(), userDataAccess);
+            } finally {
+                System.clearProperty("taskapp.task.appendUpdates");
+            }
+            Task first = versionDataAccess.findByCode(1);
+            Task second = versionDataAccess.findByCode(1);
+            assertThat(first.getVersion()).isZero();
+
+            first.setStatus(1);
+            versionDataAccess.update(first);
+            assertThat(first.getVersion()).isEqualTo(1);
+
+            second.setStatus(2);
+            assertThatThrownBy(() -> versionDataAccess.update(second)) // 読み込んだ後に更新されている
+                    .isInstanceOf(VersionConflictException.class);
+            Task stored = versionDataAccess.findByCode(1);
+            assertThat(stored.getStatus()).isEqualTo(1);
+            assertThat(stored.getVersion()).isEqualTo(1);
+            assertThat(Files.readAllLines(file)).contains("1,taskA,1,1,1").contains("2,taskB,0,2");
+
+            assertThatThrownBy(() -> versionDataAccess.update(new Task(9, "taskZ", 1, first.getRepUser())))
+                    .isInstanceOf(VersionConflictException.class); // 存在しないタスク
+        }
+    }
+
+    @Test
+    public void testFindByCodeRebuildsStaleIndex(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("tasks.csv");
+        Files.copy(Paths.get(TEST_FILE_PATH), file);
+        TaskDataAccess indexedDataAccess = new TaskDataAccess(file.toString(), userDataAccess);
+
+        assertThat(indexedDataAccess.findByCode(3).getName()).isEqualTo("taskC");
+        assertThat(dir.resolve("tasks.idx")).exists();
+
+        Files.writeString(file, "Code,Name,Status,Rep_User_Code\n7,taskG,0,2\n");
+
+        assertThat(indexedDataAccess.findByCode(7).getName()).isEqualTo("taskG");
+        assertThat(indexedDataAccess.findByCode(3)).isNull();
+    }
+
+    @Test
+    public void testDeleteAllAndAbortedRewrite(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("tasks.csv");
+        Files.copy(Paths.get(TEST_FILE_PATH), file);
+        TaskDataAccess deleteDataAccess = new TaskDataAccess(file.toString(), userDataAccess);
+        assertThat(deleteDataAccess.findByCode(3)).isNotNull();
+
+        deleteDataAccess.prepareDelete(List.of(1, 2)).abort();
+
+        assertThat(Files.readAllLines(file)).hasSize(5);
+        assertThat(dir.toFile().list()).containsExactlyInAnyOrder("tasks.csv", "tasks.idx");
+
+        deleteDataAccess.deleteAll(List.of(1, 3));
+
+        assertThat(Files.readAllLines(file)).containsExactly("Code,Name,Status,Rep_User_Code",
+                "2,taskB,0,2", "4,taskD,1,2");
+        assertThat(deleteDataAccess.findByCode(3)).isNull();
+        assertThat(deleteDataAccess.findByCode(4).getName()).isEqualTo("taskD");
+    }
+
+    @Test
+    public void testExistsByCodeAndDedupe(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("tasks.csv");
+        Files.writeString(file, "Code,Name,Status,Rep_User_Code\n1,taskA,0,1\n3,taskC,2,2\n3,taskX,0,1\n5,taskE,1,2\n5,taskE,1,2\n");
+        TaskDataAccess dedupeDataAccess = new TaskDataAccess(file.toString(), userDataAccess);
+
+        assertThat(dedupeDataAccess.existsByCode(3)).isTrue();
+        assertThat(dedupeDataAccess.existsByCode(4)).isFalse();
+        dedupeDataAccess.save(new Task(4, "taskD", 0, new User(1, "鈴木一郎", "test1@example.com", "password1")));
+        assertThat(dedupeDataAccess.existsByCode(4)).isTrue();
+
+        assertThat(dedupeDataAccess.dedupe()).isEqualTo(2);
+
+        assertThat(Files.readAllLines(file)).containsExactly("Code,Name,Status,Rep_User_Code",
+                "1,taskA,0,1", "3,taskC,2,2", "5,taskE,1,2", "4,taskD,0,1");
+        assertThat(dedupeDataAccess.existsByCode(5)).isTrue();
+        dedupeDataAccess.delete(5);
+        assertThat(dedupeDataAccess.existsByCode(5)).isFalse();
+    }
+
+    @Test
+    public void testFindPage(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("tasks.csv");
+        Files.writeString(file, "Code,Name,Status,Rep_User_Code\n1,taskA,0,1\n2,taskB,0,9\n3,taskC,1,2\n4,taskD,2,1\n5,taskE,0,2");
+        System.setProperty("taskapp.task.appendUpdates", "true");
+        TaskDataAccess pageDataAccess;
+        try {
+            pageDataAccess = new TaskDataAccess(file.toString(), userDataAccess);
+        } finally {
+            System.clearProperty("taskapp.task.appendUpdates");
+        }
+        pageDataAccess.update(new Task(3, "taskC", 2, new User(2, "鈴木二郎", "test2@example.com", "password2")));
+
+        TaskPage first = pageDataAccess.findPage(0, 2);
+        assertThat(first.getTasks()).extracting(Task::getCode).containsExactly(1, 4); // 担当者不在と更新前の行は飛ばす
+        assertThat(first.hasNext()).isTrue();
+
+        TaskPage second = pageDataAccess.findPage(first.getNextOffset(), 2);
+        assertThat(second.getTasks()).extracting(Task::getCode).containsExactly(5, 3);
+        assertThat(second.getTasks().get(1).getStatus()).isEqualTo(2);
+        assertThat(second.hasNext()).isFalse();
+    }
+
+    @Test
+    public void testFindTable(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("tasks.csv");
+        Files.writeString(file, "Code,Name,Status,Rep_User_Code\n1,taskA,0,1\n2,taskB,0,9\n3,taskA,1,2\n4,taskD,2,1\n1,taskA,2,1,1");
+        for (boolean appendUpdates : new boolean[] { false, true }) {
+            System.setProperty("taskapp.task.appendUpdates", Boolean.toString(appendUpdates));
+            TaskDataAccess tableDataAccess;
+            try {
+                tableDataAccess = new TaskDataAccess(file.toString(), userDataAccess);
+            } finally {
+                System.clearProperty("taskapp.task.appendUpdates");
+            }
+            List<Task> tasks = tableDataAccess.findAll();
+            TaskTable table = tableDataAccess.findTable();
+
+            assertThat(table.size()).isEqualTo(tasks.size()); // 担当者不在の行はfindAllと同じく除く
+            for (int row = 0; row < table.size(); row++) {
+                assertThat(table.toTask(row)).isEqualToComparingFieldByField(tasks.get(row));
+            }
+            assertThat(table.getUserCount()).isEqualTo(2);
+            assertThat(table.getNameCount()).isEqualTo(2);
+            assertThat(table.getRepUser(table.indexOf(1))).isSameAs(table.getRepUser(table.indexOf(4)));
+            assertThat(table.getName(table.indexOf(1))).isSameAs(table.getName(table.indexOf(3)));
+            assertThat(table.getStatus(table.indexOf(1))).isEqualTo(appendUpdates ? 2 : 0);
+            assertThat(table.getRepUserCode(table.indexOf(3))).isEqualTo(2);
+            assertThat(table.indexOf(2)).isEqualTo(-1);
+            assertThatThrownBy(() -> table.getCode(table.size())).isInstanceOf(IndexOutOfBoundsException.class);
+        }
+    }
+
     private List<Task> readTasksFromFile(String filePath) {
         List<Task> tasks = new ArrayList<>();
         try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
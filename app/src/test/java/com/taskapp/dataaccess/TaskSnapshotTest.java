@@ -0,0 +1,141 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+public class TaskSnapshotTest {
+    private static final String TEST_FILE_PATH_USER = "src/test/resources/test_users.csv";
+
+    @TempDir
+    Path dir;
+
+    private final User user1 = new User(1, "鈴木一郎", "test1@example.com", "password1");
+
+    @Test
+    public void testOnlyRowsAppendedAfterSnapshotAreParsed() throws IOException {
+        Path csv = dir.resolve("tasks.csv");
+        StringBuilder rows = new StringBuilder("Code,Name,Status,Rep_User_Code\n");
+        for (int code = 1; code <= 500; code++) {
+            rows.append(code).append(",task").append(code).append(",0,1\n");
+        }
+        Files.writeString(csv, rows);
+        TaskSnapshot snapshot = TaskSnapshot.open(csv.toString());
+        assertThat(snapshot.refresh().size()).isEqualTo(500);
+        snapshot.saveIfChanged();
+        assertThat(Files.exists(dir.resolve("tasks_snapshot.bin"))).isTrue();
+
+        // スナップショットの範囲内の先頭行を同じ長さで書き換え、末尾に1行追記する
+        String edited = Files.readString(csv).replaceFirst("1,task1,0,1", "1,taskX,2,2");
+        Files.writeString(csv, edited, StandardOpenOption.WRITE);
+        Files.writeString(csv, "501,added,1,2\n", StandardOpenOption.APPEND);
+
+        // 再起動後はスナップショットを読み込み、追記された行だけを解析する
+        TaskDataAccess taskDataAccess = newTaskDataAccess(false);
+        TaskTable table = taskDataAccess.findTable();
+        assertThat(table.size()).isEqualTo(501);
+        assertThat(table.getName(0)).isEqualTo("task1");
+        assertThat(table.toTask(500).getName()).isEqualTo("added");
+    }
+
+    @Test
+    public void testReplacedFileIsParsedAgain() throws IOException {
+        Path csv = dir.resolve("tasks.csv");
+        Files.writeString(csv, "Code,Name,Status,Rep_User_Code\n1,taskA,0,1\n2,taskB,0,2\n");
+        TaskSnapshot snapshot = TaskSnapshot.open(csv.toString());
+        snapshot.refresh();
+        snapshot.saveIfChanged();
+
+        // 別のファイルで置き換える（ファイルキーが変わる）
+        Path replacement = dir.resolve("replacement.csv");
+        Files.writeString(replacement, "Code,Name,Status,Rep_User_Code\n3,taskC,1,1\n");
+        Files.move(replacement, csv, StandardCopyOption.REPLACE_EXISTING);
+
+        TaskSnapshot restarted = TaskSnapshot.open(csv.toString());
+        assertThat(restarted.refresh().size()).isEqualTo(1);
+        assertThat(snapshot.refresh().size()).isEqualTo(1); // 実行中のインスタンスも解析し直す
+    }
+
+    @Test
+    public void testFindAllFollowsSaveUpdateAndDelete() throws IOException {
+        Files.writeString(dir.resolve("tasks.csv"), "Code,Name,Status,Rep_User_Code\n");
+        TaskDataAccess taskDataAccess = newTaskDataAccess(false);
+        taskDataAccess.save(new Task(1, "taskA", 0, user1));
+        taskDataAccess.save(new Task(2, "taskB", 0, user1));
+        assertThat(taskDataAccess.findAll()).extracting(Task::getName).containsExactly("taskA", "taskB");
+
+        Task task = taskDataAccess.findByCode(1);
+        task.setStatus(1);
+        taskDataAccess.update(task);
+        taskDataAccess.delete(2);
+        taskDataAccess.save(new Task(3, "taskC", 0, user1));
+        assertThat(taskDataAccess.findAll()).extracting(t -> t.getCode() + "," + t.getStatus() + "," + t.getVersion())
+                .containsExactly("1,1,1", "3,0,0");
+    }
+
+    @Test
+    public void testAppendedUpdatesReplaceEarlierRows() throws IOException {
+        Files.writeString(dir.resolve("tasks.csv"), "Code,Name,Status,Rep_User_Code\n");
+        TaskDataAccess taskDataAccess = newTaskDataAccess(true);
+        taskDataAccess.save(new Task(1, "taskA", 0, user1));
+        taskDataAccess.save(new Task(2, "taskB", 0, user1));
+        assertThat(taskDataAccess.findAll()).hasSize(2);
+
+        Task task = taskDataAccess.findByCode(1);
+        task.setStatus(2);
+        taskDataAccess.update(task); // 末尾に追記した行が最初の行を置き換える
+        assertThat(taskDataAccess.findAll()).extracting(t -> t.getCode() + "," + t.getStatus())
+                .containsExactly("1,2", "2,0");
+    }
+
+    /**
+     * 起動直後の最初の読み込みにかかる時間を、CSVを解析する場合とスナップショットを読み込む場合で比較して表示します（gradle loadTestで実行）。
+     */
+    @Tag("load")
+    @Test
+    public void testColdStartFromSnapshot() throws IOException {
+        Path csv = dir.resolve("tasks.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(csv)) {
+            writer.write("Code,Name,Status,Rep_User_Code\n");
+            for (int code = 1; code <= 2_000_000; code++) {
+                writer.write(code + ",task" + (code % 1000) + "," + (code % 3) + "," + (code % 2 + 1) + "\n");
+            }
+        }
+        long start = System.nanoTime();
+        TaskSnapshot parsed = TaskSnapshot.open(csv.toString());
+        int size = parsed.refresh().size();
+        long parseMillis = (System.nanoTime() - start) / 1_000_000;
+        parsed.saveIfChanged();
+        Files.writeString(csv, "2000001,added,0,1\n", StandardOpenOption.APPEND);
+
+        start = System.nanoTime();
+        int restored = TaskSnapshot.open(csv.toString()).refresh().size(); // 再起動した場合と同じ状態から読み込む
+        long loadMillis = (System.nanoTime() - start) / 1_000_000;
+        System.out.printf("%d行：CSVの解析%dミリ秒、スナップショットと追記分の読み込み%dミリ秒%n", size, parseMillis, loadMillis);
+
+        assertThat(restored).isEqualTo(size + 1);
+    }
+
+    private TaskDataAccess newTaskDataAccess(boolean appendUpdates) {
+        System.setProperty("taskapp.task.snapshot", "true");
+        System.setProperty("taskapp.task.appendUpdates", Boolean.toString(appendUpdates));
+        try {
+            return new TaskDataAccess(dir.resolve("tasks.csv").toString(), new UserDataAccess(TEST_FILE_PATH_USER));
+        } finally {
+            System.clearProperty("taskapp.task.snapshot");
+            System.clearProperty("taskapp.task.appendUpdates");
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.taskapp.dataaccess;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+public class TaskStatusCountersTest {
+    private static final String TEST_FILE_PATH_USER = "src/test/resources/test_users.csv";
+
+    @TempDir
+    Path dir;
+
+    private final User user1 = new User(1, "鈴木一郎", "test1@example.com", "password1");
+
+    @Test
+    public void testRebuildFromTaskFile() throws IOException {
+        // 同じタスクコードの2行目は数えない
+        Files.writeString(dir.resolve("tasks.csv"), "Code,Name,Status,Rep_User_Code\n1,taskA,0,1\n2,taskB,1,1\n"
+                + "3,taskC,2,2\n4,taskD,0,2\n2,taskB,2,1\n5,taskE,0,9\n");
+        TaskStatusCounters counters = open(newTaskDataAccess());
+
+        assertThat(counters.count(1, 0)).isEqualTo(1);
+        assertThat(counters.count(1, 1)).isEqualTo(1);
+        assertThat(counters.count(1, 2)).isEqualTo(0);
+        assertThat(counters.countsByUser()).containsOnlyKeys(1, 2); // 存在しないユーザーのタスクは数えない
+        assertThat(counters.countsByUser().get(2)).containsExactly(1, 0, 1);
+        assertThat(Files.readAllLines(dir.resolve("tasks_counts.csv"))).startsWith("Tasks_Size,Tasks_Modified")
+                .contains("Rep_User_Code,Status,Count", "1,0,1", "1,1,1", "2,0,1", "2,2,1");
+    }
+
+    @Test
+    public void testSnapshotIsReadAfterRestart() throws IOException {
+        Files.writeString(dir.resolve("tasks.csv"), "Code,Name,Status,Rep_User_Code\n1,taskA,0,1\n");
+        TaskDataAccess taskDataAccess = newTaskDataAccess();
+        TaskStatusCounters counters = open(taskDataAccess);
+        TaskStatusCounters.Change change = counters.begin();
+        try {
+            taskDataAccess.save(new Task(2, "taskB", 0, user1));
+            change.add(1, 0);
+        } finally {
+            change.close();
+        }
+
+        // タスクのファイルと一致するスナップショットがあれば、タスクのファイルを読み込まない
+        TaskStatusCounters restarted = open(new StripedLocks(), () -> {
+            throw new AssertionError("タスクのファイルを読み込みました");
+        });
+        assertThat(restarted.count(1, 0)).isEqualTo(2);
+    }
+
+    @Test
+    public void testStaleSnapshotIsRebuilt() throws IOException {
+        Files.writeString(dir.resolve("tasks.csv"), "Code,Name,Status,Rep_User_Code\n1,taskA,0,1\n");
+        assertThat(open(newTaskDataAccess()).count(1, 0)).isEqualTo(1);
+
+        // スナップショットの保存後にタスクのファイルを直接編集した
+        Files.writeString(dir.resolve("tasks.csv"), "Code,Name,Status,Rep_User_Code\n1,taskA,2,1\n2,taskB,0,2\n");
+        TaskStatusCounters restarted = open(newTaskDataAccess());
+
+        assertThat(restarted.count(1, 0)).isEqualTo(0);
+        assertThat(restarted.count(1, 2)).isEqualTo(1);
+        assertThat(restarted.count(2, 0)).isEqualTo(1);
+    }
+
+    @Test
+    public void testSnapshotIsSavedWhenNoChangeIsPending() throws IOException {
+        Files.writeString(dir.resolve("tasks.csv"), "Code,Name,Status,Rep_User_Code\n1,taskA,0,1\n");
+        TaskStatusCounters counters = open(newTaskDataAccess());
+        counters.count(1, 0);
+
+        TaskStatusCounters.Change first = counters.begin();
+        TaskStatusCounters.Change second = counters.begin();
+        first.move(1, 0, 1);
+        first.close();
+        assertThat(Files.readAllLines(dir.resolve("tasks_counts.csv"))).contains("1,0,1"); // 他の変更が実行中
+        second.close();
+        second.close(); // 2回目は何もしない
+        assertThat(Files.readAllLines(dir.resolve("tasks_counts.csv"))).contains("1,1,1").doesNotContain("1,0,1");
+    }
+
+    private TaskDataAccess newTaskDataAccess() {
+        return new TaskDataAccess(dir.resolve("tasks.csv").toString(), new UserDataAccess(TEST_FILE_PATH_USER));
+    }
+
+    private TaskStatusCounters open(TaskDataAccess taskDataAccess) {
+        return open(taskDataAccess.getLocks(), taskDataAccess::findTable);
+    }
+
+    private TaskStatusCounters open(StripedLocks locks, Supplier<TaskTable> source) {
+        System.setProperty("taskapp.task.countsSaveDelayMillis", "0"); // 変更を閉じた時点で保存する
+        try {
+            return TaskStatusCounters.open(dir.resolve("tasks.csv").toString(), dir.resolve("tasks.csv"), locks, source);
+        } finally {
+            System.clearProperty("taskapp.task.countsSaveDelayMillis");
+        }
+    }
+}
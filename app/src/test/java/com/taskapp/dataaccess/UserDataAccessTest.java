@@ -2,9 +2,20 @@ package com.taskapp.dataaccess;
 
 import static org.assertj.core.api.Assertions.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.taskapp.model.User;
 
@@ -35,4 +46,130 @@ public class UserDataAccessTest {
 
         assertThat(actualUser).isEqualToComparingFieldByField(expectedUser);
     }
+
+    @Test
+    public void testFindAll() {
+        List<User> users = userDataAccess.findAll();
+
+        assertThat(users).extracting(User::getCode).containsExactly(1, 2);
+        assertThat(users.get(1)).isEqualToComparingFieldByField(
+                new User(2, "鈴木二郎", "test2@example.com", "password2"));
+    }
+
+    @Test
+    public void testReloadWhenFileChanges(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("users.csv");
+        Files.writeString(file, "Code,Name,Email,Password\n1,鈴木一郎,test1@example.com,password1\n");
+        UserDataAccess dataAccess = newDataAccess(file, 0);
+
+        assertThat(dataAccess.findByCode(3)).isNull();
+
+        Files.writeString(file, "Code,Name,Email,Password\n1,鈴木一郎,test1@example.com,password1\n"
+                + "3,鈴木三郎,test3@example.com,password3\n");
+
+        assertThat(dataAccess.findByCode(3).getName()).isEqualTo("鈴木三郎");
+        assertThat(dataAccess.findByEmailAndPassword("test3@example.com", "password3")).isNotNull();
+        assertThat(dataAccess.findByEmailAndPassword("test3@example.com", "wrong")).isNull();
+    }
+
+    @Test
+    public void testCodeLookupChecksFileOnce(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("users.csv");
+        Files.writeString(file, "Code,Name,Email,Password\n1,鈴木一郎,test1@example.com,password1\n");
+        UserDataAccess dataAccess = newDataAccess(file, 0);
+        IntFunction<User> lookup = dataAccess.codeLookup();
+
+        Files.writeString(file, "Code,Name,Email,Password\n1,鈴木一郎,test1@example.com,password1\n"
+                + "3,鈴木三郎,test3@example.com,password3\n");
+
+        // 取得した時点の索引だけを参照し、ファイルの変更は次の操作から反映する
+        assertThat(lookup.apply(1).getName()).isEqualTo("鈴木一郎");
+        assertThat(lookup.apply(3)).isNull();
+        assertThat(dataAccess.codeLookup().apply(3).getName()).isEqualTo("鈴木三郎");
+    }
+
+    @Test
+    public void testFileIsCheckedAtMostOncePerInterval(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("users.csv");
+        Files.writeString(file, "Code,Name,Email,Password\n1,鈴木一郎,test1@example.com,password1\n");
+        UserDataAccess dataAccess = newDataAccess(file, 60_000);
+        assertThat(dataAccess.findByCode(1)).isNotNull();
+
+        Files.delete(file);
+
+        // 間隔が経つまではファイルを確認せず、読み込み済みの索引を使う
+        assertThat(dataAccess.findByCode(1).getName()).isEqualTo("鈴木一郎");
+    }
+
+    @Test
+    public void testReloadWhenModifiedWithinSameMillisecond(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("users.csv");
+        Files.writeString(file, "Code,Name,Email,Password\n1,鈴木一郎,test1@example.com,password1\n");
+        FileTime modified = FileTime.from(TimeUnit.MILLISECONDS.toNanos(1_700_000_000_000L), TimeUnit.NANOSECONDS);
+        Files.setLastModifiedTime(file, modified);
+        UserDataAccess dataAccess = newDataAccess(file, 0);
+        assertThat(dataAccess.findByCode(1)).isNotNull();
+
+        // サイズが同じで、更新日時がミリ秒未満だけ異なる変更
+        Files.writeString(file, "Code,Name,Email,Password\n3,鈴木三郎,test3@example.com,password3\n");
+        Files.setLastModifiedTime(file, FileTime.from(modified.to(TimeUnit.NANOSECONDS) + 1000, TimeUnit.NANOSECONDS));
+
+        assertThat(dataAccess.findByCode(3).getName()).isEqualTo("鈴木三郎");
+    }
+
+    @Test
+    public void testHashPasswords(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("users.csv");
+        Files.writeString(file, "Code,Name,Email,Password\n1,鈴木一郎,test1@example.com,password1\n"
+                + "2,鈴木二郎,test2@example.com,password2\n");
+        UserDataAccess dataAccess = new UserDataAccess(file.toString());
+        assertThat(dataAccess.findByEmailAndPassword("test1@example.com", "password1")).isNotNull();
+
+        System.setProperty("taskapp.password.iterations", "1000");
+        try {
+            assertThat(dataAccess.hashPasswords()).isEqualTo(2);
+            assertThat(dataAccess.hashPasswords()).isZero(); // 変換済みの行は変換しない
+        } finally {
+            System.clearProperty("taskapp.password.iterations");
+        }
+
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines.get(1)).startsWith("1,鈴木一郎,test1@example.com,pbkdf2$1000$").doesNotContain("password1");
+        assertThat(lines.get(1).split("\\$")[2]).isNotEqualTo(lines.get(2).split("\\$")[2]); // ソルトは行ごとに異なる
+        // 保存された反復回数で照合するため、設定を戻した後もログインできる
+        assertThat(dataAccess.findByEmailAndPassword("test1@example.com", "password1").getCode()).isEqualTo(1);
+        assertThat(dataAccess.findByEmailAndPassword("test2@example.com", "password2").getCode()).isEqualTo(2);
+        assertThat(dataAccess.findByEmailAndPassword("test1@example.com", "password2")).isNull();
+        assertThat(dataAccess.findByEmailAndPassword("unknown@example.com", "password1")).isNull();
+    }
+
+    @Test
+    public void testInvalidIterationCountsNeverMatch(@TempDir Path dir) throws IOException {
+        String salt = Base64.getEncoder().encodeToString(new byte[16]);
+        String plain = Base64.getEncoder().encodeToString("password1".getBytes(StandardCharsets.UTF_8));
+        Path file = dir.resolve("users.csv");
+        Files.writeString(file, "Code,Name,Email,Password\n"
+                + "1,鈴木一郎,test1@example.com,pbkdf2$0$" + salt + "$" + plain + "\n" // 平文として照合されない
+                + "2,鈴木二郎,test2@example.com,pbkdf2$-5$" + salt + "$" + plain + "\n"
+                + "3,鈴木三郎,test3@example.com,pbkdf2$x$" + salt + "$" + plain + "\n");
+        UserDataAccess dataAccess = new UserDataAccess(file.toString());
+
+        System.setProperty("taskapp.password.iterations", "1000");
+        try {
+            assertThat(dataAccess.findByEmailAndPassword("test1@example.com", "password1")).isNull();
+            assertThat(dataAccess.findByEmailAndPassword("test2@example.com", "password1")).isNull(); // 例外にならない
+            assertThat(dataAccess.findByEmailAndPassword("test3@example.com", "password1")).isNull();
+        } finally {
+            System.clearProperty("taskapp.password.iterations");
+        }
+    }
+
+    private static UserDataAccess newDataAccess(Path file, long checkIntervalMillis) {
+        System.setProperty("taskapp.users.checkIntervalMillis", Long.toString(checkIntervalMillis));
+        try {
+            return new UserDataAccess(file.toString());
+        } finally {
+            System.clearProperty("taskapp.users.checkIntervalMillis");
+        }
+    }
 }
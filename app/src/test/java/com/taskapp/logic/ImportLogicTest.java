@@ -0,0 +1,94 @@
+package com.taskapp.logic;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.exception.AppException;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+public class ImportLogicTest {
+    @TempDir
+    Path dir;
+
+    private Path taskFile;
+    private Path logFile;
+    private ImportLogic importLogic;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        taskFile = dir.resolve("tasks.csv");
+        logFile = dir.resolve("logs.csv");
+        Files.copy(Paths.get("src/test/resources/test_tasks.csv"), taskFile);
+        Files.copy(Paths.get("src/test/resources/test_logs.csv"), logFile);
+        UserDataAccess userDataAccess = new UserDataAccess("src/test/resources/test_users.csv");
+        importLogic = new ImportLogic(new TaskDataAccess(taskFile.toString(), userDataAccess),
+                new LogDataAccess(logFile.toString()), userDataAccess);
+    }
+
+    @Test
+    public void testImportTasks() throws IOException, AppException {
+        Path input = dir.resolve("import.csv");
+        Files.writeString(input, "Code,Name,Status,Rep_User_Code\n"
+                + "10,taskJ,0,1\n"
+                + "11,taskK,2,2\n"
+                + "3,taskC,0,1\n"   // 登録済みのタスクコード
+                + "11,taskL,0,1\n"  // ファイル内で重複するタスクコード
+                + "12,taskM,0,9\n"  // 存在しない担当ユーザー
+                + "x,taskN,0,1\n");
+
+        ImportResult result = importLogic.importTasks(input.toString(), 1);
+
+        assertThat(result.getImportedCount()).isEqualTo(2);
+        assertThat(result.getErrors()).hasSize(4);
+        assertThat(result.getErrors().get(0)).startsWith("4行目：");
+        assertThat(Files.readAllLines(taskFile)).hasSize(7).endsWith("10,taskJ,0,1", "11,taskK,2,2");
+        List<String> logs = Files.readAllLines(logFile);
+        assertThat(logs).hasSize(10);
+        assertThat(logs.get(9)).startsWith("11,1,2,");
+    }
+
+    @Test
+    public void testCodesSavedDuringImportAreSkipped() throws IOException, AppException {
+        Path input = dir.resolve("import.csv");
+        Files.writeString(input, "Code,Name,Status,Rep_User_Code\n10,taskJ,0,1\n11,taskK,0,2\n");
+        UserDataAccess userDataAccess = new UserDataAccess("src/test/resources/test_users.csv");
+        TaskDataAccess taskDataAccess = new TaskDataAccess(taskFile.toString(), userDataAccess) {
+            @Override
+            public Set<Integer> findAllCodes() {
+                Set<Integer> codes = super.findAllCodes();
+                // 登録済みのタスクコードを読み込んだ後に、他の操作が同じタスクコードを登録する
+                new TaskDataAccess(taskFile.toString(), userDataAccess)
+                        .save(new Task(10, "taskX", 0, new User(2, "鈴木二郎", "test2@example.com", "password2")));
+                return codes;
+            }
+        };
+        ImportLogic logic = new ImportLogic(taskDataAccess, new LogDataAccess(logFile.toString()), userDataAccess);
+
+        ImportResult result = logic.importTasks(input.toString(), 1);
+
+        assertThat(result.getImportedCount()).isEqualTo(1);
+        assertThat(result.getErrors()).containsExactly("2行目：タスクコード10は既に登録されています");
+        assertThat(Files.readAllLines(taskFile)).endsWith("10,taskX,0,2", "11,taskK,0,2");
+    }
+
+    @Test
+    public void testImportTasksWithUnknownUser() {
+        assertThatThrownBy(() -> importLogic.importTasks(dir.resolve("import.csv").toString(), 9))
+                .isInstanceOf(AppException.class)
+                .hasMessage("存在するユーザーコードを入力してください");
+    }
+}
@@ -0,0 +1,105 @@
+package com.taskapp.logic;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.taskapp.dataaccess.InMemoryLogRepository;
+import com.taskapp.dataaccess.InMemoryTaskRepository;
+import com.taskapp.dataaccess.InMemoryUserRepository;
+import com.taskapp.dataaccess.TaskPage;
+import com.taskapp.exception.AppException;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+public class InMemoryTaskLogicTest {
+    private final User user1 = new User(1, "鈴木一郎", "test1@example.com", "password1");
+    private final User user2 = new User(2, "鈴木二郎", "test2@example.com", "password2");
+
+    private InMemoryTaskRepository tasks;
+    private InMemoryLogRepository logs;
+    private TaskLogic taskLogic;
+
+    @BeforeEach
+    public void setUp() {
+        InMemoryUserRepository users = new InMemoryUserRepository(List.of(user1, user2));
+        tasks = new InMemoryTaskRepository(users);
+        logs = new InMemoryLogRepository();
+        taskLogic = new TaskLogic(tasks, logs, users);
+    }
+
+    @Test
+    public void testTaskOperations() throws AppException {
+        taskLogic.save(1, "taskA", 1, user1);
+        taskLogic.save(2, "taskB", 2, user1);
+        taskLogic.save(3, "taskC", 2, user2);
+        assertThatThrownBy(() -> taskLogic.save(1, "taskX", 1, user1)).isInstanceOf(AppException.class)
+                .hasMessage("登録されていないタスクコードを入力してください");
+
+        taskLogic.changeStatus(2, 1, user2);
+        taskLogic.changeStatus(2, 2, user2);
+        taskLogic.changeStatus(3, 1, user2);
+        assertThat(taskLogic.countByRepUser().get(2)).containsExactly(0, 1, 1);
+
+        taskLogic.delete(2);
+        assertThat(tasks.findAll()).extracting(t -> t.getCode() + "," + t.getStatus() + "," + t.getVersion())
+                .containsExactly("1,0,0", "3,1,1");
+        assertThat(logs.findAll()).extracting(log -> log.getTaskCode() + "," + log.getStatus())
+                .containsExactly("1,0", "3,0", "3,1");
+        assertThat(taskLogic.recountByRepUser().get(2)).containsExactly(0, 1, 0);
+    }
+
+    @Test
+    public void testNameWithSeparatorIsRejected() {
+        for (String name : List.of("a,b", "a\nb", "a\rb")) {
+            assertThatThrownBy(() -> taskLogic.save(1, name, 1, user1)).isInstanceOf(AppException.class)
+                    .hasMessage("タスク名にカンマと改行は使えません");
+        }
+        assertThat(tasks.existsByCode(1)).isFalse();
+        assertThat(logs.size()).isZero();
+    }
+
+    @Test
+    public void testStaleUpdateIsRejected() throws AppException {
+        taskLogic.save(1, "taskA", 1, user1);
+        Task stale = tasks.findByCode(1);
+        taskLogic.changeStatus(1, 1, user1);
+
+        stale.setStatus(1);
+        assertThatThrownBy(() -> tasks.update(stale)).hasMessageContaining("バージョンが一致しません");
+        taskLogic.changeStatus(1, 2, user1);
+        assertThat(taskLogic.deleteCompleted()).isEqualTo(1);
+        assertThat(tasks.existsByCode(1)).isFalse();
+        assertThat(logs.size()).isZero();
+    }
+
+    @Test
+    public void testPagesAndLogs() throws AppException {
+        for (int code = 1; code <= 5; code++) {
+            taskLogic.save(code, "task" + code, 1, user1);
+        }
+        tasks.delete(2);
+        TaskPage first = taskLogic.findPage(0, 2);
+        assertThat(first.getTasks()).extracting(Task::getCode).containsExactly(1, 3);
+        TaskPage second = taskLogic.findPage(first.getNextOffset(), 2);
+        assertThat(second.getTasks()).extracting(Task::getCode).containsExactly(4, 5);
+        assertThat(second.hasNext()).isFalse();
+
+        LocalDate today = LocalDate.now();
+        assertThat(taskLogic.findLogs(today, today, 3, null)).hasSize(1);
+        assertThat(taskLogic.analyzeLogs().getLogCount()).isEqualTo(5L);
+    }
+
+    @Test
+    public void testLogin() throws AppException {
+        UserLogic userLogic = new UserLogic(new InMemoryUserRepository(List.of(user1, user2)));
+
+        assertThat(userLogic.login("test2@example.com", "password2").getCode()).isEqualTo(2);
+        assertThatThrownBy(() -> userLogic.login("test2@example.com", "password1")).isInstanceOf(AppException.class);
+        assertThat(userLogic.findByCode(1).getName()).isEqualTo("鈴木一郎");
+    }
+}
@@ -0,0 +1,153 @@
+package com.taskapp.logic;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.model.User;
+
+public class TaskJournalRecoveryTest {
+    private static final String USERS = "src/test/resources/test_users.csv";
+    private static final String LOG_HEADER = "Task_Code,Change_User_Code,Status,Change_Date\n";
+
+    @TempDir
+    Path dir;
+
+    private final User loginUser = new User(1, "鈴木一郎", "test1@example.com", "password1");
+
+    @Test
+    public void testUnfinishedOperationsAreRedone() throws Exception {
+        Files.writeString(dir.resolve("tasks.csv"), "Code,Name,Status,Rep_User_Code\n1,taskA,1,1,1\n2,taskB,0,2\n");
+        Files.writeString(dir.resolve("logs.csv"), LOG_HEADER + "1,1,0,2024-12-01\n2,1,0,2024-12-01\n");
+        long logSize = Files.size(dir.resolve("logs.csv"));
+        // 異常終了したときのジャーナル
+        Files.writeString(dir.resolve("tasks_journal.csv"),
+                sealed("1,B,SAVE,3,2,1,2024-12-02,0,taskC") // タスクもログも書き込む前
+                        + sealed("2,B,STATUS,1,0,1,2,2024-12-02," + logSize) // タスクを更新した後
+                        + sealed("3,B,STATUS,2,0,1,2,2024-12-02," + logSize) // 何も書き込む前
+                        + sealed("4,B,SAVE,4,1,1,2024-12-02,0,taskD") + sealed("4,C") // 完了済み
+                        + "5,B,SAVE,5,1,1,2024-"); // 記録の途中で終了した
+
+        TaskLogic taskLogic = newTaskLogic();
+
+        assertThat(Files.readAllLines(dir.resolve("tasks.csv"))).containsExactly("Code,Name,Status,RepUserCode",
+                "1,taskA,1,1,1", "2,taskB,1,2,1", "3,taskC,0,2");
+        assertThat(Files.readAllLines(dir.resolve("logs.csv"))).containsExactly(LOG_HEADER.trim(), "1,1,0,2024-12-01",
+                "2,1,0,2024-12-01", "3,1,0,2024-12-02", "1,2,1,2024-12-02", "2,2,1,2024-12-02");
+        assertThat(Files.size(dir.resolve("tasks_journal.csv"))).isZero();
+
+        // やり直した後の操作は新しく記録する
+        taskLogic.changeStatus(3, 1, loginUser);
+        assertThat(Files.readAllLines(dir.resolve("tasks_journal.csv"))).hasSize(2).contains(sealed("5,C").trim());
+    }
+
+    @Test
+    public void testAppliedPartsAreSkipped() throws IOException {
+        Files.writeString(dir.resolve("tasks.csv"), "Code,Name,Status,Rep_User_Code\n1,taskA,1,1,1\n3,taskC,2,1,2\n");
+        Files.writeString(dir.resolve("logs.csv"), LOG_HEADER + "1,1,0,2024-12-01\n1,2,1,2024-12-02\n"
+                + "2,1,0,2024-12-01\n2,1,1,2024-12-01\n3,1,2,2024-12-03\n");
+        Files.writeString(dir.resolve("tasks_journal.csv"),
+                sealed("1,B,STATUS,1,0,1,2,2024-12-02,0") // ログまで保存済み
+                        + sealed("2,B,STATUS,3,0,1,1,2024-12-02,0") // その後さらに更新されている
+                        + sealed("3,B,DELETE,2;4")); // タスクを削除した後、ログを削除する前
+
+        newTaskLogic();
+
+        assertThat(Files.readAllLines(dir.resolve("tasks.csv"))).containsExactly("Code,Name,Status,Rep_User_Code",
+                "1,taskA,1,1,1", "3,taskC,2,1,2"); // 削除済みのため書き換えない
+        assertThat(Files.readAllLines(dir.resolve("logs.csv"))).containsExactly(LOG_HEADER.trim(), "1,1,0,2024-12-01",
+                "1,2,1,2024-12-02", "3,1,2,2024-12-03");
+    }
+
+    @Test
+    public void testUnfinishedImportIsRedone() throws IOException {
+        Files.writeString(dir.resolve("tasks.csv"), "Code,Name,Status,Rep_User_Code\n1,taskA,0,1\n");
+        Files.writeString(dir.resolve("logs.csv"), LOG_HEADER + "1,1,0,2024-12-01\n");
+        long logSize = Files.size(dir.resolve("logs.csv"));
+        Files.writeString(dir.resolve("tasks.csv"), "3,taskC,2,2\n", StandardOpenOption.APPEND);
+        Files.writeString(dir.resolve("logs.csv"), "3,1,2,2024-12-02\n", StandardOpenOption.APPEND);
+        // 1件目のタスクとログだけを書き込んだ後に異常終了したときのジャーナル
+        Files.writeString(dir.resolve("tasks_journal.csv"),
+                sealed("1,B,IMPORT,1,2024-12-02," + logSize + ",3,2,2,taskC,4,0,1,taskD,5,1,9,taskE"));
+
+        newTaskLogic();
+
+        // 担当者が存在しないタスクは作らず、そのログも保存しない
+        assertThat(Files.readAllLines(dir.resolve("tasks.csv"))).containsExactly("Code,Name,Status,Rep_User_Code",
+                "1,taskA,0,1", "3,taskC,2,2", "4,taskD,0,1");
+        assertThat(Files.readAllLines(dir.resolve("logs.csv"))).containsExactly(LOG_HEADER.trim(), "1,1,0,2024-12-01",
+                "3,1,2,2024-12-02", "4,1,0,2024-12-02");
+        assertThat(Files.size(dir.resolve("tasks_journal.csv"))).isZero();
+    }
+
+    @Test
+    public void testMalformedJournalLinesAreSkipped() throws IOException {
+        Files.writeString(dir.resolve("tasks.csv"), "Code,Name,Status,Rep_User_Code\n");
+        Files.writeString(dir.resolve("logs.csv"), LOG_HEADER);
+        Files.writeString(dir.resolve("tasks_journal.csv"),
+                sealed("1,B,SAVE,3,2,1,2024-12-02,0,ta\nskC") // 改行を含む名前で分かれた行
+                        + "2,B,SAVE,5,1,1,2024-12-02,0,taskE,0000abcd\n" // チェックサムが一致しない行
+                        + sealed("3,B,STATUS,x,0,1,2,2024-12-02,0") // 値が壊れた記録
+                        + sealed("4,B,SAVE,4,1,1,2024-12-02,0,taskD"));
+
+        newTaskLogic();
+
+        // 完全な記録だけをやり直し、途中で分かれた記録からタスクを作らない
+        assertThat(Files.readAllLines(dir.resolve("tasks.csv"))).containsExactly("Code,Name,Status,Rep_User_Code",
+                "4,taskD,0,1");
+        assertThat(Files.size(dir.resolve("tasks_journal.csv"))).isZero();
+    }
+
+    @Test
+    public void testJournalIsEmptiedWhenNoOperationIsRunning() throws Exception {
+        Files.writeString(dir.resolve("tasks.csv"), "Code,Name,Status,Rep_User_Code\n");
+        Files.writeString(dir.resolve("logs.csv"), LOG_HEADER);
+        System.setProperty("taskapp.journal.maxBytes", "1");
+        TaskLogic taskLogic;
+        try {
+            taskLogic = newTaskLogic();
+        } finally {
+            System.clearProperty("taskapp.journal.maxBytes");
+        }
+
+        taskLogic.save(1, "taskA", 1, loginUser);
+        taskLogic.changeStatus(1, 1, loginUser);
+        taskLogic.changeStatus(1, 2, loginUser);
+        taskLogic.delete(1);
+
+        assertThat(Files.size(dir.resolve("tasks_journal.csv"))).isZero();
+        assertThat(Files.readAllLines(dir.resolve("logs.csv"))).containsExactly(LOG_HEADER.trim());
+    }
+
+    /**
+     * TaskJournalと同じ形式で、記録の末尾にCRC32のチェックサムと改行を追加します。
+     */
+    private static String sealed(String record) {
+        CRC32 crc = new CRC32();
+        crc.update(record.getBytes(StandardCharsets.UTF_8));
+        return record + "," + String.format("%08x", crc.getValue()) + "\n";
+    }
+
+    private TaskLogic newTaskLogic() {
+        System.setProperty("taskapp.journal", "true");
+        System.setProperty("taskapp.journal.fsync", "false");
+        try {
+            return new TaskLogic(new TaskDataAccess(dir.resolve("tasks.csv").toString(), new UserDataAccess(USERS)),
+                    new LogDataAccess(dir.resolve("logs.csv").toString()), new UserDataAccess(USERS));
+        } finally {
+            System.clearProperty("taskapp.journal");
+            System.clearProperty("taskapp.journal.fsync");
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.taskapp.logic;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.exception.AppException;
+import com.taskapp.model.User;
+
+public class TaskLogicConcurrencyTest {
+    private static final String USERS = "src/test/resources/test_users.csv";
+
+    @TempDir
+    Path dir;
+
+    private final User loginUser = new User(1, "鈴木一郎", "test1@example.com", "password1");
+
+    @Test
+    public void testOnlyOneTransitionWinsOnSameTask() throws Exception {
+        writeTasks(1);
+        TaskLogic taskLogic = newTaskLogic(false);
+        AtomicInteger succeeded = new AtomicInteger();
+        List<Callable<Void>> calls = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            calls.add(() -> {
+                try {
+                    taskLogic.changeStatus(1, 1, loginUser);
+                    succeeded.incrementAndGet();
+                } catch (AppException e) { // 先に変更されたため確認を通らない
+                }
+                return null;
+            });
+        }
+        runAll(calls, 16);
+
+        assertThat(succeeded.get()).isEqualTo(1);
+        assertThat(Files.readAllLines(dir.resolve("logs.csv"))).filteredOn(line -> line.startsWith("1,1,1,")).hasSize(1);
+    }
+
+    @Test
+    public void testNoLostUpdatesAcrossInstances() throws Exception {
+        int tasks = 200;
+        writeTasks(tasks);
+        // 同じファイルを扱う別々のインスタンスからの書き換えもロックを共有して1つずつ実行される
+        TaskLogic[] taskLogics = { newTaskLogic(false), newTaskLogic(false) };
+        List<Callable<Void>> calls = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            calls.add(() -> {
+                for (int code = thread + 1; code <= tasks; code += 8) {
+                    taskLogics[code % 2].changeStatus(code, 1, loginUser);
+                    taskLogics[(code + 1) % 2].changeStatus(code, 2, loginUser);
+                }
+                return null;
+            });
+        }
+        runAll(calls, 8);
+
+        assertThat(newTaskDataAccess(false).findAll()).hasSize(tasks).allMatch(task -> task.getStatus() == 2);
+        assertThat(Files.readAllLines(dir.resolve("logs.csv"))).hasSize(1 + tasks * 2);
+    }
+
+    @Test
+    public void testStatusCountersFollowConcurrentChanges() throws Exception {
+        int tasks = 100;
+        writeTasks(tasks);
+        TaskLogic taskLogic = newTaskLogic(false);
+        assertThat(taskLogic.countByRepUser().get(1)).containsExactly(50, 0, 0);
+        List<Callable<Void>> calls = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            calls.add(() -> {
+                for (int code = thread + 1; code <= tasks; code += 4) {
+                    taskLogic.changeStatus(code, 1, loginUser);
+                    if (code % 3 == 0) {
+                        taskLogic.changeStatus(code, 2, loginUser);
+                    }
+                }
+                taskLogic.save(tasks + thread + 1, "added", thread % 2 + 1, loginUser);
+                return null;
+            });
+        }
+        runAll(calls, 4);
+        taskLogic.deleteCompleted();
+
+        // 差分だけを反映した集計値が、タスクのファイルから数え直した値と一致する
+        assertThat(taskLogic.countByRepUser().get(1)).containsExactly(2, 34, 0);
+        assertThat(taskLogic.countByRepUser().get(2)).containsExactly(2, 33, 0);
+        assertThat(taskLogic.recountByRepUser().get(1)).containsExactly(2, 34, 0);
+        assertThat(taskLogic.recountByRepUser().get(2)).containsExactly(2, 33, 0);
+    }
+
+    @Test
+    public void testAppendUpdatesUnderContention() throws Exception {
+        int tasks = 400;
+        writeTasks(tasks);
+        // 変更の途中でバックグラウンドの圧縮が何度も走るよう、閾値を小さくする
+        System.setProperty("taskapp.task.compactThreshold", "50");
+        TaskLogic[] taskLogics;
+        try {
+            taskLogics = new TaskLogic[] { newTaskLogic(true), newTaskLogic(true) };
+        } finally {
+            System.clearProperty("taskapp.task.compactThreshold");
+        }
+        List<Callable<Void>> calls = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int thread = t;
+            calls.add(() -> {
+                for (int code = thread + 1; code <= tasks; code += 8) {
+                    taskLogics[code % 2].changeStatus(code, 1, loginUser);
+                    taskLogics[(code + 1) % 2].changeStatus(code, 2, loginUser);
+                }
+                return null;
+            });
+        }
+        runAll(calls, 8);
+
+        // 追記と圧縮が競合しても、全ての変更が1回ずつ反映される
+        assertThat(newTaskDataAccess(true).findAll()).hasSize(tasks)
+                .allMatch(task -> task.getStatus() == 2 && task.getVersion() == 2);
+        assertThat(Files.readAllLines(dir.resolve("logs.csv"))).hasSize(1 + tasks * 2);
+    }
+
+    private void writeTasks(int count) throws IOException {
+        StringBuilder csv = new StringBuilder("Code,Name,Status,Rep_User_Code");
+        for (int code = 1; code <= count; code++) {
+            csv.append('\n').append(code).append(",task").append(code).append(",0,").append(code % 2 + 1);
+        }
+        Files.writeString(dir.resolve("tasks.csv"), csv);
+        Files.writeString(dir.resolve("logs.csv"), "Task_Code,Change_User_Code,Status,Change_Date\n");
+    }
+
+    private TaskLogic newTaskLogic(boolean appendUpdates) {
+        TaskDataAccess taskDataAccess = newTaskDataAccess(appendUpdates);
+        return new TaskLogic(taskDataAccess, new LogDataAccess(dir.resolve("logs.csv").toString()),
+                new UserDataAccess(USERS));
+    }
+
+    private TaskDataAccess newTaskDataAccess(boolean appendUpdates) {
+        System.setProperty("taskapp.task.appendUpdates", Boolean.toString(appendUpdates));
+        try {
+            return new TaskDataAccess(dir.resolve("tasks.csv").toString(), new UserDataAccess(USERS));
+        } finally {
+            System.clearProperty("taskapp.task.appendUpdates");
+        }
+    }
+
+    private static void runAll(List<Callable<Void>> calls, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<Void> future : executor.invokeAll(calls)) {
+                future.get(); // 失敗したスレッドの例外を伝える
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
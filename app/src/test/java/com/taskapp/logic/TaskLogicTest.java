@@ -4,15 +4,19 @@ import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import com.taskapp.dataaccess.FileRewrite;
 import com.taskapp.dataaccess.LogDataAccess;
 import com.taskapp.dataaccess.TaskDataAccess;
 import com.taskapp.dataaccess.UserDataAccess;
@@ -82,6 +86,19 @@ public class TaskLogicTest {
         verify(logDataAccess).save(any(Log.class));
     }
 
+    @Test
+    public void testSaveRejectsDuplicateCode() {
+        User loginUser = new User(1, "John", "", "");
+        when(taskDataAccess.existsByCode(1)).thenReturn(true);
+        when(userDataAccess.findByCode(2)).thenReturn(new User(2, "Alice", "", ""));
+
+        assertThatThrownBy(() -> taskLogic.save(1, "Task 1", 2, loginUser))
+                .isInstanceOf(AppException.class)
+                .hasMessage("登録されていないタスクコードを入力してください");
+        verify(taskDataAccess, never()).save(any(Task.class));
+        verify(logDataAccess, never()).save(any(Log.class));
+    }
+
     @Tag("Q4")
     @Test
     public void testChangeStatus() throws AppException {
@@ -123,4 +140,41 @@ public class TaskLogicTest {
         verify(taskDataAccess).delete(code);
         verify(logDataAccess).deleteByTaskCode(code);
     }
+
+    @Test
+    public void testDeleteAllPreparesBothFilesBeforeCommitting() throws AppException, IOException {
+        int code = 1;
+        Task task = new Task(code, "Task 1", 2, new User(2, "Alice", "", ""));
+        when(taskDataAccess.findAll()).thenReturn(List.of(task));
+
+        // tasks.csvとlogs.csvの書き換えをモックにする
+        FileRewrite taskRewrite = mock(FileRewrite.class);
+        FileRewrite logRewrite = mock(FileRewrite.class);
+        when(taskDataAccess.prepareDelete(anyCollection())).thenReturn(taskRewrite);
+        when(logDataAccess.prepareDeleteByTaskCodes(anyCollection())).thenReturn(logRewrite);
+
+        taskLogic.deleteAll(List.of(code));
+
+        // 両方の書き換えを準備してから、ログ、タスクの順に確定する
+        InOrder inOrder = inOrder(taskDataAccess, logDataAccess, logRewrite, taskRewrite);
+        inOrder.verify(taskDataAccess).prepareDelete(Set.of(code));
+        inOrder.verify(logDataAccess).prepareDeleteByTaskCodes(Set.of(code));
+        inOrder.verify(logRewrite).commit();
+        inOrder.verify(taskRewrite).commit();
+    }
+
+    @Test
+    public void testDeleteAllCommitsNothingWhenPreparingFails() throws AppException, IOException {
+        int code = 1;
+        Task task = new Task(code, "Task 1", 2, new User(2, "Alice", "", ""));
+        when(taskDataAccess.findAll()).thenReturn(List.of(task));
+        FileRewrite taskRewrite = mock(FileRewrite.class);
+        when(taskDataAccess.prepareDelete(anyCollection())).thenReturn(taskRewrite);
+        when(logDataAccess.prepareDeleteByTaskCodes(anyCollection())).thenThrow(new IOException("disk full"));
+
+        assertThatThrownBy(() -> taskLogic.deleteAll(List.of(code))).isInstanceOf(AppException.class)
+                .hasMessage("タスクの削除に失敗しました");
+        verify(taskRewrite, never()).commit();
+        verify(taskRewrite).abort();
+    }
 }
\ No newline at end of file
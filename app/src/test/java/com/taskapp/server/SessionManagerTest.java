@@ -0,0 +1,113 @@
+package com.taskapp.server;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import com.taskapp.model.User;
+
+public class SessionManagerTest {
+    private final AtomicLong now = new AtomicLong(); // テスト用の時刻（ナノ秒）
+    private final User user1 = new User(1, "鈴木一郎", "test1@example.com", "password1");
+    private final User user2 = new User(2, "鈴木二郎", "test2@example.com", "password2");
+
+    @Test
+    public void testIdleSessionExpires() {
+        SessionManager sessions = new SessionManager(10, 100, 1000, now::get);
+        String token = sessions.create(user1);
+
+        now.set(99);
+        assertThat(sessions.find(token)).isSameAs(user1); // 使うたびに期限が延びる
+        now.set(198);
+        assertThat(sessions.find(token)).isSameAs(user1);
+        now.set(298);
+
+        assertThat(sessions.find(token)).isNull();
+        assertThat(sessions.size()).isZero();
+        assertThat(sessions.getHits()).isEqualTo(2L);
+        assertThat(sessions.getMisses()).isEqualTo(1L);
+        assertThat(sessions.getEvictions()).isEqualTo(1L);
+    }
+
+    @Test
+    public void testSessionExpiresAfterAbsoluteTtl() {
+        SessionManager sessions = new SessionManager(10, 100, 250, now::get);
+        String token = sessions.create(user1);
+        for (long time = 50; time < 250; time += 50) {
+            now.set(time);
+            assertThat(sessions.find(token)).isSameAs(user1);
+        }
+        now.set(250);
+        assertThat(sessions.find(token)).isNull(); // 使い続けていても発行からの期限で失効する
+
+        // 期限切れのセッションは次の発行時にも取り除く
+        String expired = sessions.create(user1);
+        now.set(500);
+        String token2 = sessions.create(user2);
+        assertThat(sessions.size()).isEqualTo(1);
+        assertThat(sessions.find(expired)).isNull();
+        assertThat(sessions.find(token2)).isSameAs(user2);
+    }
+
+    @Test
+    public void testOldestSessionIsEvictedWhenFull() {
+        SessionManager sessions = new SessionManager(2, 100, 1000, now::get);
+        String first = sessions.create(user1);
+        String second = sessions.create(user2);
+        sessions.invalidate(second); // ログアウトしたセッションは数えない
+        String third = sessions.create(user2);
+        String fourth = sessions.create(user1);
+
+        assertThat(sessions.size()).isEqualTo(2);
+        assertThat(sessions.find(first)).isNull();
+        assertThat(sessions.find(second)).isNull();
+        assertThat(sessions.find(third)).isSameAs(user2);
+        assertThat(sessions.find(fourth)).isSameAs(user1);
+        assertThat(sessions.getEvictions()).isEqualTo(1L);
+        assertThat(sessions.invalidate("unknown")).isFalse();
+    }
+
+    @Test
+    public void testRemovedSessionsDoNotAccumulateBehindLongLivedSession() {
+        SessionManager sessions = new SessionManager(10, 100, 1_000_000, now::get);
+        String longLived = sessions.create(user1);
+        for (int i = 0; i < 1000; i++) {
+            now.set(i);
+            sessions.find(longLived); // 先頭のセッションを使い続ける
+            sessions.invalidate(sessions.create(user2));
+        }
+
+        assertThat(sessions.size()).isEqualTo(1);
+        assertThat(sessions.queued()).isLessThanOrEqualTo(2 * 10 + 1);
+        assertThat(sessions.find(longLived)).isSameAs(user1);
+    }
+
+    @Test
+    public void testFullScanIsRateLimited() {
+        SessionManager sessions = new SessionManager(3, 100, 1000, now::get);
+        sessions.create(user1);
+        now.set(6);
+        String second = sessions.create(user2);
+        now.set(7);
+        String third = sessions.create(user1);
+
+        now.set(105);
+        String fourth = sessions.create(user2); // 上限に達したので全件を確認し、使われずに失効した最初のものを取り除く
+        assertThat(sessions.getEvictions()).isEqualTo(1L);
+
+        now.set(110); // second、thirdも失効したが、前回の確認から待機時間の1/10が経過していない
+        sessions.create(user1);
+        assertThat(sessions.size()).isEqualTo(3); // 古く発行されたsecondだけを取り除く
+        assertThat(sessions.getEvictions()).isEqualTo(2L);
+
+        now.set(115);
+        sessions.create(user2); // 再び全件を確認し、thirdを取り除く
+        assertThat(sessions.size()).isEqualTo(3);
+        assertThat(sessions.getEvictions()).isEqualTo(3L);
+        assertThat(sessions.find(fourth)).isSameAs(user2);
+        assertThat(sessions.find(second)).isNull();
+        assertThat(sessions.find(third)).isNull();
+    }
+}
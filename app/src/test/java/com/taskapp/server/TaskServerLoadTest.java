@@ -0,0 +1,117 @@
+package com.taskapp.server;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.logic.TaskLogic;
+import com.taskapp.logic.UserLogic;
+
+/**
+ * TaskServerに多数のクライアントから同時に要求し、応答時間のp50とp99を表示する負荷試験です。
+ * 通常のtestタスクでは実行せず、gradle loadTestで実行します。
+ * クライアント数と1クライアントあたりの要求数は-Dtaskapp.load.clients、-Dtaskapp.load.requestsで変更できます。
+ */
+@Tag("load")
+public class TaskServerLoadTest {
+    private static final int CLIENTS = Integer.getInteger("taskapp.load.clients", 1000);
+    private static final int REQUESTS = Integer.getInteger("taskapp.load.requests", 20);
+    private static final int TASKS = 10000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testConcurrentClients() throws Exception {
+        Path taskFile = dir.resolve("tasks.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(taskFile)) {
+            writer.write("Code,Name,Status,Rep_User_Code");
+            for (int i = 1; i <= TASKS; i++) {
+                writer.write("\n" + i + ",task" + i + "," + (i % 3) + "," + (i % 2 + 1));
+            }
+        }
+        Path logFile = dir.resolve("logs.csv");
+        Files.copy(Paths.get("src/test/resources/test_logs.csv"), logFile);
+        UserDataAccess userDataAccess = new UserDataAccess("src/test/resources/test_users.csv");
+        TaskLogic taskLogic = new TaskLogic(new TaskDataAccess(taskFile.toString(), userDataAccess),
+                new LogDataAccess(logFile.toString()), userDataAccess);
+        TaskServer server = new TaskServer(0, new UserLogic(userDataAccess), taskLogic);
+        server.start();
+
+        String base = "http://localhost:" + server.getPort();
+        HttpRequest login = HttpRequest.newBuilder(URI.create(base + "/login"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"test1@example.com\",\"password\":\"password1\"}"))
+                .build();
+        HttpClient client = HttpClient.newHttpClient();
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger failures = new AtomicInteger();
+        List<Future<long[]>> results = new ArrayList<>();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < CLIENTS; c++) {
+                int clientNo = c;
+                results.add(clients.submit(() -> {
+                    long[] latencies = new long[REQUESTS];
+                    String token = null;
+                    start.await(); // 全てのクライアントが同時に要求を始める
+                    for (int r = 0; r < REQUESTS; r++) {
+                        // 10回に1回はログイン、それ以外は最後のログインのトークンでクライアントごとに異なる位置の一覧
+                        HttpRequest request = r % 10 == 0 ? login
+                                : HttpRequest.newBuilder(URI.create(base + "/tasks?limit=20&offset="
+                                        + (clientNo * 997L + r * 131L) % (TASKS * 10L)))
+                                        .header("Authorization", "Bearer " + token).build();
+                        long begin = System.nanoTime();
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        latencies[r] = System.nanoTime() - begin;
+                        if (response.statusCode() != 200) {
+                            failures.incrementAndGet();
+                        } else if (request == login) {
+                            String body = response.body();
+                            token = body.substring(body.indexOf("\"token\":\"") + 9, body.length() - 2);
+                        }
+                    }
+                    return latencies;
+                }));
+            }
+            start.countDown();
+        } finally {
+            server.stop(0);
+        }
+
+        long[] all = new long[CLIENTS * REQUESTS];
+        for (int c = 0; c < CLIENTS; c++) {
+            System.arraycopy(results.get(c).get(), 0, all, c * REQUESTS, REQUESTS);
+        }
+        Arrays.sort(all);
+        System.out.printf("クライアント数：%d、要求数：%d、p50：%.2fms、p99：%.2fms、最大：%.2fms%n",
+                CLIENTS, all.length, percentile(all, 50) / 1e6, percentile(all, 99) / 1e6, all[all.length - 1] / 1e6);
+        assertThat(failures.get()).isZero();
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        int index = (int) Math.ceil(sorted.length * percent / 100.0) - 1;
+        return sorted[Math.max(index, 0)];
+    }
+}
@@ -0,0 +1,147 @@
+package com.taskapp.server;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.logic.TaskLogic;
+import com.taskapp.logic.UserLogic;
+
+public class TaskServerTest {
+    @TempDir
+    Path dir;
+
+    private Path taskFile;
+    private TaskServer server;
+    private SessionManager sessions;
+    private HttpClient client;
+    private String token1; // 鈴木一郎のトークン
+    private String token2; // 鈴木二郎のトークン
+
+    @BeforeEach
+    public void setUp() throws IOException, InterruptedException {
+        taskFile = dir.resolve("tasks.csv");
+        Path logFile = dir.resolve("logs.csv");
+        Files.copy(Paths.get("src/test/resources/test_tasks.csv"), taskFile);
+        Files.copy(Paths.get("src/test/resources/test_logs.csv"), logFile);
+        UserDataAccess userDataAccess = new UserDataAccess("src/test/resources/test_users.csv");
+        TaskLogic taskLogic = new TaskLogic(new TaskDataAccess(taskFile.toString(), userDataAccess),
+                new LogDataAccess(logFile.toString()), userDataAccess);
+        sessions = new SessionManager();
+        server = new TaskServer(0, new UserLogic(userDataAccess), taskLogic, sessions);
+        server.start();
+        client = HttpClient.newHttpClient();
+        token1 = login("test1@example.com", "password1");
+        token2 = login("test2@example.com", "password2");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testLogin() throws Exception {
+        HttpResponse<String> response = send("POST", "/login", null,
+                "{\"email\":\"test1@example.com\",\"password\":\"password1\"}");
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).startsWith("{\"code\":1,\"name\":\"鈴木一郎\",\"token\":\"").endsWith("\"}");
+        assertThat(response.body().matches(".*\"token\":\"[A-Za-z0-9_-]{43}\".*")).isTrue();
+        assertThat(response.body()).doesNotContain(token1); // ログインのたびに異なるトークンを発行する
+
+        response = send("POST", "/login", null, "{\"email\":\"test1@example.com\",\"password\":\"wrong\"}");
+        assertThat(response.statusCode()).isEqualTo(400);
+        assertThat(response.body()).contains("既に登録されているメールアドレス、パスワードを入力してください");
+    }
+
+    @Test
+    public void testTaskOperations() throws Exception {
+        HttpResponse<String> response = send("GET", "/tasks?limit=3", token1, null);
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).startsWith("{\"tasks\":[{\"code\":1,\"name\":\"taskA\",\"status\":0,")
+                .doesNotContain("taskD").doesNotContain("\"nextOffset\":null");
+
+        assertThat(send("POST", "/tasks", token1, "{\"code\":5,\"name\":\"taskE\",\"repUserCode\":2}").statusCode())
+                .isEqualTo(201);
+        assertThat(send("POST", "/tasks", token1, "{\"code\":5,\"name\":\"taskE\",\"repUserCode\":2}").body())
+                .contains("登録されていないタスクコードを入力してください");
+        assertThat(send("POST", "/tasks/5/status", token1, "{\"status\":1}").statusCode()).isEqualTo(200);
+        assertThat(send("DELETE", "/tasks/3", token2, null).statusCode()).isEqualTo(200);
+
+        assertThat(Files.readAllLines(taskFile)).hasSize(5)
+                .endsWith("1,taskA,0,1", "2,taskB,0,2", "4,taskD,1,2", "5,taskE,1,2,1"); // 更新した行にはバージョンが付く
+        assertThat(send("GET", "/tasks/counts", token1, null).body())
+                .isEqualTo("{\"counts\":[{\"repUserCode\":1,\"statuses\":[1,0,0]},{\"repUserCode\":2,\"statuses\":[1,2,0]}]}");
+    }
+
+    @Test
+    public void testFindLogs() throws Exception {
+        HttpResponse<String> response = send("GET", "/logs?from=2024-01-11&to=2024-01-12&changeUserCode=2", token1,
+                null);
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).isEqualTo("{\"logs\":[{\"taskCode\":3,\"changeUserCode\":2,\"status\":1,"
+                + "\"changeDate\":\"2024-01-11\"},{\"taskCode\":3,\"changeUserCode\":2,\"status\":2,\"changeDate\":\"2024-01-12\"}]}");
+        assertThat(send("GET", "/logs?from=2024-01-01&to=2024-01-31&taskCode=9", token1, null).body())
+                .isEqualTo("{\"logs\":[]}");
+    }
+
+    @Test
+    public void testRejectsInvalidRequests() throws Exception {
+        assertThat(send("GET", "/tasks", null, null).statusCode()).isEqualTo(401);
+        assertThat(send("GET", "/tasks", "unknown", null).statusCode()).isEqualTo(401);
+        assertThat(send("POST", "/tasks", token1, "{\"code\":").statusCode()).isEqualTo(400);
+        assertThat(send("POST", "/tasks", token1, "{\"code\":9,\"name\":\"a,b\",\"repUserCode\":1}").statusCode())
+                .isEqualTo(400);
+        assertThat(send("POST", "/tasks", token1, "{\"code\":9,\"name\":\"a\\nb\",\"repUserCode\":1}").statusCode())
+                .isEqualTo(400);
+        assertThat(send("POST", "/tasks/x/status", token1, "{\"status\":1}").statusCode()).isEqualTo(400);
+        assertThat(send("PUT", "/tasks/1", token1, "{}").statusCode()).isEqualTo(405);
+        assertThat(send("GET", "/tasks/1/owner", token1, null).statusCode()).isEqualTo(404);
+        assertThat(send("GET", "/logs?from=2024-01-12", token1, null).statusCode()).isEqualTo(400);
+        assertThat(send("GET", "/logs?from=2024-01-12&to=2024-01-11", token1, null).statusCode()).isEqualTo(400);
+    }
+
+    @Test
+    public void testLogout() throws Exception {
+        assertThat(send("GET", "/tasks/counts", token1, null).statusCode()).isEqualTo(200);
+        assertThat(send("POST", "/logout", token1, null).statusCode()).isEqualTo(200);
+
+        assertThat(send("GET", "/tasks/counts", token1, null).statusCode()).isEqualTo(401);
+        assertThat(send("POST", "/logout", token1, null).statusCode()).isEqualTo(401);
+        assertThat(send("GET", "/tasks/counts", token2, null).statusCode()).isEqualTo(200); // 他のセッションは有効なまま
+        assertThat(sessions.getHits()).isEqualTo(2L);
+        assertThat(sessions.getMisses()).isEqualTo(1L);
+    }
+
+    private String login(String email, String password) throws IOException, InterruptedException {
+        String body = send("POST", "/login", null, "{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}")
+                .body();
+        return body.substring(body.indexOf("\"token\":\"") + 9, body.length() - 2);
+    }
+
+    private HttpResponse<String> send(String method, String path, String token, String body)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,156 @@
+package com.taskapp.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+
+/**
+ * ベンチマーク用のusers.csv、tasks.csv、logs.csvを生成するクラスです。
+ * 生成したファイルは行数ごとに一時ディレクトリへ保存して使い回し、各ベンチマークは作業用ディレクトリにコピーして使います。
+ * 10,000,000行のファイルは生成に時間がかかるため、2回目以降の実行では保存済みのファイルを使います。
+ *
+ * <p>生成されるデータは次のとおりです。
+ * <ul>
+ * <li>ユーザー：コード1〜n、メールアドレスはuser{コード}@example.com、パスワードはpassword{コード}</li>
+ * <li>タスク：コード1〜n、ステータスはコードを3で割った余り、担当ユーザーは順番に割り当て</li>
+ * <li>ログ：1タスクあたり3行（ステータス0〜2）、変更日は2020-01-01から順に進める</li>
+ * </ul>
+ */
+final class BenchData {
+    /** タスクとログのベンチマークで使うユーザー数 */
+    static final int USER_COUNT = 1000;
+
+    // 生成したファイルの保存先（-Dtaskapp.bench.dataDir=ディレクトリで変更可能）
+    private static final Path CACHE_DIR = Paths.get(System.getProperty("taskapp.bench.dataDir",
+            Paths.get(System.getProperty("java.io.tmpdir"), "taskapp-bench-data").toString()));
+
+    private BenchData() {
+    }
+
+    /**
+     * 指定した行数のusers.csvを返します。
+     *
+     * @param rows ユーザー数
+     * @return 保存済みのファイル（変更しないでください）
+     * @throws IOException ファイルの書き込みに失敗した場合
+     */
+    static Path users(int rows) throws IOException {
+        return cached("users-" + rows + ".csv", writer -> {
+            writer.write("Code,Name,Email,Password");
+            writer.newLine();
+            for (int i = 1; i <= rows; i++) {
+                writer.write(i + ",user" + i + "," + email(i) + "," + password(i));
+                writer.newLine();
+            }
+        });
+    }
+
+    /**
+     * 指定した行数のtasks.csvを返します。
+     *
+     * @param rows  タスク数
+     * @param users 担当ユーザーとして割り当てるユーザー数
+     * @return 保存済みのファイル（変更しないでください）
+     * @throws IOException ファイルの書き込みに失敗した場合
+     */
+    static Path tasks(int rows, int users) throws IOException {
+        return cached("tasks-" + rows + "-" + users + ".csv", writer -> {
+            writer.write("Code,Name,Status,Rep_User_Code");
+            writer.newLine();
+            for (int i = 1; i <= rows; i++) {
+                writer.write(i + ",task" + (i % 100000) + "," + (i % 3) + "," + (i % users + 1));
+                writer.newLine();
+            }
+        });
+    }
+
+    /**
+     * 指定した行数のlogs.csvを返します。
+     *
+     * @param rows  ログの行数
+     * @param users 変更ユーザーとして割り当てるユーザー数
+     * @return 保存済みのファイル（変更しないでください）
+     * @throws IOException ファイルの書き込みに失敗した場合
+     */
+    static Path logs(int rows, int users) throws IOException {
+        return cached("logs-" + rows + "-" + users + ".csv", writer -> {
+            writer.write("Task_Code,Change_User_Code,Status,Change_Date");
+            writer.newLine();
+            LocalDate start = LocalDate.of(2020, 1, 1);
+            for (int i = 0; i < rows; i++) {
+                writer.write((i / 3 + 1) + "," + (i % users + 1) + "," + (i % 3) + "," + start.plusDays(i % 1500));
+                writer.newLine();
+            }
+        });
+    }
+
+    /**
+     * 生成したユーザーのメールアドレスを返します。
+     */
+    static String email(int code) {
+        return "user" + code + "@example.com";
+    }
+
+    /**
+     * 生成したユーザーのパスワードを返します。
+     */
+    static String password(int code) {
+        return "password" + code;
+    }
+
+    /**
+     * ベンチマークごとの作業用ディレクトリを作成し、保存済みのファイルをコピーします。
+     *
+     * @param sources コピーする保存済みのファイルと、コピー先のファイル名の組（交互に指定）
+     * @return 作業用ディレクトリ
+     * @throws IOException コピーに失敗した場合
+     */
+    static Path workDir(Object... sources) throws IOException {
+        Path dir = Files.createTempDirectory("taskapp-bench");
+        for (int i = 0; i < sources.length; i += 2) {
+            Files.copy((Path) sources[i], dir.resolve((String) sources[i + 1]), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return dir;
+    }
+
+    /**
+     * 作業用ディレクトリを中のファイルごと削除します。
+     *
+     * @param dir 作業用ディレクトリ
+     * @throws IOException 削除に失敗した場合
+     */
+    static void deleteDir(Path dir) throws IOException {
+        try (var files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    private static synchronized Path cached(String name, Generator generator) throws IOException {
+        Path file = CACHE_DIR.resolve(name);
+        if (Files.exists(file)) {
+            return file;
+        }
+        Files.createDirectories(CACHE_DIR);
+        Path temp = Files.createTempFile(CACHE_DIR, name, ".tmp");
+        try (BufferedWriter writer = new BufferedWriter(
+                Files.newBufferedWriter(temp, StandardCharsets.UTF_8), 1 << 20)) {
+            generator.write(writer);
+        }
+        // 生成途中のファイルを使わないよう、書き終えてから名前を変える
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return file;
+    }
+
+    @FunctionalInterface
+    private interface Generator {
+        void write(BufferedWriter writer) throws IOException;
+    }
+}
@@ -0,0 +1,60 @@
+package com.taskapp.bench;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.dataaccess.LogReport;
+
+/**
+ * LogDataAccess#analyzeの集計時間を、Fork/Joinのスレッド数ごとに計測します。
+ * スレッド数1との比較で、ファイルを範囲に分けた並列読み込みがコア数に応じて速くなることを確認します。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LogAnalyticsBenchmark {
+    // 50,000,000行で約1GBのlogs.csvになる
+    @Param({ "1000000", "50000000" })
+    public int rowCount;
+
+    @Param({ "1", "4", "16" })
+    public int threads;
+
+    private Path dir;
+    private LogDataAccess logDataAccess;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = BenchData.workDir(BenchData.logs(rowCount, 50), "logs.csv");
+        logDataAccess = new LogDataAccess(dir.resolve("logs.csv").toString());
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        BenchData.deleteDir(dir);
+    }
+
+    @Benchmark
+    public LogReport analyze() throws InterruptedException, ExecutionException {
+        // プールのスレッドから呼び出すと、そのプールで並列に集計する
+        return pool.submit(logDataAccess::analyze).get();
+    }
+}
@@ -0,0 +1,96 @@
+package com.taskapp.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.model.Log;
+
+/**
+ * LogDataAccessのfindAll、save、deleteByTaskCodeをログの行数と削除方式ごとに計測します。
+ * deleteByTaskCodeはファイルを書き換えるため、1回の計測ごとに元のファイルに戻してから1回だけ実行します。
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LogDataAccessBenchmark {
+    @Param({ "1000", "100000", "10000000" })
+    public int rows;
+
+    // taskapp.log.tombstonesの値
+    @Param({ "false", "true" })
+    public boolean tombstones;
+
+    private Path master;
+    private Path dir;
+    private Path file;
+    private LogDataAccess logDataAccess;
+    private Log log;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        master = BenchData.logs(rows, BenchData.USER_COUNT);
+        dir = BenchData.workDir(master, "logs.csv");
+        file = dir.resolve("logs.csv");
+        System.setProperty("taskapp.log.tombstones", Boolean.toString(tombstones));
+        try {
+            logDataAccess = new LogDataAccess(file.toString());
+        } finally {
+            System.clearProperty("taskapp.log.tombstones");
+        }
+        log = new Log(rows / 3 + 1, 1, 0, LocalDate.of(2024, 1, 1));
+    }
+
+    /**
+     * deleteByTaskCodeの計測前にファイルと削除マーカーを元に戻します。
+     */
+    @Setup(Level.Iteration)
+    public void restore() throws IOException {
+        logDataAccess.compact(); // 前回の計測で追加した削除マーカーを消去する（削除マーカーがなければ何もしない）
+        Files.copy(master, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchData.deleteDir(dir);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public List<Log> findAll() {
+        return logDataAccess.findAll();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public void save() {
+        logDataAccess.save(log);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 2, batchSize = 1)
+    @Measurement(iterations = 5, batchSize = 1)
+    public void deleteByTaskCode() {
+        next = next * 31 + 7; // 計測ごとに異なるタスクのログを削除する
+        logDataAccess.deleteByTaskCode(Math.floorMod(next, rows / 3 + 1) + 1);
+    }
+}
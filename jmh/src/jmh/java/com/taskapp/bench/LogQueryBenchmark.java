@@ -0,0 +1,70 @@
+package com.taskapp.bench;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.dataaccess.StorageConverter;
+import com.taskapp.model.Log;
+
+/**
+ * 1か月分のログを1人のユーザーで絞り込む検索を、1つのlogs.csvと月ごとのファイル（-Dtaskapp.log.partitioned=true）で比較します。
+ * 生成するログは約50か月に分かれるため、月ごとのファイルでは読み込む量が約1/50になります。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LogQueryBenchmark {
+    private static final LocalDate FROM = LocalDate.of(2021, 12, 1);
+    private static final LocalDate TO = LocalDate.of(2021, 12, 31);
+
+    @Param({ "1000000", "10000000" })
+    public int rowCount;
+
+    private Path dir;
+    private LogDataAccess singleFile;
+    private LogDataAccess partitioned;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = BenchData.workDir(BenchData.logs(rowCount, 50), "logs.csv");
+        String logFile = dir.resolve("logs.csv").toString();
+        StorageConverter.logsToPartitions(logFile);
+        singleFile = new LogDataAccess(logFile);
+        System.setProperty("taskapp.log.partitioned", "true");
+        try {
+            partitioned = new LogDataAccess(logFile);
+        } finally {
+            System.clearProperty("taskapp.log.partitioned");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchData.deleteDir(dir);
+    }
+
+    @Benchmark
+    public List<Log> singleFile() {
+        return singleFile.find(FROM, TO, null, 2);
+    }
+
+    @Benchmark
+    public List<Log> partitioned() {
+        return partitioned.find(FROM, TO, null, 2);
+    }
+}
@@ -0,0 +1,79 @@
+package com.taskapp.bench;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.model.Log;
+
+/**
+ * logs.csvの読み込みについて、従来のBufferedReader＋String#splitによる実装と
+ * LogDataAccess#findAll（メモリマップによる読み込み）を比較します。
+ * 1行あたりの割り当て量は {@code -prof gc} の gc.alloc.rate.norm を行数で割って比較してください。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LogReadBenchmark {
+    // 50,000,000行で約1GBのlogs.csvになる
+    @Param({ "100000", "1000000" })
+    public int rowCount;
+
+    private Path dir;
+    private Path file;
+    private LogDataAccess logDataAccess;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = BenchData.workDir(BenchData.logs(rowCount, 50), "logs.csv");
+        file = dir.resolve("logs.csv");
+        logDataAccess = new LogDataAccess(file.toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchData.deleteDir(dir);
+    }
+
+    @Benchmark
+    public List<Log> mappedReader() {
+        return logDataAccess.findAll();
+    }
+
+    @Benchmark
+    public List<Log> bufferedReaderSplit() throws IOException {
+        List<Log> logs = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file.toFile()))) {
+            String line;
+            reader.readLine();
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(",");
+                if (values.length == 4) {
+                    int taskCode = Integer.parseInt(values[0].trim());
+                    int changeUserCode = Integer.parseInt(values[1].trim());
+                    int status = Integer.parseInt(values[2].trim());
+                    LocalDate changeDate = LocalDate.parse(values[3].trim());
+                    logs.add(new Log(taskCode, changeUserCode, status, changeDate));
+                }
+            }
+        }
+        return logs;
+    }
+}
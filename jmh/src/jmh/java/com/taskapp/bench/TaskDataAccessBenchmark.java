@@ -0,0 +1,81 @@
+package com.taskapp.bench;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.model.Task;
+import com.taskapp.model.User;
+
+/**
+ * TaskDataAccessのfindAll、findByCode、updateをタスク数と更新方式ごとに計測します。
+ * updateは同じ内容で上書きするため、計測中もタスクの内容は変わりません（バージョンだけが進み、追記型の場合は行が増えます）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TaskDataAccessBenchmark {
+    @Param({ "1000", "100000", "10000000" })
+    public int rows;
+
+    // taskapp.task.appendUpdatesの値
+    @Param({ "false", "true" })
+    public boolean appendUpdates;
+
+    private Path dir;
+    private TaskDataAccess taskDataAccess;
+    private Task updateTask;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = BenchData.workDir(BenchData.users(BenchData.USER_COUNT), "users.csv",
+                BenchData.tasks(rows, BenchData.USER_COUNT), "tasks.csv");
+        System.setProperty("taskapp.task.appendUpdates", Boolean.toString(appendUpdates));
+        try {
+            UserDataAccess userDataAccess = new UserDataAccess(dir.resolve("users.csv").toString());
+            taskDataAccess = new TaskDataAccess(dir.resolve("tasks.csv").toString(), userDataAccess);
+        } finally {
+            System.clearProperty("taskapp.task.appendUpdates");
+        }
+        int code = rows / 2;
+        User repUser = new User(code % BenchData.USER_COUNT + 1, "", "", "");
+        updateTask = new Task(code, "task" + (code % 100000), code % 3, repUser);
+        taskDataAccess.findByCode(1); // 索引ファイルを計測前に作成する
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchData.deleteDir(dir);
+    }
+
+    @Benchmark
+    public List<Task> findAll() {
+        return taskDataAccess.findAll();
+    }
+
+    @Benchmark
+    public Task findByCode() {
+        next = next * 31 + 7; // 毎回異なるタスクコードを引く
+        return taskDataAccess.findByCode(Math.floorMod(next, rows) + 1);
+    }
+
+    @Benchmark
+    public void update() {
+        taskDataAccess.update(updateTask);
+    }
+}
@@ -0,0 +1,58 @@
+package com.taskapp.bench;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.model.Task;
+
+/**
+ * TaskDataAccess#findAllの担当ユーザー解決コストを計測します。
+ * タスク数とユーザー数をそれぞれ変化させ、処理時間がタスク数×ユーザー数ではなく
+ * タスク数＋ユーザー数に比例することを確認します。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TaskFindAllBenchmark {
+    @Param({ "1000", "20000", "200000" })
+    public int taskCount;
+
+    @Param({ "10", "500", "5000" })
+    public int userCount;
+
+    private Path dir;
+    private TaskDataAccess taskDataAccess;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = BenchData.workDir(BenchData.users(userCount), "users.csv",
+                BenchData.tasks(taskCount, userCount), "tasks.csv");
+        taskDataAccess = new TaskDataAccess(dir.resolve("tasks.csv").toString(),
+                new UserDataAccess(dir.resolve("users.csv").toString()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchData.deleteDir(dir);
+    }
+
+    @Benchmark
+    public List<Task> findAll() {
+        return taskDataAccess.findAll();
+    }
+}
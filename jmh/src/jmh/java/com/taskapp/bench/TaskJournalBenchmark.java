@@ -0,0 +1,70 @@
+package com.taskapp.bench;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.exception.AppException;
+import com.taskapp.logic.TaskLogic;
+import com.taskapp.model.User;
+
+/**
+ * TaskLogic#saveの1件あたりの時間を、ジャーナルなし、ジャーナルあり（同期なし）、ジャーナルあり（記録ごとに同期）で計測します。
+ * 記録の追記自体の費用と、ディスクへの同期の費用を分けて確認します。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TaskJournalBenchmark {
+    @Param({ "off", "nosync", "fsync" })
+    public String journal;
+
+    private Path dir;
+    private TaskLogic taskLogic;
+    private User loginUser;
+    private int nextCode;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        int rows = 1000;
+        dir = BenchData.workDir(BenchData.users(BenchData.USER_COUNT), "users.csv",
+                BenchData.tasks(rows, BenchData.USER_COUNT), "tasks.csv",
+                BenchData.logs(rows, BenchData.USER_COUNT), "logs.csv");
+        System.setProperty("taskapp.journal", Boolean.toString(!"off".equals(journal)));
+        System.setProperty("taskapp.journal.fsync", Boolean.toString("fsync".equals(journal)));
+        try {
+            UserDataAccess userDataAccess = new UserDataAccess(dir.resolve("users.csv").toString());
+            taskLogic = new TaskLogic(new TaskDataAccess(dir.resolve("tasks.csv").toString(), userDataAccess),
+                    new LogDataAccess(dir.resolve("logs.csv").toString()), userDataAccess);
+            loginUser = userDataAccess.findByCode(1);
+        } finally {
+            System.clearProperty("taskapp.journal");
+            System.clearProperty("taskapp.journal.fsync");
+        }
+        nextCode = rows + 1;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchData.deleteDir(dir);
+    }
+
+    @Benchmark
+    public void save() throws AppException {
+        taskLogic.save(nextCode++, "bench", 1, loginUser);
+    }
+}
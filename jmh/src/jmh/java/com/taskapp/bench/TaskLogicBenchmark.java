@@ -0,0 +1,126 @@
+package com.taskapp.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.taskapp.dataaccess.InMemoryLogRepository;
+import com.taskapp.dataaccess.InMemoryTaskRepository;
+import com.taskapp.dataaccess.InMemoryUserRepository;
+import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.TaskPage;
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.exception.AppException;
+import com.taskapp.logic.TaskLogic;
+import com.taskapp.model.User;
+
+/**
+ * TaskLogicのshowAll、showPage、changeStatus、countByRepUserをタスク数ごとに計測します。
+ * 出力は計測中だけ破棄します。showFirstPageは最初のページの表示時間で、タスク数に関係なく一定になることを確認します。
+ * countByRepUserは集計値を読むだけのため、タスクのファイルを全て読むshowAllと違いタスク数に関係なく一定になります。
+ * changeStatusはステータスが未着手（コードが3の倍数）のタスクを順に着手中、完了へと進め、
+ * 進められるタスクがなくなった場合はファイルを元に戻します。元に戻す処理は計測に含まれますが、
+ * タスク数の2/3回に1回だけのため、1,000行の場合でも1回あたりの影響は小さくなります。
+ * ファイルを元に戻した後の集計値は実際のタスク数と一致しませんが、計測する処理の量は変わりません。
+ * engineがmemoryの場合は同じタスクをメモリ上のリポジトリに読み込んで計測し、csvとの差からファイルの読み書きの費用を分けて確認します
+ * （元に戻す処理はリポジトリの作り直しです）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TaskLogicBenchmark {
+    @Param({ "1000", "100000", "10000000" })
+    public int rows;
+
+    @Param({ "csv", "memory" })
+    public String engine;
+
+    private Path master;
+    private Path dir;
+    private TaskLogic taskLogic;
+    private User loginUser;
+    private PrintStream originalOut;
+    private int changed; // changeStatusで進めた回数
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        master = BenchData.tasks(rows, BenchData.USER_COUNT);
+        dir = BenchData.workDir(BenchData.users(BenchData.USER_COUNT), "users.csv", master, "tasks.csv",
+                BenchData.logs(Math.max(3, rows / 10), BenchData.USER_COUNT), "logs.csv");
+        taskLogic = newTaskLogic();
+
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    /**
+     * 作業用のファイル、またはその内容を読み込んだメモリ上のリポジトリを使うTaskLogicを作成します。
+     */
+    private TaskLogic newTaskLogic() {
+        UserDataAccess userDataAccess = new UserDataAccess(dir.resolve("users.csv").toString());
+        TaskDataAccess taskDataAccess = new TaskDataAccess(dir.resolve("tasks.csv").toString(), userDataAccess);
+        LogDataAccess logDataAccess = new LogDataAccess(dir.resolve("logs.csv").toString());
+        loginUser = userDataAccess.findByCode(1);
+        if (engine.equals("csv")) {
+            return new TaskLogic(taskDataAccess, logDataAccess, userDataAccess);
+        }
+        InMemoryUserRepository users = new InMemoryUserRepository(userDataAccess.findAll());
+        InMemoryTaskRepository tasks = new InMemoryTaskRepository(users);
+        tasks.saveAll(taskDataAccess.findAll());
+        return new TaskLogic(tasks, new InMemoryLogRepository(logDataAccess.findAll()), users);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.setOut(originalOut);
+        BenchData.deleteDir(dir);
+    }
+
+    @Benchmark
+    public void showAll() {
+        taskLogic.showAll(loginUser);
+    }
+
+    @Benchmark
+    public TaskPage showFirstPage() {
+        return taskLogic.showPage(loginUser, 0, 20, 1);
+    }
+
+    @Benchmark
+    public SortedMap<Integer, int[]> countByRepUser() {
+        return taskLogic.countByRepUser();
+    }
+
+    @Benchmark
+    public void changeStatus() throws AppException, IOException {
+        int candidates = rows / 3;
+        if (changed >= 2 * candidates) { // 全てのタスクが完了したらファイルを元に戻す
+            Files.copy(master, dir.resolve("tasks.csv"), StandardCopyOption.REPLACE_EXISTING);
+            if (engine.equals("memory")) {
+                taskLogic = newTaskLogic();
+            }
+            changed = 0;
+        }
+        int code = (changed % candidates + 1) * 3; // 未着手のタスク
+        int status = changed < candidates ? 1 : 2;
+        changed++;
+        taskLogic.changeStatus(code, status, loginUser);
+    }
+}
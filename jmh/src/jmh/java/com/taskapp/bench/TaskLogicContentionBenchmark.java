@@ -0,0 +1,107 @@
+package com.taskapp.bench;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import com.taskapp.dataaccess.LogDataAccess;
+import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.exception.AppException;
+import com.taskapp.logic.TaskLogic;
+import com.taskapp.model.User;
+
+/**
+ * 複数のスレッドが異なるタスクのステータスを同時に変更した場合の、1スレッドあたり{@value #BATCH}件の変更にかかる時間を
+ * 更新方式ごとに計測します。-t でスレッド数を変えて実行し、スレッド数を増やしても時間が伸びなければ並行に実行できています。
+ * 追記型でない更新はファイル全体の書き換えを1件ずつ行うため、時間はスレッド数にほぼ比例して伸びます。
+ * 各スレッドは未着手（コードが3の倍数）のタスクを重ならないように分け合い、計測のたびにファイルを元に戻します。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, batchSize = TaskLogicContentionBenchmark.BATCH)
+@Measurement(iterations = 5, batchSize = TaskLogicContentionBenchmark.BATCH)
+public class TaskLogicContentionBenchmark {
+    static final int BATCH = 200; // 1回の計測で1スレッドが変更するタスク数
+
+    // taskapp.task.appendUpdatesの値
+    @Param({ "false", "true" })
+    public boolean appendUpdates;
+
+    private Path master;
+    private Path dir;
+    private TaskLogic taskLogic;
+    private User loginUser;
+
+    @Setup(Level.Trial)
+    public void setUp(BenchmarkParams params) throws IOException {
+        // 全てのスレッドが変更するだけの未着手のタスクを用意する
+        master = BenchData.tasks(3 * BATCH * params.getThreads(), BenchData.USER_COUNT);
+        dir = BenchData.workDir(BenchData.users(BenchData.USER_COUNT), "users.csv", master, "tasks.csv");
+    }
+
+    /**
+     * 計測のたびにタスクとログのファイルを元に戻し、TaskLogicを作り直します。
+     */
+    @Setup(Level.Iteration)
+    public void restore() throws IOException {
+        Files.copy(master, dir.resolve("tasks.csv"), StandardCopyOption.REPLACE_EXISTING);
+        Files.writeString(dir.resolve("logs.csv"), "Task_Code,Change_User_Code,Status,Change_Date\n");
+        Files.deleteIfExists(dir.resolve("tasks.idx")); // 元に戻す前のファイルの索引を使わない
+        UserDataAccess userDataAccess = new UserDataAccess(dir.resolve("users.csv").toString());
+        System.setProperty("taskapp.task.appendUpdates", Boolean.toString(appendUpdates));
+        try {
+            taskLogic = new TaskLogic(new TaskDataAccess(dir.resolve("tasks.csv").toString(), userDataAccess),
+                    new LogDataAccess(dir.resolve("logs.csv").toString()), userDataAccess);
+        } finally {
+            System.clearProperty("taskapp.task.appendUpdates");
+        }
+        loginUser = userDataAccess.findByCode(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchData.deleteDir(dir);
+    }
+
+    /**
+     * スレッドごとに変更するタスクの位置です。
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int index; // スレッドの番号
+        int count; // スレッド数
+        int next;  // このスレッドが次に変更するタスクの順番
+
+        @Setup(Level.Iteration)
+        public void reset(ThreadParams params) {
+            index = params.getThreadIndex();
+            count = params.getThreadCount();
+            next = 0;
+        }
+    }
+
+    @Benchmark
+    public void changeStatus(Cursor cursor) throws AppException {
+        int code = 3 * (cursor.next++ * cursor.count + cursor.index + 1); // 他のスレッドと重ならない未着手のタスク
+        taskLogic.changeStatus(code, 1, loginUser);
+    }
+}
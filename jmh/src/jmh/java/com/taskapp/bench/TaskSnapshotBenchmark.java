@@ -0,0 +1,62 @@
+package com.taskapp.bench;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.TaskTable;
+import com.taskapp.dataaccess.UserDataAccess;
+
+/**
+ * TaskDataAccess#findTableの時間を、毎回CSVを解析する場合とメモリ上の行から作る場合（-Dtaskapp.task.snapshot=true）で計測します。
+ * メモリ上の行を使う場合は、前回の読み込み以降に追記された行がなければCSVを読まずに表を作ります。
+ * 起動直後のスナップショットの読み込み時間はTaskSnapshotTestのtestColdStartFromSnapshot（gradle loadTest）で確認します。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TaskSnapshotBenchmark {
+    @Param({ "100000", "10000000" })
+    public int rows;
+
+    @Param({ "false", "true" })
+    public boolean snapshot;
+
+    private Path dir;
+    private TaskDataAccess taskDataAccess;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = BenchData.workDir(BenchData.users(BenchData.USER_COUNT), "users.csv",
+                BenchData.tasks(rows, BenchData.USER_COUNT), "tasks.csv");
+        System.setProperty("taskapp.task.snapshot", Boolean.toString(snapshot));
+        try {
+            taskDataAccess = new TaskDataAccess(dir.resolve("tasks.csv").toString(),
+                    new UserDataAccess(dir.resolve("users.csv").toString()));
+        } finally {
+            System.clearProperty("taskapp.task.snapshot");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchData.deleteDir(dir);
+    }
+
+    @Benchmark
+    public TaskTable findTable() {
+        return taskDataAccess.findTable();
+    }
+}
@@ -0,0 +1,73 @@
+package com.taskapp.bench;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jol.info.GraphLayout;
+
+import com.taskapp.dataaccess.TaskDataAccess;
+import com.taskapp.dataaccess.TaskTable;
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.model.Task;
+
+/**
+ * TaskDataAccess#findAll（Taskのリスト）とfindTable（列ごとの配列の表）の読み込み時間と保持ヒープを比較します。
+ * 保持ヒープは結果から到達できる全てのオブジェクトの合計サイズをJOLで測り、タスク1,000,000件あたりに換算して試行の最後に表示します。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TaskTableBenchmark {
+    @Param({ "100000", "1000000" })
+    public int rows;
+
+    @Param({ "10", "1000" })
+    public int userCount;
+
+    private Path dir;
+    private TaskDataAccess taskDataAccess;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = BenchData.workDir(BenchData.users(userCount), "users.csv",
+                BenchData.tasks(rows, userCount), "tasks.csv");
+        taskDataAccess = new TaskDataAccess(dir.resolve("tasks.csv").toString(),
+                new UserDataAccess(dir.resolve("users.csv").toString()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try {
+            System.out.printf("%n保持ヒープ（タスク1,000,000件あたり、%d件・ユーザー%d人）：findAll %.1fMB、findTable %.1fMB%n",
+                    rows, userCount, perMillion(taskDataAccess.findAll()), perMillion(taskDataAccess.findTable()));
+        } finally {
+            BenchData.deleteDir(dir);
+        }
+    }
+
+    @Benchmark
+    public List<Task> findAll() {
+        return taskDataAccess.findAll();
+    }
+
+    @Benchmark
+    public TaskTable findTable() {
+        return taskDataAccess.findTable();
+    }
+
+    private double perMillion(Object result) {
+        return GraphLayout.parseInstance(result).totalSize() * (1_000_000.0 / rows) / (1024 * 1024);
+    }
+}
@@ -0,0 +1,60 @@
+package com.taskapp.bench;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.model.User;
+
+/**
+ * UserDataAccessのログイン時の検索をユーザー数ごとに計測します。
+ * 最初の検索でファイルを読み込んだ後は、更新日時とサイズの確認だけで検索できることを確認します。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserDataAccessBenchmark {
+    @Param({ "1000", "100000", "10000000" })
+    public int rows;
+
+    private Path dir;
+    private UserDataAccess userDataAccess;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = BenchData.workDir(BenchData.users(rows), "users.csv");
+        userDataAccess = new UserDataAccess(dir.resolve("users.csv").toString());
+        userDataAccess.findByCode(1); // 計測前に読み込んでおく
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchData.deleteDir(dir);
+    }
+
+    @Benchmark
+    public User findByEmailAndPassword() {
+        next = next * 31 + 7; // 毎回異なるユーザーを検索する
+        int code = Math.floorMod(next, rows) + 1;
+        return userDataAccess.findByEmailAndPassword(BenchData.email(code), BenchData.password(code));
+    }
+
+    @Benchmark
+    public User findByCode() {
+        next = next * 31 + 7;
+        return userDataAccess.findByCode(Math.floorMod(next, rows) + 1);
+    }
+}
@@ -0,0 +1,65 @@
+package com.taskapp.bench;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.taskapp.dataaccess.UserDataAccess;
+import com.taskapp.model.User;
+
+/**
+ * パスワードを変換済みのusers.csvに対する1秒あたりのログイン数を、反復回数ごとに計測します。
+ * 1スレッド（既定）で実行した結果が1コアあたりの値です。-t でスレッド数を増やすとコア数に応じた伸びを確認できます。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UserLoginBenchmark {
+    private static final int USERS = 100;
+
+    @Param({ "10000", "210000" })
+    public int iterations;
+
+    private Path dir;
+    private UserDataAccess userDataAccess;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = BenchData.workDir(BenchData.users(USERS), "users.csv");
+        System.setProperty("taskapp.password.iterations", Integer.toString(iterations));
+        try {
+            userDataAccess = new UserDataAccess(dir.resolve("users.csv").toString());
+            userDataAccess.hashPasswords();
+        } finally {
+            System.clearProperty("taskapp.password.iterations");
+        }
+        userDataAccess.findByCode(1); // 計測前に読み込んでおく
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchData.deleteDir(dir);
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public User login(Cursor cursor) {
+        int code = cursor.next++ % USERS + 1; // 毎回異なるユーザーでログインする
+        return userDataAccess.findByEmailAndPassword(BenchData.email(code), BenchData.password(code));
+    }
+}